@@ -0,0 +1,24 @@
+package org.mintframework.db.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口。接受jmh的命令行参数，并默认加上gc profiler（相当于 -prof gc）统计每次操作的分配
+ */
+public class BenchmarkRunner {
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,93 @@
+package org.mintframework.db.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mintframework.db.BeanWriter;
+import org.mintframework.db.SQLExecutor;
+import org.mintframework.db.benchmark.jdbc.FakeConnection;
+import org.mintframework.db.benchmark.jdbc.FakeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 参数绑定、批量语句的构建、bean写入器和生成键的读取
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindingBenchmark {
+	private static final String INSERT = "insert into user(id, username, password, age, gender, balance, update_time) values(?,?,?,?,?,?,?)";
+	
+	@Param({"100", "10000"})
+	public int batchRows;
+	
+	private SQLExecutor executor;
+	private Connection connection;
+	private Object[] row;
+	private Object[][] batch;
+	private BeanWriter<UserRow> writer;
+	private List<UserRow> users;
+	
+	@Setup
+	public void setup(){
+		executor = new SQLExecutor();
+		connection = new FakeConnection(FakeTable.users(0));
+		row = new Object[]{1L, "user", "password", 20, 1, new BigDecimal("10.25"), 1500000000000L};
+		
+		batch = new Object[batchRows][];
+		for(int i=0; i<batchRows; i++){
+			batch[i] = new Object[]{(long) i, "user" + i, i % 7 == 0 ? null : "password", 20 + i % 30, i % 2, BigDecimal.valueOf(i, 2), 1500000000000L + i};
+		}
+		
+		writer = executor.beanWriter(UserRow.class, "user", null, "id");
+		users = new ArrayList<UserRow>(batchRows);
+		for(int i=0; i<batchRows; i++){
+			UserRow user = new UserRow();
+			user.setId((long) i);
+			user.setUsername("user" + i);
+			user.setPassword(i % 7 == 0 ? null : "password");
+			user.setAge(20 + i % 30);
+			user.setGender(i % 2);
+			user.setCreateTime(1500000000000L);
+			user.setUpdateTime(1500000000000L + i);
+			users.add(user);
+		}
+	}
+	
+	@Benchmark
+	public int update() throws SQLException {
+		return executor.update(connection, INSERT, row);
+	}
+	
+	@Benchmark
+	public int[] batch() throws SQLException {
+		return executor.batch(connection, INSERT, batch);
+	}
+	
+	@Benchmark
+	public int beanWriterInsert() throws SQLException {
+		return writer.insert(connection, users, 1000);
+	}
+	
+	@Benchmark
+	public long[] insertBatchWithKeys() throws SQLException {
+		return executor.insertBatch(connection, INSERT, batch, 1000);
+	}
+}
@@ -0,0 +1,81 @@
+package org.mintframework.db.benchmark;
+
+/**
+ * 对数分桶的延迟直方图，相对误差不超过约3%，单位纳秒。非线程安全，每个线程一个，结束后合并
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final long[] counts = new long[BUCKETS];
+	private long total;
+	private long max;
+	private long sum;
+	
+	public void record(long nanos){
+		if(nanos < 0) nanos = 0;
+		counts[index(nanos)]++;
+		total++;
+		sum += nanos;
+		if(nanos > max) max = nanos;
+	}
+	
+	public void merge(LatencyHistogram other){
+		for(int i=0; i<BUCKETS; i++){
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+	
+	public long count(){
+		return total;
+	}
+	
+	public long max(){
+		return max;
+	}
+	
+	public double mean(){
+		return total == 0 ? 0 : (double) sum / total;
+	}
+	
+	/**
+	 * @param percentile 0到100
+	 * @return 分位数的上界，单位纳秒
+	 */
+	public long percentile(double percentile){
+		if(total == 0) return 0;
+		long rank = (long) Math.ceil(percentile / 100.0 * total);
+		if(rank < 1) rank = 1;
+		
+		long seen = 0;
+		for(int i=0; i<BUCKETS; i++){
+			seen += counts[i];
+			if(seen >= rank){
+				return Math.min(upperBound(i), max);
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * 小于32的值每个值一个桶；更大的值按最高位分组，每组32个桶
+	 */
+	private static int index(long value){
+		if(value < SUB_BUCKETS) return (int) value;
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;
+		return (shift + 1) * SUB_BUCKETS + sub;
+	}
+	
+	private static long upperBound(int index){
+		int group = index / SUB_BUCKETS;
+		long sub = index % SUB_BUCKETS;
+		if(group == 0) return sub;
+		return ((SUB_BUCKETS + sub + 1) << (group - 1)) - 1;
+	}
+}
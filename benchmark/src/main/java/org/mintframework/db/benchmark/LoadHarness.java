@@ -0,0 +1,185 @@
+package org.mintframework.db.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.mintframework.db.MiniConnectionPool;
+import org.mintframework.db.SQLExecutor;
+import org.mintframework.db.benchmark.jdbc.FakeTable;
+import org.mintframework.db.benchmark.jdbc.LatencyDistribution;
+import org.mintframework.db.benchmark.jdbc.SimulatedDataSource;
+import org.mintframework.db.benchmark.jdbc.SimulationProfile;
+
+/**
+ * 连接池压力测试：多个线程通过MiniConnectionPool + SQLExecutor不断查询SimulatedDataSource，
+ * 结束后报告吞吐量、端到端延迟和借连接等待时间的分位数，以及超时和错误的次数。<br/>
+ * 运行：java -cp target/benchmarks.jar org.mintframework.db.benchmark.LoadHarness --threads=64 --pool=20 ...<br/>
+ * 参数（括号中是默认值）：<br/>
+ * --threads(64) 并发线程数；--duration(10) 运行秒数；--pool(20) 最大连接数；--timeout(5) 借连接超时秒数；<br/>
+ * --rows(10) 每次查询返回的行数；--connectUs(2000) 建立连接的延迟；--queryP50Us(500)、--queryP99Us(5000) 查询延迟的对数正态分布；<br/>
+ * --errorRate(0) 查询出错概率；--dropRate(0) 连接断开概率；--outageAfter、--outageFor 在第几秒开始模拟宕机以及持续的秒数
+ */
+public class LoadHarness {
+	private final Map<String, String> options;
+	
+	public LoadHarness(Map<String, String> options){
+		this.options = options;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<String, String>();
+		for(String arg : args){
+			if(!arg.startsWith("--") || arg.indexOf('=') < 0){
+				throw new IllegalArgumentException("options must look like --name=value: " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		
+		new LoadHarness(options).run();
+	}
+	
+	private long longOption(String name, long defaultValue){
+		String value = options.get(name);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+	
+	private double doubleOption(String name, double defaultValue){
+		String value = options.get(name);
+		return value == null ? defaultValue : Double.parseDouble(value);
+	}
+	
+	public void run() throws Exception {
+		final int threads = (int) longOption("threads", 64);
+		final long durationSeconds = longOption("duration", 10);
+		final int poolSize = (int) longOption("pool", 20);
+		final int timeout = (int) longOption("timeout", 5);
+		final long outageAfter = longOption("outageAfter", -1);
+		final long outageFor = longOption("outageFor", 0);
+		
+		final SimulationProfile profile = new SimulationProfile()
+				.setConnectLatency(LatencyDistribution.fixed(longOption("connectUs", 2000)))
+				.setQueryLatency(LatencyDistribution.logNormal(longOption("queryP50Us", 500), longOption("queryP99Us", 5000)))
+				.setQueryErrorRate(doubleOption("errorRate", 0))
+				.setConnectionDropRate(doubleOption("dropRate", 0));
+		final SimulatedDataSource dataSource = new SimulatedDataSource(FakeTable.users((int) longOption("rows", 10)), profile);
+		final MiniConnectionPool pool = new MiniConnectionPool(dataSource, poolSize, timeout);
+		final SQLExecutor executor = new SQLExecutor();
+		
+		System.out.println("threads=" + threads + " pool=" + poolSize + " timeout=" + timeout + "s duration=" + durationSeconds + "s");
+		System.out.println("connect=" + profile.getConnectLatency() + " query=" + profile.getQueryLatency() +
+				" errorRate=" + profile.getQueryErrorRate() + " dropRate=" + profile.getConnectionDropRate());
+		
+		final long startNanos = System.nanoTime();
+		final long deadline = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final List<Worker> workers = new ArrayList<Worker>();
+		
+		for(int i=0; i<threads; i++){
+			Worker worker = new Worker(pool, executor, deadline, done);
+			workers.add(worker);
+			Thread thread = new Thread(worker, "load-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		
+		if(outageAfter >= 0){
+			TimeUnit.SECONDS.sleep(outageAfter);
+			System.out.println("outage begins at " + outageAfter + "s");
+			profile.setOutage(true);
+			TimeUnit.SECONDS.sleep(outageFor);
+			profile.setOutage(false);
+			System.out.println("outage ends at " + (outageAfter + outageFor) + "s");
+		}
+		
+		done.await();
+		double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+		
+		LatencyHistogram latency = new LatencyHistogram();
+		LatencyHistogram borrowWait = new LatencyHistogram();
+		long timeouts = 0, errors = 0, failures = 0;
+		for(Worker worker : workers){
+			latency.merge(worker.latency);
+			borrowWait.merge(worker.borrowWait);
+			timeouts += worker.timeouts;
+			errors += worker.errors;
+			failures += worker.failures;
+		}
+		
+		System.out.printf("completed=%d throughput=%.1f ops/s timeouts=%d sqlErrors=%d otherFailures=%d%n",
+				latency.count(), latency.count() / elapsedSeconds, timeouts, errors, failures);
+		print("latency    ", latency);
+		print("borrowWait ", borrowWait);
+		System.out.println("pool: active=" + pool.getActiveConnections() + " idle=" + pool.getInactiveConnections() +
+				" connectsOpened=" + dataSource.getConnectsOpened() + " connectFailures=" + dataSource.getConnectFailures() +
+				" queryErrors=" + dataSource.getQueryErrors() + " drops=" + dataSource.getConnectionDrops());
+		
+		pool.dispose();
+	}
+	
+	private static void print(String name, LatencyHistogram histogram){
+		System.out.printf("%s mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms%n", name,
+				histogram.mean() / 1e6, histogram.percentile(50) / 1e6, histogram.percentile(90) / 1e6,
+				histogram.percentile(99) / 1e6, histogram.percentile(99.9) / 1e6, histogram.max() / 1e6);
+	}
+	
+	private static class Worker implements Runnable {
+		private final MiniConnectionPool pool;
+		private final SQLExecutor executor;
+		private final long deadline;
+		private final CountDownLatch done;
+		
+		final LatencyHistogram latency = new LatencyHistogram();
+		final LatencyHistogram borrowWait = new LatencyHistogram();
+		long timeouts;
+		long errors;
+		long failures;
+		
+		Worker(MiniConnectionPool pool, SQLExecutor executor, long deadline, CountDownLatch done){
+			this.pool = pool;
+			this.executor = executor;
+			this.deadline = deadline;
+			this.done = done;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				while(System.nanoTime() < deadline){
+					long start = System.nanoTime();
+					Connection connection = null;
+					try {
+						connection = pool.getConnection();
+						borrowWait.record(System.nanoTime() - start);
+						executor.selectBeanList(connection, UserRow.class, null, "select * from user where id > ?", 0L);
+						latency.record(System.nanoTime() - start);
+					} catch (MiniConnectionPool.TimeoutException e) {
+						timeouts++;
+					} catch (SQLException e) {
+						errors++;
+					} catch (RuntimeException e) {
+						failures++;
+					} finally {
+						close(connection);
+					}
+				}
+			} finally {
+				done.countDown();
+			}
+		}
+		
+		private void close(Connection connection){
+			if(connection == null) return;
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				errors++;
+			}
+		}
+	}
+}
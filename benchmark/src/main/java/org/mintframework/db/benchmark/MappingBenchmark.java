@@ -0,0 +1,83 @@
+package org.mintframework.db.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mintframework.db.ResultMap;
+import org.mintframework.db.SQLExecutor;
+import org.mintframework.db.benchmark.jdbc.FakeConnection;
+import org.mintframework.db.benchmark.jdbc.FakeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 结果集映射：bean列表、ResultMap列表、标量列表
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MappingBenchmark {
+	@Param({"10", "1000", "100000"})
+	public int rows;
+	
+	@Param({"false", "true"})
+	public boolean camelhump;
+	
+	private SQLExecutor executor;
+	private Connection users;
+	private Connection wide;
+	private Connection longs;
+	
+	@Setup
+	public void setup(){
+		executor = new SQLExecutor();
+		executor.setAutoUnderlineToCamelhump(camelhump);
+		users = new FakeConnection(FakeTable.users(rows));
+		wide = new FakeConnection(FakeTable.wide(rows, 20));
+		longs = new FakeConnection(FakeTable.longs(rows));
+	}
+	
+	@Benchmark
+	public List<UserRow> beanList() throws SQLException {
+		return executor.selectBeanList(users, UserRow.class, null, "select * from user");
+	}
+	
+	@Benchmark
+	public List<UserRow> beanListWithParams() throws SQLException {
+		return executor.selectBeanList(users, UserRow.class, null, "select * from user where age > ?", 18);
+	}
+	
+	@Benchmark
+	public UserRow bean() throws SQLException {
+		return executor.selectBean(users, UserRow.class, null, "select * from user where id = ?", 1L);
+	}
+	
+	@Benchmark
+	public List<ResultMap> resultMapList() throws SQLException {
+		return executor.selectResultMapList(users, "select * from user");
+	}
+	
+	@Benchmark
+	public List<ResultMap> wideResultMapList() throws SQLException {
+		return executor.selectResultMapList(wide, "select * from wide");
+	}
+	
+	@Benchmark
+	public List<Long> scalarList() throws SQLException {
+		return executor.selectScalarList(longs, Long.class, "select id from user");
+	}
+}
@@ -0,0 +1,80 @@
+package org.mintframework.db.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.mintframework.db.MiniConnectionPool;
+import org.mintframework.db.benchmark.jdbc.FakeConnectionPoolDataSource;
+import org.mintframework.db.benchmark.jdbc.FakeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 连接池的借出和归还，线程数从1到64
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolBenchmark {
+	@Param({"8", "32"})
+	public int maxConnections;
+	
+	private MiniConnectionPool pool;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		pool = new MiniConnectionPool(new FakeConnectionPoolDataSource(FakeTable.users(1)), maxConnections, 60);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException{
+		pool.dispose();
+	}
+	
+	private boolean borrowAndReturn() throws SQLException {
+		Connection connection = pool.getConnection();
+		boolean autoCommit = connection.getAutoCommit();
+		connection.close();
+		return autoCommit;
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public boolean borrowReturn1() throws SQLException {
+		return borrowAndReturn();
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public boolean borrowReturn4() throws SQLException {
+		return borrowAndReturn();
+	}
+	
+	@Benchmark
+	@Threads(16)
+	public boolean borrowReturn16() throws SQLException {
+		return borrowAndReturn();
+	}
+	
+	@Benchmark
+	@Threads(64)
+	public boolean borrowReturn64() throws SQLException {
+		return borrowAndReturn();
+	}
+}
@@ -0,0 +1,162 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * 连接。所有查询都返回构造时给定的FakeTable。
+ * 由FakePooledConnection创建时是逻辑连接，close()只通知连接池回收
+ */
+public class FakeConnection extends UnsupportedConnection {
+	private final FakeTable table;
+	private final FakePooledConnection owner;
+	private boolean autoCommit = true;
+	private boolean readOnly;
+	private int isolation = Connection.TRANSACTION_REPEATABLE_READ;
+	private boolean closed;
+	private long lastInsertId;
+
+	public FakeConnection(FakeTable table){
+		this(table, null);
+	}
+
+	FakeConnection(FakeTable table, FakePooledConnection owner){
+		this.table = table;
+		this.owner = owner;
+	}
+
+	public FakeTable getTable(){
+		return table;
+	}
+
+	/**
+	 * 语句执行前调用
+	 * @param sql
+	 * @throws SQLException
+	 */
+	void beforeExecute(String sql) throws SQLException {
+		checkOpen();
+		if(owner != null) owner.beforeExecute(sql);
+	}
+
+	/**
+	 * @return 模拟的自增id
+	 */
+	long nextInsertId(){
+		return ++lastInsertId;
+	}
+
+	private void checkOpen() throws SQLException {
+		if(closed) throw new SQLException("connection closed");
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		checkOpen();
+		return new FakePreparedStatement(this, null);
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		return createStatement();
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		checkOpen();
+		return new FakePreparedStatement(this, sql);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		return prepareStatement(sql);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		return prepareStatement(sql);
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		checkOpen();
+		this.autoCommit = autoCommit;
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		return autoCommit;
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		checkOpen();
+		if(owner != null) owner.beforeExecute("COMMIT");
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		checkOpen();
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		this.readOnly = readOnly;
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		return readOnly;
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		this.isolation = level;
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		return isolation;
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException {
+		return !closed && (owner == null || !owner.isBroken());
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return null;
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if(closed) return;
+		closed = true;
+		if(owner != null) owner.logicalConnectionClosed();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if(iface.isInstance(this)) return iface.cast(this);
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+}
@@ -0,0 +1,61 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+
+/**
+ * 进程内的数据源，供MiniConnectionPool使用。所有连接的查询都返回同一个FakeTable
+ */
+public class FakeConnectionPoolDataSource implements ConnectionPoolDataSource {
+	private final FakeTable table;
+	private PrintWriter logWriter;
+	private int loginTimeout;
+
+	public FakeConnectionPoolDataSource(FakeTable table){
+		this.table = table;
+	}
+
+	public FakeTable getTable(){
+		return table;
+	}
+
+	@Override
+	public PooledConnection getPooledConnection() throws SQLException {
+		return new FakePooledConnection(table);
+	}
+
+	@Override
+	public PooledConnection getPooledConnection(String user, String password) throws SQLException {
+		return getPooledConnection();
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return logWriter;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		this.logWriter = out;
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		this.loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException("getParentLogger");
+	}
+}
@@ -0,0 +1,87 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+/**
+ * 物理连接。每次getConnection返回一个新的逻辑连接，逻辑连接关闭时通知监听器
+ */
+public class FakePooledConnection implements PooledConnection {
+	private final FakeTable table;
+	private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<ConnectionEventListener>();
+	private volatile boolean closed;
+
+	public FakePooledConnection(FakeTable table){
+		this.table = table;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if(closed) throw new SQLException("pooled connection closed");
+		return new FakeConnection(table, this);
+	}
+
+	/**
+	 * 语句执行前调用，子类可以在这里模拟延迟和故障
+	 * @param sql
+	 * @throws SQLException
+	 */
+	protected void beforeExecute(String sql) throws SQLException {
+		if(closed) throw new SQLException("pooled connection closed");
+	}
+
+	/**
+	 * @return 物理连接是否已经不可用
+	 */
+	protected boolean isBroken(){
+		return closed;
+	}
+
+	void logicalConnectionClosed(){
+		ConnectionEvent event = new ConnectionEvent(this);
+		for(ConnectionEventListener listener : listeners){
+			listener.connectionClosed(event);
+		}
+	}
+
+	/**
+	 * 通知监听器物理连接出错，连接池会丢弃这个连接
+	 * @param e
+	 */
+	protected void fireConnectionError(SQLException e){
+		ConnectionEvent event = new ConnectionEvent(this, e);
+		for(ConnectionEventListener listener : listeners){
+			listener.connectionErrorOccurred(event);
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		closed = true;
+	}
+
+	@Override
+	public void addConnectionEventListener(ConnectionEventListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeConnectionEventListener(ConnectionEventListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void addStatementEventListener(StatementEventListener listener) {
+	}
+
+	@Override
+	public void removeStatementEventListener(StatementEventListener listener) {
+	}
+}
@@ -0,0 +1,371 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * 预处理语句。参数只记录在数组中，查询返回连接上配置的FakeTable，更新返回1，
+ * 每个更新行生成一个连接内递增的键。同时也作为普通Statement使用
+ */
+public class FakePreparedStatement extends UnsupportedPreparedStatement {
+	private final FakeConnection connection;
+	private final String sql;
+	private Object[] params = new Object[8];
+	private int batchCount;
+	private int maxRows;
+	private int fetchSize;
+	private int queryTimeout;
+	private ResultSet resultSet;
+	private int updateCount = -1;
+	private long[] generatedKeys = new long[0];
+	private String[] pending;
+	private int pendingIndex;
+	private boolean closed;
+
+	public FakePreparedStatement(FakeConnection connection, String sql){
+		this.connection = connection;
+		this.sql = sql;
+	}
+
+	/**
+	 * @return 预处理的sql，普通Statement为null
+	 */
+	public String getSql(){
+		return sql;
+	}
+
+	/**
+	 * @param index 从1开始
+	 * @return 最近一次绑定的参数值
+	 */
+	public Object getParameter(int index){
+		return index <= params.length ? params[index - 1] : null;
+	}
+
+	private void set(int index, Object value) throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		if(index < 1) throw new SQLException("invalid parameter index " + index);
+		if(index > params.length){
+			params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+		}
+		params[index - 1] = value;
+	}
+
+	private ResultSet query(String sql) throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		connection.beforeExecute(sql);
+		resultSet = new FakeResultSet(connection.getTable(), this, maxRows);
+		updateCount = -1;
+		return resultSet;
+	}
+
+	private int update(String sql) throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		connection.beforeExecute(sql);
+		resultSet = null;
+		updateCount = 1;
+		generateKeys(1);
+		return updateCount;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		return query(sql);
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		return query(sql);
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		return update(sql);
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		return update(sql);
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		return execute(sql);
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		//多语句只算一次往返，getMoreResults依次返回各语句的结果
+		connection.beforeExecute(sql);
+		pending = sql == null ? new String[1] : sql.split(";");
+		pendingIndex = 0;
+		return nextResult();
+	}
+
+	private boolean nextResult(){
+		String part = pending[pendingIndex++];
+		if(part != null && part.trim().regionMatches(true, 0, "select", 0, 6)){
+			resultSet = new FakeResultSet(connection.getTable(), this, maxRows);
+			updateCount = -1;
+			return true;
+		}
+		resultSet = null;
+		updateCount = 1;
+		return false;
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		batchCount++;
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		if(closed) throw new SQLException("statement closed");
+		connection.beforeExecute(sql);
+		int[] counts = new int[batchCount];
+		Arrays.fill(counts, 1);
+		generateKeys(batchCount);
+		batchCount = 0;
+		return counts;
+	}
+
+	private void generateKeys(int rows){
+		generatedKeys = new long[rows];
+		for(int i=0; i<rows; i++){
+			generatedKeys[i] = connection.nextInsertId();
+		}
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		Object[][] rows = new Object[generatedKeys.length][];
+		for(int i=0; i<rows.length; i++){
+			rows[i] = new Object[]{Long.valueOf(generatedKeys[i])};
+		}
+		return new FakeResultSet(new FakeTable(new String[]{"GENERATED_KEY"}, new int[]{Types.BIGINT}, rows), this);
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		batchCount = 0;
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		Arrays.fill(params, null);
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return resultSet;
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return updateCount;
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		if(pending != null && pendingIndex < pending.length){
+			return nextResult();
+		}
+		pending = null;
+		resultSet = null;
+		updateCount = -1;
+		return false;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return connection;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		closed = true;
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return maxRows;
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		this.maxRows = max;
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return fetchSize;
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		this.fetchSize = rows;
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		return queryTimeout;
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		this.queryTimeout = seconds;
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return null;
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+	}
+
+	@Override
+	public void setNull(int index, int sqlType) throws SQLException {
+		set(index, null);
+	}
+
+	@Override
+	public void setString(int index, String x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setBoolean(int index, boolean x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setByte(int index, byte x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setShort(int index, short x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setInt(int index, int x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setLong(int index, long x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setFloat(int index, float x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setDouble(int index, double x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setBigDecimal(int index, BigDecimal x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setBytes(int index, byte[] x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setDate(int index, Date x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setTime(int index, Time x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setTimestamp(int index, Timestamp x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setTimestamp(int index, Timestamp x, Calendar cal) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setObject(int index, Object x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setObject(int index, Object x, int targetSqlType) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setBinaryStream(int index, InputStream x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setCharacterStream(int index, Reader reader) throws SQLException {
+		set(index, reader);
+	}
+
+	@Override
+	public void setBlob(int index, Blob x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setClob(int index, Clob x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public void setArray(int index, Array x) throws SQLException {
+		set(index, x);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if(iface.isInstance(this)) return iface.cast(this);
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+}
@@ -0,0 +1,262 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * 在FakeTable上只进游标的结果集。数值列按驱动的习惯转换，null列的数值getter返回0并设置wasNull
+ */
+public class FakeResultSet extends UnsupportedResultSet {
+	private final FakeTable table;
+	private final Statement statement;
+	private final int maxRows;
+	private int row = -1;
+	private boolean wasNull;
+	private boolean closed;
+
+	public FakeResultSet(FakeTable table, Statement statement){
+		this(table, statement, 0);
+	}
+
+	/**
+	 * @param table
+	 * @param statement
+	 * @param maxRows 大于0时最多返回的行数
+	 */
+	public FakeResultSet(FakeTable table, Statement statement, int maxRows){
+		this.table = table;
+		this.statement = statement;
+		this.maxRows = maxRows;
+	}
+
+	private Object value(int column) throws SQLException {
+		if(closed) throw new SQLException("result set closed");
+		if(row < 0 || row >= table.getRowCount()) throw new SQLException("no current row");
+		if(column < 1 || column > table.getColumnCount()) throw new SQLException("invalid column index " + column);
+
+		Object value = table.value(row, column);
+		wasNull = value == null;
+		return value;
+	}
+
+	private Number number(int column) throws SQLException {
+		Object value = value(column);
+		if(value == null) return 0;
+		if(value instanceof Number) return (Number) value;
+		if(value instanceof Boolean) return ((Boolean) value) ? 1 : 0;
+		return new BigDecimal(value.toString());
+	}
+
+	@Override
+	public boolean next() throws SQLException {
+		if(closed) throw new SQLException("result set closed");
+		int limit = maxRows > 0 ? Math.min(maxRows, table.getRowCount()) : table.getRowCount();
+		if(row < limit) row++;
+		return row < limit;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		closed = true;
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException {
+		return wasNull;
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return new FakeResultSetMetaData(table);
+	}
+
+	@Override
+	public Statement getStatement() throws SQLException {
+		return statement;
+	}
+
+	@Override
+	public int getRow() throws SQLException {
+		return row + 1;
+	}
+
+	@Override
+	public int getType() throws SQLException {
+		return ResultSet.TYPE_FORWARD_ONLY;
+	}
+
+	@Override
+	public int getConcurrency() throws SQLException {
+		return ResultSet.CONCUR_READ_ONLY;
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return 0;
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+	}
+
+	@Override
+	public int findColumn(String label) throws SQLException {
+		int index = table.findColumn(label);
+		if(index < 0) throw new SQLException("there is no column named " + label);
+		return index;
+	}
+
+	@Override
+	public String getString(int column) throws SQLException {
+		Object value = value(column);
+		return value == null ? null : value.toString();
+	}
+
+	@Override
+	public boolean getBoolean(int column) throws SQLException {
+		Object value = value(column);
+		if(value instanceof Boolean) return (Boolean) value;
+		return value != null && number(column).intValue() != 0;
+	}
+
+	@Override
+	public byte getByte(int column) throws SQLException {
+		return number(column).byteValue();
+	}
+
+	@Override
+	public short getShort(int column) throws SQLException {
+		return number(column).shortValue();
+	}
+
+	@Override
+	public int getInt(int column) throws SQLException {
+		return number(column).intValue();
+	}
+
+	@Override
+	public long getLong(int column) throws SQLException {
+		return number(column).longValue();
+	}
+
+	@Override
+	public float getFloat(int column) throws SQLException {
+		return number(column).floatValue();
+	}
+
+	@Override
+	public double getDouble(int column) throws SQLException {
+		return number(column).doubleValue();
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int column) throws SQLException {
+		Object value = value(column);
+		if(value == null) return null;
+		if(value instanceof BigDecimal) return (BigDecimal) value;
+		return new BigDecimal(value.toString());
+	}
+
+	@Override
+	public byte[] getBytes(int column) throws SQLException {
+		Object value = value(column);
+		if(value == null) return null;
+		if(value instanceof byte[]) return (byte[]) value;
+		return value.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public Date getDate(int column) throws SQLException {
+		Object value = value(column);
+		return value == null ? null : new Date(number(column).longValue());
+	}
+
+	@Override
+	public Time getTime(int column) throws SQLException {
+		Object value = value(column);
+		return value == null ? null : new Time(number(column).longValue());
+	}
+
+	@Override
+	public Timestamp getTimestamp(int column) throws SQLException {
+		Object value = value(column);
+		return value == null ? null : new Timestamp(number(column).longValue());
+	}
+
+	@Override
+	public InputStream getBinaryStream(int column) throws SQLException {
+		byte[] bytes = getBytes(column);
+		return bytes == null ? null : new ByteArrayInputStream(bytes);
+	}
+
+	@Override
+	public Reader getCharacterStream(int column) throws SQLException {
+		String value = getString(column);
+		return value == null ? null : new StringReader(value);
+	}
+
+	@Override
+	public Object getObject(int column) throws SQLException {
+		return value(column);
+	}
+
+	@Override
+	public <T> T getObject(int column, Class<T> type) throws SQLException {
+		Object value = value(column);
+		if(value == null || type.isInstance(value)) return type.cast(value);
+		throw new SQLFeatureNotSupportedException("conversion to " + type.getName() + " not supported");
+	}
+
+	@Override
+	public String getString(String label) throws SQLException {
+		return getString(findColumn(label));
+	}
+
+	@Override
+	public int getInt(String label) throws SQLException {
+		return getInt(findColumn(label));
+	}
+
+	@Override
+	public long getLong(String label) throws SQLException {
+		return getLong(findColumn(label));
+	}
+
+	@Override
+	public double getDouble(String label) throws SQLException {
+		return getDouble(findColumn(label));
+	}
+
+	@Override
+	public Object getObject(String label) throws SQLException {
+		return getObject(findColumn(label));
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if(iface.isInstance(this)) return iface.cast(this);
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+}
@@ -0,0 +1,149 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+
+/**
+ * FakeTable的元数据
+ */
+public class FakeResultSetMetaData implements ResultSetMetaData {
+	private final FakeTable table;
+
+	public FakeResultSetMetaData(FakeTable table){
+		this.table = table;
+	}
+
+	@Override
+	public int getColumnCount() throws SQLException {
+		return table.getColumnCount();
+	}
+
+	@Override
+	public String getColumnLabel(int column) throws SQLException {
+		return table.getColumnName(column);
+	}
+
+	@Override
+	public String getColumnName(int column) throws SQLException {
+		return table.getColumnName(column);
+	}
+
+	@Override
+	public int getColumnType(int column) throws SQLException {
+		return table.getColumnType(column);
+	}
+
+	@Override
+	public String getColumnTypeName(int column) throws SQLException {
+		switch (table.getColumnType(column)) {
+		case Types.BIGINT: return "BIGINT";
+		case Types.INTEGER: return "INT";
+		case Types.DOUBLE: return "DOUBLE";
+		case Types.DECIMAL: return "DECIMAL";
+		case Types.VARCHAR: return "VARCHAR";
+		case Types.BLOB: return "BLOB";
+		default: return "OTHER";
+		}
+	}
+
+	@Override
+	public String getColumnClassName(int column) throws SQLException {
+		switch (table.getColumnType(column)) {
+		case Types.BIGINT: return Long.class.getName();
+		case Types.INTEGER: return Integer.class.getName();
+		case Types.DOUBLE: return Double.class.getName();
+		case Types.DECIMAL: return BigDecimal.class.getName();
+		case Types.VARCHAR: return String.class.getName();
+		default: return Object.class.getName();
+		}
+	}
+
+	@Override
+	public boolean isAutoIncrement(int column) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public boolean isCaseSensitive(int column) throws SQLException {
+		return table.getColumnType(column) == Types.VARCHAR;
+	}
+
+	@Override
+	public boolean isSearchable(int column) throws SQLException {
+		return true;
+	}
+
+	@Override
+	public boolean isCurrency(int column) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public int isNullable(int column) throws SQLException {
+		return columnNullable;
+	}
+
+	@Override
+	public boolean isSigned(int column) throws SQLException {
+		return table.getColumnType(column) != Types.VARCHAR;
+	}
+
+	@Override
+	public int getColumnDisplaySize(int column) throws SQLException {
+		return 20;
+	}
+
+	@Override
+	public String getSchemaName(int column) throws SQLException {
+		return "";
+	}
+
+	@Override
+	public int getPrecision(int column) throws SQLException {
+		return 20;
+	}
+
+	@Override
+	public int getScale(int column) throws SQLException {
+		return table.getColumnType(column) == Types.DECIMAL ? 2 : 0;
+	}
+
+	@Override
+	public String getTableName(int column) throws SQLException {
+		return "fake";
+	}
+
+	@Override
+	public String getCatalogName(int column) throws SQLException {
+		return "";
+	}
+
+	@Override
+	public boolean isReadOnly(int column) throws SQLException {
+		return true;
+	}
+
+	@Override
+	public boolean isWritable(int column) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public boolean isDefinitelyWritable(int column) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if(iface.isInstance(this)) return iface.cast(this);
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+}
@@ -0,0 +1,129 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+
+/**
+ * Fake驱动返回的确定性数据：列名、列的sql类型和预先生成的行。
+ * 同一组参数生成的数据完全相同，行数据只在构造时分配一次，基准测试中不会产生额外的分配
+ */
+public final class FakeTable {
+	private final String[] columnNames;
+	private final int[] columnTypes;
+	private final Object[][] rows;
+
+	public FakeTable(String[] columnNames, int[] columnTypes, Object[][] rows){
+		if(columnNames.length != columnTypes.length){
+			throw new IllegalArgumentException("column names do not match column types");
+		}
+		this.columnNames = columnNames;
+		this.columnTypes = columnTypes;
+		this.rows = rows;
+	}
+
+	/**
+	 * 与测试用User bean对应的表：id, username, password, age, gender, create_time, update_time
+	 * @param rowCount
+	 * @return
+	 */
+	public static FakeTable users(int rowCount){
+		String[] names = {"id", "username", "password", "age", "gender", "create_time", "update_time"};
+		int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.BIGINT, Types.BIGINT};
+		Object[][] rows = new Object[rowCount][];
+
+		for(int i=0; i<rowCount; i++){
+			long time = 1500000000000L + i * 1000L;
+			rows[i] = new Object[]{
+					Long.valueOf(i + 1),
+					"user" + i,
+					(i % 7 == 0) ? null : "password" + (i % 100),
+					Integer.valueOf(18 + i % 50),
+					Integer.valueOf(i % 2),
+					Long.valueOf(time),
+					Long.valueOf(time + 500)
+			};
+		}
+
+		return new FakeTable(names, types, rows);
+	}
+
+	/**
+	 * 任意列数的表，列类型依次为BIGINT、VARCHAR、INTEGER、DOUBLE、DECIMAL，列名为c1, c2...
+	 * @param rowCount
+	 * @param columnCount
+	 * @return
+	 */
+	public static FakeTable wide(int rowCount, int columnCount){
+		int[] cycle = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.DOUBLE, Types.DECIMAL};
+		String[] names = new String[columnCount];
+		int[] types = new int[columnCount];
+		for(int c=0; c<columnCount; c++){
+			names[c] = "c" + (c + 1);
+			types[c] = cycle[c % cycle.length];
+		}
+
+		Object[][] rows = new Object[rowCount][columnCount];
+		for(int i=0; i<rowCount; i++){
+			for(int c=0; c<columnCount; c++){
+				switch (types[c]) {
+				case Types.BIGINT: rows[i][c] = Long.valueOf((long) i * columnCount + c); break;
+				case Types.VARCHAR: rows[i][c] = "v" + i + "_" + c; break;
+				case Types.INTEGER: rows[i][c] = Integer.valueOf(i + c); break;
+				case Types.DOUBLE: rows[i][c] = Double.valueOf(i * 0.5 + c); break;
+				default: rows[i][c] = BigDecimal.valueOf(i * 100L + c, 2); break;
+				}
+			}
+		}
+
+		return new FakeTable(names, types, rows);
+	}
+
+	/**
+	 * 单列BIGINT的表，用于标量列表
+	 * @param rowCount
+	 * @return
+	 */
+	public static FakeTable longs(int rowCount){
+		Object[][] rows = new Object[rowCount][];
+		for(int i=0; i<rowCount; i++){
+			rows[i] = new Object[]{Long.valueOf(i)};
+		}
+		return new FakeTable(new String[]{"id"}, new int[]{Types.BIGINT}, rows);
+	}
+
+	public int getColumnCount(){
+		return columnNames.length;
+	}
+
+	public int getRowCount(){
+		return rows.length;
+	}
+
+	public String getColumnName(int column){
+		return columnNames[column - 1];
+	}
+
+	public int getColumnType(int column){
+		return columnTypes[column - 1];
+	}
+
+	/**
+	 * @param row 从0开始
+	 * @param column 从1开始
+	 * @return
+	 */
+	Object value(int row, int column){
+		return rows[row][column - 1];
+	}
+
+	/**
+	 * @param label
+	 * @return 从1开始的列索引，没有则返回-1
+	 */
+	int findColumn(String label){
+		for(int i=0; i<columnNames.length; i++){
+			if(columnNames[i].equalsIgnoreCase(label)) return i + 1;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,80 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 模拟延迟的分布
+ */
+public abstract class LatencyDistribution {
+	private static final double Z_99 = 2.3263478740408408;
+
+	/**
+	 * @return 一次延迟，单位纳秒
+	 */
+	public abstract long sampleNanos();
+
+	/**
+	 * 没有延迟
+	 */
+	public static LatencyDistribution none(){
+		return fixed(0);
+	}
+
+	/**
+	 * 固定延迟
+	 * @param micros
+	 */
+	public static LatencyDistribution fixed(final long micros){
+		return new LatencyDistribution() {
+			@Override
+			public long sampleNanos() {
+				return micros * 1000L;
+			}
+
+			@Override
+			public String toString() {
+				return "fixed(" + micros + "us)";
+			}
+		};
+	}
+
+	/**
+	 * [minMicros, maxMicros]之间的均匀分布
+	 */
+	public static LatencyDistribution uniform(final long minMicros, final long maxMicros){
+		if(maxMicros < minMicros) throw new IllegalArgumentException("max < min");
+		return new LatencyDistribution() {
+			@Override
+			public long sampleNanos() {
+				return ThreadLocalRandom.current().nextLong(minMicros * 1000L, maxMicros * 1000L + 1);
+			}
+
+			@Override
+			public String toString() {
+				return "uniform(" + minMicros + "us.." + maxMicros + "us)";
+			}
+		};
+	}
+
+	/**
+	 * 对数正态分布，数据库查询延迟常见的长尾形状
+	 * @param medianMicros 中位数
+	 * @param p99Micros 99分位
+	 */
+	public static LatencyDistribution logNormal(final long medianMicros, final long p99Micros){
+		if(medianMicros <= 0 || p99Micros < medianMicros) throw new IllegalArgumentException("need 0 < median <= p99");
+		final double mu = Math.log(medianMicros);
+		final double sigma = Math.log((double) p99Micros / medianMicros) / Z_99;
+		return new LatencyDistribution() {
+			@Override
+			public long sampleNanos() {
+				return (long) (Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()) * 1000L);
+			}
+
+			@Override
+			public String toString() {
+				return "logNormal(p50=" + medianMicros + "us, p99=" + p99Micros + "us)";
+			}
+		};
+	}
+}
@@ -0,0 +1,112 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.PooledConnection;
+
+/**
+ * 按SimulationProfile模拟延迟和故障的数据源，用于在没有数据库的情况下测量连接池和执行器的行为。
+ * 延迟用parkNanos实现，占用调用线程但不占用cpu，与等待网络的效果相同
+ */
+public class SimulatedDataSource extends FakeConnectionPoolDataSource {
+	private final SimulationProfile profile;
+	private final AtomicLong connectsOpened = new AtomicLong();
+	private final AtomicLong connectFailures = new AtomicLong();
+	private final AtomicLong queryErrors = new AtomicLong();
+	private final AtomicLong connectionDrops = new AtomicLong();
+
+	public SimulatedDataSource(FakeTable table, SimulationProfile profile){
+		super(table);
+		this.profile = profile;
+	}
+
+	public SimulationProfile getProfile() {
+		return profile;
+	}
+
+	@Override
+	public PooledConnection getPooledConnection() throws SQLException {
+		pause(profile.getConnectLatency());
+
+		if(profile.isOutage() || chance(profile.getConnectFailureRate())){
+			connectFailures.incrementAndGet();
+			throw new SQLNonTransientConnectionException("simulated connect failure", "08001");
+		}
+
+		connectsOpened.incrementAndGet();
+		return new SimulatedPooledConnection(getTable());
+	}
+
+	/**
+	 * @return 成功建立的物理连接数
+	 */
+	public long getConnectsOpened() {
+		return connectsOpened.get();
+	}
+
+	public long getConnectFailures() {
+		return connectFailures.get();
+	}
+
+	public long getQueryErrors() {
+		return queryErrors.get();
+	}
+
+	public long getConnectionDrops() {
+		return connectionDrops.get();
+	}
+
+	private static boolean chance(double rate){
+		return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+	}
+
+	private static void pause(LatencyDistribution latency){
+		long nanos = latency.sampleNanos();
+		long deadline = System.nanoTime() + nanos;
+		while(nanos > 0){
+			LockSupport.parkNanos(nanos);
+			nanos = deadline - System.nanoTime();
+		}
+	}
+
+	private class SimulatedPooledConnection extends FakePooledConnection {
+		private volatile boolean broken;
+
+		SimulatedPooledConnection(FakeTable table){
+			super(table);
+		}
+
+		@Override
+		protected void beforeExecute(String sql) throws SQLException {
+			super.beforeExecute(sql);
+			if(broken){
+				throw new SQLNonTransientConnectionException("connection already dropped", "08S01");
+			}
+
+			pause(profile.getQueryLatency());
+
+			if(profile.isOutage() || chance(profile.getConnectionDropRate())){
+				connectionDrops.incrementAndGet();
+				broken = true;
+				SQLException e = new SQLNonTransientConnectionException("simulated connection drop", "08S01");
+				fireConnectionError(e);
+				throw e;
+			}
+
+			if(chance(profile.getQueryErrorRate())){
+				queryErrors.incrementAndGet();
+				throw new SQLTransientException("simulated query error", "HY000");
+			}
+		}
+
+		@Override
+		protected boolean isBroken() {
+			return broken || super.isBroken();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package org.mintframework.db.benchmark.jdbc;
+
+/**
+ * SimulatedDataSource的行为配置：建立连接和执行语句的延迟、故障注入的概率。
+ * 所有setter返回配置本身，可以连续调用
+ */
+public class SimulationProfile {
+	private LatencyDistribution connectLatency = LatencyDistribution.none();
+	private LatencyDistribution queryLatency = LatencyDistribution.none();
+	private double connectFailureRate;
+	private double queryErrorRate;
+	private double connectionDropRate;
+	private volatile boolean outage;
+
+	public LatencyDistribution getConnectLatency() {
+		return connectLatency;
+	}
+
+	/**
+	 * 建立物理连接的延迟
+	 */
+	public SimulationProfile setConnectLatency(LatencyDistribution connectLatency) {
+		this.connectLatency = connectLatency;
+		return this;
+	}
+
+	public LatencyDistribution getQueryLatency() {
+		return queryLatency;
+	}
+
+	/**
+	 * 每条语句（包括commit）的执行延迟
+	 */
+	public SimulationProfile setQueryLatency(LatencyDistribution queryLatency) {
+		this.queryLatency = queryLatency;
+		return this;
+	}
+
+	public double getConnectFailureRate() {
+		return connectFailureRate;
+	}
+
+	/**
+	 * 建立物理连接失败的概率
+	 */
+	public SimulationProfile setConnectFailureRate(double connectFailureRate) {
+		this.connectFailureRate = connectFailureRate;
+		return this;
+	}
+
+	public double getQueryErrorRate() {
+		return queryErrorRate;
+	}
+
+	/**
+	 * 语句执行失败但连接仍然可用的概率
+	 */
+	public SimulationProfile setQueryErrorRate(double queryErrorRate) {
+		this.queryErrorRate = queryErrorRate;
+		return this;
+	}
+
+	public double getConnectionDropRate() {
+		return connectionDropRate;
+	}
+
+	/**
+	 * 执行语句时物理连接断开的概率，断开时通知连接池丢弃连接
+	 */
+	public SimulationProfile setConnectionDropRate(double connectionDropRate) {
+		this.connectionDropRate = connectionDropRate;
+		return this;
+	}
+
+	public boolean isOutage() {
+		return outage;
+	}
+
+	/**
+	 * 模拟数据库宕机：为true时建立连接和执行语句全部失败，可以在运行中切换
+	 */
+	public SimulationProfile setOutage(boolean outage) {
+		this.outage = outage;
+		return this;
+	}
+}
@@ -0,0 +1,280 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.*;
+
+/**
+ * Connection的空实现，所有方法都抛出SQLFeatureNotSupportedException。
+ * Fake实现只覆盖基准测试用到的方法
+ */
+public abstract class UnsupportedConnection implements Connection {
+
+	@Override
+	public void abort(java.util.concurrent.Executor p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("abort");
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("clearWarnings");
+	}
+
+	@Override
+	public void close() throws SQLException {
+		throw new SQLFeatureNotSupportedException("close");
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		throw new SQLFeatureNotSupportedException("commit");
+	}
+
+	@Override
+	public Array createArrayOf(String p0, Object[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("createArrayOf");
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		throw new SQLFeatureNotSupportedException("createBlob");
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		throw new SQLFeatureNotSupportedException("createClob");
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		throw new SQLFeatureNotSupportedException("createNClob");
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		throw new SQLFeatureNotSupportedException("createSQLXML");
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		throw new SQLFeatureNotSupportedException("createStatement");
+	}
+
+	@Override
+	public Statement createStatement(int p0, int p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("createStatement");
+	}
+
+	@Override
+	public Statement createStatement(int p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("createStatement");
+	}
+
+	@Override
+	public Struct createStruct(String p0, Object[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("createStruct");
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getAutoCommit");
+	}
+
+	@Override
+	public String getCatalog() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getCatalog");
+	}
+
+	@Override
+	public java.util.Properties getClientInfo() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getClientInfo");
+	}
+
+	@Override
+	public String getClientInfo(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getClientInfo");
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getHoldability");
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMetaData");
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNetworkTimeout");
+	}
+
+	@Override
+	public String getSchema() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getSchema");
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTransactionIsolation");
+	}
+
+	@Override
+	public java.util.Map<String, Class<?>> getTypeMap() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTypeMap");
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getWarnings");
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isClosed");
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isReadOnly");
+	}
+
+	@Override
+	public boolean isValid(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("isValid");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("isWrapperFor");
+	}
+
+	@Override
+	public String nativeSQL(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("nativeSQL");
+	}
+
+	@Override
+	public CallableStatement prepareCall(String p0, int p1, int p2, int p3) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareCall");
+	}
+
+	@Override
+	public CallableStatement prepareCall(String p0, int p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareCall");
+	}
+
+	@Override
+	public CallableStatement prepareCall(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareCall");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0, int[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0, String[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0, int p1, int p2, int p3) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0, int p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("prepareStatement");
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("releaseSavepoint");
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		throw new SQLFeatureNotSupportedException("rollback");
+	}
+
+	@Override
+	public void rollback(Savepoint p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("rollback");
+	}
+
+	@Override
+	public void setAutoCommit(boolean p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setAutoCommit");
+	}
+
+	@Override
+	public void setCatalog(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setCatalog");
+	}
+
+	@Override
+	public void setClientInfo(String p0, String p1) {
+		throw new UnsupportedOperationException("setClientInfo");
+	}
+
+	@Override
+	public void setClientInfo(java.util.Properties p0) {
+		throw new UnsupportedOperationException("setClientInfo");
+	}
+
+	@Override
+	public void setHoldability(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setHoldability");
+	}
+
+	@Override
+	public void setNetworkTimeout(java.util.concurrent.Executor p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNetworkTimeout");
+	}
+
+	@Override
+	public void setReadOnly(boolean p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setReadOnly");
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		throw new SQLFeatureNotSupportedException("setSavepoint");
+	}
+
+	@Override
+	public Savepoint setSavepoint(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setSavepoint");
+	}
+
+	@Override
+	public void setSchema(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setSchema");
+	}
+
+	@Override
+	public void setTransactionIsolation(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTransactionIsolation");
+	}
+
+	@Override
+	public void setTypeMap(java.util.Map<String, Class<?>> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTypeMap");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+}
@@ -0,0 +1,505 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.*;
+
+/**
+ * PreparedStatement的空实现，所有方法都抛出SQLFeatureNotSupportedException。
+ * Fake实现只覆盖基准测试用到的方法
+ */
+public abstract class UnsupportedPreparedStatement implements PreparedStatement {
+
+	@Override
+	public void addBatch() throws SQLException {
+		throw new SQLFeatureNotSupportedException("addBatch");
+	}
+
+	@Override
+	public void addBatch(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("addBatch");
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		throw new SQLFeatureNotSupportedException("cancel");
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		throw new SQLFeatureNotSupportedException("clearBatch");
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		throw new SQLFeatureNotSupportedException("clearParameters");
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("clearWarnings");
+	}
+
+	@Override
+	public void close() throws SQLException {
+		throw new SQLFeatureNotSupportedException("close");
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		throw new SQLFeatureNotSupportedException("closeOnCompletion");
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		throw new SQLFeatureNotSupportedException("execute");
+	}
+
+	@Override
+	public boolean execute(String p0, int[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("execute");
+	}
+
+	@Override
+	public boolean execute(String p0, String[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("execute");
+	}
+
+	@Override
+	public boolean execute(String p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("execute");
+	}
+
+	@Override
+	public boolean execute(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("execute");
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeBatch");
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeQuery");
+	}
+
+	@Override
+	public ResultSet executeQuery(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeQuery");
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeUpdate");
+	}
+
+	@Override
+	public int executeUpdate(String p0, int[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeUpdate");
+	}
+
+	@Override
+	public int executeUpdate(String p0, String[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeUpdate");
+	}
+
+	@Override
+	public int executeUpdate(String p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeUpdate");
+	}
+
+	@Override
+	public int executeUpdate(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("executeUpdate");
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getConnection");
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFetchDirection");
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFetchSize");
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getGeneratedKeys");
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMaxFieldSize");
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMaxRows");
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMetaData");
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMoreResults");
+	}
+
+	@Override
+	public boolean getMoreResults(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMoreResults");
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getParameterMetaData");
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getQueryTimeout");
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getResultSet");
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getResultSetConcurrency");
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getResultSetHoldability");
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getResultSetType");
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getUpdateCount");
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getWarnings");
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isCloseOnCompletion");
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isClosed");
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isPoolable");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("isWrapperFor");
+	}
+
+	@Override
+	public void setArray(int p0, Array p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setArray");
+	}
+
+	@Override
+	public void setAsciiStream(int p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setAsciiStream");
+	}
+
+	@Override
+	public void setAsciiStream(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setAsciiStream");
+	}
+
+	@Override
+	public void setAsciiStream(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setAsciiStream");
+	}
+
+	@Override
+	public void setBigDecimal(int p0, java.math.BigDecimal p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBigDecimal");
+	}
+
+	@Override
+	public void setBinaryStream(int p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBinaryStream");
+	}
+
+	@Override
+	public void setBinaryStream(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBinaryStream");
+	}
+
+	@Override
+	public void setBinaryStream(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBinaryStream");
+	}
+
+	@Override
+	public void setBlob(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBlob");
+	}
+
+	@Override
+	public void setBlob(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBlob");
+	}
+
+	@Override
+	public void setBlob(int p0, Blob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBlob");
+	}
+
+	@Override
+	public void setBoolean(int p0, boolean p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBoolean");
+	}
+
+	@Override
+	public void setByte(int p0, byte p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setByte");
+	}
+
+	@Override
+	public void setBytes(int p0, byte[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setBytes");
+	}
+
+	@Override
+	public void setCharacterStream(int p0, java.io.Reader p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setCharacterStream");
+	}
+
+	@Override
+	public void setCharacterStream(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setCharacterStream");
+	}
+
+	@Override
+	public void setCharacterStream(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setCharacterStream");
+	}
+
+	@Override
+	public void setClob(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setClob");
+	}
+
+	@Override
+	public void setClob(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setClob");
+	}
+
+	@Override
+	public void setClob(int p0, Clob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setClob");
+	}
+
+	@Override
+	public void setCursorName(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setCursorName");
+	}
+
+	@Override
+	public void setDate(int p0, Date p1, java.util.Calendar p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setDate");
+	}
+
+	@Override
+	public void setDate(int p0, Date p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setDate");
+	}
+
+	@Override
+	public void setDouble(int p0, double p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setDouble");
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setEscapeProcessing");
+	}
+
+	@Override
+	public void setFetchDirection(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setFetchDirection");
+	}
+
+	@Override
+	public void setFetchSize(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setFetchSize");
+	}
+
+	@Override
+	public void setFloat(int p0, float p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setFloat");
+	}
+
+	@Override
+	public void setInt(int p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setInt");
+	}
+
+	@Override
+	public void setLong(int p0, long p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setLong");
+	}
+
+	@Override
+	public void setMaxFieldSize(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setMaxFieldSize");
+	}
+
+	@Override
+	public void setMaxRows(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setMaxRows");
+	}
+
+	@Override
+	public void setNCharacterStream(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNCharacterStream");
+	}
+
+	@Override
+	public void setNCharacterStream(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNCharacterStream");
+	}
+
+	@Override
+	public void setNClob(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNClob");
+	}
+
+	@Override
+	public void setNClob(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNClob");
+	}
+
+	@Override
+	public void setNClob(int p0, NClob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNClob");
+	}
+
+	@Override
+	public void setNString(int p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNString");
+	}
+
+	@Override
+	public void setNull(int p0, int p1, String p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNull");
+	}
+
+	@Override
+	public void setNull(int p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setNull");
+	}
+
+	@Override
+	public void setObject(int p0, Object p1, int p2, int p3) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setObject");
+	}
+
+	@Override
+	public void setObject(int p0, Object p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setObject");
+	}
+
+	@Override
+	public void setObject(int p0, Object p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setObject");
+	}
+
+	@Override
+	public void setPoolable(boolean p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setPoolable");
+	}
+
+	@Override
+	public void setQueryTimeout(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setQueryTimeout");
+	}
+
+	@Override
+	public void setRef(int p0, Ref p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setRef");
+	}
+
+	@Override
+	public void setRowId(int p0, RowId p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setRowId");
+	}
+
+	@Override
+	public void setSQLXML(int p0, SQLXML p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setSQLXML");
+	}
+
+	@Override
+	public void setShort(int p0, short p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setShort");
+	}
+
+	@Override
+	public void setString(int p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setString");
+	}
+
+	@Override
+	public void setTime(int p0, Time p1, java.util.Calendar p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTime");
+	}
+
+	@Override
+	public void setTime(int p0, Time p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTime");
+	}
+
+	@Override
+	public void setTimestamp(int p0, Timestamp p1, java.util.Calendar p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTimestamp");
+	}
+
+	@Override
+	public void setTimestamp(int p0, Timestamp p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setTimestamp");
+	}
+
+	@Override
+	public void setURL(int p0, java.net.URL p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setURL");
+	}
+
+	@Override
+	public void setUnicodeStream(int p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setUnicodeStream");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+}
@@ -0,0 +1,965 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import java.sql.*;
+
+/**
+ * ResultSet的空实现，所有方法都抛出SQLFeatureNotSupportedException。
+ * Fake实现只覆盖基准测试用到的方法
+ */
+public abstract class UnsupportedResultSet implements ResultSet {
+
+	@Override
+	public boolean absolute(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("absolute");
+	}
+
+	@Override
+	public void afterLast() throws SQLException {
+		throw new SQLFeatureNotSupportedException("afterLast");
+	}
+
+	@Override
+	public void beforeFirst() throws SQLException {
+		throw new SQLFeatureNotSupportedException("beforeFirst");
+	}
+
+	@Override
+	public void cancelRowUpdates() throws SQLException {
+		throw new SQLFeatureNotSupportedException("cancelRowUpdates");
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("clearWarnings");
+	}
+
+	@Override
+	public void close() throws SQLException {
+		throw new SQLFeatureNotSupportedException("close");
+	}
+
+	@Override
+	public void deleteRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("deleteRow");
+	}
+
+	@Override
+	public int findColumn(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("findColumn");
+	}
+
+	@Override
+	public boolean first() throws SQLException {
+		throw new SQLFeatureNotSupportedException("first");
+	}
+
+	@Override
+	public Array getArray(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getArray");
+	}
+
+	@Override
+	public Array getArray(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getArray");
+	}
+
+	@Override
+	public java.io.InputStream getAsciiStream(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getAsciiStream");
+	}
+
+	@Override
+	public java.io.InputStream getAsciiStream(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getAsciiStream");
+	}
+
+	@Override
+	public java.math.BigDecimal getBigDecimal(String p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBigDecimal");
+	}
+
+	@Override
+	public java.math.BigDecimal getBigDecimal(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBigDecimal");
+	}
+
+	@Override
+	public java.math.BigDecimal getBigDecimal(int p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBigDecimal");
+	}
+
+	@Override
+	public java.math.BigDecimal getBigDecimal(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBigDecimal");
+	}
+
+	@Override
+	public java.io.InputStream getBinaryStream(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBinaryStream");
+	}
+
+	@Override
+	public java.io.InputStream getBinaryStream(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBinaryStream");
+	}
+
+	@Override
+	public Blob getBlob(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBlob");
+	}
+
+	@Override
+	public Blob getBlob(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBlob");
+	}
+
+	@Override
+	public boolean getBoolean(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBoolean");
+	}
+
+	@Override
+	public boolean getBoolean(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBoolean");
+	}
+
+	@Override
+	public byte getByte(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getByte");
+	}
+
+	@Override
+	public byte getByte(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getByte");
+	}
+
+	@Override
+	public byte[] getBytes(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBytes");
+	}
+
+	@Override
+	public byte[] getBytes(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getBytes");
+	}
+
+	@Override
+	public java.io.Reader getCharacterStream(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getCharacterStream");
+	}
+
+	@Override
+	public java.io.Reader getCharacterStream(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getCharacterStream");
+	}
+
+	@Override
+	public Clob getClob(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getClob");
+	}
+
+	@Override
+	public Clob getClob(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getClob");
+	}
+
+	@Override
+	public int getConcurrency() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getConcurrency");
+	}
+
+	@Override
+	public String getCursorName() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getCursorName");
+	}
+
+	@Override
+	public Date getDate(String p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDate");
+	}
+
+	@Override
+	public Date getDate(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDate");
+	}
+
+	@Override
+	public Date getDate(int p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDate");
+	}
+
+	@Override
+	public Date getDate(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDate");
+	}
+
+	@Override
+	public double getDouble(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDouble");
+	}
+
+	@Override
+	public double getDouble(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getDouble");
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFetchDirection");
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFetchSize");
+	}
+
+	@Override
+	public float getFloat(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFloat");
+	}
+
+	@Override
+	public float getFloat(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getFloat");
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getHoldability");
+	}
+
+	@Override
+	public int getInt(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getInt");
+	}
+
+	@Override
+	public int getInt(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getInt");
+	}
+
+	@Override
+	public long getLong(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getLong");
+	}
+
+	@Override
+	public long getLong(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getLong");
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getMetaData");
+	}
+
+	@Override
+	public java.io.Reader getNCharacterStream(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNCharacterStream");
+	}
+
+	@Override
+	public java.io.Reader getNCharacterStream(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNCharacterStream");
+	}
+
+	@Override
+	public NClob getNClob(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNClob");
+	}
+
+	@Override
+	public NClob getNClob(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNClob");
+	}
+
+	@Override
+	public String getNString(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNString");
+	}
+
+	@Override
+	public String getNString(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getNString");
+	}
+
+	@Override
+	public <T> T getObject(String p0, Class<T> p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public Object getObject(String p0, java.util.Map<String, Class<?>> p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public Object getObject(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public <T> T getObject(int p0, Class<T> p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public Object getObject(int p0, java.util.Map<String, Class<?>> p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public Object getObject(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getObject");
+	}
+
+	@Override
+	public Ref getRef(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getRef");
+	}
+
+	@Override
+	public Ref getRef(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getRef");
+	}
+
+	@Override
+	public int getRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getRow");
+	}
+
+	@Override
+	public RowId getRowId(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getRowId");
+	}
+
+	@Override
+	public RowId getRowId(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getRowId");
+	}
+
+	@Override
+	public SQLXML getSQLXML(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getSQLXML");
+	}
+
+	@Override
+	public SQLXML getSQLXML(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getSQLXML");
+	}
+
+	@Override
+	public short getShort(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getShort");
+	}
+
+	@Override
+	public short getShort(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getShort");
+	}
+
+	@Override
+	public Statement getStatement() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getStatement");
+	}
+
+	@Override
+	public String getString(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getString");
+	}
+
+	@Override
+	public String getString(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getString");
+	}
+
+	@Override
+	public Time getTime(String p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTime");
+	}
+
+	@Override
+	public Time getTime(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTime");
+	}
+
+	@Override
+	public Time getTime(int p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTime");
+	}
+
+	@Override
+	public Time getTime(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTime");
+	}
+
+	@Override
+	public Timestamp getTimestamp(String p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTimestamp");
+	}
+
+	@Override
+	public Timestamp getTimestamp(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTimestamp");
+	}
+
+	@Override
+	public Timestamp getTimestamp(int p0, java.util.Calendar p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTimestamp");
+	}
+
+	@Override
+	public Timestamp getTimestamp(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getTimestamp");
+	}
+
+	@Override
+	public int getType() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getType");
+	}
+
+	@Override
+	public java.net.URL getURL(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getURL");
+	}
+
+	@Override
+	public java.net.URL getURL(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getURL");
+	}
+
+	@Override
+	public java.io.InputStream getUnicodeStream(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getUnicodeStream");
+	}
+
+	@Override
+	public java.io.InputStream getUnicodeStream(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("getUnicodeStream");
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		throw new SQLFeatureNotSupportedException("getWarnings");
+	}
+
+	@Override
+	public void insertRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("insertRow");
+	}
+
+	@Override
+	public boolean isAfterLast() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isAfterLast");
+	}
+
+	@Override
+	public boolean isBeforeFirst() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isBeforeFirst");
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isClosed");
+	}
+
+	@Override
+	public boolean isFirst() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isFirst");
+	}
+
+	@Override
+	public boolean isLast() throws SQLException {
+		throw new SQLFeatureNotSupportedException("isLast");
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("isWrapperFor");
+	}
+
+	@Override
+	public boolean last() throws SQLException {
+		throw new SQLFeatureNotSupportedException("last");
+	}
+
+	@Override
+	public void moveToCurrentRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("moveToCurrentRow");
+	}
+
+	@Override
+	public void moveToInsertRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("moveToInsertRow");
+	}
+
+	@Override
+	public boolean next() throws SQLException {
+		throw new SQLFeatureNotSupportedException("next");
+	}
+
+	@Override
+	public boolean previous() throws SQLException {
+		throw new SQLFeatureNotSupportedException("previous");
+	}
+
+	@Override
+	public void refreshRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("refreshRow");
+	}
+
+	@Override
+	public boolean relative(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("relative");
+	}
+
+	@Override
+	public boolean rowDeleted() throws SQLException {
+		throw new SQLFeatureNotSupportedException("rowDeleted");
+	}
+
+	@Override
+	public boolean rowInserted() throws SQLException {
+		throw new SQLFeatureNotSupportedException("rowInserted");
+	}
+
+	@Override
+	public boolean rowUpdated() throws SQLException {
+		throw new SQLFeatureNotSupportedException("rowUpdated");
+	}
+
+	@Override
+	public void setFetchDirection(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setFetchDirection");
+	}
+
+	@Override
+	public void setFetchSize(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("setFetchSize");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("unwrap");
+	}
+
+	@Override
+	public void updateArray(String p0, Array p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateArray");
+	}
+
+	@Override
+	public void updateArray(int p0, Array p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateArray");
+	}
+
+	@Override
+	public void updateAsciiStream(String p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateAsciiStream(String p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateAsciiStream(String p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateAsciiStream(int p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateAsciiStream(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateAsciiStream(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateAsciiStream");
+	}
+
+	@Override
+	public void updateBigDecimal(String p0, java.math.BigDecimal p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBigDecimal");
+	}
+
+	@Override
+	public void updateBigDecimal(int p0, java.math.BigDecimal p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBigDecimal");
+	}
+
+	@Override
+	public void updateBinaryStream(String p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBinaryStream(String p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBinaryStream(String p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBinaryStream(int p0, java.io.InputStream p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBinaryStream(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBinaryStream(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBinaryStream");
+	}
+
+	@Override
+	public void updateBlob(String p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBlob(String p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBlob(String p0, Blob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBlob(int p0, java.io.InputStream p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBlob(int p0, java.io.InputStream p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBlob(int p0, Blob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBlob");
+	}
+
+	@Override
+	public void updateBoolean(String p0, boolean p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBoolean");
+	}
+
+	@Override
+	public void updateBoolean(int p0, boolean p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBoolean");
+	}
+
+	@Override
+	public void updateByte(String p0, byte p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateByte");
+	}
+
+	@Override
+	public void updateByte(int p0, byte p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateByte");
+	}
+
+	@Override
+	public void updateBytes(String p0, byte[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBytes");
+	}
+
+	@Override
+	public void updateBytes(int p0, byte[] p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateBytes");
+	}
+
+	@Override
+	public void updateCharacterStream(String p0, java.io.Reader p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateCharacterStream(String p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateCharacterStream(String p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateCharacterStream(int p0, java.io.Reader p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateCharacterStream(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateCharacterStream(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateCharacterStream");
+	}
+
+	@Override
+	public void updateClob(String p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateClob(String p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateClob(String p0, Clob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateClob(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateClob(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateClob(int p0, Clob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateClob");
+	}
+
+	@Override
+	public void updateDate(String p0, Date p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateDate");
+	}
+
+	@Override
+	public void updateDate(int p0, Date p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateDate");
+	}
+
+	@Override
+	public void updateDouble(String p0, double p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateDouble");
+	}
+
+	@Override
+	public void updateDouble(int p0, double p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateDouble");
+	}
+
+	@Override
+	public void updateFloat(String p0, float p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateFloat");
+	}
+
+	@Override
+	public void updateFloat(int p0, float p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateFloat");
+	}
+
+	@Override
+	public void updateInt(String p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateInt");
+	}
+
+	@Override
+	public void updateInt(int p0, int p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateInt");
+	}
+
+	@Override
+	public void updateLong(String p0, long p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateLong");
+	}
+
+	@Override
+	public void updateLong(int p0, long p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateLong");
+	}
+
+	@Override
+	public void updateNCharacterStream(String p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNCharacterStream");
+	}
+
+	@Override
+	public void updateNCharacterStream(String p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNCharacterStream");
+	}
+
+	@Override
+	public void updateNCharacterStream(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNCharacterStream");
+	}
+
+	@Override
+	public void updateNCharacterStream(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNCharacterStream");
+	}
+
+	@Override
+	public void updateNClob(String p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNClob(String p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNClob(String p0, NClob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNClob(int p0, java.io.Reader p1, long p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNClob(int p0, java.io.Reader p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNClob(int p0, NClob p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNClob");
+	}
+
+	@Override
+	public void updateNString(String p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNString");
+	}
+
+	@Override
+	public void updateNString(int p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNString");
+	}
+
+	@Override
+	public void updateNull(String p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNull");
+	}
+
+	@Override
+	public void updateNull(int p0) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateNull");
+	}
+
+	@Override
+	public void updateObject(String p0, Object p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateObject");
+	}
+
+	@Override
+	public void updateObject(String p0, Object p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateObject");
+	}
+
+	@Override
+	public void updateObject(int p0, Object p1, int p2) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateObject");
+	}
+
+	@Override
+	public void updateObject(int p0, Object p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateObject");
+	}
+
+	@Override
+	public void updateRef(String p0, Ref p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateRef");
+	}
+
+	@Override
+	public void updateRef(int p0, Ref p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateRef");
+	}
+
+	@Override
+	public void updateRow() throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateRow");
+	}
+
+	@Override
+	public void updateRowId(String p0, RowId p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateRowId");
+	}
+
+	@Override
+	public void updateRowId(int p0, RowId p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateRowId");
+	}
+
+	@Override
+	public void updateSQLXML(String p0, SQLXML p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateSQLXML");
+	}
+
+	@Override
+	public void updateSQLXML(int p0, SQLXML p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateSQLXML");
+	}
+
+	@Override
+	public void updateShort(String p0, short p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateShort");
+	}
+
+	@Override
+	public void updateShort(int p0, short p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateShort");
+	}
+
+	@Override
+	public void updateString(String p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateString");
+	}
+
+	@Override
+	public void updateString(int p0, String p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateString");
+	}
+
+	@Override
+	public void updateTime(String p0, Time p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateTime");
+	}
+
+	@Override
+	public void updateTime(int p0, Time p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateTime");
+	}
+
+	@Override
+	public void updateTimestamp(String p0, Timestamp p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateTimestamp");
+	}
+
+	@Override
+	public void updateTimestamp(int p0, Timestamp p1) throws SQLException {
+		throw new SQLFeatureNotSupportedException("updateTimestamp");
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException {
+		throw new SQLFeatureNotSupportedException("wasNull");
+	}
+}
@@ -0,0 +1,54 @@
+package org.mintframework.db.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i=1; i<=10; i++){
+			histogram.record(i);
+		}
+
+		assertEquals(10, histogram.count());
+		assertEquals(5, histogram.percentile(50));
+		assertEquals(10, histogram.percentile(100));
+		assertEquals(1, histogram.percentile(0));
+		assertEquals(5.5, histogram.mean(), 0);
+	}
+
+	@Test
+	public void percentilesStayWithinTheBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long i=1; i<=100000; i++){
+			histogram.record(i * 1000);
+		}
+
+		for(double percentile : new double[]{50, 90, 99, 99.9}){
+			long expected = (long) (percentile * 1000 * 1000);
+			long actual = histogram.percentile(percentile);
+			assertTrue(percentile + ": " + actual, actual >= expected && actual <= expected * 1.04);
+		}
+		assertEquals(100000000L, histogram.max());
+		assertEquals(histogram.max(), histogram.percentile(100));
+	}
+
+	@Test
+	public void mergedHistogramsCombineCounts() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+		a.record(-5);
+		a.record(100);
+		b.record(1000000);
+
+		a.merge(b);
+		assertEquals(3, a.count());
+		assertEquals(1000000, a.max());
+		assertEquals(0, a.percentile(1));
+		assertEquals(0, new LatencyHistogram().percentile(99));
+	}
+}
@@ -0,0 +1,114 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mintframework.db.MiniConnectionPool;
+import org.mintframework.db.QueryOptions;
+import org.mintframework.db.SQLExecutor;
+import org.mintframework.db.benchmark.UserRow;
+
+public class FakeDriverTest {
+	private final SQLExecutor executor = new SQLExecutor();
+
+	@Test
+	public void tablesAreDeterministic() {
+		FakeTable users = FakeTable.users(20);
+		assertEquals(7, users.getColumnCount());
+		assertEquals(20, users.getRowCount());
+		assertEquals("create_time", users.getColumnName(6));
+		assertEquals(Long.valueOf(1), users.value(0, 1));
+		assertNull(users.value(7, 3));
+		assertEquals(users.value(3, 2), FakeTable.users(20).value(3, 2));
+
+		FakeTable wide = FakeTable.wide(2, 12);
+		assertEquals("c12", wide.getColumnName(12));
+		assertEquals(12, wide.findColumn("C12"));
+		assertEquals(-1, wide.findColumn("missing"));
+	}
+
+	@Test
+	public void queriesMapThroughTheExecutor() throws SQLException {
+		Connection conn = new FakeConnection(FakeTable.users(10));
+
+		List<UserRow> users = executor.selectBeanList(conn, UserRow.class, null, "select * from user where age > ?", 18);
+		assertEquals(10, users.size());
+		assertEquals(Long.valueOf(1), users.get(0).getId());
+		assertEquals("user9", users.get(9).getUsername());
+		assertNull(users.get(7).getPassword());
+		assertEquals(Long.valueOf(1500000000000L + 500), users.get(0).getUpdateTime());
+
+		assertEquals(Long.valueOf(1), executor.selectScalar(conn, Long.class, "select id from user"));
+		assertEquals(3, executor.withOptions(new QueryOptions().setMaxRows(3))
+				.selectScalarList(conn, Long.class, "select id from user").size());
+	}
+
+	@Test
+	public void updatesGenerateKeysPerConnection() throws SQLException {
+		Connection conn = new FakeConnection(FakeTable.longs(1));
+
+		assertArrayEquals(new long[]{1}, executor.insert(conn, "insert into t(a) values(?)", 1));
+		assertArrayEquals(new long[]{2, 3, 4}, executor.insertBatch(conn, "insert into t(a) values(?)", new Object[][]{{1}, {2}, {3}}));
+		assertArrayEquals(new int[]{1, 1}, executor.batch(conn, "update t set a = ?", new Object[][]{{1}, {2}}));
+		assertArrayEquals(new long[]{1}, executor.insert(new FakeConnection(FakeTable.longs(1)), "insert into t(a) values(1)"));
+	}
+
+	@Test
+	public void multiStatementsReturnOneResultPerStatement() throws SQLException {
+		Connection conn = new FakeConnection(FakeTable.longs(2));
+
+		List<Object> results = executor.multiQuery()
+				.add(executor.scalarListMapper(Long.class), "select id from t")
+				.addUpdate("update t set a = 1")
+				.add(executor.scalarMapper(Long.class), "select id from t")
+				.execute(conn);
+		assertEquals(Arrays.<Object>asList(Arrays.asList(0L, 1L), 1, 0L), results);
+	}
+
+	@Test
+	public void closedObjectsRejectUse() throws SQLException {
+		FakeConnection conn = new FakeConnection(FakeTable.longs(1));
+		PreparedStatement pstm = conn.prepareStatement("select id from t");
+		ResultSet rs = pstm.executeQuery();
+		assertTrue(rs.next());
+		assertEquals(0L, rs.getLong("id"));
+		assertFalse(rs.next());
+		pstm.close();
+		assertThrows(SQLException.class, pstm::executeQuery);
+
+		conn.close();
+		assertThrows(SQLException.class, () -> conn.prepareStatement("select 1"));
+		assertFalse(conn.isValid(1));
+	}
+
+	@Test
+	public void pooledConnectionsAreReturnedOnClose() throws SQLException {
+		MiniConnectionPool pool = new MiniConnectionPool(new FakeConnectionPoolDataSource(FakeTable.longs(3)), 2, 1);
+		try {
+			for(int i=0; i<5; i++){
+				Connection conn = pool.getConnection();
+				try {
+					assertEquals(3, executor.selectScalarList(conn, Long.class, "select id from t").size());
+				} finally {
+					conn.close();
+				}
+			}
+			assertEquals(0, pool.getActiveConnections());
+			assertTrue(pool.getInactiveConnections() <= 2);
+		} finally {
+			pool.dispose();
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package org.mintframework.db.benchmark.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.Arrays;
+
+import javax.sql.PooledConnection;
+
+import org.junit.Test;
+import org.mintframework.db.MiniConnectionPool;
+import org.mintframework.db.SQLExecutor;
+
+public class SimulatedDataSourceTest {
+	private static final String SQL = "select id from t";
+	private final SQLExecutor executor = new SQLExecutor();
+
+	@Test
+	public void latenciesDelayConnectsAndStatements() throws SQLException {
+		SimulatedDataSource dataSource = new SimulatedDataSource(FakeTable.longs(1), new SimulationProfile()
+				.setConnectLatency(LatencyDistribution.fixed(20000)).setQueryLatency(LatencyDistribution.fixed(10000)));
+
+		long start = System.nanoTime();
+		PooledConnection pconn = dataSource.getPooledConnection();
+		long connected = System.nanoTime();
+		Connection conn = pconn.getConnection();
+		executor.selectScalar(conn, Long.class, SQL);
+		conn.commit();
+		long done = System.nanoTime();
+
+		assertTrue(connected - start >= 20000000L);
+		assertTrue(done - connected >= 20000000L);
+		assertEquals(1, dataSource.getConnectsOpened());
+	}
+
+	@Test
+	public void connectFailuresAndOutagesRejectNewConnections() throws SQLException {
+		SimulationProfile profile = new SimulationProfile().setConnectFailureRate(1);
+		SimulatedDataSource dataSource = new SimulatedDataSource(FakeTable.longs(1), profile);
+
+		SQLException e = assertThrows(SQLNonTransientConnectionException.class, dataSource::getPooledConnection);
+		assertEquals("08001", e.getSQLState());
+		assertEquals(1, dataSource.getConnectFailures());
+
+		profile.setConnectFailureRate(0);
+		Connection conn = dataSource.getPooledConnection().getConnection();
+		profile.setOutage(true);
+		assertThrows(SQLNonTransientConnectionException.class, dataSource::getPooledConnection);
+		assertThrows(SQLNonTransientConnectionException.class, () -> executor.selectScalar(conn, Long.class, SQL));
+
+		profile.setOutage(false);
+		assertEquals(1, dataSource.getConnectsOpened());
+		assertEquals(2, dataSource.getConnectFailures());
+		assertEquals(1, dataSource.getConnectionDrops());
+		//宕机时断开的连接恢复后仍然不可用
+		assertFalse(conn.isValid(1));
+	}
+
+	@Test
+	public void queryErrorsKeepTheConnectionUsable() throws SQLException {
+		SimulationProfile profile = new SimulationProfile().setQueryErrorRate(1);
+		SimulatedDataSource dataSource = new SimulatedDataSource(FakeTable.longs(1), profile);
+		Connection conn = dataSource.getPooledConnection().getConnection();
+
+		SQLException e = assertThrows(SQLTransientException.class, () -> executor.selectScalar(conn, Long.class, SQL));
+		assertEquals("HY000", e.getSQLState());
+		assertTrue(conn.isValid(1));
+
+		profile.setQueryErrorRate(0);
+		assertEquals(Long.valueOf(0), executor.selectScalar(conn, Long.class, SQL));
+		assertEquals(1, dataSource.getQueryErrors());
+	}
+
+	@Test
+	public void droppedConnectionsAreDiscardedByThePool() throws SQLException {
+		SimulationProfile profile = new SimulationProfile();
+		SimulatedDataSource dataSource = new SimulatedDataSource(FakeTable.longs(1), profile);
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, 1, 1);
+		try {
+			Connection conn = pool.getConnection();
+			profile.setConnectionDropRate(1);
+			try {
+				assertThrows(SQLNonTransientConnectionException.class, () -> executor.selectScalar(conn, Long.class, SQL));
+			} finally {
+				conn.close();
+			}
+			profile.setConnectionDropRate(0);
+
+			Connection next = pool.getConnection();
+			try {
+				assertEquals(Long.valueOf(0), executor.selectScalar(next, Long.class, SQL));
+			} finally {
+				next.close();
+			}
+			assertEquals(2, dataSource.getConnectsOpened());
+			assertEquals(1, dataSource.getConnectionDrops());
+		} finally {
+			pool.dispose();
+		}
+	}
+
+	@Test
+	public void latencyDistributionsHaveTheRequestedShape() {
+		assertEquals(0, LatencyDistribution.none().sampleNanos());
+		assertEquals(1500000, LatencyDistribution.fixed(1500).sampleNanos());
+
+		LatencyDistribution uniform = LatencyDistribution.uniform(100, 200);
+		for(int i=0; i<1000; i++){
+			long nanos = uniform.sampleNanos();
+			assertTrue(nanos >= 100000 && nanos <= 200000);
+		}
+
+		LatencyDistribution logNormal = LatencyDistribution.logNormal(500, 5000);
+		long[] samples = new long[20000];
+		for(int i=0; i<samples.length; i++){
+			samples[i] = logNormal.sampleNanos();
+		}
+		Arrays.sort(samples);
+		long median = samples[samples.length / 2];
+		long p99 = samples[samples.length * 99 / 100];
+		assertTrue("median " + median, median > 450000 && median < 550000);
+		assertTrue("p99 " + p99, p99 > 4000000 && p99 < 6250000);
+
+		assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.uniform(2, 1));
+		assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.logNormal(0, 10));
+		assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.logNormal(10, 5));
+	}
+}
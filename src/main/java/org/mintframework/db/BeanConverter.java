@@ -1,20 +1,31 @@
 package org.mintframework.db;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,10 +36,17 @@ import java.util.regex.Pattern;
  *  
  */
 public class BeanConverter {
-	private static final Map<Class<?>, Map<String, SetterInfo>> setterInfoMapMap = new HashMap<Class<?>, Map<String, SetterInfo>>();
 	
 	private static final Pattern enumValuePattern = Pattern.compile("^\\d+$");
 	
+	/**
+	 * 驱动拒绝getObject(index, Class)类型转换时使用的SQLState
+	 */
+	private static final String CONVERSION_NOT_SUPPORTED = "S1009";
+	
+	/*各驱动的ResultSet实现不支持getObject(index, Class)的类型*/
+	private static final ConcurrentHashMap<Class<?>, Set<Class<?>>> typedGetObjectUnsupported = new ConcurrentHashMap<Class<?>, Set<Class<?>>>();
+	
 	/**
 	 * 将结果集的第一列转化成bean
 	 * @param beanClass 
@@ -38,16 +56,30 @@ public class BeanConverter {
 	 * @throws SQLException 
 	 */
 	public static <T> T toBean(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter) throws SQLException {
+		return toBean(beanClass, result, columnFieldMap, converter, null);
+	}
+	
+	/**
+	 * 将结果集的第一列转化成bean
+	 * @param beanClass 
+	 * @param result
+	 * @param columnFieldMap 数据库列名和bean字段名的对应关系
+	 * @param registry 优先使用的列转换器，可以为null
+	 * @return
+	 * @throws SQLException 
+	 */
+	public static <T> T toBean(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter, ColumnConverterRegistry registry) throws SQLException {
 		T t = null;
 
 		if(result.next()){
-			t = createBean(beanClass, result, getEffectiveColumn(beanClass, result.getMetaData(), columnFieldMap), converter);
+			ResultSetMetaData meta = result.getMetaData();
+			SetterInfo[] infos = getEffectiveColumn(beanClass, meta, columnFieldMap);
+			t = createBean(beanClass, result, infos, getColumnReaders(infos, meta, converter, registry, false));
 		}
 		
 		return t;
 	}
 	
-	
 	/**
 	 * 将结果集转换成bean列表
 	 * @param beanClass
@@ -57,27 +89,93 @@ public class BeanConverter {
 	 * @throws SQLException 
 	 */
 	public static <T> List<T> toBeanList(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter) throws SQLException{
+		return toBeanList(beanClass, result, columnFieldMap, converter, null);
+	}
+	
+	/**
+	 * 将结果集转换成bean列表。返回时结果集已经读完，bean不能有InputStream、Reader、ReadableByteChannel类型的字段
+	 * @param beanClass
+	 * @param result
+	 * @param columnFieldMap 数据库列名和bean字段名的对应关系
+	 * @param registry 优先使用的列转换器，可以为null
+	 * @return 没有数据返回空列表
+	 * @throws SQLException 
+	 * @throws IllegalArgumentException 映射到了流类型的字段
+	 */
+	public static <T> List<T> toBeanList(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter, ColumnConverterRegistry registry) throws SQLException{
 		List<T> beanList = new ArrayList<T>();
 		
 		if(result.next()){
-			SetterInfo[] infos = getEffectiveColumn(beanClass, result.getMetaData(), columnFieldMap);
+			ResultSetMetaData meta = result.getMetaData();
+			SetterInfo[] infos = getEffectiveColumn(beanClass, meta, columnFieldMap);
+			ColumnReader[] readers = getColumnReaders(infos, meta, converter, registry, false);
 			do{
-				beanList.add(createBean(beanClass, result, infos, converter));
+				beanList.add(createBean(beanClass, result, infos, readers));
 			} while(result.next());
 		}
 		
 		return beanList;
 	}
 	
+	/**
+	 * 逐行将结果集转换成bean并交给handler处理，不在内存中保留整个列表。
+	 * bean中InputStream、Reader、ReadableByteChannel类型的字段只在handler处理当前行时有效
+	 * @param beanClass
+	 * @param result
+	 * @param columnFieldMap 数据库列名和bean字段名的对应关系
+	 * @param handler
+	 * @return 处理的行数
+	 * @throws SQLException
+	 */
+	public static <T> int forEachBean(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter, RowHandler<? super T> handler) throws SQLException{
+		return forEachBean(beanClass, result, columnFieldMap, converter, null, handler);
+	}
+	
+	/**
+	 * 逐行将结果集转换成bean并交给handler处理，不在内存中保留整个列表。
+	 * bean中InputStream、Reader、ReadableByteChannel类型的字段只在handler处理当前行时有效
+	 * @param beanClass
+	 * @param result
+	 * @param columnFieldMap 数据库列名和bean字段名的对应关系
+	 * @param registry 优先使用的列转换器，可以为null
+	 * @param handler
+	 * @return 处理的行数
+	 * @throws SQLException
+	 */
+	public static <T> int forEachBean(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter, ColumnConverterRegistry registry, RowHandler<? super T> handler) throws SQLException{
+		return forEachBean(beanClass, result, columnFieldMap, converter, registry, handler, true);
+	}
+	
+	/**
+	 * @param streams 是否允许流类型的字段，handler保留bean时必须为false
+	 * @see #forEachBean(Class, ResultSet, Map, FieldColumnConverter, ColumnConverterRegistry, RowHandler)
+	 */
+	static <T> int forEachBean(Class<T> beanClass, ResultSet result, Map<String, String> columnFieldMap, FieldColumnConverter<?> converter, ColumnConverterRegistry registry, RowHandler<? super T> handler, boolean streams) throws SQLException{
+		int count = 0;
+		
+		if(result.next()){
+			ResultSetMetaData meta = result.getMetaData();
+			SetterInfo[] infos = getEffectiveColumn(beanClass, meta, columnFieldMap);
+			ColumnReader[] readers = getColumnReaders(infos, meta, converter, registry, streams);
+			do{
+				handler.handle(createBean(beanClass, result, infos, readers));
+				count++;
+			} while(result.next());
+		}
+		
+		return count;
+	}
+	
 	/**
 	 * 从resultset创建一个bean
 	 * @param claz
 	 * @param rslt
 	 * @param infos
+	 * @param readers 与infos一一对应的列读取方式
 	 * @return
 	 * @throws SQLException
 	 */
-	private static <T> T createBean(Class<T> claz,ResultSet rslt, SetterInfo[] infos, FieldColumnConverter<?> converter) throws SQLException{
+	private static <T> T createBean(Class<T> claz,ResultSet rslt, SetterInfo[] infos, ColumnReader[] readers) throws SQLException{
 		T t = null;
 		try {
 			t = claz.getDeclaredConstructor().newInstance();
@@ -86,9 +184,9 @@ public class BeanConverter {
 				info = infos[i];
 				if(info != null){
 					if(info.isSetter){
-						info.method.invoke(t, processColumn(rslt, i+1, info.fieldType, converter));
+						info.method.invoke(t, readers[i].read(rslt, i+1));
 					} else {
-						info.field.set(t, processColumn(rslt, i+1, info.fieldType, converter));
+						info.field.set(t, readers[i].read(rslt, i+1));
 					}
 				}
 			}
@@ -108,6 +206,28 @@ public class BeanConverter {
 		
 	}
 	
+	/**
+	 * 为每个有效的列确定读取方式，每个结果集只解析一次
+	 * @param infos
+	 * @param meta
+	 * @param converter
+	 * @param registry
+	 * @param streams 是否允许流类型的字段
+	 * @return
+	 * @throws SQLException
+	 */
+	private static ColumnReader[] getColumnReaders(SetterInfo[] infos, ResultSetMetaData meta, FieldColumnConverter<?> converter, ColumnConverterRegistry registry, boolean streams) throws SQLException{
+		ColumnReader[] readers = new ColumnReader[infos.length];
+		
+		for(int i=0,l=infos.length; i<l; i++){
+			if(infos[i] != null){
+				readers[i] = getColumnReader(infos[i].fieldType, meta, i+1, !infos[i].fieldType.isPrimitive(), converter, registry, streams);
+			}
+		}
+		
+		return readers;
+	}
+	
 	/**
 	 * map a SetterInfo to an effective column(column can set into given bean)
 	 * and map null to uneffective columns
@@ -142,67 +262,17 @@ public class BeanConverter {
 	}
 	
 	/**
-	 * 下划线命名风格的column也可以被转化成bean的Property
+	 * 下划线命名风格的column也可以被转化成bean的Property。与BeanWriter共用BeanProperties的内省结果
 	 * @param beanClass
 	 */
 	private static Map<String, SetterInfo> getBeanSetterInfo(Class<?> beanClass) {
-		Map<String, SetterInfo> infoMap = setterInfoMapMap.get(beanClass);
-		
-		if(infoMap != null) return infoMap;
-		
-		Map<String, SetterInfo> setterInfoMap = new HashMap<String, SetterInfo>();
-		/*内省方式获取属性和setter*/
-		PropertyDescriptor[] props = null;
-		try {
-			props = Introspector.getBeanInfo(beanClass, Object.class).getPropertyDescriptors();
-		} catch (IntrospectionException e) {
-			e.printStackTrace();
-		}
-		
-		SetterInfo setter;
-		if(props != null && props.length != 0){
-			PropertyDescriptor pd;
-			String name;
-			
-			for(int i=0, len=props.length; i<len; i++){
-				pd = props[i];
-				
-				if(pd.getWriteMethod()!=null){
-					name = pd.getDisplayName();
-					setter = new SetterInfo(pd.getWriteMethod(), pd.getPropertyType(), null, true);
-					setterInfoMap.put(name, setter);
-					
-					//下划线命名风格的column也可以被转化成bean的Property
-					setterInfoMap.put(camelhumpToUnderline(name), setter);
-				}
-			}
-		}
-		
-		//反射获取属性，非final,static,private属性也可以注入
-		for(Field f : beanClass.getFields()){
-			if(Modifier.isFinal(f.getModifiers()) || Modifier.isStatic(f.getModifiers()) || Modifier.isPrivate(f.getModifiers())) continue;
-			
-			if(setterInfoMap.get(f.getName())!=null) continue;
-			
-			setter = new SetterInfo(null, f.getType(), f, false);
-			
-			f.setAccessible(true);
-			setterInfoMap.put(f.getName(),  setter);
-			
-			//下划线命名风格的column也可以被转化成bean的Property
-			setterInfoMap.put(camelhumpToUnderline(f.getName()), setter);
-		}
-		
-		//缓存起来
-		setterInfoMapMap.put(beanClass, setterInfoMap);
-		
-		return setterInfoMap;
+		return BeanProperties.of(beanClass).setterInfos();
 	}
 	
 	 /**
 	  * 将驼峰风格替换为下划线风格
      */
-    private static String camelhumpToUnderline(String str) {
+    static String camelhumpToUnderline(String str) {
         Matcher matcher = Pattern.compile("[A-Z]").matcher(str);
         StringBuilder builder = new StringBuilder(str);
         for (int i = 0; matcher.find(); i++) {
@@ -215,57 +285,212 @@ public class BeanConverter {
     }
 	
 	/**
-	 * 
-	 * @param rs
-	 * @param index
+	 * 确定一列的读取方式。顺序为：注册表中的转换器、基础类型、枚举、原生类型、流、FieldColumnConverter、getObject。<br/>
+	 * InputStream、Reader、ReadableByteChannel类型的字段直接映射成流，流只在当前行被处理时有效，
+	 * 所以只有逐行处理（forEachBean）时才允许
 	 * @param fieldType
+	 * @param meta
+	 * @param index
+	 * @param nullable 为true时，列值为null则返回null（先读取再用wasNull判断，不会为了判空多读一次）
+	 * @param dataConverter
+	 * @param registry
+	 * @param streams 是否允许流类型
 	 * @return
 	 * @throws SQLException
+	 * @throws IllegalArgumentException streams为false时遇到流类型
 	 */
-	private static Object processColumn(ResultSet rs, int index, Class<?> fieldType, FieldColumnConverter<?> dataConverter) throws SQLException {
-		if ( !fieldType.isPrimitive() && rs.getObject(index) == null ) {
-			return null;
+	static ColumnReader getColumnReader(final Class<?> fieldType, ResultSetMetaData meta, int index, boolean nullable, 
+			final FieldColumnConverter<?> dataConverter, ColumnConverterRegistry registry, boolean streams) throws SQLException {
+		if(registry != null){
+			final ColumnConverter<?> converter = registry.find(fieldType, meta.getColumnType(index));
+			if(converter != null) {
+				return (rs, i) -> converter.read(rs, i);
+			}
 		}
 		
+		if(!streams && isStreamType(fieldType)){
+			throw new IllegalArgumentException("column " + meta.getColumnLabel(index) + " is mapped to " + fieldType.getName()
+					+ ", which is only valid while the row is being handled; use forEachBean or read it as byte[]/String");
+		}
+		
+		ColumnReader reader;
+		
 		if (fieldType.equals(String.class)) {
-			return rs.getString(index);
+			reader = (rs, i) -> rs.getString(i);
 		
 		} else if (fieldType.equals(Integer.TYPE) || fieldType.equals(Integer.class)) {
-			return Integer.valueOf(rs.getInt(index));
+			reader = (rs, i) -> Integer.valueOf(rs.getInt(i));
 		
 		} else if (fieldType.equals(Boolean.TYPE) || fieldType.equals(Boolean.class)) {
-			return Boolean.valueOf(rs.getBoolean(index));
+			reader = (rs, i) -> Boolean.valueOf(rs.getBoolean(i));
 		
 		} else if (fieldType.equals(Long.TYPE) || fieldType.equals(Long.class)) {
-			return Long.valueOf(rs.getLong(index));
+			reader = (rs, i) -> Long.valueOf(rs.getLong(i));
 		
 		} else if (fieldType.equals(Double.TYPE) || fieldType.equals(Double.class)) {
-			return Double.valueOf(rs.getDouble(index));
+			reader = (rs, i) -> Double.valueOf(rs.getDouble(i));
 		
 		} else if (fieldType.equals(Float.TYPE) || fieldType.equals(Float.class)) {
-			return Float.valueOf(rs.getFloat(index));
+			reader = (rs, i) -> Float.valueOf(rs.getFloat(i));
 		
 		} else if (fieldType.equals(Short.TYPE) || fieldType.equals(Short.class)) {
-			return Short.valueOf(rs.getShort(index));
-		
-		} else if(fieldType.equals(Boolean.class) || fieldType.equals(Boolean.TYPE)){
-			return Boolean.valueOf(rs.getBoolean(index));
+			reader = (rs, i) -> Short.valueOf(rs.getShort(i));
 			
 		} else if (fieldType.equals(Byte.TYPE) || fieldType.equals(Byte.class)) {
-			return Byte.valueOf(rs.getByte(index));
+			reader = (rs, i) -> Byte.valueOf(rs.getByte(i));
 			
 		} else if(fieldType.isEnum()){
-			return initEnum(rs.getString(index), fieldType);
+			reader = (rs, i) -> {
+				String s = rs.getString(i);
+				return s == null ? null : initEnum(s, fieldType);
+			};
 			
-		} else if(fieldType.equals(BigDecimal.class)){
-			return BigDecimal.valueOf(rs.getDouble(index));
+		} else if(isNativeType(fieldType)){
+			reader = (rs, i) -> readNative(rs, i, fieldType);
+			
+		} else if(fieldType.equals(InputStream.class)){
+			reader = (rs, i) -> rs.getBinaryStream(i);
+			
+		} else if(fieldType.equals(Reader.class)){
+			reader = (rs, i) -> rs.getCharacterStream(i);
+			
+		} else if(fieldType.equals(ReadableByteChannel.class)){
+			reader = (rs, i) -> {
+				InputStream in = rs.getBinaryStream(i);
+				return in == null ? null : Channels.newChannel(in);
+			};
 			
 		} else if(dataConverter != null){
-			return dataConverter.ColumnToField(rs.getString(index), fieldType, rs.getMetaData().getColumnTypeName(index));
+			final String columnType = meta.getColumnTypeName(index);
+			final boolean primitive = fieldType.isPrimitive();
+			return (rs, i) -> {
+				String s = rs.getString(i);
+				if(s == null && !primitive) {
+					return null;
+				}
+				return dataConverter.ColumnToField(s, fieldType, columnType);
+			};
 			
 		} else {
-			return rs.getObject(index);
+			reader = (rs, i) -> rs.getObject(i);
+		}
+		
+		return nullable ? new NullableColumnReader(reader) : reader;
+	}
+	
+	/**
+	 * 是否是只在当前行有效的流类型：InputStream、Reader、ReadableByteChannel
+	 * @param type
+	 * @return
+	 */
+	static boolean isStreamType(Class<?> type){
+		return type == InputStream.class || type == Reader.class || type == ReadableByteChannel.class;
+	}
+	
+	/**
+	 * 是否是有原生读取方式的类型：BigDecimal、byte[]、UUID和java.time的日期时间类型
+	 * @param type
+	 * @return
+	 */
+	static boolean isNativeType(Class<?> type){
+		return type == BigDecimal.class || type == byte[].class || type == UUID.class 
+				|| type == LocalDate.class || type == LocalDateTime.class || type == LocalTime.class 
+				|| type == Instant.class || type == OffsetDateTime.class;
+	}
+	
+	/**
+	 * 按原生方式读取列值，不经过字符串转换，也不经过double丢失精度。
+	 * LocalDate、LocalDateTime、LocalTime在驱动支持jdbc4.2的getObject(index, Class)时直接使用，否则用getDate/getTimestamp等方法转换。
+	 * Instant、OffsetDateTime、UUID不在jdbc4.2规定的映射里，各驱动的处理不一致（mysql 5.1直接拒绝，OffsetDateTime按字符串解析DATETIME会失败），总是转换读取
+	 * @param rs
+	 * @param index
+	 * @param type 必须是isNativeType为true的类型
+	 * @return
+	 * @throws SQLException
+	 */
+	static Object readNative(ResultSet rs, int index, Class<?> type) throws SQLException{
+		if(type == BigDecimal.class){
+			return rs.getBigDecimal(index);
+			
+		} else if(type == byte[].class){
+			return rs.getBytes(index);
+		}
+		
+		if(isJdbc42Type(type) && supportsTypedGetObject(rs, type)){
+			try {
+				return rs.getObject(index, type);
+			} catch (SQLFeatureNotSupportedException | AbstractMethodError | UnsupportedOperationException e) {
+				//驱动不支持这种类型，记录下来，以后直接走转换
+				markTypedGetObjectUnsupported(rs, type);
+			} catch (SQLException e) {
+				if(CONVERSION_NOT_SUPPORTED.equals(e.getSQLState())){
+					//mysql 5.1等驱动用普通SQLException(S1009)拒绝不认识的类型，同样记录下来
+					markTypedGetObjectUnsupported(rs, type);
+				} else if(e.getSQLState() == null || !e.getSQLState().startsWith("22")){
+					//22xxx是这个值转换失败，下面换一种方式读取；其他SQLException是真正的读取失败，直接抛出
+					throw e;
+				}
+			}
 		}
+		
+		if(type == LocalDate.class){
+			java.sql.Date date = rs.getDate(index);
+			return date == null ? null : date.toLocalDate();
+			
+		} else if(type == LocalDateTime.class){
+			Timestamp timestamp = rs.getTimestamp(index);
+			return timestamp == null ? null : timestamp.toLocalDateTime();
+			
+		} else if(type == LocalTime.class){
+			Time time = rs.getTime(index);
+			return time == null ? null : time.toLocalTime();
+			
+		} else if(type == Instant.class){
+			Timestamp timestamp = rs.getTimestamp(index);
+			return timestamp == null ? null : timestamp.toInstant();
+			
+		} else if(type == OffsetDateTime.class){
+			Timestamp timestamp = rs.getTimestamp(index);
+			return timestamp == null ? null : OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+			
+		} else if(type == UUID.class){
+			Object value = rs.getObject(index);
+			if(value == null || value instanceof UUID) {
+				return value;
+			} else if(value instanceof byte[] && ((byte[])value).length == 16){
+				//BINARY(16)存储的uuid
+				ByteBuffer buffer = ByteBuffer.wrap((byte[]) value);
+				return new UUID(buffer.getLong(), buffer.getLong());
+			} else {
+				return UUID.fromString(value.toString());
+			}
+		}
+		
+		throw new IllegalArgumentException("not a native type: " + type);
+	}
+	
+	/**
+	 * 是否是jdbc4.2规定了getObject(index, Class)映射的类型
+	 * @param type
+	 * @return
+	 */
+	private static boolean isJdbc42Type(Class<?> type){
+		return type == LocalDate.class || type == LocalDateTime.class || type == LocalTime.class;
+	}
+	
+	private static boolean supportsTypedGetObject(ResultSet rs, Class<?> type){
+		Set<Class<?>> unsupported = typedGetObjectUnsupported.get(rs.getClass());
+		return unsupported == null || !unsupported.contains(type);
+	}
+	
+	private static void markTypedGetObjectUnsupported(ResultSet rs, Class<?> type){
+		Set<Class<?>> unsupported = typedGetObjectUnsupported.get(rs.getClass());
+		if(unsupported == null){
+			Set<Class<?>> created = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+			unsupported = typedGetObjectUnsupported.putIfAbsent(rs.getClass(), created);
+			if(unsupported == null) unsupported = created;
+		}
+		unsupported.add(type);
 	}
 
 	/**
@@ -305,21 +530,3 @@ public class BeanConverter {
 		return null;
 	}
 }
-
-/**
- * @author LW
- * d
- */
-class SetterInfo {
-	public final Method 	method;
-	public final Class<?> 	fieldType;
-	public final Boolean 	isSetter;
-	public final Field		field;
-	
-	SetterInfo(Method method, Class<?> type, Field field, Boolean isSetter){
-		this.method = method;
-		this.fieldType = type;
-		this.isSetter = isSetter;
-		this.field = field;
-	}
-}
\ No newline at end of file
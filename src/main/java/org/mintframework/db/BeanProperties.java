@@ -0,0 +1,216 @@
+package org.mintframework.db;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * bean属性的读写方式，按类缓存，BeanConverter注入结果集和BeanWriter读取属性都使用这里的内省结果。
+ * 属性可以用驼峰名或下划线名访问
+ */
+final class BeanProperties {
+	private static final ConcurrentHashMap<Class<?>, BeanProperties> cache = new ConcurrentHashMap<Class<?>, BeanProperties>();
+	
+	private final Class<?> beanClass;
+	private final Map<String, Method> getters;
+	private final Map<String, Method> setters;
+	private final Map<String, Field> fields;
+	private final List<String> persistentNames;		//可读写的属性，驼峰名
+	private final Map<String, SetterInfo> setterInfos;
+	
+	private BeanProperties(Class<?> beanClass){
+		this.beanClass = beanClass;
+		this.getters = new HashMap<String, Method>();
+		this.setters = new HashMap<String, Method>();
+		this.fields = new HashMap<String, Field>();
+		this.persistentNames = new ArrayList<String>();
+		
+		PropertyDescriptor[] props;
+		try {
+			props = Introspector.getBeanInfo(beanClass, Object.class).getPropertyDescriptors();
+		} catch (IntrospectionException e) {
+			throw new IllegalArgumentException("can not introspect " + beanClass.getName(), e);
+		}
+		
+		for(PropertyDescriptor pd : props){
+			if(pd.getReadMethod() != null){
+				getters.put(pd.getName(), pd.getReadMethod());
+				getters.put(BeanConverter.camelhumpToUnderline(pd.getName()), pd.getReadMethod());
+			}
+			if(pd.getWriteMethod() != null){
+				setters.put(pd.getName(), pd.getWriteMethod());
+				setters.put(BeanConverter.camelhumpToUnderline(pd.getName()), pd.getWriteMethod());
+			}
+			if(pd.getReadMethod() != null && pd.getWriteMethod() != null){
+				persistentNames.add(pd.getName());
+			}
+		}
+		
+		//与BeanConverter一致，非final,static,private的public属性也可以读写
+		for(Field f : beanClass.getFields()){
+			if(Modifier.isFinal(f.getModifiers()) || Modifier.isStatic(f.getModifiers()) || Modifier.isPrivate(f.getModifiers())) continue;
+			if(getters.containsKey(f.getName()) && setters.containsKey(f.getName())) continue;
+			
+			fields.put(f.getName(), f);
+			fields.put(BeanConverter.camelhumpToUnderline(f.getName()), f);
+			if(!persistentNames.contains(f.getName())){
+				persistentNames.add(f.getName());
+			}
+		}
+		
+		//有setter时用setter注入，否则直接写public属性
+		Map<String, SetterInfo> infos = new HashMap<String, SetterInfo>();
+		for(Map.Entry<String, Method> entry : setters.entrySet()){
+			infos.put(entry.getKey(), new SetterInfo(entry.getValue(), entry.getValue().getParameterTypes()[0], null, true));
+		}
+		for(Map.Entry<String, Field> entry : fields.entrySet()){
+			if(infos.containsKey(entry.getKey())) continue;
+			
+			Field f = entry.getValue();
+			f.setAccessible(true);
+			infos.put(entry.getKey(), new SetterInfo(null, f.getType(), f, false));
+		}
+		this.setterInfos = Collections.unmodifiableMap(infos);
+	}
+	
+	static BeanProperties of(Class<?> beanClass){
+		BeanProperties properties = cache.get(beanClass);
+		if(properties == null){
+			properties = new BeanProperties(beanClass);
+			BeanProperties exists = cache.putIfAbsent(beanClass, properties);
+			if(exists != null) properties = exists;
+		}
+		return properties;
+	}
+	
+	boolean hasProperty(String name){
+		return getters.containsKey(name) || fields.containsKey(name);
+	}
+	
+	/**
+	 * @return 可写属性的注入方式，键为驼峰名和下划线名
+	 */
+	Map<String, SetterInfo> setterInfos(){
+		return setterInfos;
+	}
+	
+	/**
+	 * @return 既可读又可写的属性（驼峰名），即BeanConverter能写入、也能读回的属性
+	 */
+	List<String> persistentNames(){
+		return Collections.unmodifiableList(persistentNames);
+	}
+	
+	/**
+	 * @param name
+	 * @return 属性的类型，属性不存在时返回null
+	 */
+	Class<?> readableType(String name){
+		Method getter = getters.get(name);
+		if(getter != null) return getter.getReturnType();
+		
+		Field field = fields.get(name);
+		return field == null ? null : field.getType();
+	}
+	
+	/**
+	 * 读取属性的MethodHandle，类型为(Object)Object，用于批量读取时避免逐行反射
+	 * @param name
+	 * @return
+	 * @throws IllegalArgumentException 属性不存在
+	 */
+	MethodHandle getterHandle(String name){
+		MethodType type = MethodType.methodType(Object.class, Object.class);
+		try {
+			Method getter = getters.get(name);
+			if(getter != null){
+				//非public的bean类的public方法也能读取
+				getter.setAccessible(true);
+				return MethodHandles.lookup().unreflect(getter).asType(type);
+			}
+			
+			Field field = fields.get(name);
+			if(field != null){
+				field.setAccessible(true);
+				return MethodHandles.lookup().unreflectGetter(field).asType(type);
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("can not read property " + name + " of " + beanClass.getName(), e);
+		}
+		
+		throw new IllegalArgumentException("there is no property named " + name + " in " + beanClass.getName());
+	}
+	
+	/**
+	 * @param name
+	 * @return 可写属性的类型，属性不存在或不可写时返回null
+	 */
+	Class<?> writableType(String name){
+		Method setter = setters.get(name);
+		if(setter != null) return setter.getParameterTypes()[0];
+		
+		Field field = fields.get(name);
+		return field == null ? null : field.getType();
+	}
+	
+	/**
+	 * 读取属性值
+	 * @param bean
+	 * @param name
+	 * @return
+	 * @throws IllegalArgumentException 属性不存在
+	 */
+	Object get(Object bean, String name){
+		try {
+			Method getter = getters.get(name);
+			if(getter != null) return getter.invoke(bean);
+			
+			Field field = fields.get(name);
+			if(field != null) return field.get(bean);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new RuntimeException("can not read property " + name + " of " + beanClass.getName(), e);
+		}
+		
+		throw new IllegalArgumentException("there is no property named " + name + " in " + beanClass.getName());
+	}
+	
+	/**
+	 * 设置属性值
+	 * @param bean
+	 * @param name
+	 * @param value
+	 * @throws IllegalArgumentException 属性不存在或不可写
+	 */
+	void set(Object bean, String name, Object value){
+		try {
+			Method setter = setters.get(name);
+			if(setter != null){
+				setter.invoke(bean, value);
+				return;
+			}
+			
+			Field field = fields.get(name);
+			if(field != null){
+				field.set(bean, value);
+				return;
+			}
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new RuntimeException("can not write property " + name + " of " + beanClass.getName(), e);
+		}
+		
+		throw new IllegalArgumentException("there is no writable property named " + name + " in " + beanClass.getName());
+	}
+}
@@ -0,0 +1,512 @@
+package org.mintframework.db;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * bean的写入器，是BeanConverter的反向操作：按bean的属性生成INSERT、UPDATE和UPSERT(ON DUPLICATE KEY UPDATE)语句，
+ * 用MethodHandle读取属性，直接绑定到预处理语句，不构造Object[][]，列表按块执行批量语句。<br/>
+ * 每个(bean类, 表, 列映射, 主键)的列、属性读取方式和sql只生成一次并缓存；
+ * 每种属性类型的绑定方式在创建写入器时确定。列名不加引号，UPSERT语句是mysql的语法。<br/>
+ * 由SQLExecutor.beanWriter创建，线程安全
+ * @param <T>
+ */
+public final class BeanWriter<T> {
+	/**
+	 * 列表默认每块的行数
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	private static final int MAX_PARTIAL_UPDATES = 1024;
+
+	private static final ConcurrentHashMap<ShapeKey, BeanShape> shapes = new ConcurrentHashMap<ShapeKey, BeanShape>();
+
+	private final SQLExecutor executor;
+	private final ParameterBinder binder;
+	private final BeanShape shape;
+	private final Binding[] bindings;		//按声明类型确定的绑定方式，null表示按值解析
+	private final int[] nullTypes;
+
+	BeanWriter(SQLExecutor executor, Class<T> beanClass, String table, Map<String, String> columnFieldMap, String[] keyColumns){
+		if(table == null || table.isEmpty()){
+			throw new IllegalArgumentException("table can not be empty");
+		}
+
+		this.executor = executor;
+		this.binder = executor.getBinder();
+		this.shape = BeanShape.of(beanClass, table, columnFieldMap, keyColumns == null ? new String[0] : keyColumns);
+
+		int count = shape.columns.length;
+		this.bindings = new Binding[count];
+		this.nullTypes = new int[count];
+		for(int i=0; i<count; i++){
+			bindings[i] = binder.resolveType(shape.types[i]);
+			nullTypes[i] = bindings[i] == null ? Types.NULL : bindings[i].sqlType(null);
+		}
+	}
+
+	public String getTable() {
+		return shape.table;
+	}
+
+	/**
+	 * @return 写入的列
+	 */
+	public List<String> getColumns() {
+		return Collections.unmodifiableList(Arrays.asList(shape.columns));
+	}
+
+	public String getInsertSql() {
+		return shape.insertSql;
+	}
+
+	/**
+	 * 创建变更跟踪器，用于只更新修改过的列，见{@link ChangeTracker}
+	 * @return
+	 */
+	public ChangeTracker<T> tracker() {
+		return new ChangeTracker<T>(this);
+	}
+
+	/**
+	 * @return 没有主键或者没有非主键列时为null
+	 */
+	public String getUpdateSql() {
+		return shape.updateSql;
+	}
+
+	public String getUpsertSql() {
+		return shape.upsertSql;
+	}
+
+	/**
+	 * @param conn
+	 * @param bean
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int insert(Connection conn, T bean) throws SQLException {
+		return execute(conn, shape.insertSql, shape.allColumns, Collections.singletonList(bean), 1);
+	}
+
+	/**
+	 * 按默认块大小批量插入
+	 * @param conn
+	 * @param beans
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int insert(Connection conn, List<? extends T> beans) throws SQLException {
+		return insert(conn, beans, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * 批量插入，每chunkSize行执行一次executeBatch
+	 * @param conn
+	 * @param beans
+	 * @param chunkSize 小于1时所有行作为一块
+	 * @return 影响的行数，驱动返回SUCCESS_NO_INFO时按1行计算
+	 * @throws SQLException
+	 */
+	public int insert(Connection conn, List<? extends T> beans, int chunkSize) throws SQLException {
+		return execute(conn, shape.insertSql, shape.allColumns, beans, chunkSize);
+	}
+
+	/**
+	 * 按主键更新所有非主键列
+	 * @param conn
+	 * @param bean
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, T bean) throws SQLException {
+		return execute(conn, updateSql(), shape.updateColumns, Collections.singletonList(bean), 1);
+	}
+
+	/**
+	 * 按默认块大小批量更新
+	 * @param conn
+	 * @param beans
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, List<? extends T> beans) throws SQLException {
+		return update(conn, beans, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * 按主键批量更新所有非主键列
+	 * @param conn
+	 * @param beans
+	 * @param chunkSize 小于1时所有行作为一块
+	 * @return 影响的行数，驱动返回SUCCESS_NO_INFO时按1行计算
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, List<? extends T> beans, int chunkSize) throws SQLException {
+		return execute(conn, updateSql(), shape.updateColumns, beans, chunkSize);
+	}
+
+	/**
+	 * 插入，唯一键冲突时更新所有非主键列
+	 * @param conn
+	 * @param bean
+	 * @return 影响的行数，mysql对更新的行返回2
+	 * @throws SQLException
+	 */
+	public int upsert(Connection conn, T bean) throws SQLException {
+		return execute(conn, shape.upsertSql, shape.allColumns, Collections.singletonList(bean), 1);
+	}
+
+	/**
+	 * 按默认块大小批量插入或更新
+	 * @param conn
+	 * @param beans
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int upsert(Connection conn, List<? extends T> beans) throws SQLException {
+		return upsert(conn, beans, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * 批量插入，唯一键冲突时更新所有非主键列
+	 * @param conn
+	 * @param beans
+	 * @param chunkSize 小于1时所有行作为一块
+	 * @return 影响的行数，驱动返回SUCCESS_NO_INFO时按1行计算
+	 * @throws SQLException
+	 */
+	public int upsert(Connection conn, List<? extends T> beans, int chunkSize) throws SQLException {
+		return execute(conn, shape.upsertSql, shape.allColumns, beans, chunkSize);
+	}
+
+	private String updateSql(){
+		if(shape.updateSql == null){
+			throw new IllegalStateException("update needs key columns and at least one other column: " + shape.insertSql);
+		}
+		return shape.updateSql;
+	}
+
+	private int execute(Connection conn, String sql, int[] order, List<? extends T> beans, int chunkSize) throws SQLException {
+		if(beans == null || beans.isEmpty()) return 0;
+		if(chunkSize < 1) chunkSize = beans.size();
+
+		PreparedStatement pstm = null;
+		try {
+			pstm = executor.prepareStatement(conn, sql, QueryFamily.UPDATE);
+
+			if(beans.size() == 1){
+				bindRow(pstm, beans.get(0), order);
+				return pstm.executeUpdate();
+			}
+
+			int total = 0, rows = 0;
+			for(T bean : beans){
+				bindRow(pstm, bean, order);
+				pstm.addBatch();
+
+				if(++rows == chunkSize){
+					total += count(pstm.executeBatch());
+					rows = 0;
+				}
+			}
+			if(rows > 0){
+				total += count(pstm.executeBatch());
+			}
+			return total;
+		} finally {
+			if(pstm != null) pstm.close();
+		}
+	}
+
+	private void bindRow(PreparedStatement pstm, T bean, int[] order) throws SQLException {
+		if(bean == null){
+			throw new IllegalArgumentException("bean can not be null");
+		}
+
+		for(int i=0, len=order.length; i<len; i++){
+			bindValue(pstm, i+1, order[i], read(bean, order[i]));
+		}
+	}
+
+	int columnCount(){
+		return shape.columns.length;
+	}
+
+	String column(int column){
+		return shape.columns[column];
+	}
+
+	/**
+	 * @return 主键列的序号
+	 */
+	int[] keyColumns(){
+		return shape.keyColumns;
+	}
+
+	SQLExecutor executor(){
+		return executor;
+	}
+
+	/**
+	 * 只更新changed中的列的UPDATE语句，按主键定位，每种列组合只生成一次
+	 * @param changed 列的序号
+	 * @return 参数顺序：changed中的列按序号递增，然后是主键列
+	 */
+	String partialUpdateSql(BitSet changed){
+		if(shape.keyColumns.length == 0){
+			throw new IllegalStateException("update needs key columns: " + shape.insertSql);
+		}
+
+		String sql = shape.partialUpdateSql.get(changed);
+		if(sql != null) return sql;
+
+		StringBuilder update = new StringBuilder(64 + changed.cardinality() * 16);
+		update.append("UPDATE ").append(shape.table).append(" SET ");
+		for(int i = changed.nextSetBit(0), n = 0; i >= 0; i = changed.nextSetBit(i + 1), n++){
+			update.append(n == 0 ? "" : ", ").append(shape.columns[i]).append(" = ?");
+		}
+		update.append(" WHERE ");
+		for(int i=0; i<shape.keyColumns.length; i++){
+			update.append(i == 0 ? "" : " AND ").append(shape.columns[shape.keyColumns[i]]).append(" = ?");
+		}
+		sql = update.toString();
+
+		//列组合最多2^n种，实际只有少数几种，这里只防止异常情况下无限增长
+		if(shape.partialUpdateSql.size() >= MAX_PARTIAL_UPDATES){
+			shape.partialUpdateSql.clear();
+		}
+		shape.partialUpdateSql.put((BitSet) changed.clone(), sql);
+		return sql;
+	}
+
+	/**
+	 * 用列的绑定方式绑定一个参数。声明类型是接口、父类或者没有标准绑定方式时按值解析
+	 */
+	void bindValue(PreparedStatement pstm, int index, int column, Object value) throws SQLException {
+		if(value == null){
+			pstm.setNull(index, nullTypes[column]);
+		} else if(bindings[column] != null && value.getClass() == shape.types[column]){
+			bindings[column].bind(pstm, index, value);
+		} else {
+			binder.resolve(value).bind(pstm, index, value);
+		}
+	}
+
+	Object read(T bean, int column){
+		try {
+			return (Object) shape.getters[column].invokeExact((Object) bean);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("can not read property " + shape.properties[column] + " of " + bean.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * @return 批量语句影响的行数，SUCCESS_NO_INFO按1行计算
+	 */
+	static int count(int[] counts){
+		int total = 0;
+		for(int count : counts){
+			if(count > 0){
+				total += count;
+			} else if(count == Statement.SUCCESS_NO_INFO){
+				total++;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * 一个(bean类, 表, 列映射, 主键)对应的列、属性读取方式和sql
+	 */
+	private static final class BeanShape {
+		final String[] columns;
+		final String[] properties;
+		final Class<?>[] types;			//属性类型，基础类型用包装类
+		final MethodHandle[] getters;
+		final int[] allColumns;			//INSERT、UPSERT的参数顺序
+		final int[] updateColumns;		//UPDATE的参数顺序：非主键列，然后是主键列
+		final String insertSql;
+		final String updateSql;
+		final String upsertSql;
+		final String table;
+		final int[] keyColumns;
+		final ConcurrentHashMap<BitSet, String> partialUpdateSql = new ConcurrentHashMap<BitSet, String>();
+
+		static BeanShape of(Class<?> beanClass, String table, Map<String, String> columnFieldMap, String[] keyColumns){
+			ShapeKey key = new ShapeKey(beanClass, table, columnFieldMap, keyColumns);
+			BeanShape shape = shapes.get(key);
+			if(shape == null){
+				shape = new BeanShape(beanClass, table, columnFieldMap, keyColumns);
+				BeanShape exists = shapes.putIfAbsent(key, shape);
+				if(exists != null) shape = exists;
+			}
+			return shape;
+		}
+
+		private BeanShape(Class<?> beanClass, String table, Map<String, String> columnFieldMap, String[] keyColumns){
+			BeanProperties props = BeanProperties.of(beanClass);
+
+			//默认列名为属性名的下划线形式，columnFieldMap与BeanConverter一样只是补充：映射到的属性改用指定的列名
+			Map<String, String> renamed = new HashMap<String, String>();
+			if(columnFieldMap != null){
+				for(Map.Entry<String, String> entry : columnFieldMap.entrySet()){
+					renamed.put(BeanConverter.camelhumpToUnderline(entry.getValue()), entry.getKey());
+				}
+			}
+
+			Map<String, String> mapping = new LinkedHashMap<String, String>();
+			for(String name : props.persistentNames()){
+				String column = BeanConverter.camelhumpToUnderline(name);
+				String mapped = renamed.remove(column);
+				mapping.put(mapped == null ? column : mapped, name);
+			}
+			if(!renamed.isEmpty()){
+				//映射到的不是可读写属性，只有可读的属性也能写入，否则下面检查时报错
+				for(Map.Entry<String, String> entry : columnFieldMap.entrySet()){
+					if(renamed.containsKey(BeanConverter.camelhumpToUnderline(entry.getValue()))){
+						mapping.put(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			if(mapping.isEmpty()){
+				throw new IllegalArgumentException("there is no property to write in " + beanClass.getName());
+			}
+
+			int count = mapping.size();
+			this.columns = new String[count];
+			this.properties = new String[count];
+			this.types = new Class<?>[count];
+			this.getters = new MethodHandle[count];
+
+			int index = 0;
+			for(Map.Entry<String, String> entry : mapping.entrySet()){
+				Class<?> type = props.readableType(entry.getValue());
+				if(type == null){
+					throw new IllegalArgumentException("there is no readable property named " + entry.getValue() + " in " + beanClass.getName());
+				}
+
+				columns[index] = entry.getKey();
+				properties[index] = entry.getValue();
+				types[index] = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+				getters[index] = props.getterHandle(entry.getValue());
+				index++;
+			}
+
+			List<Integer> keys = new ArrayList<Integer>();
+			for(String keyColumn : keyColumns){
+				int column = Arrays.asList(columns).indexOf(keyColumn);
+				if(column < 0){
+					throw new IllegalArgumentException("key column " + keyColumn + " is not a column of " + beanClass.getName());
+				}
+				keys.add(column);
+			}
+
+			this.table = table;
+			this.keyColumns = new int[keys.size()];
+			for(int i=0; i<keys.size(); i++){
+				this.keyColumns[i] = keys.get(i);
+			}
+
+			List<Integer> others = new ArrayList<Integer>();
+			for(int i=0; i<count; i++){
+				if(!keys.contains(i)) others.add(i);
+			}
+
+			this.allColumns = new int[count];
+			for(int i=0; i<count; i++){
+				allColumns[i] = i;
+			}
+
+			StringBuilder insert = new StringBuilder(64 + count * 16);
+			insert.append("INSERT INTO ").append(table).append(" (");
+			for(int i=0; i<count; i++){
+				insert.append(i == 0 ? "" : ", ").append(columns[i]);
+			}
+			insert.append(") VALUES (");
+			for(int i=0; i<count; i++){
+				insert.append(i == 0 ? "?" : ", ?");
+			}
+			insert.append(')');
+			this.insertSql = insert.toString();
+
+			StringBuilder upsert = new StringBuilder(insertSql).append(" ON DUPLICATE KEY UPDATE ");
+			if(others.isEmpty()){
+				upsert.append(columns[0]).append(" = ").append(columns[0]);
+			} else {
+				for(int i=0; i<others.size(); i++){
+					String column = columns[others.get(i)];
+					upsert.append(i == 0 ? "" : ", ").append(column).append(" = VALUES(").append(column).append(')');
+				}
+			}
+			this.upsertSql = upsert.toString();
+
+			if(keys.isEmpty() || others.isEmpty()){
+				this.updateSql = null;
+				this.updateColumns = null;
+			} else {
+				StringBuilder update = new StringBuilder(64 + count * 16);
+				update.append("UPDATE ").append(table).append(" SET ");
+				for(int i=0; i<others.size(); i++){
+					update.append(i == 0 ? "" : ", ").append(columns[others.get(i)]).append(" = ?");
+				}
+				update.append(" WHERE ");
+				for(int i=0; i<keys.size(); i++){
+					update.append(i == 0 ? "" : " AND ").append(columns[keys.get(i)]).append(" = ?");
+				}
+				this.updateSql = update.toString();
+
+				this.updateColumns = new int[count];
+				index = 0;
+				for(int column : others) updateColumns[index++] = column;
+				for(int column : keys) updateColumns[index++] = column;
+			}
+		}
+	}
+
+	private static final class ShapeKey {
+		final Class<?> beanClass;
+		final String table;
+		final Map<String, String> columnFieldMap;
+		final List<String> keyColumns;
+
+		ShapeKey(Class<?> beanClass, String table, Map<String, String> columnFieldMap, String[] keyColumns){
+			this.beanClass = beanClass;
+			this.table = table;
+			this.columnFieldMap = columnFieldMap == null ? null : new LinkedHashMap<String, String>(columnFieldMap);
+			this.keyColumns = Arrays.asList(keyColumns.clone());
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = beanClass.hashCode();
+			hash = 31 * hash + table.hashCode();
+			hash = 31 * hash + (columnFieldMap == null ? 0 : columnFieldMap.hashCode());
+			return 31 * hash + keyColumns.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof ShapeKey)) return false;
+			ShapeKey other = (ShapeKey) obj;
+			return beanClass == other.beanClass && table.equals(other.table) && keyColumns.equals(other.keyColumns) &&
+					(columnFieldMap == null ? other.columnFieldMap == null : columnFieldMap.equals(other.columnFieldMap));
+		}
+	}
+}
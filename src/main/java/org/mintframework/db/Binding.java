@@ -0,0 +1,17 @@
+package org.mintframework.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 一种参数类型的绑定方式
+ */
+interface Binding {
+	void bind(PreparedStatement pstm, int index, Object value) throws SQLException;
+
+	/**
+	 * @param value 样本值
+	 * @return 这种参数为null时使用的sql类型
+	 */
+	int sqlType(Object value);
+}
@@ -0,0 +1,69 @@
+package org.mintframework.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 一条sql的参数绑定计划。参数类型与计划一致时直接调用计划中的绑定方式，否则退回到按值解析。
+ * 为null的参数使用样本行中同一位置的sql类型，样本中也是null时使用同一条sql上次见到的类型。
+ * 为null的行不绑定任何参数
+ */
+final class BindingPlan {
+	private final Class<?>[] types;
+	private final Binding[] bindings;
+	private final int[] nullTypes;
+	private final AtomicIntegerArray seenTypes;
+	private final ParameterBinder binder;
+
+	/**
+	 * @param types
+	 * @param sample
+	 * @param seenTypes 同一条sql的所有计划共用的各位置上次见到的sql类型，不短于sample
+	 * @param binder
+	 */
+	BindingPlan(Class<?>[] types, Object[] sample, AtomicIntegerArray seenTypes, ParameterBinder binder){
+		this.types = types;
+		this.seenTypes = seenTypes;
+		this.binder = binder;
+		this.bindings = new Binding[types.length];
+		this.nullTypes = new int[types.length];
+
+		for(int i=0, len=types.length; i<len; i++){
+			bindings[i] = binder.resolve(sample[i]);
+			nullTypes[i] = bindings[i].sqlType(sample[i]);
+			if(nullTypes[i] != Types.NULL){
+				seenTypes.set(i, nullTypes[i]);
+			}
+		}
+	}
+
+	void bind(PreparedStatement pstm, Object[] params) throws SQLException{
+		if(params == null) return;
+
+		Object value;
+		for(int i=0, len=params.length; i<len; i++){
+			value = params[i];
+
+			if(value == null){
+				//计划中的类型来自样本行，后续行的null也能带上正确的sql类型
+				pstm.setNull(i+1, nullType(i));
+			} else if(i >= types.length){
+				binder.resolve(value).bind(pstm, i+1, value);
+			} else if(value.getClass() == types[i]){
+				bindings[i].bind(pstm, i+1, value);
+			} else {
+				binder.resolve(value).bind(pstm, i+1, value);
+			}
+		}
+	}
+
+	private int nullType(int index){
+		int type = index < nullTypes.length ? nullTypes[index] : Types.NULL;
+		if(type == Types.NULL && index < seenTypes.length()){
+			type = seenTypes.get(index);
+		}
+		return type;
+	}
+}
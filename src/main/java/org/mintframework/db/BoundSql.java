@@ -0,0 +1,35 @@
+package org.mintframework.db;
+
+import java.util.Arrays;
+
+/**
+ * 绑定参数后的sql模板：使用"?"参数的sql和按顺序排列的参数值
+ */
+public final class BoundSql {
+	private final String sql;
+	private final Object[] params;
+
+	BoundSql(String sql, Object[] params){
+		this.sql = sql;
+		this.params = params;
+	}
+
+	/**
+	 * @return 使用"?"参数的sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * @return 按顺序排列的参数值
+	 */
+	public Object[] getParams() {
+		return params;
+	}
+
+	@Override
+	public String toString() {
+		return sql + " " + Arrays.toString(params);
+	}
+}
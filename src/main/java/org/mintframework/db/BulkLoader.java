@@ -0,0 +1,482 @@
+package org.mintframework.db;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 批量导入。把bean或Object[]的迭代器流式编码成TSV，交给数据库的原生导入命令：
+ * mysql的LOAD DATA LOCAL INFILE（通过驱动的setLocalInfileInputStream）或postgresql的COPY FROM STDIN，
+ * 编码只使用一个小的内存缓冲区，不生成临时文件。<br/>
+ * 每chunkRows行执行一次导入语句，避免一个语句产生过大的事务；事务由调用者控制。
+ * 没有可用的BulkSink时（驱动不支持、不是mysql或postgresql）改用按块执行的批量insert。<br/>
+ * mysql需要服务端开启local_infile，Connector/J 8还需要连接参数allowLoadLocalInfile=true。
+ * 编码规则：null写作\N，Boolean写作1/0，枚举写作序号，日期时间写作yyyy-MM-dd HH:mm:ss[.f]。
+ * byte[]和字符\0的写法与接收端有关：mysql按原始字节转义写出，\0写作\0；
+ * postgresql的bytea写作\\x加十六进制，文本中不能有\0，遇到时抛出IllegalArgumentException。<br/>
+ * 线程安全
+ */
+public final class BulkLoader {
+	/**
+	 * 默认每个导入语句的行数
+	 */
+	public static final int DEFAULT_CHUNK_ROWS = 500000;
+
+	/**
+	 * 退回到批量insert时每次executeBatch的行数
+	 */
+	public static final int FALLBACK_BATCH_SIZE = 1000;
+
+	private static final BulkSink MYSQL_LOAD_DATA = new MySqlLoadDataSink();
+	private static final BulkSink POSTGRES_COPY = new PostgresCopySink();
+
+	private final SQLExecutor executor;
+	private volatile BulkSink[] sinks = {MYSQL_LOAD_DATA, POSTGRES_COPY};
+	private volatile int chunkRows = DEFAULT_CHUNK_ROWS;
+
+	/**
+	 * @param executor 退回到批量insert时使用，沿用它的转换器和执行选项
+	 */
+	public BulkLoader(SQLExecutor executor){
+		if(executor == null){
+			throw new IllegalArgumentException("executor can not be null");
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * @return 通过mysql驱动的setLocalInfileInputStream执行LOAD DATA LOCAL INFILE的接收端
+	 */
+	public static BulkSink mysqlLoadData(){
+		return MYSQL_LOAD_DATA;
+	}
+
+	/**
+	 * @return 通过postgresql驱动的CopyManager执行COPY FROM STDIN的接收端
+	 */
+	public static BulkSink postgresCopy(){
+		return POSTGRES_COPY;
+	}
+
+	/**
+	 * 设置依次尝试的接收端，默认是mysqlLoadData和postgresCopy。不设置任何接收端时总是使用批量insert
+	 * @param sinks
+	 * @return 导入器本身
+	 */
+	public BulkLoader setSinks(BulkSink... sinks) {
+		this.sinks = sinks == null ? new BulkSink[0] : sinks.clone();
+		return this;
+	}
+
+	/**
+	 * @param chunkRows 每个导入语句的行数
+	 * @return 导入器本身
+	 */
+	public BulkLoader setChunkRows(int chunkRows) {
+		if(chunkRows < 1){
+			throw new IllegalArgumentException("invalid chunkRows: " + chunkRows);
+		}
+		this.chunkRows = chunkRows;
+		return this;
+	}
+
+	/**
+	 * 导入Object[]行
+	 * @param conn
+	 * @param table
+	 * @param columns 每行中各元素对应的列
+	 * @param rows
+	 * @return 导入的行数
+	 * @throws SQLException
+	 */
+	public long load(Connection conn, String table, String[] columns, Iterator<Object[]> rows) throws SQLException {
+		if(table == null || columns == null || columns.length == 0){
+			throw new IllegalArgumentException("table and columns can not be empty");
+		}
+
+		long total = 0;
+		while(rows.hasNext()){
+			long loaded = loadChunk(conn, table, columns, rows);
+			if(loaded < 0){
+				return total + insertBatch(conn, table, columns, rows);
+			}
+			total += loaded;
+		}
+		return total;
+	}
+
+	/**
+	 * 导入bean，表和列来自BeanWriter
+	 * @param conn
+	 * @param writer
+	 * @param beans
+	 * @return 导入的行数
+	 * @throws SQLException
+	 */
+	public <T> long load(Connection conn, final BeanWriter<T> writer, final Iterator<? extends T> beans) throws SQLException {
+		final Object[] row = new Object[writer.columnCount()];
+		Iterator<Object[]> rows = new Iterator<Object[]>() {
+			public boolean hasNext() {
+				return beans.hasNext();
+			}
+
+			public Object[] next() {
+				T bean = beans.next();
+				for(int i=0; i<row.length; i++){
+					row[i] = writer.read(bean, i);
+				}
+				return row;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		String[] columns = writer.getColumns().toArray(new String[row.length]);
+		return load(conn, writer.getTable(), columns, rows);
+	}
+
+	/**
+	 * 用第一个支持这个连接的接收端导入一块
+	 * @return 导入的行数，没有接收端支持时返回-1
+	 */
+	private long loadChunk(Connection conn, String table, String[] columns, Iterator<Object[]> rows) throws SQLException {
+		for(BulkSink sink : sinks){
+			TsvRowStream data = new TsvRowStream(rows, columns.length, chunkRows, sink instanceof PostgresCopySink);
+			long loaded = sink.load(conn, table, columns, data);
+			if(loaded >= 0){
+				if(data.getRows() == 0 && rows.hasNext()){
+					throw new SQLException("bulk sink " + sink.getClass().getName() + " did not read the data");
+				}
+				return loaded;
+			}
+			if(data.getRows() > 0){
+				throw new SQLException("bulk sink " + sink.getClass().getName() + " read the data but reported it as unsupported");
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 不支持原生导入时，按块执行批量insert
+	 */
+	private long insertBatch(Connection conn, String table, String[] columns, Iterator<Object[]> rows) throws SQLException {
+		StringBuilder builder = new StringBuilder(64 + columns.length * 16);
+		builder.append("INSERT INTO ").append(table).append(" (");
+		for(int i=0; i<columns.length; i++){
+			builder.append(i == 0 ? "" : ", ").append(columns[i]);
+		}
+		builder.append(") VALUES (");
+		for(int i=0; i<columns.length; i++){
+			builder.append(i == 0 ? "?" : ", ?");
+		}
+		String sql = builder.append(')').toString();
+
+		PreparedStatement pstm = null;
+		try {
+			pstm = executor.prepareStatement(conn, sql, QueryFamily.UPDATE);
+
+			BindingPlan plan = null;
+			long total = 0;
+			int batch = 0;
+			while(rows.hasNext()){
+				Object[] row = rows.next();
+				if(plan == null && row != null){
+					plan = executor.getBinder().plan(sql, row);
+				}
+				if(plan != null){
+					plan.bind(pstm, row);
+				}
+				pstm.addBatch();
+
+				if(++batch == FALLBACK_BATCH_SIZE){
+					total += BeanWriter.count(pstm.executeBatch());
+					batch = 0;
+				}
+			}
+			if(batch > 0){
+				total += BeanWriter.count(pstm.executeBatch());
+			}
+			return total;
+		} finally {
+			if(pstm != null) pstm.close();
+		}
+	}
+
+	/**
+	 * 按需把行编码成TSV的输入流，最多编码maxRows行。postgres为true时按COPY文本格式编码byte[]和\0
+	 */
+	static final class TsvRowStream extends InputStream {
+		private static final byte[] NULL = {'\\', 'N'};
+		private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+		private final Iterator<Object[]> rows;
+		private final int columnCount;
+		private final int maxRows;
+		private final boolean postgres;
+		private byte[] buffer = new byte[8192];
+		private int position;
+		private int limit;
+		private int count;
+
+		TsvRowStream(Iterator<Object[]> rows, int columnCount, int maxRows, boolean postgres){
+			this.rows = rows;
+			this.columnCount = columnCount;
+			this.maxRows = maxRows;
+			this.postgres = postgres;
+		}
+
+		/**
+		 * @return 已经编码的行数
+		 */
+		int getRows() {
+			return count;
+		}
+
+		@Override
+		public int read() {
+			if(!fill()) return -1;
+			return buffer[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if(len == 0) return 0;
+			if(!fill()) return -1;
+
+			int n = Math.min(len, limit - position);
+			System.arraycopy(buffer, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return limit - position;
+		}
+
+		/**
+		 * 缓冲区读完时编码下一行
+		 * @return 是否还有数据
+		 */
+		private boolean fill(){
+			while(position == limit){
+				if(count >= maxRows || !rows.hasNext()) return false;
+
+				position = 0;
+				limit = 0;
+				encode(rows.next());
+				count++;
+			}
+			return true;
+		}
+
+		private void encode(Object[] row){
+			if(row.length != columnCount){
+				throw new IllegalArgumentException("row has " + row.length + " values, but there are " + columnCount + " columns");
+			}
+
+			for(int i=0; i<row.length; i++){
+				if(i > 0) put((byte) '\t');
+				encodeValue(row[i]);
+			}
+			put((byte) '\n');
+		}
+
+		private void encodeValue(Object value){
+			if(value == null){
+				put(NULL, 0, 2);
+			} else if(value instanceof String){
+				putEscaped((String) value);
+			} else if(value instanceof Boolean){
+				put((byte) (((Boolean) value) ? '1' : '0'));
+			} else if(value instanceof BigDecimal){
+				putEscaped(((BigDecimal) value).toPlainString());
+			} else if(value instanceof Enum){
+				putEscaped(String.valueOf(((Enum<?>) value).ordinal()));
+			} else if(value instanceof byte[]){
+				byte[] bytes = (byte[]) value;
+				if(postgres){
+					putHex(bytes);
+				} else {
+					for(byte b : bytes){
+						putEscaped(b);
+					}
+				}
+			} else if(value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp){
+				putEscaped(value.toString());
+			} else if(value instanceof java.util.Date){
+				putEscaped(new Timestamp(((java.util.Date) value).getTime()).toString());
+			} else if(value instanceof LocalDateTime){
+				putEscaped(Timestamp.valueOf((LocalDateTime) value).toString());
+			} else {
+				putEscaped(value.toString());
+			}
+		}
+
+		private void putEscaped(String s){
+			ensure(s.length() * 3);
+			for(int i=0, len=s.length(); i<len; i++){
+				char c = s.charAt(i);
+				if(c < 0x80){
+					putEscaped((byte) c);
+				} else if(c < 0x800){
+					ensure(2);
+					buffer[limit++] = (byte) (0xc0 | (c >> 6));
+					buffer[limit++] = (byte) (0x80 | (c & 0x3f));
+				} else if(Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))){
+					int cp = Character.toCodePoint(c, s.charAt(++i));
+					ensure(4);
+					buffer[limit++] = (byte) (0xf0 | (cp >> 18));
+					buffer[limit++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+					buffer[limit++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+					buffer[limit++] = (byte) (0x80 | (cp & 0x3f));
+				} else {
+					ensure(3);
+					buffer[limit++] = (byte) (0xe0 | (c >> 12));
+					buffer[limit++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					buffer[limit++] = (byte) (0x80 | (c & 0x3f));
+				}
+			}
+		}
+
+		private void putEscaped(byte b){
+			switch(b){
+			case '\\': put2('\\', '\\'); break;
+			case '\t': put2('\\', 't'); break;
+			case '\n': put2('\\', 'n'); break;
+			case '\r': put2('\\', 'r'); break;
+			case 0:
+				if(postgres){
+					throw new IllegalArgumentException("postgresql text can not contain the character \\0");
+				}
+				put2('\\', '0');
+				break;
+			default: put(b);
+			}
+		}
+
+		/**
+		 * bytea的十六进制格式\x...，反斜杠在COPY文本中需要再转义一次
+		 */
+		private void putHex(byte[] bytes){
+			ensure(3 + bytes.length * 2);
+			buffer[limit++] = '\\';
+			buffer[limit++] = '\\';
+			buffer[limit++] = 'x';
+			for(byte b : bytes){
+				buffer[limit++] = HEX[(b >> 4) & 0xf];
+				buffer[limit++] = HEX[b & 0xf];
+			}
+		}
+
+		private void put2(char a, char b){
+			ensure(2);
+			buffer[limit++] = (byte) a;
+			buffer[limit++] = (byte) b;
+		}
+
+		private void put(byte b){
+			ensure(1);
+			buffer[limit++] = b;
+		}
+
+		private void put(byte[] bytes, int off, int len){
+			ensure(len);
+			System.arraycopy(bytes, off, buffer, limit, len);
+			limit += len;
+		}
+
+		private void ensure(int extra){
+			if(limit + extra > buffer.length){
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, limit + extra));
+			}
+		}
+	}
+}
+
+/**
+ * mysql的LOAD DATA LOCAL INFILE。驱动是可选依赖，通过反射调用Connector/J语句上的setLocalInfileInputStream
+ */
+final class MySqlLoadDataSink implements BulkSink {
+	private static final String[] STATEMENT_INTERFACES = {"com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement"};
+
+	public long load(Connection conn, String table, String[] columns, InputStream data) throws SQLException {
+		Statement stm = conn.createStatement();
+		try {
+			Object target = null;
+			Method setter = null;
+			for(String name : STATEMENT_INTERFACES){
+				try {
+					Class<?> type = Class.forName(name, false, stm.getClass().getClassLoader());
+					if(!stm.isWrapperFor(type)) continue;
+					target = stm.unwrap(type);
+					setter = type.getMethod("setLocalInfileInputStream", InputStream.class);
+					break;
+				} catch (ClassNotFoundException | NoSuchMethodException e) {
+					//不是这个版本的驱动
+				}
+			}
+			if(setter == null) return -1;
+
+			setter.invoke(target, data);
+
+			StringBuilder sql = new StringBuilder(128 + columns.length * 16);
+			sql.append("LOAD DATA LOCAL INFILE 'bulk.tsv' INTO TABLE ").append(table)
+				.append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (");
+			for(int i=0; i<columns.length; i++){
+				sql.append(i == 0 ? "" : ", ").append(columns[i]);
+			}
+			sql.append(')');
+
+			return stm.executeUpdate(sql.toString());
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new SQLException("can not set the LOAD DATA input stream", e);
+		} finally {
+			stm.close();
+		}
+	}
+}
+
+/**
+ * postgresql的COPY FROM STDIN。驱动是可选依赖，通过反射调用PGConnection.getCopyAPI().copyIn
+ */
+final class PostgresCopySink implements BulkSink {
+	public long load(Connection conn, String table, String[] columns, InputStream data) throws SQLException {
+		Class<?> type;
+		try {
+			type = Class.forName("org.postgresql.PGConnection", false, conn.getClass().getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return -1;
+		}
+		if(!conn.isWrapperFor(type)) return -1;
+
+		StringBuilder sql = new StringBuilder(64 + columns.length * 16);
+		sql.append("COPY ").append(table).append(" (");
+		for(int i=0; i<columns.length; i++){
+			sql.append(i == 0 ? "" : ", ").append(columns[i]);
+		}
+		sql.append(") FROM STDIN");
+
+		try {
+			Object copyApi = type.getMethod("getCopyAPI").invoke(conn.unwrap(type));
+			Method copyIn = copyApi.getClass().getMethod("copyIn", String.class, InputStream.class);
+			return ((Number) copyIn.invoke(copyApi, sql.toString(), data)).longValue();
+		} catch (InvocationTargetException e) {
+			if(e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+			throw new SQLException("COPY failed", e.getCause());
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new SQLException("can not use the postgresql copy api", e);
+		}
+	}
+}
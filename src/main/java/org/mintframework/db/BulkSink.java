@@ -0,0 +1,23 @@
+package org.mintframework.db;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 批量导入的数据接收端，把BulkLoader编码好的数据交给数据库的原生导入命令。<br/>
+ * 数据是UTF-8编码的TSV：字段用tab分隔，行用\n结束，null写作\N，字段中的\、tab、换行等用反斜杠转义，
+ * 与mysql LOAD DATA和postgresql COPY文本格式的默认设置一致。byte[]和字符\0按mysql的方式写出，
+ * 只有内置的postgresCopy接收端收到的是postgresql的写法（见BulkLoader）
+ */
+public interface BulkSink {
+	/**
+	 * @param conn
+	 * @param table
+	 * @param columns 数据中各字段对应的列
+	 * @param data 流式编码的数据，读到结尾时这一块的行已经全部写出
+	 * @return 导入的行数；返回-1表示这个连接不支持，此时不能读取data，BulkLoader会改用批量insert
+	 * @throws SQLException
+	 */
+	long load(Connection conn, String table, String[] columns, InputStream data) throws SQLException;
+}
@@ -0,0 +1,229 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * bean的变更跟踪器。跟踪时按BeanWriter的列保存一份属性值的快照，更新时与快照比较，
+ * 只把修改过的列写进UPDATE语句，减少binlog、复制延迟和索引维护。每种修改过的列组合的sql只生成一次。<br/>
+ * 一般在bean用BeanConverter（SQLExecutor.selectBean等）加载之后调用track。
+ * UPDATE按快照中的主键定位，所以修改主键也能正确更新。byte[]和Date在快照中复制一份，其他可变对象按equals比较，
+ * 原地修改这类对象时跟踪器看不到变化。<br/>
+ * 每种列组合的语句执行成功后，其中已跟踪的bean的快照刷新为当前值，没有跟踪的bean更新后仍不跟踪；事务回滚后应重新track。由BeanWriter.tracker创建，按bean的identity跟踪，非线程安全
+ * @param <T>
+ */
+public final class ChangeTracker<T> {
+	private final BeanWriter<T> writer;
+	private final Map<T, Object[]> snapshots = new IdentityHashMap<T, Object[]>();
+
+	ChangeTracker(BeanWriter<T> writer){
+		if(writer.keyColumns().length == 0){
+			throw new IllegalStateException("change tracking needs key columns");
+		}
+		this.writer = writer;
+	}
+
+	/**
+	 * 开始跟踪bean，已经跟踪的bean重新保存快照
+	 * @param bean
+	 * @return bean本身
+	 */
+	public T track(T bean) {
+		if(bean != null){
+			snapshots.put(bean, snapshot(bean));
+		}
+		return bean;
+	}
+
+	/**
+	 * 开始跟踪列表中的所有bean
+	 * @param beans
+	 * @return beans本身
+	 */
+	public List<T> track(List<T> beans) {
+		if(beans != null){
+			for(T bean : beans){
+				track(bean);
+			}
+		}
+		return beans;
+	}
+
+	/**
+	 * 停止跟踪bean
+	 * @param bean
+	 */
+	public void forget(T bean) {
+		snapshots.remove(bean);
+	}
+
+	public void clear() {
+		snapshots.clear();
+	}
+
+	public boolean isTracked(T bean) {
+		return snapshots.containsKey(bean);
+	}
+
+	/**
+	 * @param bean
+	 * @return 是否有列与快照不同，没有跟踪的bean返回true
+	 */
+	public boolean isDirty(T bean) {
+		Object[] snapshot = snapshots.get(bean);
+		return snapshot == null || !changed(bean, snapshot).isEmpty();
+	}
+
+	/**
+	 * @param bean
+	 * @return 与快照不同的列名，没有跟踪的bean返回所有列
+	 */
+	public List<String> getChangedColumns(T bean) {
+		Object[] snapshot = snapshots.get(bean);
+		if(snapshot == null) return writer.getColumns();
+
+		BitSet changed = changed(bean, snapshot);
+		List<String> columns = new ArrayList<String>(changed.cardinality());
+		for(int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)){
+			columns.add(writer.column(i));
+		}
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * 只更新修改过的列。没有修改时不执行语句，返回0；没有跟踪的bean更新所有非主键列，并且不会开始跟踪
+	 * @param conn
+	 * @param bean
+	 * @return 影响的行数
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, T bean) throws SQLException {
+		return update(conn, Collections.singletonList(bean), BeanWriter.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * 只更新修改过的列。修改的列组合相同的bean放在同一个批量语句中，按块执行
+	 * @param conn
+	 * @param beans
+	 * @param chunkSize 每块的行数，小于1时每种列组合作为一块
+	 * @return 影响的行数，驱动返回SUCCESS_NO_INFO时按1行计算
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, List<? extends T> beans, int chunkSize) throws SQLException {
+		if(beans == null || beans.isEmpty()) return 0;
+
+		Map<BitSet, List<T>> groups = new LinkedHashMap<BitSet, List<T>>();
+		List<T> untracked = new ArrayList<T>();
+		for(T bean : beans){
+			Object[] snapshot = snapshots.get(bean);
+			if(snapshot == null){
+				untracked.add(bean);
+				continue;
+			}
+
+			BitSet changed = changed(bean, snapshot);
+			if(changed.isEmpty()) continue;
+
+			List<T> group = groups.get(changed);
+			if(group == null){
+				group = new ArrayList<T>();
+				groups.put(changed, group);
+			}
+			group.add(bean);
+		}
+
+		int total = 0;
+		for(Map.Entry<BitSet, List<T>> entry : groups.entrySet()){
+			total += update(conn, entry.getKey(), entry.getValue(), chunkSize);
+
+			//每组写入成功后立即刷新快照，后面的组失败时已经写入的bean不会按旧的主键重复更新
+			for(T bean : entry.getValue()){
+				snapshots.put(bean, snapshot(bean));
+			}
+		}
+		//没有跟踪的bean更新后仍不跟踪
+		if(!untracked.isEmpty()){
+			total += writer.update(conn, untracked, chunkSize);
+		}
+		return total;
+	}
+
+	private int update(Connection conn, BitSet changed, List<T> beans, int chunkSize) throws SQLException {
+		if(chunkSize < 1) chunkSize = beans.size();
+
+		String sql = writer.partialUpdateSql(changed);
+		int[] keys = writer.keyColumns();
+		PreparedStatement pstm = null;
+		try {
+			pstm = writer.executor().prepareStatement(conn, sql, QueryFamily.UPDATE);
+
+			int total = 0, rows = 0;
+			for(T bean : beans){
+				Object[] snapshot = snapshots.get(bean);
+				int index = 1;
+				for(int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)){
+					writer.bindValue(pstm, index++, i, writer.read(bean, i));
+				}
+				for(int key : keys){
+					writer.bindValue(pstm, index++, key, snapshot[key]);
+				}
+
+				if(beans.size() == 1){
+					return pstm.executeUpdate();
+				}
+
+				pstm.addBatch();
+				if(++rows == chunkSize){
+					total += BeanWriter.count(pstm.executeBatch());
+					rows = 0;
+				}
+			}
+			if(rows > 0){
+				total += BeanWriter.count(pstm.executeBatch());
+			}
+			return total;
+		} finally {
+			if(pstm != null) pstm.close();
+		}
+	}
+
+	private BitSet changed(T bean, Object[] snapshot){
+		BitSet changed = new BitSet(snapshot.length);
+		for(int i=0; i<snapshot.length; i++){
+			if(!same(snapshot[i], writer.read(bean, i))){
+				changed.set(i);
+			}
+		}
+		return changed;
+	}
+
+	private Object[] snapshot(T bean){
+		Object[] values = new Object[writer.columnCount()];
+		for(int i=0; i<values.length; i++){
+			values[i] = copy(writer.read(bean, i));
+		}
+		return values;
+	}
+
+	private static Object copy(Object value){
+		if(value instanceof byte[]) return ((byte[]) value).clone();
+		if(value instanceof java.util.Date) return ((java.util.Date) value).clone();
+		return value;
+	}
+
+	private static boolean same(Object a, Object b){
+		if(a == b) return true;
+		if(a == null || b == null) return false;
+		if(a instanceof byte[] && b instanceof byte[]) return Arrays.equals((byte[]) a, (byte[]) b);
+		return a.equals(b);
+	}
+}
@@ -0,0 +1,313 @@
+package org.mintframework.db;
+
+import java.net.SocketException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库的熔断器。连续failureThreshold次连接失败后打开，打开期间所有借用和执行立即失败，不再等待超时；
+ * openMillis之后进入半开状态，只放一个尝试过去，成功则关闭，失败则重新打开。
+ * 设置了probeScheduler时由后台探测代替调用者的尝试，探测成功后直接关闭。<br/>
+ * 连接失败的来源：创建连接失败，和驱动通过ConnectionEventListener.connectionErrorOccurred报告的致命错误。
+ * 一般通过MiniConnectionPool.setCircuitBreaker使用，也可以设置到SQLExecutor上，让已经借出的连接也快速失败。<br/>
+ * 线程安全
+ */
+public final class CircuitBreaker {
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/**
+	 * 后台探测数据库是否恢复，抛出异常表示仍不可用
+	 */
+	public interface Probe {
+		public void probe() throws SQLException;
+	}
+
+	/**
+	 * 状态变化的通知，在熔断器的锁之外调用
+	 */
+	interface StateListener {
+		void stateChanged(State state);
+	}
+
+	/**
+	 * 熔断器打开时的快速失败
+	 */
+	public static class OpenException extends SQLTransientConnectionException {
+		private static final long serialVersionUID = 1;
+
+		public OpenException(String reason, Throwable cause) {
+			super(reason, "08001", cause);
+		}
+	}
+
+	private int failureThreshold = 5;
+	private long openMillis = 5000;
+	private ScheduledExecutorService probeScheduler;
+	private Probe probe;
+	private StateListener listener;
+
+	private State state = State.CLOSED;
+	private int failures;
+	private long openedAt;
+	private boolean trialInFlight;
+	private boolean probeScheduled;
+	private SQLException lastError;
+
+	/**
+	 * @param failureThreshold 连续失败多少次后打开，默认5
+	 * @return 熔断器本身
+	 */
+	public synchronized CircuitBreaker setFailureThreshold(int failureThreshold) {
+		if(failureThreshold < 1){
+			throw new IllegalArgumentException("invalid failureThreshold: " + failureThreshold);
+		}
+		this.failureThreshold = failureThreshold;
+		return this;
+	}
+
+	/**
+	 * @param openMillis 打开后多久开始尝试恢复，默认5秒
+	 * @return 熔断器本身
+	 */
+	public synchronized CircuitBreaker setOpenMillis(long openMillis) {
+		if(openMillis < 0){
+			throw new IllegalArgumentException("invalid openMillis: " + openMillis);
+		}
+		this.openMillis = openMillis;
+		return this;
+	}
+
+	/**
+	 * @param probeScheduler 打开后在这里定时执行探测，为null时由打开期满后的第一个调用者尝试
+	 * @return 熔断器本身
+	 */
+	public synchronized CircuitBreaker setProbeScheduler(ScheduledExecutorService probeScheduler) {
+		this.probeScheduler = probeScheduler;
+		return this;
+	}
+
+	/**
+	 * @param probe 后台探测的方式，MiniConnectionPool会设置为创建并验证一个新连接
+	 * @return 熔断器本身
+	 */
+	public synchronized CircuitBreaker setProbe(Probe probe) {
+		this.probe = probe;
+		return this;
+	}
+
+	synchronized void setListener(StateListener listener) {
+		this.listener = listener;
+	}
+
+	synchronized void setProbeIfAbsent(Probe probe) {
+		if(this.probe == null){
+			this.probe = probe;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return 最近一次记录的失败
+	 */
+	public synchronized SQLException getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * 尝试之前调用。打开状态下快速失败；打开期满且没有后台探测时进入半开状态，当前调用者作为试探
+	 * @return 当前调用是否是半开状态的试探，试探必须以onSuccess、onFailure或abandonTrial结束
+	 * @throws OpenException
+	 */
+	public boolean acquire() throws OpenException {
+		StateListener notify = null;
+		boolean trial;
+		synchronized(this){
+			if(state == State.CLOSED) return false;
+
+			if(state == State.OPEN && !background() && System.currentTimeMillis() - openedAt >= openMillis){
+				state = State.HALF_OPEN;
+				notify = listener;
+			}
+			if(state != State.HALF_OPEN || trialInFlight || background()){
+				throw openException();
+			}
+			trialInFlight = true;
+			trial = true;
+		}
+		fire(notify, State.HALF_OPEN);
+		return trial;
+	}
+
+	/**
+	 * 不作为试探，只检查是否可以执行
+	 * @throws OpenException 不是关闭状态时抛出
+	 */
+	public void check() throws OpenException {
+		synchronized(this){
+			if(state == State.CLOSED) return;
+			throw openException();
+		}
+	}
+
+	/**
+	 * 记录一次成功，连续失败计数清零，半开状态下关闭熔断器
+	 */
+	public void onSuccess() {
+		StateListener notify = null;
+		synchronized(this){
+			failures = 0;
+			trialInFlight = false;
+			if(state != State.CLOSED){
+				state = State.CLOSED;
+				lastError = null;
+				notify = listener;
+			}
+		}
+		fire(notify, State.CLOSED);
+	}
+
+	/**
+	 * 关闭状态下清零连续失败计数，不改变状态。连接正常使用后归还时调用
+	 */
+	synchronized void clearFailures() {
+		if(state == State.CLOSED){
+			failures = 0;
+		}
+	}
+
+	/**
+	 * 记录一次连接失败。达到阈值或半开状态下的试探失败时打开熔断器
+	 * @param e
+	 */
+	public void onFailure(SQLException e) {
+		StateListener notify = null;
+		synchronized(this){
+			lastError = e;
+			failures++;
+			boolean wasTrial = trialInFlight;
+			trialInFlight = false;
+
+			if(state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)){
+				state = State.OPEN;
+				openedAt = System.currentTimeMillis();
+				notify = listener;
+				scheduleProbe();
+			} else if(state == State.OPEN && wasTrial){
+				openedAt = System.currentTimeMillis();
+			}
+		}
+		fire(notify, State.OPEN);
+	}
+
+	/**
+	 * 试探没有真正访问数据库就结束了（如等待连接超时），下一个调用者可以立即重新试探
+	 */
+	public void abandonTrial() {
+		StateListener notify = null;
+		synchronized(this){
+			if(!trialInFlight) return;
+			trialInFlight = false;
+			if(state == State.HALF_OPEN){
+				state = State.OPEN;
+				openedAt = System.currentTimeMillis() - openMillis;
+				notify = listener;
+			}
+		}
+		fire(notify, State.OPEN);
+	}
+
+	/**
+	 * 强制关闭熔断器
+	 */
+	public void reset() {
+		onSuccess();
+	}
+
+	/**
+	 * 判断是否是连接级别的错误：SQLState以08开头、连接类的SQLException子类，或者由网络异常引起
+	 * @param e
+	 * @return
+	 */
+	public static boolean isConnectionError(SQLException e) {
+		for(SQLException ex = e; ex != null; ex = ex.getNextException()){
+			if(ex instanceof SQLNonTransientConnectionException || ex instanceof SQLTransientConnectionException
+					|| ex instanceof SQLRecoverableException){
+				return true;
+			}
+			String state = ex.getSQLState();
+			if(state != null && state.startsWith("08")){
+				return true;
+			}
+			for(Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()){
+				if(cause instanceof SocketException) return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean background(){
+		return probeScheduler != null && probe != null;
+	}
+
+	private OpenException openException(){
+		long wait = Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+		return new OpenException("circuit breaker is " + state + ", database considered down"
+				+ (state == State.OPEN ? ", next attempt in " + wait + "ms" : ""), lastError);
+	}
+
+	/**
+	 * 在锁内调用，安排一次后台探测
+	 */
+	private void scheduleProbe(){
+		if(!background() || probeScheduled) return;
+
+		final Probe probe = this.probe;
+		try {
+			probeScheduler.schedule(() -> runProbe(probe), openMillis, TimeUnit.MILLISECONDS);
+			probeScheduled = true;
+		} catch (RejectedExecutionException e) {
+			//调度器已经关闭，退回到调用者试探
+			probeScheduler = null;
+		}
+	}
+
+	private void runProbe(Probe probe){
+		synchronized(this){
+			probeScheduled = false;
+			if(state == State.CLOSED) return;
+		}
+
+		try {
+			probe.probe();
+			onSuccess();
+		} catch (SQLException e) {
+			synchronized(this){
+				lastError = e;
+				openedAt = System.currentTimeMillis();
+				scheduleProbe();
+			}
+		} catch (RuntimeException e) {
+			synchronized(this){
+				lastError = new SQLException("circuit breaker probe failed", "08001", e);
+				openedAt = System.currentTimeMillis();
+				scheduleProbe();
+			}
+		}
+	}
+
+	private static void fire(StateListener listener, State state){
+		if(listener != null){
+			listener.stateChanged(state);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package org.mintframework.db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 某一种字段类型与数据库列之间的转换器，注册到ColumnConverterRegistry中使用。<br/>
+ * 与FieldColumnConverter不同，转换器直接操作ResultSet和PreparedStatement，
+ * 可以用getBytes、getBinaryStream等方法读取，不必先转换成字符串再解析
+ * @param <T> 字段类型
+ */
+public interface ColumnConverter<T> {
+	/**
+	 * 读取结果集当前行的列值，列值为null时由转换器自己决定返回什么
+	 * @param result
+	 * @param index 列的索引，从1开始
+	 * @return
+	 * @throws SQLException
+	 */
+	public T read(ResultSet result, int index) throws SQLException;
+	
+	/**
+	 * 把字段值绑定到预处理语句的参数上，value不为null
+	 * @param pstm
+	 * @param index 参数的索引，从1开始
+	 * @param value
+	 * @throws SQLException
+	 */
+	public void bind(PreparedStatement pstm, int index, T value) throws SQLException;
+}
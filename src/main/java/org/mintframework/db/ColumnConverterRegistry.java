@@ -0,0 +1,81 @@
+package org.mintframework.db;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ColumnConverter的注册表，按(字段类型, sql类型)查找转换器。<br/>
+ * 查询时每种结果集结构只查找一次，之后每个单元格直接调用转换器。线程安全
+ */
+public class ColumnConverterRegistry {
+	/**
+	 * 匹配任意sql类型
+	 */
+	public static final int ANY_SQL_TYPE = Integer.MIN_VALUE;
+	
+	private final ConcurrentHashMap<Key, ColumnConverter<?>> converters = new ConcurrentHashMap<Key, ColumnConverter<?>>();
+	
+	/**
+	 * 注册字段类型的转换器，适用于任意sql类型的列，也用于绑定这种类型的参数
+	 * @param fieldType
+	 * @param converter
+	 * @return 注册表本身
+	 */
+	public <T> ColumnConverterRegistry register(Class<T> fieldType, ColumnConverter<T> converter){
+		return register(fieldType, ANY_SQL_TYPE, converter);
+	}
+	
+	/**
+	 * 注册字段类型在某种sql类型的列上使用的转换器
+	 * @param fieldType
+	 * @param sqlType java.sql.Types中的常量
+	 * @param converter
+	 * @return 注册表本身
+	 */
+	public <T> ColumnConverterRegistry register(Class<T> fieldType, int sqlType, ColumnConverter<T> converter){
+		if(fieldType == null || converter == null){
+			throw new IllegalArgumentException("fieldType and converter can not be null");
+		}
+		
+		converters.put(new Key(fieldType, sqlType), converter);
+		return this;
+	}
+	
+	/**
+	 * 查找转换器，先匹配(字段类型, sql类型)，再匹配(字段类型, 任意sql类型)
+	 * @param fieldType
+	 * @param sqlType
+	 * @return 没有注册时返回null
+	 */
+	public ColumnConverter<?> find(Class<?> fieldType, int sqlType){
+		if(converters.isEmpty()) return null;
+		
+		ColumnConverter<?> converter = converters.get(new Key(fieldType, sqlType));
+		if(converter == null && sqlType != ANY_SQL_TYPE){
+			converter = converters.get(new Key(fieldType, ANY_SQL_TYPE));
+		}
+		
+		return converter;
+	}
+	
+	private static final class Key {
+		final Class<?> fieldType;
+		final int sqlType;
+		
+		Key(Class<?> fieldType, int sqlType){
+			this.fieldType = fieldType;
+			this.sqlType = sqlType;
+		}
+		
+		@Override
+		public int hashCode() {
+			return fieldType.hashCode() * 31 + sqlType;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return fieldType == other.fieldType && sqlType == other.sqlType;
+		}
+	}
+}
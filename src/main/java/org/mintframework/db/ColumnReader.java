@@ -0,0 +1,11 @@
+package org.mintframework.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 读取一列的方式。按结果集结构解析一次，之后每个单元格直接调用
+ */
+interface ColumnReader {
+	Object read(ResultSet result, int index) throws SQLException;
+}
@@ -0,0 +1,426 @@
+package org.mintframework.db;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * 列式表的本地快照。把ColumnarTable写成文件，重启时用FileChannel.map映射回来，不经过堆，也不查询数据库，
+ * 几毫秒就能开始读取；再按刷新策略在后台重新查询并原子替换文件。<br/>
+ * 文件格式（小端）：magic、格式版本、正文长度、正文的CRC32，正文依次是创建时间、版本标记、行数、列数、各列的元数据，
+ * 然后是各列的数据段，每段按8字节对齐。版本标记由使用者给出（如表结构版本、sql的版本号），
+ * 标记不同、格式版本不同或校验失败的文件都不会被使用。<br/>
+ * 写入时先写同目录下的临时文件并force，再原子地改名覆盖，读者不会看到写了一半的文件；
+ * 已映射的旧文件在替换后仍然有效，直到不再被引用。Windows不能覆盖正在映射的文件，只适用于类unix系统。<br/>
+ * 线程安全
+ */
+public final class ColumnarSnapshot {
+	/**
+	 * 快照的数据来源，一般是对数据库的一次查询
+	 */
+	public interface Source {
+		public ColumnarTable load() throws SQLException;
+	}
+
+	static final int MAGIC = 0x4254434D;
+	static final int FORMAT_VERSION = 2;
+	private static final int HEADER_SIZE = 24;
+	private static final int CRC_CHUNK = 1 << 30;
+
+	private final Path file;
+	private final String stamp;
+	private final Source source;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private volatile ColumnarTable table;
+	private volatile long createdAt;
+	private volatile Exception lastRefreshError;
+	private volatile Executor refreshExecutor;
+	private volatile long refreshAfter;
+	private volatile long maxAge = Long.MAX_VALUE;
+	private volatile boolean verifyChecksum = true;
+
+	/**
+	 * @param file 快照文件
+	 * @param stamp 版本标记，与文件中的不同时放弃文件
+	 * @param source 重新加载数据的方式
+	 */
+	public ColumnarSnapshot(Path file, String stamp, Source source){
+		if(file == null || source == null){
+			throw new IllegalArgumentException("file and source can not be null");
+		}
+		this.file = file;
+		this.stamp = stamp == null ? "" : stamp;
+		this.source = source;
+	}
+
+	/**
+	 * 数据来自连接池上的一次查询，用SQLExecutor.selectColumnar加载
+	 * @param file
+	 * @param stamp
+	 * @param pool
+	 * @param executor
+	 * @param sql
+	 * @param params
+	 */
+	public ColumnarSnapshot(Path file, String stamp, final MiniConnectionPool pool, final SQLExecutor executor, final String sql, final Object... params){
+		this(file, stamp, () -> {
+			Connection conn = pool.getConnection();
+			try {
+				return executor.selectColumnar(conn, sql, params);
+			} finally {
+				conn.close();
+			}
+		});
+	}
+
+	/**
+	 * @param refreshExecutor 从快照文件打开后在这里执行后台刷新，为null时只在调用refresh时刷新
+	 * @return 快照本身
+	 */
+	public ColumnarSnapshot setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+		return this;
+	}
+
+	/**
+	 * 快照文件的年龄超过这个时间时，打开后在后台刷新，默认为0，即总是刷新
+	 * @param time
+	 * @param unit
+	 * @return 快照本身
+	 */
+	public ColumnarSnapshot setRefreshAfter(long time, TimeUnit unit) {
+		this.refreshAfter = unit.toMillis(time);
+		return this;
+	}
+
+	/**
+	 * 快照文件的年龄超过这个时间时不再使用，打开时同步查询数据库。默认不限制
+	 * @param time
+	 * @param unit
+	 * @return 快照本身
+	 */
+	public ColumnarSnapshot setMaxAge(long time, TimeUnit unit) {
+		this.maxAge = unit.toMillis(time);
+		return this;
+	}
+
+	/**
+	 * @param verifyChecksum 打开时是否校验CRC32，校验需要读一遍整个文件，默认校验
+	 * @return 快照本身
+	 */
+	public ColumnarSnapshot setVerifyChecksum(boolean verifyChecksum) {
+		this.verifyChecksum = verifyChecksum;
+		return this;
+	}
+
+	/**
+	 * 打开快照：文件可用时映射文件并按策略在后台刷新，否则同步加载并写入文件
+	 * @return 当前的表
+	 * @throws SQLException
+	 * @throws IOException 写快照文件失败时抛出
+	 */
+	public ColumnarTable open() throws SQLException, IOException {
+		Mapped mapped;
+		try {
+			mapped = read(file, stamp, verifyChecksum);
+		} catch (IOException e) {
+			//文件损坏，当作没有快照
+			mapped = null;
+		}
+
+		long now = System.currentTimeMillis();
+		if(mapped == null || now - mapped.createdAt > maxAge){
+			return refresh();
+		}
+
+		table = mapped.table;
+		createdAt = mapped.createdAt;
+
+		Executor executor = this.refreshExecutor;
+		if(executor != null && now - mapped.createdAt >= refreshAfter){
+			refreshInBackground(executor);
+		}
+		return mapped.table;
+	}
+
+	/**
+	 * @return 当前的表，没有打开时返回null。刷新后返回新的表，已经取得的旧表仍然可以读取
+	 */
+	public ColumnarTable get() {
+		return table;
+	}
+
+	/**
+	 * @return 当前数据的加载时间
+	 */
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * @return 最近一次后台刷新的异常，成功后清除
+	 */
+	public Exception getLastRefreshError() {
+		return lastRefreshError;
+	}
+
+	/**
+	 * 从数据源重新加载，写入快照文件后替换当前的表。同时只执行一个刷新
+	 * @return 新的表
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public synchronized ColumnarTable refresh() throws SQLException, IOException {
+		long now = System.currentTimeMillis();
+		ColumnarTable loaded = source.load();
+		write(loaded, stamp, now, file);
+
+		table = loaded;
+		createdAt = now;
+		lastRefreshError = null;
+		return loaded;
+	}
+
+	/**
+	 * 提交一个后台刷新，已经有后台刷新在执行时忽略
+	 * @param executor
+	 */
+	public void refreshInBackground(Executor executor) {
+		if(!refreshing.compareAndSet(false, true)) return;
+
+		try {
+			executor.execute(() -> {
+				try {
+					refresh();
+				} catch (SQLException | IOException | RuntimeException e) {
+					lastRefreshError = e;
+				} finally {
+					refreshing.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			refreshing.set(false);
+			throw e;
+		}
+	}
+
+	/**
+	 * 把表写成快照文件，原子替换已有的文件
+	 * @param table
+	 * @param stamp 版本标记
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(ColumnarTable table, String stamp, Path file) throws IOException {
+		write(table, stamp, System.currentTimeMillis(), file);
+	}
+
+	/**
+	 * 映射快照文件
+	 * @param file
+	 * @param stamp 版本标记
+	 * @return 文件中的表；文件不存在、格式版本或版本标记不同时返回null
+	 * @throws IOException 文件损坏时抛出
+	 */
+	public static ColumnarTable read(Path file, String stamp) throws IOException {
+		Mapped mapped = read(file, stamp == null ? "" : stamp, true);
+		return mapped == null ? null : mapped.table;
+	}
+
+	private static void write(ColumnarTable table, String stamp, long createdAt, Path file) throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				ByteBuffer meta = metadata(table, stamp == null ? "" : stamp, createdAt);
+				CRC32 crc = new CRC32();
+				long length = 0;
+
+				channel.position(HEADER_SIZE);
+				length += write(channel, meta, crc);
+				for(ColumnarTable.Column column : table.columns){
+					length += write(channel, column.values, crc);
+					length += write(channel, column.nulls, crc);
+					length += write(channel, column.dictOffsets, crc);
+					length += write(channel, column.dictBytes, crc);
+				}
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ColumnarTable.ORDER);
+				header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(length).putLong(crc.getValue());
+				((Buffer) header).flip();
+				while(header.hasRemaining()){
+					channel.write(header, header.position());
+				}
+				channel.force(true);
+			}
+
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * 写一个数据段并补齐到8字节
+	 * @return 写入的字节数
+	 */
+	private static long write(FileChannel channel, ByteBuffer section, CRC32 crc) throws IOException {
+		if(section == null) return 0;
+
+		ByteBuffer data = section.duplicate();
+		((Buffer) data).clear();
+		crc.update(data.duplicate());
+		while(data.hasRemaining()){
+			channel.write(data);
+		}
+
+		int padding = padding(section.capacity());
+		if(padding > 0){
+			ByteBuffer zeros = ByteBuffer.allocate(padding);
+			crc.update(zeros.duplicate());
+			while(zeros.hasRemaining()){
+				channel.write(zeros);
+			}
+		}
+		return section.capacity() + padding;
+	}
+
+	private static ByteBuffer metadata(ColumnarTable table, String stamp, long createdAt){
+		byte[] stampBytes = stamp.getBytes(StandardCharsets.UTF_8);
+		byte[][] names = new byte[table.columns.length][];
+		int size = 8 + 4 + stampBytes.length + 8;
+		for(int i=0; i<names.length; i++){
+			names[i] = table.names[i].getBytes(StandardCharsets.UTF_8);
+			size += 4 + names[i].length + 12 + 8 * 4;
+		}
+
+		ByteBuffer meta = ByteBuffer.allocate(size + padding(size)).order(ColumnarTable.ORDER);
+		meta.putLong(createdAt);
+		meta.putInt(stampBytes.length).put(stampBytes);
+		meta.putInt(table.rowCount).putInt(table.columns.length);
+		for(int i=0; i<names.length; i++){
+			ColumnarTable.Column column = table.columns[i];
+			meta.putInt(names[i].length).put(names[i]);
+			meta.putInt(column.type.ordinal()).putInt(column.dictSize).putInt(column.scale);
+			meta.putLong(capacity(column.values));
+			meta.putLong(capacity(column.nulls));
+			meta.putLong(capacity(column.dictOffsets));
+			meta.putLong(capacity(column.dictBytes));
+		}
+		((Buffer) meta).clear();
+		return meta;
+	}
+
+	private static Mapped read(Path file, String stamp, boolean verifyChecksum) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size < HEADER_SIZE) throw new IOException("snapshot is truncated: " + file);
+
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ColumnarTable.ORDER);
+			if(header.getInt(0) != MAGIC) throw new IOException("not a snapshot file: " + file);
+			if(header.getInt(4) != FORMAT_VERSION) return null;
+
+			long length = header.getLong(8);
+			if(length != size - HEADER_SIZE) throw new IOException("snapshot is truncated: " + file);
+
+			if(verifyChecksum){
+				CRC32 crc = new CRC32();
+				for(long position = HEADER_SIZE; position < size; position += CRC_CHUNK){
+					crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CRC_CHUNK, size - position)));
+				}
+				if(crc.getValue() != header.getLong(16)) throw new IOException("snapshot checksum mismatch: " + file);
+			}
+
+			//元数据长度未知，先按剩余长度映射读取，最多映射到数据段之前
+			MappedByteBuffer meta = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, Math.min(length, Integer.MAX_VALUE));
+			meta.order(ColumnarTable.ORDER);
+			long createdAt = meta.getLong();
+			byte[] stampBytes = new byte[meta.getInt()];
+			meta.get(stampBytes);
+			if(!stamp.equals(new String(stampBytes, StandardCharsets.UTF_8))) return null;
+
+			int rowCount = meta.getInt();
+			int columnCount = meta.getInt();
+			String[] names = new String[columnCount];
+			ColumnarTable.ColumnType[] types = new ColumnarTable.ColumnType[columnCount];
+			int[] dictSizes = new int[columnCount];
+			int[] scales = new int[columnCount];
+			long[][] lengths = new long[columnCount][4];
+			for(int i=0; i<columnCount; i++){
+				byte[] name = new byte[meta.getInt()];
+				meta.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+				types[i] = ColumnarTable.ColumnType.values()[meta.getInt()];
+				dictSizes[i] = meta.getInt();
+				scales[i] = meta.getInt();
+				for(int j=0; j<4; j++){
+					lengths[i][j] = meta.getLong();
+				}
+			}
+
+			long position = HEADER_SIZE + meta.position() + padding(meta.position());
+			ColumnarTable.Column[] columns = new ColumnarTable.Column[columnCount];
+			for(int i=0; i<columnCount; i++){
+				ByteBuffer[] sections = new ByteBuffer[4];
+				for(int j=0; j<4; j++){
+					long len = lengths[i][j];
+					if(len == 0 && j > 0) continue;
+					if(position + len > size) throw new IOException("snapshot is truncated: " + file);
+
+					sections[j] = channel.map(FileChannel.MapMode.READ_ONLY, position, len).order(ColumnarTable.ORDER);
+					position += len + padding(len);
+				}
+				if(sections[0].capacity() != (long) rowCount * types[i].width){
+					throw new IOException("snapshot column " + names[i] + " has a wrong size");
+				}
+				columns[i] = new ColumnarTable.Column(types[i], sections[0], sections[1], sections[2], sections[3], dictSizes[i], scales[i]);
+			}
+
+			return new Mapped(new ColumnarTable(names, columns, rowCount), createdAt);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (RuntimeException e) {
+			throw new IOException("snapshot is corrupted: " + file, e);
+		}
+	}
+
+	private static long capacity(ByteBuffer buffer){
+		return buffer == null ? 0 : buffer.capacity();
+	}
+
+	private static int padding(long length){
+		return (int) (-length & 7);
+	}
+
+	/**
+	 * 从文件映射出的表和它的创建时间
+	 */
+	private static final class Mapped {
+		final ColumnarTable table;
+		final long createdAt;
+
+		Mapped(ColumnarTable table, long createdAt){
+			this.table = table;
+			this.createdAt = createdAt;
+		}
+	}
+}
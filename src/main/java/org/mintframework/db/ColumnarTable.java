@@ -0,0 +1,715 @@
+package org.mintframework.db;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 堆外的列式查询结果，用于启动时加载、常驻内存的大参照表。<br/>
+ * 每列的数据存放在direct ByteBuffer中：整数、精度不超过18的定点数和布尔值按long存放（带小数的定点数存放未缩放的值和列的scale，不丢失精度），
+ * 浮点数按double存放，日期时间按毫秒数存放，
+ * 其他列用字典编码，每行只存4字节的编码，字典按UTF-8字节序排序后也存放在堆外。null用每列一个位图表示，没有null的列不分配位图。
+ * 几百万行的表在堆上只有几个对象，不增加老年代和GC停顿。<br/>
+ * 加载完成后只读，所有读取都是绝对位置的get，多个线程可以无锁并发读取；每个线程用自己的Cursor逐行访问。
+ * 每列最多约2GB，即long列最多约2.6亿行；RowIndex每行需要8字节，最多约1.3亿行
+ */
+public final class ColumnarTable {
+	/**
+	 * 列的存储类型
+	 */
+	public enum ColumnType {
+		/** 整数、精度不超过18的定点数和布尔值，8字节。带小数的定点数存放未缩放的值，见getColumnScale */
+		LONG(8),
+		/** 浮点数，8字节 */
+		DOUBLE(8),
+		/** 日期时间，存放毫秒数，8字节 */
+		TIMESTAMP(8),
+		/** 字典编码的字符串，每行4字节的编码 */
+		STRING(4);
+
+		final int width;
+
+		private ColumnType(int width){
+			this.width = width;
+		}
+	}
+
+	/**
+	 * 堆外数据的字节序，与持久化文件一致
+	 */
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * RowIndex的槽数是不小于2倍行数的2的幂，每槽4字节，一个ByteBuffer最多容纳2^28个槽
+	 */
+	public static final int MAX_INDEXED_ROWS = 1 << 27;
+
+	private static final int INITIAL_ROWS = 1024;
+
+	private static final double[] POWERS_OF_TEN = new double[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for(int i=1; i<POWERS_OF_TEN.length; i++){
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	final String[] names;
+	final Column[] columns;
+	final int rowCount;
+
+	ColumnarTable(String[] names, Column[] columns, int rowCount){
+		this.names = names;
+		this.columns = columns;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * 读取结果集的所有剩余行。列名使用列的label
+	 * @param result
+	 * @return
+	 * @throws SQLException
+	 */
+	public static ColumnarTable load(ResultSet result) throws SQLException {
+		Builder builder = new Builder(result.getMetaData());
+		while(result.next()){
+			builder.append(result);
+		}
+		return builder.build();
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public String getColumnName(int column) {
+		return names[column];
+	}
+
+	public ColumnType getColumnType(int column) {
+		return columns[column].type;
+	}
+
+	/**
+	 * @param column
+	 * @return 定点数列的小数位数，LONG列中存放的是乘以10^scale之后的值；其他列为0
+	 */
+	public int getColumnScale(int column) {
+		return columns[column].scale;
+	}
+
+	/**
+	 * @param name
+	 * @return 列的序号，从0开始
+	 * @throws IllegalArgumentException 没有这一列时抛出
+	 */
+	public int columnIndex(String name) {
+		for(int i=0; i<names.length; i++){
+			if(names[i].equals(name)) return i;
+		}
+		for(int i=0; i<names.length; i++){
+			if(names[i].equalsIgnoreCase(name)) return i;
+		}
+		throw new IllegalArgumentException("there is no column named " + name);
+	}
+
+	/**
+	 * @return 占用的堆外内存字节数
+	 */
+	public long memorySize() {
+		long size = 0;
+		for(Column column : columns){
+			size += column.values.capacity();
+			if(column.nulls != null) size += column.nulls.capacity();
+			if(column.dictOffsets != null) size += column.dictOffsets.capacity() + column.dictBytes.capacity();
+		}
+		return size;
+	}
+
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		ByteBuffer nulls = columns[column].nulls;
+		return nulls != null && (nulls.getLong((row >>> 6) << 3) & (1L << row)) != 0;
+	}
+
+	/**
+	 * @param row
+	 * @param column LONG或TIMESTAMP列
+	 * @return null时返回0；带小数的定点数列返回未缩放的值
+	 */
+	public long getLong(int row, int column) {
+		checkRow(row);
+		Column c = columns[column];
+		if(c.type != ColumnType.LONG && c.type != ColumnType.TIMESTAMP){
+			throw new IllegalStateException("column " + names[column] + " is " + c.type);
+		}
+		return c.values.getLong(row << 3);
+	}
+
+	/**
+	 * @param row
+	 * @param column DOUBLE或LONG列
+	 * @return null时返回0
+	 */
+	public double getDouble(int row, int column) {
+		checkRow(row);
+		Column c = columns[column];
+		if(c.type == ColumnType.DOUBLE) return c.values.getDouble(row << 3);
+		if(c.type == ColumnType.LONG){
+			long value = c.values.getLong(row << 3);
+			return c.scale == 0 ? value : value / POWERS_OF_TEN[c.scale];
+		}
+		throw new IllegalStateException("column " + names[column] + " is " + c.type);
+	}
+
+	/**
+	 * 按精确的十进制读取，定点数列不丢失精度
+	 * @param row
+	 * @param column LONG或DOUBLE列
+	 * @return null时返回null
+	 */
+	public BigDecimal getBigDecimal(int row, int column) {
+		if(isNull(row, column)) return null;
+
+		Column c = columns[column];
+		if(c.type == ColumnType.LONG) return BigDecimal.valueOf(c.values.getLong(row << 3), c.scale);
+		if(c.type == ColumnType.DOUBLE) return BigDecimal.valueOf(c.values.getDouble(row << 3));
+		throw new IllegalStateException("column " + names[column] + " is " + c.type);
+	}
+
+	/**
+	 * @param row
+	 * @param column TIMESTAMP列
+	 * @return
+	 */
+	public Timestamp getTimestamp(int row, int column) {
+		if(columns[column].type != ColumnType.TIMESTAMP){
+			throw new IllegalStateException("column " + names[column] + " is " + columns[column].type);
+		}
+		return isNull(row, column) ? null : new Timestamp(getLong(row, column));
+	}
+
+	/**
+	 * 读取字符串形式的值，STRING列从字典解码，其他列转换成字符串
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public String getString(int row, int column) {
+		if(isNull(row, column)) return null;
+
+		Column c = columns[column];
+		switch(c.type){
+		case STRING: return decode(c, c.values.getInt(row << 2));
+		case LONG: return c.scale == 0 ? String.valueOf(c.values.getLong(row << 3)) : BigDecimal.valueOf(c.values.getLong(row << 3), c.scale).toPlainString();
+		case DOUBLE: return String.valueOf(c.values.getDouble(row << 3));
+		default: return new Timestamp(c.values.getLong(row << 3)).toString();
+		}
+	}
+
+	/**
+	 * 读取字典编码，比较编码不需要解码字符串
+	 * @param row
+	 * @param column STRING列
+	 * @return null时返回-1
+	 */
+	public int getStringCode(int row, int column) {
+		checkRow(row);
+		return stringColumn(column).values.getInt(row << 2);
+	}
+
+	/**
+	 * 在字典中二分查找字符串的编码，用于按字符串过滤
+	 * @param column STRING列
+	 * @param value
+	 * @return 编码，不在字典中时返回-1
+	 */
+	public int stringCode(int column, String value) {
+		Column c = stringColumn(column);
+		if(value == null) return -1;
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		int low = 0, high = c.dictSize - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			int cmp = compare(c, mid, bytes);
+			if(cmp < 0){
+				low = mid + 1;
+			} else if(cmp > 0){
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param column STRING列
+	 * @param code
+	 * @return 字典中编码对应的字符串
+	 */
+	public String dictionaryValue(int column, int code) {
+		Column c = stringColumn(column);
+		if(code < 0 || code >= c.dictSize){
+			throw new IndexOutOfBoundsException("code " + code + " of " + c.dictSize);
+		}
+		return decode(c, code);
+	}
+
+	/**
+	 * @param column STRING列
+	 * @return 字典中不同字符串的个数
+	 */
+	public int dictionarySize(int column) {
+		return stringColumn(column).dictSize;
+	}
+
+	/**
+	 * @return 新的游标，位于第一行之前
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * 为LONG或TIMESTAMP列建立堆外的哈希索引，每行8字节，用于按id查找行。null不进索引，键重复时找到第一行。
+	 * 定点数列的键是未缩放的值
+	 * @param column
+	 * @return
+	 * @throws IllegalStateException 行数超过MAX_INDEXED_ROWS时抛出
+	 */
+	public RowIndex index(int column) {
+		ColumnType type = columns[column].type;
+		if(type != ColumnType.LONG && type != ColumnType.TIMESTAMP){
+			throw new IllegalArgumentException("can not index " + type + " column " + names[column]);
+		}
+		if(rowCount > MAX_INDEXED_ROWS){
+			throw new IllegalStateException("can not index " + rowCount + " rows, the limit is " + MAX_INDEXED_ROWS);
+		}
+		return new RowIndex(column);
+	}
+
+	private void checkRow(int row){
+		if(row < 0 || row >= rowCount){
+			throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+		}
+	}
+
+	private Column stringColumn(int column){
+		Column c = columns[column];
+		if(c.type != ColumnType.STRING){
+			throw new IllegalStateException("column " + names[column] + " is " + c.type);
+		}
+		return c;
+	}
+
+	private static String decode(Column c, int code){
+		int start = c.dictOffsets.getInt(code << 2);
+		int end = c.dictOffsets.getInt((code + 1) << 2);
+		byte[] bytes = new byte[end - start];
+		for(int i=0; i<bytes.length; i++){
+			bytes[i] = c.dictBytes.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 按无符号字节比较字典中的第code个字符串和bytes
+	 */
+	private static int compare(Column c, int code, byte[] bytes){
+		int start = c.dictOffsets.getInt(code << 2);
+		int len = c.dictOffsets.getInt((code + 1) << 2) - start;
+		for(int i=0, n=Math.min(len, bytes.length); i<n; i++){
+			int cmp = (c.dictBytes.get(start + i) & 0xff) - (bytes[i] & 0xff);
+			if(cmp != 0) return cmp;
+		}
+		return len - bytes.length;
+	}
+
+	/**
+	 * 逐行访问的游标，只保存当前行号，可以重复使用。非线程安全，每个线程使用自己的游标
+	 */
+	public final class Cursor {
+		private int row = -1;
+
+		private Cursor(){
+		}
+
+		/**
+		 * @return 是否移动到了下一行
+		 */
+		public boolean next() {
+			if(row + 1 >= rowCount) return false;
+			row++;
+			return true;
+		}
+
+		/**
+		 * @param row
+		 * @return 游标本身
+		 */
+		public Cursor moveTo(int row) {
+			checkRow(row);
+			this.row = row;
+			return this;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public boolean isNull(int column) {
+			return ColumnarTable.this.isNull(row, column);
+		}
+
+		public long getLong(int column) {
+			return ColumnarTable.this.getLong(row, column);
+		}
+
+		public double getDouble(int column) {
+			return ColumnarTable.this.getDouble(row, column);
+		}
+
+		public BigDecimal getBigDecimal(int column) {
+			return ColumnarTable.this.getBigDecimal(row, column);
+		}
+
+		public Timestamp getTimestamp(int column) {
+			return ColumnarTable.this.getTimestamp(row, column);
+		}
+
+		public String getString(int column) {
+			return ColumnarTable.this.getString(row, column);
+		}
+
+		public int getStringCode(int column) {
+			return ColumnarTable.this.getStringCode(row, column);
+		}
+	}
+
+	/**
+	 * long键到行号的开放寻址索引，槽中存放行号+1，0表示空槽，键从列中读取不另外保存。只读，线程安全
+	 */
+	public final class RowIndex {
+		private final int column;
+		private final ByteBuffer slots;
+		private final int mask;
+		private final int shift;
+
+		private RowIndex(int column){
+			this.column = column;
+
+			int capacity = Integer.highestOneBit(Math.max(4, rowCount * 2 - 1)) << 1;
+			this.slots = ByteBuffer.allocateDirect(capacity << 2).order(ORDER);
+			this.mask = capacity - 1;
+			this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+
+			ByteBuffer values = columns[column].values;
+			for(int row=0; row<rowCount; row++){
+				if(ColumnarTable.this.isNull(row, column)) continue;
+
+				long key = values.getLong(row << 3);
+				int i = slot(key);
+				int stored;
+				while((stored = slots.getInt(i << 2)) != 0 && values.getLong((stored - 1) << 3) != key){
+					i = (i + 1) & mask;
+				}
+				if(stored == 0) slots.putInt(i << 2, row + 1);
+			}
+		}
+
+		/**
+		 * @param key
+		 * @return 键所在的行，不存在时返回-1
+		 */
+		public int find(long key) {
+			ByteBuffer values = columns[column].values;
+			int i = slot(key);
+			int stored;
+			while((stored = slots.getInt(i << 2)) != 0){
+				if(values.getLong((stored - 1) << 3) == key) return stored - 1;
+				i = (i + 1) & mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * @return 索引占用的堆外内存字节数
+		 */
+		public long memorySize() {
+			return slots.capacity();
+		}
+
+		private int slot(long key){
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+		}
+	}
+
+	/**
+	 * 一列的堆外数据
+	 */
+	static final class Column {
+		final ColumnType type;
+		final ByteBuffer values;
+		/** null位图，没有null时为null */
+		final ByteBuffer nulls;
+		/** 字典中各字符串的起止位置，dictSize+1个int，只有STRING列有 */
+		final ByteBuffer dictOffsets;
+		/** 字典的UTF-8字节 */
+		final ByteBuffer dictBytes;
+		final int dictSize;
+		/** 定点数LONG列的小数位数 */
+		final int scale;
+
+		Column(ColumnType type, ByteBuffer values, ByteBuffer nulls, ByteBuffer dictOffsets, ByteBuffer dictBytes, int dictSize, int scale){
+			this.type = type;
+			this.values = values;
+			this.nulls = nulls;
+			this.dictOffsets = dictOffsets;
+			this.dictBytes = dictBytes;
+			this.dictSize = dictSize;
+			this.scale = scale;
+		}
+	}
+
+	/**
+	 * 按行追加数据，完成后生成只读的表
+	 */
+	static final class Builder {
+		private final String[] names;
+		private final ColumnType[] types;
+		private final int[] sqlTypes;
+		private final int[] scales;
+		private final ByteBuffer[] values;
+		private final long[][] nulls;
+		private final boolean[] hasNull;
+		private final List<Map<String, Integer>> dictionaries = new ArrayList<Map<String, Integer>>();
+		private int rows;
+
+		Builder(ResultSetMetaData meta) throws SQLException{
+			int count = meta.getColumnCount();
+			names = new String[count];
+			types = new ColumnType[count];
+			sqlTypes = new int[count];
+			scales = new int[count];
+			values = new ByteBuffer[count];
+			nulls = new long[count][];
+			hasNull = new boolean[count];
+
+			for(int i=0; i<count; i++){
+				names[i] = meta.getColumnLabel(i + 1);
+				sqlTypes[i] = meta.getColumnType(i + 1);
+				types[i] = typeOf(sqlTypes[i], meta.getPrecision(i + 1), meta.getScale(i + 1));
+				if(types[i] == ColumnType.LONG && isDecimal(sqlTypes[i])){
+					scales[i] = meta.getScale(i + 1);
+				}
+				values[i] = ByteBuffer.allocateDirect(INITIAL_ROWS * types[i].width).order(ORDER);
+				nulls[i] = new long[INITIAL_ROWS >>> 6];
+				dictionaries.add(types[i] == ColumnType.STRING ? new HashMap<String, Integer>() : null);
+			}
+		}
+
+		static ColumnType typeOf(int sqlType, int precision, int scale){
+			switch(sqlType){
+			case Types.BIT:
+			case Types.BOOLEAN:
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				return ColumnType.LONG;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				//未缩放的值最多18位，long能精确存放；精度未知或更大的按字符串存放
+				return scale >= 0 && scale <= precision && precision > 0 && precision <= 18 ? ColumnType.LONG : ColumnType.STRING;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return ColumnType.DOUBLE;
+			case Types.DATE:
+			case Types.TIME:
+			case Types.TIMESTAMP:
+			case Types.TIMESTAMP_WITH_TIMEZONE:
+				return ColumnType.TIMESTAMP;
+			default:
+				return ColumnType.STRING;
+			}
+		}
+
+		void append(ResultSet result) throws SQLException{
+			if(rows == Integer.MAX_VALUE >>> 3){
+				throw new SQLException("too many rows for a columnar table: " + rows);
+			}
+
+			for(int i=0; i<types.length; i++){
+				ByteBuffer buffer = ensure(i);
+				int index = i + 1;
+				boolean isNull;
+
+				switch(types[i]){
+				case LONG:
+					long l;
+					if(scales[i] > 0){
+						BigDecimal decimal = result.getBigDecimal(index);
+						isNull = decimal == null;
+						l = isNull ? 0 : unscaled(decimal, scales[i], i);
+					} else {
+						l = sqlTypes[i] == Types.BIT || sqlTypes[i] == Types.BOOLEAN ? (result.getBoolean(index) ? 1 : 0) : result.getLong(index);
+						isNull = result.wasNull();
+					}
+					buffer.putLong(rows << 3, l);
+					break;
+				case DOUBLE:
+					double d = result.getDouble(index);
+					isNull = result.wasNull();
+					buffer.putDouble(rows << 3, d);
+					break;
+				case TIMESTAMP:
+					Timestamp ts = result.getTimestamp(index);
+					isNull = ts == null;
+					buffer.putLong(rows << 3, isNull ? 0 : ts.getTime());
+					break;
+				default:
+					String s = result.getString(index);
+					isNull = s == null;
+					buffer.putInt(rows << 2, isNull ? -1 : code(i, s));
+				}
+
+				if(isNull){
+					nulls[i][rows >>> 6] |= 1L << rows;
+					hasNull[i] = true;
+				}
+			}
+			rows++;
+		}
+
+		private static boolean isDecimal(int sqlType){
+			return sqlType == Types.DECIMAL || sqlType == Types.NUMERIC;
+		}
+
+		private long unscaled(BigDecimal decimal, int scale, int column) throws SQLException{
+			try {
+				return decimal.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+			} catch (ArithmeticException e) {
+				throw new SQLException("value " + decimal + " does not fit column " + names[column] + " with scale " + scale, e);
+			}
+		}
+
+		private ByteBuffer ensure(int column){
+			ByteBuffer buffer = values[column];
+			int width = types[column].width;
+			if((rows + 1) * width > buffer.capacity()){
+				int capacity = (int) Math.min((long) buffer.capacity() * 2, (long) (Integer.MAX_VALUE >>> 3) * width);
+				ByteBuffer grown = ByteBuffer.allocateDirect(capacity).order(ORDER);
+				//转成Buffer调用，避免在JDK 9以上编译后链接到ByteBuffer的协变方法，在Java 8上找不到
+				((Buffer) buffer).clear();
+				grown.put(buffer);
+				values[column] = buffer = grown;
+			}
+			if((rows >>> 6) >= nulls[column].length){
+				nulls[column] = Arrays.copyOf(nulls[column], nulls[column].length * 2);
+			}
+			return buffer;
+		}
+
+		private int code(int column, String value){
+			Map<String, Integer> dictionary = dictionaries.get(column);
+			Integer code = dictionary.get(value);
+			if(code == null){
+				code = dictionary.size();
+				dictionary.put(value, code);
+			}
+			return code;
+		}
+
+		ColumnarTable build(){
+			Column[] columns = new Column[types.length];
+			for(int i=0; i<types.length; i++){
+				ByteBuffer exact = ByteBuffer.allocateDirect(rows * types[i].width).order(ORDER);
+				ByteBuffer buffer = values[i];
+				((Buffer) buffer).clear().limit(exact.capacity());
+				exact.put(buffer);
+				values[i] = null;
+
+				ByteBuffer nullBits = null;
+				if(hasNull[i]){
+					int words = (rows + 63) >>> 6;
+					nullBits = ByteBuffer.allocateDirect(words << 3).order(ORDER);
+					for(int w=0; w<words; w++){
+						nullBits.putLong(w << 3, nulls[i][w]);
+					}
+				}
+				nulls[i] = null;
+
+				if(types[i] == ColumnType.STRING){
+					columns[i] = dictionaryColumn(exact, nullBits, dictionaries.get(i));
+					dictionaries.set(i, null);
+				} else {
+					columns[i] = new Column(types[i], exact, nullBits, null, null, 0, scales[i]);
+				}
+			}
+			return new ColumnarTable(names, columns, rows);
+		}
+
+		/**
+		 * 把字典按UTF-8字节序排序，按新的编码改写各行
+		 */
+		private Column dictionaryColumn(ByteBuffer codes, ByteBuffer nullBits, Map<String, Integer> dictionary){
+			int size = dictionary.size();
+			final byte[][] bytes = new byte[size][];
+			int total = 0;
+			for(Map.Entry<String, Integer> entry : dictionary.entrySet()){
+				byte[] b = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				bytes[entry.getValue()] = b;
+				total += b.length;
+			}
+
+			Integer[] order = new Integer[size];
+			for(int i=0; i<size; i++) order[i] = i;
+			Arrays.sort(order, (a, b) -> compareBytes(bytes[a], bytes[b]));
+
+			int[] remap = new int[size];
+			ByteBuffer offsets = ByteBuffer.allocateDirect((size + 1) << 2).order(ORDER);
+			ByteBuffer data = ByteBuffer.allocateDirect(total).order(ORDER);
+			for(int i=0; i<size; i++){
+				remap[order[i]] = i;
+				offsets.putInt(i << 2, data.position());
+				data.put(bytes[order[i]]);
+			}
+			offsets.putInt(size << 2, data.position());
+
+			for(int row=0; row<rows; row++){
+				int code = codes.getInt(row << 2);
+				if(code >= 0) codes.putInt(row << 2, remap[code]);
+			}
+			return new Column(ColumnType.STRING, codes, nullBits, offsets, data, size, 0);
+		}
+
+		private static int compareBytes(byte[] a, byte[] b){
+			for(int i=0, n=Math.min(a.length, b.length); i<n; i++){
+				int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+				if(cmp != 0) return cmp;
+			}
+			return a.length - b.length;
+		}
+	}
+}
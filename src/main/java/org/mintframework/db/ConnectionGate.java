@@ -0,0 +1,290 @@
+package org.mintframework.db;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * 按通道分配连接池的许可。每个通道有自己的等待队列，有许可时按以下规则选出下一个等待者：<br/>
+ * 1. 优先级高的通道先分配；<br/>
+ * 2. 同一优先级内，按权重公平分享，选占用数/权重最小的通道；<br/>
+ * 3. 通道的占用数不能超过上限（池容量的一个比例）；<br/>
+ * 4. 其他通道保留的连接数（还没用完的保留部分）不能被占用。<br/>
+ * 许可仍然由池的信号量计数，闸门只决定谁先拿。由MiniConnectionPool.defineLane创建，线程安全
+ */
+final class ConnectionGate {
+	static final String DEFAULT_LANE = "default";
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Map<String, Lane> lanes = new LinkedHashMap<String, Lane>();
+	private final Semaphore semaphore;
+	private final IntSupplier poolSize;
+
+	ConnectionGate(Semaphore semaphore, IntSupplier poolSize){
+		this.semaphore = semaphore;
+		this.poolSize = poolSize;
+		lanes.put(DEFAULT_LANE, new Lane(DEFAULT_LANE, 0, 0, 1.0, 1));
+	}
+
+	/**
+	 * 定义或修改通道
+	 */
+	void define(String name, int priority, int reserved, double maxFraction, int weight){
+		lock.lock();
+		try {
+			Lane lane = lanes.get(name);
+			if(lane == null){
+				lanes.put(name, new Lane(name, priority, reserved, maxFraction, weight));
+			} else {
+				lane.priority = priority;
+				lane.reserved = reserved;
+				lane.maxFraction = maxFraction;
+				lane.weight = weight;
+			}
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param name 为null时使用默认通道
+	 * @return
+	 */
+	Lane lane(String name){
+		lock.lock();
+		try {
+			Lane lane = lanes.get(name == null ? DEFAULT_LANE : name);
+			if(lane == null){
+				throw new IllegalArgumentException("undefined connection lane: " + name);
+			}
+			return lane;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 在通道中排队获取一个许可
+	 * @param lane
+	 * @param timeoutNanos
+	 * @return 超时或被rejectAll拒绝时返回false
+	 * @throws InterruptedException
+	 */
+	boolean acquire(Lane lane, long timeoutNanos) throws InterruptedException {
+		lock.lock();
+		try {
+			Waiter waiter = new Waiter(lock.newCondition());
+			lane.waiters.add(waiter);
+			dispatch();
+
+			long remaining = timeoutNanos;
+			try {
+				while(!waiter.granted){
+					if(remaining <= 0 || waiter.rejected){
+						lane.waiters.remove(waiter);
+						return false;
+					}
+					remaining = waiter.condition.awaitNanos(remaining);
+				}
+				return true;
+			} catch (InterruptedException e) {
+				if(waiter.granted){
+					//已经分到许可，保留中断状态正常返回
+					Thread.currentThread().interrupt();
+					return true;
+				}
+				lane.waiters.remove(waiter);
+				throw e;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 不等待地获取一个许可。有可以分配的等待者、通道达到上限或者只剩其他通道的保留部分时返回false
+	 * @param lane
+	 * @return
+	 */
+	boolean tryAcquire(Lane lane){
+		lock.lock();
+		try {
+			//不插队：等待者先分
+			if(next() != null) return false;
+
+			int available = semaphore.availablePermits();
+			if(available <= 0 || lane.inUse >= lane.cap(poolSize.getAsInt())) return false;
+
+			int reservedTotal = 0;
+			for(Lane l : lanes.values()){
+				reservedTotal += l.unusedReservation();
+			}
+			if(available <= reservedTotal - lane.unusedReservation()) return false;
+
+			if(!semaphore.tryAcquire()) return false;
+			lane.inUse++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 通道归还了一个许可（信号量已经release）
+	 * @param lane 为null时只重新分配
+	 */
+	void release(Lane lane){
+		lock.lock();
+		try {
+			if(lane != null && lane.inUse > 0){
+				lane.inUse--;
+			}
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 让所有等待者立即返回false，熔断器打开时使用
+	 */
+	void rejectAll(){
+		lock.lock();
+		try {
+			for(Lane lane : lanes.values()){
+				for(Waiter waiter : lane.waiters){
+					waiter.rejected = true;
+					waiter.condition.signal();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 许可数增加后重新分配
+	 */
+	void dispatch(){
+		lock.lock();
+		try {
+			Lane next;
+			while((next = next()) != null){
+				if(!semaphore.tryAcquire()) return;
+
+				Waiter waiter = next.waiters.poll();
+				waiter.granted = true;
+				next.inUse++;
+				waiter.condition.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return 各通道的名称、占用数和等待数
+	 */
+	List<String> describe(){
+		lock.lock();
+		try {
+			List<String> result = new ArrayList<String>(lanes.size());
+			for(Lane lane : lanes.values()){
+				result.add(lane.name + "(inUse:" + lane.inUse + ";waiting:" + lane.waiters.size() + ")");
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int inUse(String name){
+		lock.lock();
+		try {
+			Lane lane = lanes.get(name);
+			return lane == null ? 0 : lane.inUse;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int waiting(String name){
+		lock.lock();
+		try {
+			Lane lane = lanes.get(name);
+			return lane == null ? 0 : lane.waiters.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return 下一个应该得到许可的通道，没有可以分配的通道时返回null
+	 */
+	private Lane next(){
+		int available = semaphore.availablePermits();
+		if(available <= 0) return null;
+
+		int size = poolSize.getAsInt();
+		int reservedTotal = 0;
+		for(Lane lane : lanes.values()){
+			reservedTotal += lane.unusedReservation();
+		}
+
+		Lane best = null;
+		for(Lane lane : lanes.values()){
+			if(lane.waiters.isEmpty() || lane.inUse >= lane.cap(size)) continue;
+			//其他通道未用完的保留部分不能占用
+			if(available <= reservedTotal - lane.unusedReservation()) continue;
+
+			if(best == null || lane.priority > best.priority
+					|| (lane.priority == best.priority && (long) lane.inUse * best.weight < (long) best.inUse * lane.weight)){
+				best = lane;
+			}
+		}
+		return best;
+	}
+
+	static final class Lane {
+		final String name;
+		final ArrayDeque<Waiter> waiters = new ArrayDeque<Waiter>();
+		int priority;
+		int reserved;
+		double maxFraction;
+		int weight;
+		int inUse;
+
+		Lane(String name, int priority, int reserved, double maxFraction, int weight){
+			this.name = name;
+			this.priority = priority;
+			this.reserved = reserved;
+			this.maxFraction = maxFraction;
+			this.weight = weight;
+		}
+
+		int cap(int poolSize){
+			return Math.max(1, (int) Math.ceil(poolSize * maxFraction));
+		}
+
+		int unusedReservation(){
+			return Math.max(0, reserved - inUse);
+		}
+	}
+
+	private static final class Waiter {
+		final Condition condition;
+		boolean granted;
+		boolean rejected;
+
+		Waiter(Condition condition){
+			this.condition = condition;
+		}
+	}
+}
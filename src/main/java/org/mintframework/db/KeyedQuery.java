@@ -0,0 +1,112 @@
+package org.mintframework.db;
+
+/**
+ * 按键过滤的查询：把基础查询拆成最外层WHERE之前的部分和WHERE条件，
+ * 用于在基础查询上追加键的范围条件、排序和LIMIT。<br/>
+ * 基础查询的最外层不能有ORDER BY、LIMIT、GROUP BY、HAVING、UNION和FOR UPDATE，子查询中可以有
+ */
+final class KeyedQuery {
+	private static final String[] UNSUPPORTED = {"ORDER", "LIMIT", "GROUP", "HAVING", "UNION", "FOR"};
+
+	private final String sql;
+	private final int from;				//最外层FROM的位置，没有时为-1
+	private final String head;			//最外层WHERE之前的部分
+	private final String condition;		//最外层WHERE条件，没有时为null
+
+	KeyedQuery(String sql){
+		if(sql == null || sql.trim().isEmpty()){
+			throw new IllegalArgumentException("sql can not be empty");
+		}
+
+		String s = sql.trim();
+		if(s.endsWith(";")){
+			s = s.substring(0, s.length() - 1).trim();
+		}
+		this.sql = s;
+
+		int from = -1, where = -1;
+		int depth = 0, i = 0, len = s.length();
+		char c;
+		while(i < len){
+			c = s.charAt(i);
+
+			if(c == '\'' || c == '"' || c == '`'){
+				i = SqlTemplate.skipQuoted(s, i, c);
+			} else if(c == '-' && i + 1 < len && s.charAt(i + 1) == '-'){
+				int end = s.indexOf('\n', i);
+				i = end < 0 ? len : end;
+			} else if(c == '/' && i + 1 < len && s.charAt(i + 1) == '*'){
+				int end = s.indexOf("*/", i + 2);
+				i = end < 0 ? len : end + 2;
+			} else if(c == '('){
+				depth++;
+				i++;
+			} else if(c == ')'){
+				depth--;
+				i++;
+			} else if(Character.isJavaIdentifierStart(c)){
+				int end = i + 1;
+				while(end < len && Character.isJavaIdentifierPart(s.charAt(end))){
+					end++;
+				}
+
+				if(depth == 0 && (i == 0 || s.charAt(i - 1) != '.')){
+					String word = s.substring(i, end).toUpperCase();
+					if(from < 0 && word.equals("FROM")){
+						from = i;
+					}
+					if(where < 0 && word.equals("WHERE")){
+						where = i;
+					}
+					for(String keyword : UNSUPPORTED){
+						if(word.equals(keyword)){
+							throw new IllegalArgumentException(keyword + " can not be used at the top level of a keyed query: " + sql);
+						}
+					}
+				}
+				i = end;
+			} else {
+				i++;
+			}
+		}
+
+		this.from = from;
+		if(where < 0){
+			this.head = s;
+			this.condition = null;
+		} else {
+			this.head = s.substring(0, where).trim();
+			this.condition = s.substring(where + "WHERE".length()).trim();
+		}
+	}
+
+	/**
+	 * @return 去掉结尾分号的基础查询
+	 */
+	String getSql() {
+		return sql;
+	}
+
+	/**
+	 * 在基础查询上追加条件，原有的WHERE条件加上括号后与keyCondition用AND连接
+	 * @param keyCondition 为null时返回基础查询
+	 * @return
+	 */
+	String where(String keyCondition){
+		if(keyCondition == null) return sql;
+		if(condition == null) return head + " WHERE " + keyCondition;
+		return head + " WHERE (" + condition + ") AND " + keyCondition;
+	}
+
+	/**
+	 * 用columns替换基础查询最外层的查询列，保留FROM和WHERE部分，例如用于查询键的最小值和最大值
+	 * @param columns
+	 * @return
+	 */
+	String select(String columns){
+		if(from < 0){
+			throw new IllegalArgumentException("there is no FROM clause in query: " + sql);
+		}
+		return "SELECT " + columns + " " + sql.substring(from);
+	}
+}
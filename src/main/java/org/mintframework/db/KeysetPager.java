@@ -0,0 +1,268 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 键集(seek)分页。记住上一页最后一行的键，下一页查询"键 > 上一个键 ORDER BY 键 LIMIT 页大小"，
+ * 每页的代价与页码无关，不像LIMIT offset, n那样越往后越慢。<br/>
+ * 分页键必须唯一且不为null，并且应该有索引；bean中要有与分页键对应的属性。
+ * 基础查询的限制见{@link KeyedQuery}，由SQLExecutor.keysetPager创建。<br/>
+ * 设置了连接池时可以用{@link #next()}逐页读取，每页从连接池借一个连接并立即归还；
+ * 再设置prefetchExecutor后，返回一页的同时在另一个连接上预取下一页，顺序扫描时可以隐藏查询延迟。<br/>
+ * 非线程安全
+ * @param <T>
+ */
+public final class KeysetPager<T> implements AutoCloseable {
+	private final SQLExecutor executor;
+	private final Class<T> beanClass;
+	private final Map<String, String> columnFieldMap;
+	private final KeyedQuery query;
+	private final String keyColumn;
+	private final String keyProperty;
+	private final int pageSize;
+	private final Object[] params;
+
+	private boolean descending;
+	private String firstSql;			//第一页的sql
+	private String nextSql;				//后续页的sql，比第一页多一个键参数
+
+	private Object lastKey;
+	private boolean started;
+	private boolean finished;
+
+	private MiniConnectionPool pool;
+	private Executor prefetchExecutor;
+	private FutureTask<List<T>> prefetched;
+
+	KeysetPager(SQLExecutor executor, Class<T> beanClass, Map<String, String> columnFieldMap, String keyColumn, int pageSize, String sql, Object[] params){
+		if(keyColumn == null || keyColumn.isEmpty()){
+			throw new IllegalArgumentException("keyColumn can not be empty");
+		}
+		if(pageSize < 1){
+			throw new IllegalArgumentException("invalid pageSize: " + pageSize);
+		}
+
+		this.executor = executor;
+		this.beanClass = beanClass;
+		this.columnFieldMap = columnFieldMap;
+		this.query = new KeyedQuery(sql);
+		this.keyColumn = keyColumn;
+		this.keyProperty = keyProperty(beanClass, columnFieldMap, keyColumn);
+		this.pageSize = pageSize;
+		this.params = params == null ? new Object[0] : params;
+
+		buildSql();
+	}
+
+	/**
+	 * bean中与分页键对应的属性：columnFieldMap中映射的属性，否则是去掉表名和引号的列名
+	 */
+	private static String keyProperty(Class<?> beanClass, Map<String, String> columnFieldMap, String keyColumn){
+		String column = keyColumn.substring(keyColumn.lastIndexOf('.') + 1).replace("`", "").replace("\"", "");
+		String property = column;
+		if(columnFieldMap != null){
+			if(columnFieldMap.containsKey(keyColumn)){
+				property = columnFieldMap.get(keyColumn);
+			} else if(columnFieldMap.containsKey(column)){
+				property = columnFieldMap.get(column);
+			}
+		}
+
+		if(!BeanProperties.of(beanClass).hasProperty(property)){
+			throw new IllegalArgumentException("there is no property for key column " + keyColumn + " in " + beanClass.getName());
+		}
+		return property;
+	}
+
+	private void buildSql(){
+		String order = " ORDER BY " + keyColumn + (descending ? " DESC" : "") + " LIMIT " + pageSize;
+		firstSql = query.where(null) + order;
+		nextSql = query.where(keyColumn + (descending ? " < ?" : " > ?")) + order;
+	}
+
+	/**
+	 * 按键降序分页，必须在读取第一页之前设置
+	 * @param descending
+	 * @return 分页器本身
+	 */
+	public KeysetPager<T> setDescending(boolean descending) {
+		checkNotStarted();
+		this.descending = descending;
+		buildSql();
+		return this;
+	}
+
+	/**
+	 * 从指定的键之后开始读取，用于在无状态的请求之间继续翻页（例如把上一页的最后一个键交给页面）
+	 * @param key 为null时从第一页开始
+	 * @return 分页器本身
+	 */
+	public KeysetPager<T> setLastKey(Object key) {
+		checkNotStarted();
+		this.lastKey = key;
+		return this;
+	}
+
+	/**
+	 * @return 最近读取的一页中最后一行的键，还没有读取时是setLastKey设置的键
+	 */
+	public Object getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * 设置{@link #next()}使用的连接池
+	 * @param pool
+	 * @return 分页器本身
+	 */
+	public KeysetPager<T> setPool(MiniConnectionPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * 设置预取下一页使用的线程。预取在从连接池借来的另一个连接上执行，需要先设置连接池
+	 * @param prefetchExecutor 为null时不预取
+	 * @return 分页器本身
+	 */
+	public KeysetPager<T> setPrefetchExecutor(Executor prefetchExecutor) {
+		this.prefetchExecutor = prefetchExecutor;
+		return this;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @return 是否可能还有下一页。最后一页不满时为false；恰好满页时要再读一次空页才能确定
+	 */
+	public boolean hasNext() {
+		return !finished;
+	}
+
+	/**
+	 * 在指定的连接上读取下一页。已经预取了下一页时直接返回预取的结果
+	 * @param connection
+	 * @return 没有更多数据时返回空列表
+	 * @throws SQLException
+	 */
+	public List<T> next(Connection connection) throws SQLException {
+		if(finished) return new ArrayList<T>();
+		if(prefetched != null) return next();
+
+		started = true;
+		List<T> page = fetch(connection, lastKey);
+		accept(page);
+		return page;
+	}
+
+	/**
+	 * 从连接池借一个连接读取下一页，读取后立即归还。设置了prefetchExecutor时，返回之前先提交下一页的预取
+	 * @return 没有更多数据时返回空列表
+	 * @throws SQLException
+	 */
+	public List<T> next() throws SQLException {
+		if(finished) return new ArrayList<T>();
+		if(pool == null){
+			throw new IllegalStateException("connection pool is not set");
+		}
+
+		started = true;
+		List<T> page;
+		if(prefetched != null){
+			FutureTask<List<T>> task = prefetched;
+			prefetched = null;
+			page = await(task);
+		} else {
+			page = fetchPooled(lastKey);
+		}
+
+		accept(page);
+
+		if(!finished && prefetchExecutor != null){
+			final Object afterKey = lastKey;
+			prefetched = new FutureTask<List<T>>(new Callable<List<T>>() {
+				public List<T> call() throws Exception {
+					return fetchPooled(afterKey);
+				}
+			});
+			prefetchExecutor.execute(prefetched);
+		}
+
+		return page;
+	}
+
+	/**
+	 * 取消还没有开始的预取。已经开始的预取会正常结束并归还连接
+	 */
+	public void close() {
+		if(prefetched != null){
+			prefetched.cancel(false);
+			prefetched = null;
+		}
+		finished = true;
+	}
+
+	private List<T> fetchPooled(Object afterKey) throws SQLException {
+		Connection connection = pool.getConnection();
+		try {
+			return fetch(connection, afterKey);
+		} finally {
+			connection.close();
+		}
+	}
+
+	private List<T> fetch(Connection connection, Object afterKey) throws SQLException {
+		if(afterKey == null){
+			return executor.selectBeanList(connection, beanClass, columnFieldMap, firstSql, params);
+		}
+
+		Object[] ps = Arrays.copyOf(params, params.length + 1);
+		ps[params.length] = afterKey;
+		return executor.selectBeanList(connection, beanClass, columnFieldMap, nextSql, ps);
+	}
+
+	private void accept(List<T> page) throws SQLException {
+		if(page.size() < pageSize){
+			finished = true;
+		}
+		if(page.isEmpty()) return;
+
+		Object key = BeanProperties.of(beanClass).get(page.get(page.size() - 1), keyProperty);
+		if(key == null){
+			throw new SQLException("key column " + keyColumn + " is null, it can not be used for keyset pagination");
+		}
+		lastKey = key;
+	}
+
+	private List<T> await(FutureTask<List<T>> task) throws SQLException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			task.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted while waiting for the prefetched page", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof SQLException) throw (SQLException) cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new SQLException("prefetch page failed", cause);
+		}
+	}
+
+	private void checkNotStarted(){
+		if(started){
+			throw new IllegalStateException("pager has already started");
+		}
+	}
+}
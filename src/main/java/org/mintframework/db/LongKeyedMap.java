@@ -0,0 +1,227 @@
+package org.mintframework.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以long为键的开放寻址哈希表，用于按id索引查询结果：键直接存放在long[]中，查找时不装箱，不创建Entry对象。<br/>
+ * 线性探测，容量为2的幂，元素数超过容量的2/3时扩容；删除时向前移动后续元素，不留删除标记。
+ * 值不能为null，get返回null表示键不存在。<br/>
+ * 非线程安全
+ * @param <V>
+ */
+public final class LongKeyedMap<V> {
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int shift;
+	private int size;
+	private int threshold;
+
+	public LongKeyedMap(){
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize 预计的元素数，在这个数量之内不扩容
+	 */
+	public LongKeyedMap(int expectedSize){
+		if(expectedSize < 0){
+			throw new IllegalArgumentException("invalid expectedSize: " + expectedSize);
+		}
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * 访问表中每个元素的回调
+	 * @param <V>
+	 */
+	public interface Visitor<V> {
+		public void visit(long key, V value);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param key
+	 * @return 键对应的值，不存在时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int i = slot(key);
+		Object value;
+		while((value = values[i]) != null){
+			if(keys[i] == key) return (V) value;
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	public V getOrDefault(long key, V defaultValue) {
+		V value = get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @param key
+	 * @param value 不能为null
+	 * @return 原来的值，没有时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if(value == null){
+			throw new IllegalArgumentException("value can not be null");
+		}
+
+		int i = slot(key);
+		Object old;
+		while((old = values[i]) != null){
+			if(keys[i] == key){
+				values[i] = value;
+				return (V) old;
+			}
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		if(++size > threshold){
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * @param key
+	 * @return 被删除的值，不存在时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int i = slot(key);
+		Object value;
+		while((value = values[i]) != null){
+			if(keys[i] == key){
+				shiftBack(i);
+				size--;
+				return (V) value;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * @return 所有键，顺序不确定
+	 */
+	public long[] keys() {
+		long[] result = new long[size];
+		int n = 0;
+		for(int i=0; i<values.length; i++){
+			if(values[i] != null) result[n++] = keys[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @return 所有值，顺序与keys相同
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> result = new ArrayList<V>(size);
+		for(Object value : values){
+			if(value != null) result.add((V) value);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(Visitor<? super V> visitor) {
+		for(int i=0; i<values.length; i++){
+			if(values[i] != null) visitor.visit(keys[i], (V) values[i]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(size * 16 + 2).append('{');
+		for(int i=0; i<values.length; i++){
+			if(values[i] == null) continue;
+			if(builder.length() > 1) builder.append(", ");
+			builder.append(keys[i]).append('=').append(values[i]);
+		}
+		return builder.append('}').toString();
+	}
+
+	private int slot(long key){
+		return (int) ((key * PHI) >>> shift);
+	}
+
+	/**
+	 * 删除位置i的元素，把后面探测链上可以前移的元素前移，保持查找时遇到空位即停止
+	 */
+	private void shiftBack(int i){
+		int gap = i;
+		int j = (i + 1) & mask;
+		while(values[j] != null){
+			int home = slot(keys[j]);
+			//home不在(gap, j]之间时，元素j可以移到gap
+			if(((j - home) & mask) >= ((j - gap) & mask)){
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+			j = (j + 1) & mask;
+		}
+		values[gap] = null;
+	}
+
+	private void rehash(int capacity){
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+
+		for(int i=0; i<oldValues.length; i++){
+			if(oldValues[i] == null) continue;
+			int j = slot(oldKeys[i]);
+			while(values[j] != null){
+				j = (j + 1) & mask;
+			}
+			keys[j] = oldKeys[i];
+			values[j] = oldValues[i];
+		}
+	}
+
+	private void allocate(int capacity){
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		threshold = capacity / 3 * 2;
+	}
+
+	private static int capacityFor(int expectedSize){
+		long needed = Math.max(4L, (long) expectedSize * 3 / 2 + 1);
+		if(needed > (1 << 30)){
+			throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+		}
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+}
@@ -16,9 +16,14 @@ package org.mintframework.db;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.ConnectionEvent;
 import javax.sql.ConnectionEventListener;
@@ -40,7 +45,8 @@ public class MiniConnectionPool {
 	private int								maxConnections;
 	private long							timeoutMs;
 	private PrintWriter						logWriter;						//输出log
-	private Semaphore						semaphore;						//信号量
+	private ResizableSemaphore				semaphore;						//信号量，许可数等于当前容量
+	private volatile PoolSizer				sizer;							//自适应容量，为null时容量固定
 	private PoolConnectionEventListener		poolConnectionEventListener;
 	
 	// The following variables must only be accessed within synchronized blocks.
@@ -51,6 +57,12 @@ public class MiniConnectionPool {
 	private boolean							doPurgeConnection;				// flag to purge the connection currently beeing closed instead of recycling it
 	private PooledConnection				connectionInTransition;			// a PooledConnection which is currently within a PooledConnection.getConnection() call, or null
 	private boolean							debugModel = false;	
+	private volatile int					poolSize;						// current capacity, between minConnections and maxConnections, written within synchronized blocks
+	private volatile ConnectionGate			gate;							//优先级通道，为null时所有借用者在信号量上公平排队
+	private volatile Runnable				releaseListener;				//许可归还后的通知，供TenantPoolManager唤醒等待者
+	private volatile CircuitBreaker			breaker;						//熔断器，为null时不熔断
+	private final AtomicInteger				wakePermits = new AtomicInteger();	//熔断器打开时为唤醒等待者额外释放、还没有收回的许可
+	private IdentityHashMap<PooledConnection, ConnectionGate.Lane> borrowedLanes = new IdentityHashMap<PooledConnection, ConnectionGate.Lane>();
 	/**
 	* Thrown in {@link #getConnection()} or {@link #getValidConnection()} when no free connection becomes
 	* available within <code>timeout</code> seconds.
@@ -59,7 +71,7 @@ public class MiniConnectionPool {
 		private static final long serialVersionUID = 1;
 
 		public TimeoutException() {
-			super("Timeout while waiting for a free database connection(poolSize:"+maxConnections+"activeCount:"+activeConnections+")");
+			super("Timeout while waiting for a free database connection(poolSize:"+poolSize+";maxConnections:"+maxConnections+";activeCount:"+activeConnections+")");
 		}
 
 		public TimeoutException(String msg) {
@@ -75,6 +87,79 @@ public class MiniConnectionPool {
 		this.debugModel = debugModel;
 	}
 	
+	/**
+	 * 开启自适应容量：容量在minConnections和构造时的maxConnections之间变化，每个采样周期根据借用等待和连接占用调整一次，
+	 * 见{@link PoolSizer}。调整在借用和归还连接时顺带进行，不需要后台线程。缩小时先关闭空闲连接，
+	 * 正在使用的连接归还时再关闭多出的部分
+	 * @param minConnections 最小容量
+	 * @param intervalMs 采样周期，毫秒
+	 * @param targetWaitMs 平均借用等待超过这个时间时扩容，毫秒
+	 */
+	public synchronized void setAdaptiveSizing(int minConnections, long intervalMs, long targetWaitMs) {
+		if (minConnections < 1 || minConnections > maxConnections) {
+			throw new IllegalArgumentException("Invalid minConnections value.");
+		}
+		if (intervalMs <= 0 || targetWaitMs < 0) {
+			throw new IllegalArgumentException("Invalid sizing interval or target wait.");
+		}
+		sizer = new PoolSizer(minConnections, maxConnections, TimeUnit.MILLISECONDS.toNanos(intervalMs),
+				TimeUnit.MILLISECONDS.toNanos(targetWaitMs), activeConnections, System.nanoTime());
+		if (poolSize < minConnections) {
+			resize(minConnections);
+		}
+	}
+	
+	/**
+	 * 关闭自适应容量，保持当前容量
+	 */
+	public synchronized void disableAdaptiveSizing() {
+		sizer = null;
+	}
+	
+	/**
+	 * 手动设置容量，开启了自适应容量时会在下个采样周期重新调整
+	 * @param size 1到maxConnections之间
+	 */
+	public synchronized void setPoolSize(int size) {
+		if (size < 1 || size > maxConnections) {
+			throw new IllegalArgumentException("Invalid pool size value.");
+		}
+		resize(size);
+	}
+	
+	/**
+	 * @return 当前容量，即最多同时借出的连接数
+	 */
+	public synchronized int getPoolSize() {
+		return poolSize;
+	}
+	
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+	
+	/**
+	 * @return 等待借用连接的线程数，只在开启自适应容量时统计
+	 */
+	public int getWaitingThreads() {
+		PoolSizer sizer = this.sizer;
+		return sizer == null ? 0 : sizer.waiters.get();
+	}
+	
+	/**
+	 * @return 上一个采样周期的平均借用等待时间（毫秒），没有开启自适应容量时返回0
+	 */
+	public synchronized double getAverageWaitMillis() {
+		return sizer == null ? 0 : sizer.getLastAverageWait() / 1e6;
+	}
+	
+	/**
+	 * @return 上一个采样周期平均占用的连接数，没有开启自适应容量时返回0
+	 */
+	public synchronized double getAverageActiveConnections() {
+		return sizer == null ? 0 : sizer.getLastConcurrency();
+	}
+	
 	/**
 	* Constructs a MiniConnectionPoolManager object.
 	*
@@ -98,7 +183,8 @@ public class MiniConnectionPool {
 		if (maxConnections < 1) {
 			throw new IllegalArgumentException("Invalid maxConnections value.");
 		}
-		semaphore = new Semaphore(maxConnections, true);
+		poolSize = maxConnections;
+		semaphore = new ResizableSemaphore(maxConnections);
 		recycledConnections = new LinkedList<PooledConnection>();// the pool?
 		poolConnectionEventListener = new PoolConnectionEventListener();
 	}
@@ -130,11 +216,75 @@ public class MiniConnectionPool {
 		}
 	}
 
+	/**
+	 * 设置熔断器，见{@link CircuitBreaker}。创建连接失败和驱动通过connectionErrorOccurred报告的连接错误计入失败。
+	 * 熔断器打开时：借用立即抛出CircuitBreaker.OpenException；正在等待的借用者被唤醒并抛出同样的异常；
+	 * 空闲连接全部关闭，归还的连接也直接关闭。熔断器没有设置探测方式时，探测为创建并验证一个新的物理连接
+	 * @param breaker 为null时取消熔断
+	 */
+	public synchronized void setCircuitBreaker(CircuitBreaker breaker) {
+		if (this.breaker != null) {
+			this.breaker.setListener(null);
+		}
+		this.breaker = breaker;
+		if (breaker != null) {
+			breaker.setProbeIfAbsent(this::probe);
+			breaker.setListener(this::onBreakerStateChanged);
+		}
+	}
+	
+	public CircuitBreaker getCircuitBreaker() {
+		return breaker;
+	}
+	
+	/**
+	 * 定义或修改一个优先级通道。定义通道后，所有借用都经过通道排队：有空闲连接时优先级高的通道先得到；
+	 * 同一优先级的通道按weight分享连接；每个通道最多占用容量的maxFraction，并为它保留reserved个连接，
+	 * 其他通道不能占用这些保留的连接。getConnection()使用名为"default"的通道（优先级0，不保留，不限制）。例如：<br/>
+	 * pool.defineLane("web", 10, 4, 1.0, 1);<br/>
+	 * pool.defineLane("batch", 0, 0, 0.3, 1);
+	 * @param name 通道名
+	 * @param priority 优先级，大的先分配
+	 * @param reserved 保留的连接数
+	 * @param maxFraction 最多占用容量的比例，0到1之间
+	 * @param weight 同一优先级内分享连接的权重
+	 */
+	public synchronized void defineLane(String name, int priority, int reserved, double maxFraction, int weight) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Invalid lane name.");
+		}
+		if (reserved < 0 || maxFraction <= 0 || maxFraction > 1 || weight < 1) {
+			throw new IllegalArgumentException("Invalid lane settings.");
+		}
+		if (gate == null) {
+			gate = new ConnectionGate(semaphore, () -> poolSize);
+		}
+		gate.define(name, priority, reserved, maxFraction, weight);
+	}
+	
+	/**
+	 * @return 各通道的占用数和等待数，没有定义通道时返回空列表
+	 */
+	public List<String> getLaneStatus() {
+		ConnectionGate gate = this.gate;
+		return gate == null ? new ArrayList<String>() : gate.describe();
+	}
+	
 	/**
 	 * @return
 	 * @throws SQLException
 	 */
 	public Connection getConnection() throws SQLException {
+		return getConnection(null);
+	}
+	
+	/**
+	 * 从指定的优先级通道借用连接，见{@link #defineLane}。没有定义任何通道时忽略通道名
+	 * @param laneName 为null时使用默认通道
+	 * @return
+	 * @throws SQLException
+	 */
+	public Connection getConnection(String laneName) throws SQLException {
 		// This routine is unsynchronized, because semaphore.tryAcquire() may
 		// block.
 		
@@ -143,19 +293,76 @@ public class MiniConnectionPool {
 				throw new IllegalStateException("Connection pool has been disposed.");
 			}
 		}
+		ConnectionGate gate = this.gate;
+		ConnectionGate.Lane lane = gate == null ? null : gate.lane(laneName);
+		CircuitBreaker breaker = this.breaker;
+		//熔断器打开时立即失败；半开时当前调用者可能是试探，由创建连接的结果决定熔断器的状态
+		boolean trial = breaker != null && breaker.acquire();
 		try {
-			if (!semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+			return getConnection(gate, lane, breaker, trial);
+		} finally {
+			if (trial) {
+				//没有创建新连接就结束的试探（超时、复用了空闲连接等）不改变状态
+				breaker.abandonTrial();
+			}
+		}
+	}
+	
+	private Connection getConnection(ConnectionGate gate, ConnectionGate.Lane lane, CircuitBreaker breaker, boolean trial) throws SQLException {
+		PoolSizer sizer = this.sizer;
+		long start = sizer == null ? 0 : System.nanoTime();
+		try {
+			boolean acquired;
+			if (sizer != null) {
+				sizer.waiters.incrementAndGet();
+			}
+			try {
+				if (lane == null) {
+					acquired = semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+				} else {
+					acquired = gate.acquire(lane, TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+				}
+			} finally {
+				if (sizer != null) {
+					sizer.waiters.decrementAndGet();
+				}
+			}
+			
+			if (!acquired) {
+				if (breaker != null && !trial) {
+					//被熔断器唤醒或拒绝
+					breaker.check();
+				}
+				if (sizer != null) {
+					sizer.recordTimeout();
+					adjustSize();
+				}
 				throw new TimeoutException();
 			}
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Interrupted while waiting for a database connection. pool size:"+maxConnections+"activeCount:"+activeConnections, e);
 		}
 		
+		if (breaker != null && !trial) {
+			try {
+				breaker.check();
+			} catch (CircuitBreaker.OpenException e) {
+				//等待期间熔断器打开了，优先收回为唤醒等待者额外释放的许可
+				returnPermit(gate, lane, true);
+				throw e;
+			}
+		}
+		
 		boolean ok = false;
 		try {
-			Connection conn = getConnection2();
+			Connection conn = getConnection2(lane);
 			ok = true;
 			
+			if (sizer != null) {
+				sizer.recordBorrow(System.nanoTime() - start);
+				adjustSize();
+			}
+			
 			if(debugModel){
 				log("report after getConnection-> activeConnections:"+activeConnections+
 						";freeConnections:"+recycledConnections.size()+
@@ -165,11 +372,98 @@ public class MiniConnectionPool {
 			return conn;
 		} finally {
 			if (!ok) {
-				semaphore.release();
+				returnPermit(gate, lane, false);
+			}
+		}
+	}
+	
+	/**
+	 * 归还没有借出连接的许可
+	 * @param gate
+	 * @param lane
+	 * @param absorbWake 为true时如果还有为唤醒等待者额外释放的许可，就不再归还，抵消一个额外许可
+	 */
+	private void returnPermit(ConnectionGate gate, ConnectionGate.Lane lane, boolean absorbWake) {
+		if (!absorbWake || !consumeWakePermit()) {
+			semaphore.release();
+		}
+		if (gate != null) {
+			gate.release(lane);
+		}
+		notifyRelease();
+	}
+	
+	private boolean consumeWakePermit() {
+		while (true) {
+			int extra = wakePermits.get();
+			if (extra <= 0) {
+				return false;
+			}
+			if (wakePermits.compareAndSet(extra, extra - 1)) {
+				return true;
 			}
 		}
 	}
 
+	/**
+	 * 不等待地借用连接，没有空闲的许可时返回null。定义了通道时经过默认通道，遵守它的上限和其他通道的保留，
+	 * 也不会插到等待者前面
+	 * @return
+	 * @throws SQLException
+	 */
+	Connection tryGetConnection() throws SQLException {
+		synchronized (this) {
+			if (isDisposed) {
+				throw new IllegalStateException("Connection pool has been disposed.");
+			}
+		}
+		ConnectionGate gate = this.gate;
+		ConnectionGate.Lane lane = gate == null ? null : gate.lane(null);
+		if (lane == null ? !semaphore.tryAcquire() : !gate.tryAcquire(lane)) {
+			return null;
+		}
+		
+		boolean ok = false;
+		try {
+			Connection conn = getConnection2(lane);
+			ok = true;
+			return conn;
+		} finally {
+			if (!ok) {
+				returnPermit(gate, lane, false);
+			}
+		}
+	}
+	
+	/**
+	 * 设置容量，可以为0。由TenantPoolManager按全局预算分配
+	 * @param size 0到maxConnections之间
+	 */
+	synchronized void setCapacity(int size) {
+		if (size < 0 || size > maxConnections) {
+			throw new IllegalArgumentException("Invalid pool size value.");
+		}
+		resize(size);
+	}
+	
+	/**
+	 * 有空闲的许可时把容量减1，并关闭多出的空闲连接。检查和缩小都在池的锁内完成，
+	 * 拿到的许可不再归还，已经拿到许可、还没有借出连接的借用者不会被算作空闲。由TenantPoolManager回收容量时使用
+	 * @return 是否缩小了容量
+	 */
+	synchronized boolean tryShrinkUnused() {
+		if (isDisposed || poolSize <= 0 || wakePermits.get() > 0 || !semaphore.tryAcquire()) {
+			return false;
+		}
+		poolSize--;
+		closeSurplusIdle();
+		return true;
+	}
+	
+	void setReleaseListener(Runnable releaseListener) {
+		this.releaseListener = releaseListener;
+	}
+	
 	/**
 	 * @return
 	 */
@@ -184,17 +478,27 @@ public class MiniConnectionPool {
 		return recycledConnections.size();
 	}
 
-	private synchronized Connection getConnection2() throws SQLException {
+	private synchronized Connection getConnection2(ConnectionGate.Lane lane) throws SQLException {
 		if (isDisposed) { // test again within synchronized lock
 			throw new IllegalStateException("Connection pool has been disposed.");
 		}
 		PooledConnection pconn;
 		
+		CircuitBreaker breaker = this.breaker;
+		boolean created = false;
 		if (!recycledConnections.isEmpty()) {
 			pconn = recycledConnections.remove();
 		} else {
-			pconn = dataSource.getPooledConnection();
+			try {
+				pconn = dataSource.getPooledConnection();
+			} catch (SQLException e) {
+				if (breaker != null) {
+					breaker.onFailure(e);
+				}
+				throw e;
+			}
 			pconn.addConnectionEventListener(poolConnectionEventListener);
+			created = true;
 		}
 		Connection conn;
 		try {
@@ -209,10 +513,104 @@ public class MiniConnectionPool {
 			connectionInTransition = null;
 		}
 		activeConnections++;
+		onActiveChanged();
+		if (lane != null) {
+			borrowedLanes.put(pconn, lane);
+		}
 		assertInnerState();
+		if (created && breaker != null) {
+			breaker.onSuccess();
+		}
 		
 		return conn;
 	}
+	
+	/**
+	 * 到了采样周期时重新决定容量
+	 */
+	private void adjustSize() {
+		PoolSizer sizer = this.sizer;
+		if (sizer == null || !sizer.isDue(System.nanoTime())) {
+			return;
+		}
+		
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (this.sizer != sizer || !sizer.isDue(now) || isDisposed) {
+				return;
+			}
+			
+			int size = sizer.decide(poolSize, now);
+			if (size != poolSize) {
+				if (debugModel) {
+					log("resize pool from "+poolSize+" to "+size+"; activeConnections:"+activeConnections+
+							";averageActive:"+sizer.getLastConcurrency()+";averageWaitNanos:"+sizer.getLastAverageWait());
+				}
+				resize(size);
+			}
+		}
+	}
+	
+	/**
+	 * 调整信号量的许可数。缩小时许可数可能暂时为负，新的借用要等到足够多的连接归还
+	 * @param size
+	 */
+	private synchronized void resize(int size) {
+		int delta = size - poolSize;
+		poolSize = size;
+		if (delta > 0) {
+			semaphore.release(delta);
+			if (gate != null) {
+				gate.dispatch();
+			}
+		} else if (delta < 0) {
+			semaphore.reducePermits(-delta);
+		}
+		closeSurplusIdle();
+	}
+	
+	/**
+	 * 关闭超出容量的空闲连接
+	 */
+	private void closeSurplusIdle() {
+		while (activeConnections + recycledConnections.size() > poolSize && !recycledConnections.isEmpty()) {
+			PooledConnection pconn = recycledConnections.remove();
+			pconn.removeConnectionEventListener(poolConnectionEventListener);
+			try {
+				pconn.close();
+			} catch (SQLException e) {
+				log("Error while closing database connection: " + e.toString());
+			}
+		}
+	}
+	
+	/**
+	 * 归还借出连接占用的许可，并交给等待的通道
+	 * @param pconn
+	 */
+	private void releasePermit(PooledConnection pconn) {
+		ConnectionGate.Lane lane = borrowedLanes.remove(pconn);
+		semaphore.release();
+		ConnectionGate gate = this.gate;
+		if (gate != null) {
+			gate.release(lane);
+		}
+		notifyRelease();
+	}
+	
+	private void notifyRelease() {
+		Runnable listener = this.releaseListener;
+		if (listener != null) {
+			listener.run();
+		}
+	}
+	
+	private void onActiveChanged() {
+		PoolSizer sizer = this.sizer;
+		if (sizer != null) {
+			sizer.onActive(activeConnections, System.nanoTime());
+		}
+	}
 
 	private synchronized void recycleConnection(PooledConnection pconn) {
 		if (isDisposed || doPurgeConnection) {
@@ -223,8 +621,24 @@ public class MiniConnectionPool {
 			throw new AssertionError();
 		}
 		activeConnections --;
-		semaphore.release();
-		recycledConnections.add(pconn);
+		onActiveChanged();
+		releasePermit(pconn);
+		CircuitBreaker breaker = this.breaker;
+		if (activeConnections + recycledConnections.size() >= poolSize
+				|| (breaker != null && breaker.getState() != CircuitBreaker.State.CLOSED)) {
+			//容量缩小后多出的连接，以及熔断期间归还的连接直接关闭
+			pconn.removeConnectionEventListener(poolConnectionEventListener);
+			try {
+				pconn.close();
+			} catch (SQLException e) {
+				log("Error while closing database connection: " + e.toString());
+			}
+		} else {
+			recycledConnections.add(pconn);
+			if (breaker != null) {
+				breaker.clearFailures();
+			}
+		}
 		
 		if(debugModel){
 			log("report after recycleConnection-> activeConnections:"+activeConnections+
@@ -233,6 +647,7 @@ public class MiniConnectionPool {
 		}
 		
 		assertInnerState();//用于抛出异常（所有的connection数>maxConnections）
+		adjustSize();
 	}
 
 	private synchronized void disposeConnection(PooledConnection pconn) {
@@ -242,7 +657,8 @@ public class MiniConnectionPool {
 				throw new AssertionError();
 			}
 			activeConnections--;
-			semaphore.release();
+			onActiveChanged();
+			releasePermit(pconn);
 		}
 		try {
 			pconn.close();
@@ -252,6 +668,67 @@ public class MiniConnectionPool {
 		assertInnerState();//用于抛出异常（所有的connection数>maxConnections）
 	}
 
+	/**
+	 * 熔断器状态变化，在熔断器的锁之外调用
+	 * @param state
+	 */
+	private synchronized void onBreakerStateChanged(CircuitBreaker.State state) {
+		if (state == CircuitBreaker.State.OPEN) {
+			if (debugModel) {
+				log("circuit breaker opened; activeConnections:"+activeConnections+";freeConnections:"+recycledConnections.size());
+			}
+			while (!recycledConnections.isEmpty()) {
+				PooledConnection pconn = recycledConnections.remove();
+				pconn.removeConnectionEventListener(poolConnectionEventListener);
+				try {
+					pconn.close();
+				} catch (SQLException e) {
+					log("Error while closing database connection: " + e.toString());
+				}
+			}
+			
+			//每个等待者额外释放一个许可把它唤醒，醒来后发现熔断器打开，收回许可并抛出异常
+			int waiting = semaphore.getQueueLength();
+			if (waiting > 0) {
+				wakePermits.addAndGet(waiting);
+				semaphore.release(waiting);
+			}
+			ConnectionGate gate = this.gate;
+			if (gate != null) {
+				gate.rejectAll();
+			}
+		} else if (state == CircuitBreaker.State.CLOSED) {
+			//收回没有被等待者用掉的额外许可
+			while (true) {
+				int extra = wakePermits.get();
+				if (extra <= 0) {
+					break;
+				}
+				if (wakePermits.compareAndSet(extra, 0)) {
+					semaphore.reducePermits(extra);
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 熔断器的默认探测：创建并验证一个新的物理连接，不放入池中
+	 * @throws SQLException
+	 */
+	private void probe() throws SQLException {
+		PooledConnection pconn = dataSource.getPooledConnection();
+		try {
+			Connection conn = pconn.getConnection();
+			if (!conn.isValid((int) Math.max(1, timeoutMs / 1000))) {
+				throw new SQLNonTransientConnectionException("Probe connection is not valid.", "08006");
+			}
+			conn.close();
+		} finally {
+			pconn.close();
+		}
+	}
+	
 	private void log(String msg) {
 		String s = "MiniConnectionPoolManager: " + msg;
 		try {
@@ -267,18 +744,40 @@ public class MiniConnectionPool {
 	private synchronized void assertInnerState() {
 		if (activeConnections < 0 || 
 				activeConnections + recycledConnections.size() > maxConnections ||
-				activeConnections + semaphore.availablePermits() > maxConnections) {
+				activeConnections + semaphore.availablePermits() - wakePermits.get() > maxConnections) {
 			
 			throw new AssertionError();
 		}
 	}
 
+	/**
+	 * 可以减少许可数的信号量
+	 */
+	private static final class ResizableSemaphore extends Semaphore {
+		private static final long serialVersionUID = 1;
+
+		ResizableSemaphore(int permits) {
+			super(permits, true);
+		}
+
+		@Override
+		protected void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+	}
+
 	private class PoolConnectionEventListener implements ConnectionEventListener {
 		public void connectionClosed(ConnectionEvent event) {
 			recycleConnection((PooledConnection) event.getSource());
 		}
 
 		public void connectionErrorOccurred(ConnectionEvent event) {
+			//驱动报告的致命错误中，只有连接级别的错误计入熔断器的失败
+			CircuitBreaker breaker = MiniConnectionPool.this.breaker;
+			SQLException e = event.getSQLException();
+			if (breaker != null && (e == null || CircuitBreaker.isConnectionError(e))) {
+				breaker.onFailure(e != null ? e : new SQLNonTransientConnectionException("Connection error reported by driver.", "08006"));
+			}
 			disposeConnection((PooledConnection) event.getSource());
 		}
 	}
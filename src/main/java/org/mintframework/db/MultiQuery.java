@@ -0,0 +1,126 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多语句查询。把几条互不依赖的小查询用分号拼成一个多语句，一次网络往返执行，
+ * 再按getMoreResults依次用各自的ResultSetMapper转换结果集。<br/>
+ * mysql需要连接参数allowMultiQueries=true；postgresql、sql server直接支持。
+ * 各语句的参数按顺序拼接后绑定到同一个预处理语句，没有参数时使用普通Statement。<br/>
+ * 由SQLExecutor.multiQuery创建，非线程安全，执行后可以在其他连接上重复执行
+ */
+public final class MultiQuery {
+	private final SQLExecutor executor;
+	private final List<String> sqls = new ArrayList<String>();
+	private final List<ResultSetMapper<?>> mappers = new ArrayList<ResultSetMapper<?>>();
+	private final List<Object> params = new ArrayList<Object>();
+	private String sql;
+
+	MultiQuery(SQLExecutor executor){
+		this.executor = executor;
+	}
+
+	/**
+	 * 添加一条返回结果集的查询
+	 * @param mapper 结果集的转换方式
+	 * @param sql 单条语句，结尾的分号可以省略
+	 * @param params
+	 * @return 多语句查询本身
+	 */
+	public MultiQuery add(ResultSetMapper<?> mapper, String sql, Object... params) {
+		if(mapper == null){
+			throw new IllegalArgumentException("mapper can not be null");
+		}
+		return append(mapper, sql, params);
+	}
+
+	/**
+	 * 添加一条更新语句，对应的结果是Integer类型的影响行数
+	 * @param sql 单条语句，结尾的分号可以省略
+	 * @param params
+	 * @return 多语句查询本身
+	 */
+	public MultiQuery addUpdate(String sql, Object... params) {
+		return append(null, sql, params);
+	}
+
+	/**
+	 * @return 已添加的语句数
+	 */
+	public int size() {
+		return sqls.size();
+	}
+
+	/**
+	 * @return 拼接后的多语句sql
+	 */
+	public String getSql() {
+		if(sql == null){
+			StringBuilder builder = new StringBuilder();
+			for(String s : sqls){
+				if(builder.length() > 0) builder.append(";\n");
+				builder.append(s);
+			}
+			sql = builder.toString();
+		}
+		return sql;
+	}
+
+	/**
+	 * 一次往返执行所有语句
+	 * @param conn
+	 * @return 按添加顺序排列的结果：查询是mapper的转换结果，更新是Integer类型的影响行数
+	 * @throws SQLException
+	 */
+	public List<Object> execute(Connection conn) throws SQLException {
+		if(sqls.isEmpty()) return new ArrayList<Object>();
+
+		String sql = getSql();
+		ResultSetMapper<?>[] mappers = this.mappers.toArray(new ResultSetMapper<?>[this.mappers.size()]);
+
+		Statement stm = null;
+		try {
+			boolean isResult;
+			if(params.isEmpty()){
+				stm = executor.createStatement(conn, QueryFamily.LIST);
+				isResult = stm.execute(sql);
+			} else {
+				PreparedStatement pstm = executor.prepareStatement(conn, sql, QueryFamily.LIST);
+				stm = pstm;
+				executor.getBinder().bind(pstm, sql, params.toArray());
+				isResult = pstm.execute();
+			}
+			return executor.readResults(stm, isResult, mappers, false);
+		} finally {
+			if(stm != null) stm.close();
+		}
+	}
+
+	private MultiQuery append(ResultSetMapper<?> mapper, String sql, Object[] params){
+		if(sql == null){
+			throw new IllegalArgumentException("sql can not be null");
+		}
+
+		String trimmed = sql.trim();
+		while(trimmed.endsWith(";")){
+			trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+		}
+		if(trimmed.isEmpty()){
+			throw new IllegalArgumentException("sql can not be empty");
+		}
+
+		sqls.add(trimmed);
+		mappers.add(mapper);
+		if(params != null){
+			Collections.addAll(this.params, params);
+		}
+		this.sql = null;
+		return this;
+	}
+}
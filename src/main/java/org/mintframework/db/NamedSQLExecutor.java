@@ -0,0 +1,292 @@
+package org.mintframework.db;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 使用命名参数(:name)的sql执行器，在SQLExecutor之上增加一层SqlTemplate。<br/>
+ * 参数源可以是Map(参数名->值)或者bean；集合和数组参数会展开成IN列表，见{@link SqlTemplate}。
+ * 线程安全性与被包装的SQLExecutor相同，所有的Connection都要使用者自己关闭
+ */
+public final class NamedSQLExecutor {
+	private final SQLExecutor executor;
+
+	public NamedSQLExecutor(){
+		this(new SQLExecutor());
+	}
+
+	/**
+	 * @param executor 实际执行sql的执行器，转换器等配置沿用它的
+	 */
+	public NamedSQLExecutor(SQLExecutor executor){
+		if(executor == null){
+			throw new IllegalArgumentException("executor can not be null");
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * @return 实际执行sql的执行器
+	 */
+	public SQLExecutor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 执行更新语句，包括insert、update、delete等
+	 * @param conn
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return
+	 * @throws SQLException
+	 */
+	public int update(Connection conn, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.update(conn, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * 批量执行更新语句，每个参数源对应一行参数
+	 * @param conn
+	 * @param sql 使用命名参数的sql，批量执行时不能使用集合参数展开出长度不同的IN列表
+	 * @param paramSources
+	 * @return
+	 * @throws SQLException
+	 */
+	public int[] batch(Connection conn, String sql, List<?> paramSources) throws SQLException {
+		BoundBatch bound = bindBatch(sql, paramSources);
+		return executor.batch(conn, bound.sql, bound.params);
+	}
+
+	/**
+	 * 执行insert语句，并把数据库生成的键（例如自增id）写回参数源
+	 * @param conn
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean，Map必须可以修改
+	 * @param keyProperty 接收生成键的属性名，为null时不写回
+	 * @return 生成的键，没有生成键时返回-1
+	 * @throws SQLException
+	 */
+	public long insert(Connection conn, String sql, Object paramSource, String keyProperty) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		long[] keys = executor.insert(conn, bound.getSql(), bound.getParams());
+		if(keys.length == 0) return -1;
+
+		if(keyProperty != null){
+			writeKey(paramSource, keyProperty, keys[0]);
+		}
+		return keys[0];
+	}
+
+	/**
+	 * 分块批量执行insert语句，并把数据库生成的键按顺序写回各个参数源
+	 * @param conn
+	 * @param sql 使用命名参数的sql，批量执行时不能使用集合参数展开出长度不同的IN列表
+	 * @param paramSources Map或者bean，Map必须可以修改
+	 * @param keyProperty 接收生成键的属性名，为null时不写回
+	 * @param chunkSize 每块的行数，小于1时所有行作为一块
+	 * @return 生成的键，与参数源一一对应
+	 * @throws SQLException 生成键的个数与参数源的个数不同时（例如INSERT IGNORE跳过了部分行）无法对应，不写回并抛出异常
+	 */
+	public long[] insertBatch(Connection conn, String sql, List<?> paramSources, String keyProperty, int chunkSize) throws SQLException {
+		BoundBatch bound = bindBatch(sql, paramSources);
+		long[] keys = executor.insertBatch(conn, bound.sql, bound.params, chunkSize);
+
+		if(keyProperty != null){
+			if(keys.length != paramSources.size()){
+				throw new SQLException("generated " + keys.length + " keys for " + paramSources.size() + " rows, they can not be written back");
+			}
+
+			int index = 0;
+			for(Object paramSource : paramSources){
+				writeKey(paramSource, keyProperty, keys[index++]);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * 把每个参数源绑定成一行参数，所有行必须生成相同的sql
+	 */
+	private static BoundBatch bindBatch(String sql, List<?> paramSources) throws SQLException {
+		if(paramSources == null || paramSources.isEmpty()){
+			throw new SQLException("invalidate params:" + paramSources);
+		}
+
+		SqlTemplate template = SqlTemplate.compile(sql);
+		String boundSql = null;
+		Object[][] params = new Object[paramSources.size()][];
+
+		int index = 0;
+		for(Object paramSource : paramSources){
+			BoundSql bound = template.bind(paramSource);
+			if(boundSql == null){
+				boundSql = bound.getSql();
+			} else if(!boundSql.equals(bound.getSql())){
+				throw new SQLException("batch parameters expand to different sql: " + bound.getSql());
+			}
+			params[index++] = bound.getParams();
+		}
+
+		return new BoundBatch(boundSql, params);
+	}
+
+	/**
+	 * 把生成的键转换成属性的类型后写入参数源
+	 */
+	@SuppressWarnings("unchecked")
+	private static void writeKey(Object paramSource, String keyProperty, long key){
+		if(paramSource instanceof Map){
+			((Map<String, Object>) paramSource).put(keyProperty, key);
+			return;
+		}
+
+		BeanProperties properties = BeanProperties.of(paramSource.getClass());
+		Class<?> type = properties.writableType(keyProperty);
+		if(type == null){
+			throw new IllegalArgumentException("there is no writable property named " + keyProperty + " in " + paramSource.getClass().getName());
+		}
+
+		Object value;
+		if(type == long.class || type == Long.class || type == Object.class || type == Number.class){
+			value = key;
+		} else if(type == int.class || type == Integer.class){
+			value = Math.toIntExact(key);
+		} else if(type == short.class || type == Short.class){
+			if(key < Short.MIN_VALUE || key > Short.MAX_VALUE) throw new ArithmeticException("short overflow");
+			value = (short) key;
+		} else if(type == BigInteger.class){
+			value = BigInteger.valueOf(key);
+		} else if(type == BigDecimal.class){
+			value = BigDecimal.valueOf(key);
+		} else if(type == String.class){
+			value = String.valueOf(key);
+		} else {
+			throw new IllegalArgumentException("generated key can not be written to property " + keyProperty + " of type " + type.getName());
+		}
+		properties.set(paramSource, keyProperty, value);
+	}
+
+	/**
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return
+	 * @throws SQLException
+	 */
+	public <T> T selectBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectBean(connection, beanClass, columnFieldMap, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return 没有数据则返回空列表
+	 * @throws SQLException
+	 */
+	public <T> List<T> selectBeanList(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectBeanList(connection, beanClass, columnFieldMap, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param handler
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return 处理的行数
+	 * @throws SQLException
+	 */
+	public <T> int forEachBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, RowHandler<? super T> handler, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.forEachBean(connection, beanClass, columnFieldMap, handler, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return
+	 * @throws SQLException
+	 */
+	public ResultMap selectResultMap(Connection connection, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectResultMap(connection, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return 无数据返回空列表
+	 * @throws SQLException
+	 */
+	public List<ResultMap> selectResultMapList(Connection connection, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectResultMapList(connection, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param keyColumn
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return
+	 * @throws SQLException
+	 */
+	public Map<String, ResultMap> selectResultMapMap(Connection connection, String keyColumn, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectResultMapMap(connection, keyColumn, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param clazz
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return
+	 * @throws SQLException
+	 */
+	public <T> T selectScalar(Connection connection, Class<T> clazz, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectScalar(connection, clazz, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * @param connection
+	 * @param clazz
+	 * @param sql 使用命名参数的sql
+	 * @param paramSource Map或者bean
+	 * @return 没有数据返回空列表
+	 * @throws SQLException
+	 */
+	public <T> List<T> selectScalarList(Connection connection, Class<T> clazz, String sql, Object paramSource) throws SQLException {
+		BoundSql bound = SqlTemplate.compile(sql).bind(paramSource);
+		return executor.selectScalarList(connection, clazz, bound.getSql(), bound.getParams());
+	}
+
+	/**
+	 * 批量绑定后的sql和参数
+	 */
+	private static final class BoundBatch {
+		private final String sql;
+		private final Object[][] params;
+
+		BoundBatch(String sql, Object[][] params){
+			this.sql = sql;
+			this.params = params;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package org.mintframework.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 列值为null时返回null，用于非基础类型的字段
+ */
+final class NullableColumnReader implements ColumnReader {
+	private final ColumnReader reader;
+	
+	NullableColumnReader(ColumnReader reader){
+		this.reader = reader;
+	}
+	
+	@Override
+	public Object read(ResultSet result, int index) throws SQLException {
+		Object value = reader.read(result, index);
+		return result.wasNull() ? null : value;
+	}
+}
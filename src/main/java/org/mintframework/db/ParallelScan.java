@@ -0,0 +1,410 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按键范围分区的并行扫描。把查询按分页键切成N个区间，每个区间在连接池的一个连接上流式执行，
+ * 在ForkJoinPool中用BeanConverter转换成bean，按块交给consumer。适合全表导出等ETL任务。<br/>
+ * 分区方式：设置了分界点时按分界点切分（可以是任何有索引的列）；否则键必须是整数，
+ * 先查询键的最小值和最大值，再平均切分。第一个分区没有下界，最后一个分区没有上界，键为null的行不会被扫描到。<br/>
+ * consumer的调用是串行的，不需要线程安全。ordered为true时按键区间的顺序交付，
+ * 还没轮到的分区读出的数据先缓存在内存中，每个分区最多缓存maxPendingChunks块，缓存满后暂停读取直到轮到它，
+ * 所以缓存的行数不超过(分区数-1)*maxPendingChunks*chunkSize；为false时哪个分区先读到就先交付，同一分区内保持顺序。<br/>
+ * 任何分区失败或者consumer抛出异常时，cancel其余分区正在执行的查询，不等流式结果集读完。<br/>
+ * 由SQLExecutor.parallelScan创建，非线程安全
+ * @param <T>
+ */
+public final class ParallelScan<T> {
+	private static final int DEFAULT_PARTITIONS = 4;
+	private static final int DEFAULT_CHUNK_SIZE = 1000;
+	private static final int DEFAULT_MAX_PENDING_CHUNKS = 16;
+
+	private final SQLExecutor executor;
+	private final MiniConnectionPool pool;
+	private final Class<T> beanClass;
+	private final Map<String, String> columnFieldMap;
+	private final KeyedQuery query;
+	private final String keyColumn;
+	private final Object[] params;
+
+	private int partitions = DEFAULT_PARTITIONS;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private boolean ordered;
+	private int maxPendingChunks = DEFAULT_MAX_PENDING_CHUNKS;
+	private Object[] boundaries;
+	private Long minKey;
+	private Long maxKey;
+	private ForkJoinPool forkJoinPool;
+
+	ParallelScan(SQLExecutor executor, MiniConnectionPool pool, Class<T> beanClass, Map<String, String> columnFieldMap, String keyColumn, String sql, Object[] params){
+		if(pool == null){
+			throw new IllegalArgumentException("pool can not be null");
+		}
+		if(keyColumn == null || keyColumn.isEmpty()){
+			throw new IllegalArgumentException("keyColumn can not be empty");
+		}
+
+		//分区内逐行交付，不需要把整个分区读入客户端内存
+		this.executor = executor.withOptions(QueryOptions.streaming());
+		this.pool = pool;
+		this.beanClass = beanClass;
+		this.columnFieldMap = columnFieldMap;
+		this.query = new KeyedQuery(sql);
+		this.keyColumn = keyColumn;
+		this.params = params == null ? new Object[0] : params;
+	}
+
+	/**
+	 * 分区数，也是同时占用的连接数，不要超过连接池的大小。默认为4
+	 * @param partitions
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setPartitions(int partitions) {
+		if(partitions < 1){
+			throw new IllegalArgumentException("invalid partitions: " + partitions);
+		}
+		this.partitions = partitions;
+		return this;
+	}
+
+	/**
+	 * 每次交给consumer的行数，默认为1000
+	 * @param chunkSize
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setChunkSize(int chunkSize) {
+		if(chunkSize < 1){
+			throw new IllegalArgumentException("invalid chunkSize: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * 是否按键区间的顺序交付，默认为false
+	 * @param ordered
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setOrdered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+
+	/**
+	 * 有序交付时每个还没轮到的分区最多缓存的块数，默认为16。
+	 * 缓存满后分区暂停读取，连接和流式结果集保持打开，暂停的时间不能超过数据库的写超时（mysql的net_write_timeout）
+	 * @param maxPendingChunks
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setMaxPendingChunks(int maxPendingChunks) {
+		if(maxPendingChunks < 1){
+			throw new IllegalArgumentException("invalid maxPendingChunks: " + maxPendingChunks);
+		}
+		this.maxPendingChunks = maxPendingChunks;
+		return this;
+	}
+
+	/**
+	 * 整数键的范围，设置后不再查询键的最小值和最大值
+	 * @param minKey
+	 * @param maxKey
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setRange(long minKey, long maxKey) {
+		if(minKey > maxKey){
+			throw new IllegalArgumentException("minKey is greater than maxKey");
+		}
+		this.minKey = minKey;
+		this.maxKey = maxKey;
+		return this;
+	}
+
+	/**
+	 * 按升序排列的分界点，n个分界点切出n+1个分区，设置后忽略partitions和range
+	 * @param boundaries
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setBoundaries(Object... boundaries) {
+		this.boundaries = boundaries == null ? null : boundaries.clone();
+		return this;
+	}
+
+	/**
+	 * 执行分区任务的ForkJoinPool，默认使用commonPool。分区任务会阻塞在数据库调用上，
+	 * 阻塞期间ForkJoinPool会补充线程，不会减少其他任务的并行度
+	 * @param forkJoinPool
+	 * @return 扫描本身
+	 */
+	public ParallelScan<T> setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+		return this;
+	}
+
+	/**
+	 * 执行扫描，所有分区结束后返回。任何分区失败或者consumer抛出异常时，其余分区尽快停止，
+	 * 连接全部归还后抛出第一个异常
+	 * @param consumer
+	 * @return 交给consumer的行数
+	 * @throws SQLException
+	 */
+	public long run(RowHandler<? super T> consumer) throws SQLException {
+		if(consumer == null){
+			throw new IllegalArgumentException("consumer can not be null");
+		}
+
+		Object[] splits = splits();
+		Scan scan = new Scan(consumer, splits.length + 1);
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(splits.length + 1);
+		ForkJoinPool fjp = forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+		for(int i=0; i<=splits.length; i++){
+			Object lower = i == 0 ? null : splits[i - 1];
+			Object upper = i == splits.length ? null : splits[i];
+			tasks.add(fjp.submit(new PartitionTask(scan, i, lower, upper)));
+		}
+
+		for(ForkJoinTask<?> task : tasks){
+			task.quietlyJoin();
+		}
+
+		Throwable failure = scan.failure.get();
+		if(failure instanceof SQLException) throw (SQLException) failure;
+		if(failure instanceof RuntimeException) throw (RuntimeException) failure;
+		if(failure instanceof Error) throw (Error) failure;
+		if(failure != null) throw new SQLException("parallel scan failed", failure);
+
+		return scan.rows.get();
+	}
+
+	/**
+	 * @return 分界点，没有分界点时只有一个分区
+	 */
+	private Object[] splits() throws SQLException {
+		if(boundaries != null) return boundaries;
+		if(partitions == 1) return new Object[0];
+
+		long min, max;
+		if(minKey != null){
+			min = minKey;
+			max = maxKey;
+		} else {
+			String sql = query.select("MIN(" + keyColumn + ") AS scanmin, MAX(" + keyColumn + ") AS scanmax");
+			Connection connection = pool.getConnection();
+			try {
+				ResultMap range = executor.selectResultMap(connection, sql, params);
+				if(range == null || range.get("scanmin") == null || range.get("scanmax") == null) return new Object[0];
+				min = range.getLong("scanmin");
+				max = range.getLong("scanmax");
+			} catch (NumberFormatException e) {
+				throw new SQLException("key column " + keyColumn + " is not an integer column, use setBoundaries instead", e);
+			} finally {
+				connection.close();
+			}
+		}
+
+		//等分[min, max]，范围太小时分区数减少
+		List<Object> splits = new ArrayList<Object>(partitions - 1);
+		double step = ((double) max - (double) min + 1) / partitions;
+		long last = min;
+		for(int i=1; i<partitions; i++){
+			long split = min + (long) (step * i);
+			if(split > last && split <= max){
+				splits.add(split);
+				last = split;
+			}
+		}
+		return splits.toArray();
+	}
+
+	private String partitionSql(Object lower, Object upper){
+		if(lower == null && upper == null) return query.getSql();
+		if(lower == null) return query.where(keyColumn + " < ?");
+		if(upper == null) return query.where(keyColumn + " >= ?");
+		return query.where(keyColumn + " >= ? AND " + keyColumn + " < ?");
+	}
+
+	private Object[] partitionParams(Object lower, Object upper){
+		int extra = (lower == null ? 0 : 1) + (upper == null ? 0 : 1);
+		Object[] ps = Arrays.copyOf(params, params.length + extra);
+		int index = params.length;
+		if(lower != null) ps[index++] = lower;
+		if(upper != null) ps[index] = upper;
+		return ps;
+	}
+
+	/**
+	 * 一次扫描的共享状态，consumer在lock中串行调用
+	 */
+	private final class Scan {
+		private final RowHandler<? super T> consumer;
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final AtomicLong rows = new AtomicLong();
+		private final Object lock = new Object();
+		private final boolean[] done;
+		private final List<ArrayDeque<List<T>>> pending;
+		private final List<AtomicReference<Statement>> running;		//各分区正在执行的语句
+		private int head;			//有序交付时当前可以直接交付的分区
+
+		Scan(RowHandler<? super T> consumer, int count){
+			this.consumer = consumer;
+			this.done = new boolean[count];
+			this.pending = new ArrayList<ArrayDeque<List<T>>>(count);
+			this.running = new ArrayList<AtomicReference<Statement>>(count);
+			for(int i=0; i<count; i++){
+				pending.add(new ArrayDeque<List<T>>());
+				running.add(new AtomicReference<Statement>());
+			}
+		}
+
+		void deliver(int partition, List<T> chunk) throws SQLException {
+			synchronized(lock){
+				//还没轮到的分区缓存满了，等待前面的分区交付完
+				while(ordered && partition != head && pending.get(partition).size() >= maxPendingChunks && failure.get() == null){
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("interrupted while waiting to deliver partition " + partition, e);
+					}
+				}
+				if(failure.get() != null){
+					throw new SQLException("parallel scan cancelled");
+				}
+
+				if(ordered && partition != head){
+					pending.get(partition).add(chunk);
+				} else {
+					consume(chunk);
+				}
+			}
+		}
+
+		void complete(int partition) throws SQLException {
+			synchronized(lock){
+				done[partition] = true;
+				if(!ordered) return;
+
+				while(head < done.length && done[head]){
+					head++;
+					if(head < done.length){
+						ArrayDeque<List<T>> chunks = pending.get(head);
+						while(!chunks.isEmpty()){
+							consume(chunks.poll());
+						}
+					}
+				}
+				lock.notifyAll();
+			}
+		}
+
+		private void consume(List<T> chunk) throws SQLException {
+			if(failure.get() != null) return;
+			for(T row : chunk){
+				consumer.handle(row);
+			}
+			rows.addAndGet(chunk.size());
+		}
+
+		void fail(Throwable e){
+			failure.compareAndSet(null, e);
+
+			//流式结果集关闭时会读完剩下的行，先cancel其他分区的查询
+			for(AtomicReference<Statement> statement : running){
+				Statement stm = statement.get();
+				if(stm == null) continue;
+				try {
+					stm.cancel();
+				} catch (SQLException ignored) {
+					//语句已经结束
+				}
+			}
+
+			synchronized(lock){
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * 在一个连接上扫描一个分区
+	 */
+	private final class PartitionTask implements Runnable, ForkJoinPool.ManagedBlocker {
+		private final Scan scan;
+		private final int partition;
+		private final Object lower;
+		private final Object upper;
+		private boolean finished;
+
+		PartitionTask(Scan scan, int partition, Object lower, Object upper){
+			this.scan = scan;
+			this.partition = partition;
+			this.lower = lower;
+			this.upper = upper;
+		}
+
+		public void run() {
+			try {
+				ForkJoinPool.managedBlock(this);
+			} catch (InterruptedException e) {
+				scan.fail(e);
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public boolean block() {
+			try {
+				scanPartition();
+				scan.complete(partition);
+			} catch (Throwable e) {
+				scan.fail(e);
+			}
+			finished = true;
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return finished;
+		}
+
+		private void scanPartition() throws SQLException {
+			if(scan.failure.get() != null) return;
+
+			Connection connection = pool.getConnection();
+			try {
+				final List<List<T>> chunk = new ArrayList<List<T>>(1);
+				chunk.add(new ArrayList<T>(chunkSize));
+
+				executor.forEachBean(connection, beanClass, columnFieldMap, new RowHandler<T>() {
+					public void handle(T row) throws SQLException {
+						List<T> rows = chunk.get(0);
+						rows.add(row);
+						if(rows.size() >= chunkSize){
+							if(scan.failure.get() != null){
+								throw new SQLException("parallel scan cancelled");
+							}
+							scan.deliver(partition, rows);
+							chunk.set(0, new ArrayList<T>(chunkSize));
+						}
+					}
+				}, false, scan.running.get(partition), partitionSql(lower, upper), partitionParams(lower, upper));
+
+				if(!chunk.get(0).isEmpty()){
+					scan.deliver(partition, chunk.get(0));
+				}
+			} finally {
+				connection.close();
+			}
+		}
+	}
+}
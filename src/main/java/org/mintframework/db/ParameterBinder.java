@@ -0,0 +1,604 @@
+package org.mintframework.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 预处理语句的参数绑定器。<br/>
+ * 按(sql, 参数类型)生成绑定计划并缓存。批量执行时用第一个非null的行生成计划，后续行复用，
+ * 每个参数只做一次Class比较，不再逐个instanceof判断。<br/>
+ * 每条sql记录各位置上次见到的非null参数的sql类型，直接传入null时用它调用setNull，没有见过时使用Types.NULL。<br/>
+ * 绑定方式的优先级：注册表中的ColumnConverter；String、数值包装类、Boolean、Array、Enum和TypedNull直接绑定；
+ * 其他类型设置了FieldColumnConverter时交给它的fieldToColumn，没有设置时按jdbc标准类型绑定。线程安全
+ */
+final class ParameterBinder {
+	private static final int MAX_CACHED_PLANS = 2048;
+
+	/**
+	 * 不经过FieldColumnConverter、总是直接绑定的类型，与之前的行为一致
+	 */
+	private static final EnumSet<StandardBinding> BEFORE_CONVERTER = EnumSet.of(StandardBinding.TYPED_NULL,
+			StandardBinding.STRING, StandardBinding.INTEGER, StandardBinding.LONG, StandardBinding.DOUBLE,
+			StandardBinding.FLOAT, StandardBinding.SHORT, StandardBinding.BYTE, StandardBinding.BOOLEAN,
+			StandardBinding.ARRAY, StandardBinding.ENUM);
+
+	private final ConcurrentHashMap<PlanKey, BindingPlan> plans = new ConcurrentHashMap<PlanKey, BindingPlan>();
+	private final ConcurrentHashMap<String, AtomicIntegerArray> seenTypes = new ConcurrentHashMap<String, AtomicIntegerArray>();
+	private volatile FieldColumnConverter<?> converter;
+	private volatile ColumnConverterRegistry registry;
+
+	ParameterBinder(FieldColumnConverter<?> converter){
+		this.converter = converter;
+	}
+
+	/**
+	 * 转换器变化后，已缓存的计划全部失效
+	 * @param converter
+	 */
+	void setConverter(FieldColumnConverter<?> converter){
+		this.converter = converter;
+		clearPlans();
+	}
+
+	/**
+	 * 注册表变化后，已缓存的计划全部失效
+	 * @param registry
+	 */
+	void setRegistry(ColumnConverterRegistry registry){
+		this.registry = registry;
+		clearPlans();
+	}
+
+	/**
+	 * 绑定一行参数
+	 * @param pstm
+	 * @param sql
+	 * @param params
+	 * @throws SQLException
+	 */
+	void bind(PreparedStatement pstm, String sql, Object[] params) throws SQLException{
+		if(params == null || params.length == 0) return;
+		plan(sql, params).bind(pstm, params);
+	}
+
+	/**
+	 * 获取批量参数的绑定计划，用第一个非null的行作为样本。样本中没有覆盖到的参数在绑定时按值解析
+	 * @param sql
+	 * @param rows
+	 * @return
+	 */
+	BindingPlan plan(String sql, Object[][] rows){
+		for(Object[] row : rows){
+			if(row != null) return plan(sql, row);
+		}
+		return plan(sql, new Object[0]);
+	}
+
+	/**
+	 * 获取(sql, 参数类型)对应的绑定计划，没有则根据给定的参数生成
+	 * @param sql
+	 * @param params 样本参数，一般是批量参数的第一行
+	 * @return
+	 */
+	BindingPlan plan(String sql, Object[] params){
+		Class<?>[] types = new Class<?>[params.length];
+		for(int i=0, len=params.length; i<len; i++){
+			types[i] = params[i] == null ? null : params[i].getClass();
+		}
+
+		PlanKey key = new PlanKey(sql, types);
+		BindingPlan plan = plans.get(key);
+		if(plan != null) return plan;
+
+		if(plans.size() >= MAX_CACHED_PLANS) {
+			//拼接出来的sql太多时，放弃旧的计划，避免无限增长
+			clearPlans();
+		}
+		plan = new BindingPlan(types, params, seenTypes(sql, params.length), this);
+		plans.put(key, plan);
+
+		return plan;
+	}
+
+	/**
+	 * @param sql
+	 * @param length 参数个数
+	 * @return 这条sql各位置上次见到的sql类型，0（Types.NULL）表示没有见过，与这条sql的所有计划共用
+	 */
+	private AtomicIntegerArray seenTypes(String sql, int length){
+		AtomicIntegerArray seen = seenTypes.get(sql);
+		if(seen == null || seen.length() < length){
+			//参数个数变多时换成更长的数组，已经记录的类型保留
+			AtomicIntegerArray grown = new AtomicIntegerArray(length);
+			for(int i=0; seen != null && i<seen.length(); i++){
+				grown.set(i, seen.get(i));
+			}
+			seenTypes.put(sql, grown);
+			seen = grown;
+		}
+		return seen;
+	}
+
+	private void clearPlans(){
+		plans.clear();
+		seenTypes.clear();
+	}
+
+	/**
+	 * 根据参数值确定绑定方式
+	 * @param value
+	 * @return
+	 */
+	Binding resolve(Object value){
+		if(value == null) return StandardBinding.NULL;
+
+		ColumnConverterRegistry registry = this.registry;
+		if(registry != null){
+			ColumnConverter<?> columnConverter = registry.find(value.getClass(), ColumnConverterRegistry.ANY_SQL_TYPE);
+			if(columnConverter != null) return new RegistryBinding(columnConverter);
+		}
+
+		Binding binding = resolveClass(value.getClass());
+		return binding == null ? StandardBinding.OBJECT : binding;
+	}
+
+	/**
+	 * 根据声明的类型（例如bean属性的类型）确定绑定方式，基础类型按包装类处理
+	 * @param type
+	 * @return 注册表和标准类型都不支持时返回null，只能按值解析
+	 */
+	Binding resolveType(Class<?> type){
+		if(type.isPrimitive()){
+			type = MethodType.methodType(type).wrap().returnType();
+		}
+
+		ColumnConverterRegistry registry = this.registry;
+		if(registry != null){
+			ColumnConverter<?> columnConverter = registry.find(type, ColumnConverterRegistry.ANY_SQL_TYPE);
+			if(columnConverter != null) return new RegistryBinding(columnConverter);
+		}
+
+		return resolveClass(type);
+	}
+
+	/**
+	 * 先取直接绑定的类型，再交给FieldColumnConverter，最后是其他jdbc标准类型
+	 * @param type
+	 * @return 都不支持时返回null
+	 */
+	private Binding resolveClass(Class<?> type){
+		StandardBinding binding = StandardBinding.forClass(type);
+		if(binding != null && BEFORE_CONVERTER.contains(binding)) return binding;
+
+		FieldColumnConverter<?> converter = this.converter;
+		if(converter != null) return new ConverterBinding(converter);
+
+		return binding;
+	}
+
+	private static final class PlanKey {
+		final String sql;
+		final Class<?>[] types;
+		final int hash;
+
+		PlanKey(String sql, Class<?>[] types){
+			this.sql = sql;
+			this.types = types;
+			this.hash = 31 * sql.hashCode() + Arrays.hashCode(types);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof PlanKey)) return false;
+			PlanKey other = (PlanKey) obj;
+			return hash == other.hash && sql.equals(other.sql) && Arrays.equals(types, other.types);
+		}
+	}
+}
+
+/**
+ * 使用FieldColumnConverter序列化的参数
+ */
+final class ConverterBinding implements Binding {
+	private final FieldColumnConverter<?> converter;
+
+	ConverterBinding(FieldColumnConverter<?> converter){
+		this.converter = converter;
+	}
+
+	@Override
+	public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+		pstm.setObject(index, converter.fieldToColumn(value));
+	}
+
+	@Override
+	public int sqlType(Object value) {
+		return Types.OTHER;
+	}
+}
+
+/**
+ * 使用注册表中的ColumnConverter绑定的参数
+ */
+final class RegistryBinding implements Binding {
+	private final ColumnConverter<Object> converter;
+
+	@SuppressWarnings("unchecked")
+	RegistryBinding(ColumnConverter<?> converter){
+		this.converter = (ColumnConverter<Object>) converter;
+	}
+
+	@Override
+	public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+		converter.bind(pstm, index, value);
+	}
+
+	@Override
+	public int sqlType(Object value) {
+		return Types.OTHER;
+	}
+}
+
+/**
+ * jdbc支持的标准参数类型
+ */
+enum StandardBinding implements Binding {
+	NULL(Types.NULL) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setNull(index, Types.NULL);
+		}
+	},
+	TYPED_NULL(Types.NULL) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setNull(index, ((TypedNull) value).sqlType);
+		}
+
+		@Override
+		public int sqlType(Object value) {
+			return value == null ? Types.NULL : ((TypedNull) value).sqlType;
+		}
+	},
+	STRING(Types.VARCHAR) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setString(index, (String) value);
+		}
+	},
+	CHARACTER(Types.CHAR) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setString(index, value.toString());
+		}
+	},
+	INTEGER(Types.INTEGER) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setInt(index, (Integer) value);
+		}
+	},
+	LONG(Types.BIGINT) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setLong(index, (Long) value);
+		}
+	},
+	DOUBLE(Types.DOUBLE) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setDouble(index, (Double) value);
+		}
+	},
+	FLOAT(Types.REAL) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setFloat(index, (Float) value);
+		}
+	},
+	SHORT(Types.SMALLINT) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setShort(index, (Short) value);
+		}
+	},
+	BYTE(Types.TINYINT) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setByte(index, (Byte) value);
+		}
+	},
+	BOOLEAN(Types.BOOLEAN) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBoolean(index, (Boolean) value);
+		}
+	},
+	BIG_DECIMAL(Types.DECIMAL) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBigDecimal(index, (BigDecimal) value);
+		}
+	},
+	BIG_INTEGER(Types.DECIMAL) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBigDecimal(index, new BigDecimal((BigInteger) value));
+		}
+	},
+	BYTES(Types.VARBINARY) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBytes(index, (byte[]) value);
+		}
+	},
+	SQL_DATE(Types.DATE) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setDate(index, (java.sql.Date) value);
+		}
+	},
+	SQL_TIME(Types.TIME) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTime(index, (Time) value);
+		}
+	},
+	SQL_TIMESTAMP(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, (Timestamp) value);
+		}
+	},
+	UTIL_DATE(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, new Timestamp(((java.util.Date) value).getTime()));
+		}
+	},
+	CALENDAR(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			Calendar calendar = (Calendar) value;
+			pstm.setTimestamp(index, new Timestamp(calendar.getTimeInMillis()), calendar);
+		}
+	},
+	LOCAL_DATE(Types.DATE) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setDate(index, java.sql.Date.valueOf((LocalDate) value));
+		}
+	},
+	LOCAL_TIME(Types.TIME) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTime(index, Time.valueOf((LocalTime) value));
+		}
+	},
+	LOCAL_DATE_TIME(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+		}
+	},
+	INSTANT(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, Timestamp.from((Instant) value));
+		}
+	},
+	OFFSET_DATE_TIME(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, Timestamp.from(((OffsetDateTime) value).toInstant()));
+		}
+	},
+	ZONED_DATE_TIME(Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setTimestamp(index, Timestamp.from(((ZonedDateTime) value).toInstant()));
+		}
+	},
+	UUID_STRING(Types.CHAR) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setString(index, value.toString());
+		}
+	},
+	ENUM(Types.INTEGER) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setInt(index, ((Enum<?>) value).ordinal());
+		}
+	},
+	INPUT_STREAM(Types.LONGVARBINARY) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBinaryStream(index, (InputStream) value);
+		}
+	},
+	READER(Types.LONGVARCHAR) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setCharacterStream(index, (Reader) value);
+		}
+	},
+	CHANNEL(Types.LONGVARBINARY) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBinaryStream(index, Channels.newInputStream((ReadableByteChannel) value));
+		}
+	},
+	BLOB(Types.BLOB) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setBlob(index, (Blob) value);
+		}
+	},
+	NCLOB(Types.NCLOB) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setNClob(index, (NClob) value);
+		}
+	},
+	CLOB(Types.CLOB) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setClob(index, (Clob) value);
+		}
+	},
+	ARRAY(Types.ARRAY) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setArray(index, (Array) value);
+		}
+	},
+	REF(Types.REF) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setRef(index, (Ref) value);
+		}
+	},
+	ROW_ID(Types.ROWID) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setRowId(index, (RowId) value);
+		}
+	},
+	XML(Types.SQLXML) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setSQLXML(index, (SQLXML) value);
+		}
+	},
+	URL_VALUE(Types.DATALINK) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setURL(index, (URL) value);
+		}
+	},
+	OBJECT(Types.OTHER) {
+		@Override
+		public void bind(PreparedStatement pstm, int index, Object value) throws SQLException {
+			pstm.setObject(index, value);
+		}
+	};
+
+	private static final Map<Class<?>, StandardBinding> exactBindings = new HashMap<Class<?>, StandardBinding>();
+
+	static {
+		exactBindings.put(TypedNull.class, TYPED_NULL);
+		exactBindings.put(String.class, STRING);
+		exactBindings.put(Character.class, CHARACTER);
+		exactBindings.put(Integer.class, INTEGER);
+		exactBindings.put(Long.class, LONG);
+		exactBindings.put(Double.class, DOUBLE);
+		exactBindings.put(Float.class, FLOAT);
+		exactBindings.put(Short.class, SHORT);
+		exactBindings.put(Byte.class, BYTE);
+		exactBindings.put(Boolean.class, BOOLEAN);
+		exactBindings.put(BigDecimal.class, BIG_DECIMAL);
+		exactBindings.put(BigInteger.class, BIG_INTEGER);
+		exactBindings.put(byte[].class, BYTES);
+		exactBindings.put(java.sql.Date.class, SQL_DATE);
+		exactBindings.put(Time.class, SQL_TIME);
+		exactBindings.put(Timestamp.class, SQL_TIMESTAMP);
+		exactBindings.put(java.util.Date.class, UTIL_DATE);
+		exactBindings.put(LocalDate.class, LOCAL_DATE);
+		exactBindings.put(LocalTime.class, LOCAL_TIME);
+		exactBindings.put(LocalDateTime.class, LOCAL_DATE_TIME);
+		exactBindings.put(Instant.class, INSTANT);
+		exactBindings.put(OffsetDateTime.class, OFFSET_DATE_TIME);
+		exactBindings.put(ZonedDateTime.class, ZONED_DATE_TIME);
+		exactBindings.put(UUID.class, UUID_STRING);
+		exactBindings.put(URL.class, URL_VALUE);
+	}
+
+	private final int sqlType;
+
+	private StandardBinding(int sqlType){
+		this.sqlType = sqlType;
+	}
+
+	@Override
+	public int sqlType(Object value) {
+		return sqlType;
+	}
+
+	/**
+	 * 先按类精确匹配，再按父类和接口匹配（驱动自己的Blob、流的子类等）
+	 * @param type
+	 * @return 不是标准类型时返回null
+	 */
+	static StandardBinding forClass(Class<?> type){
+		StandardBinding binding = exactBindings.get(type);
+		if(binding != null) return binding;
+
+		if(Enum.class.isAssignableFrom(type)){
+			return ENUM;
+		} else if(InputStream.class.isAssignableFrom(type)){
+			return INPUT_STREAM;
+		} else if(Reader.class.isAssignableFrom(type)){
+			return READER;
+		} else if(ReadableByteChannel.class.isAssignableFrom(type)){
+			return CHANNEL;
+		} else if(Blob.class.isAssignableFrom(type)){
+			return BLOB;
+		} else if(NClob.class.isAssignableFrom(type)){
+			return NCLOB;
+		} else if(Clob.class.isAssignableFrom(type)){
+			return CLOB;
+		} else if(Array.class.isAssignableFrom(type)){
+			return ARRAY;
+		} else if(Ref.class.isAssignableFrom(type)){
+			return REF;
+		} else if(RowId.class.isAssignableFrom(type)){
+			return ROW_ID;
+		} else if(java.sql.SQLXML.class.isAssignableFrom(type)){
+			return XML;
+		} else if(Calendar.class.isAssignableFrom(type)){
+			return CALENDAR;
+		} else if(java.util.Date.class.isAssignableFrom(type)){
+			return UTIL_DATE;
+		}
+
+		return null;
+	}
+}
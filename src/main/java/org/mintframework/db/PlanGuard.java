@@ -0,0 +1,523 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 慢查询的执行计划采样。设置到SQLExecutor上后，耗时超过阈值的查询（从executeQuery到关闭语句，包括读取结果）
+ * 按规范化的SQL（字面量替换成?，IN列表合并）记录到有上限的报告中，最久没有出现的先淘汰。<br/>
+ * 报告中还没有执行计划、或者计划已经过期的SQL，在executor中异步执行EXPLAIN，并标记全表扫描、文件排序和临时表。
+ * 为了不在高峰期增加负载：同一时间最多一个EXPLAIN，按每分钟次数限流，
+ * 并且只在连接池有空闲连接时不等待地借用一个，否则放弃这次采样。<br/>
+ * 只采样SQLExecutor的查询方法，更新语句和MultiQuery不采样。线程安全
+ */
+public final class PlanGuard {
+	private static final long DEFAULT_THRESHOLD_MS = 500;
+	private static final int DEFAULT_EXPLAINS_PER_MINUTE = 10;
+	private static final int DEFAULT_MAX_ENTRIES = 256;
+	private static final long DEFAULT_REEXPLAIN_MS = TimeUnit.MINUTES.toMillis(10);
+	/** 没有被关闭的语句超过这个数时淘汰过期的采样，防止泄漏 */
+	static final int MAX_IN_FLIGHT = 10000;
+	/** 开始超过这个时间还没有关闭的语句当作泄漏 */
+	static final long STALE_IN_FLIGHT_NANOS = TimeUnit.MINUTES.toNanos(10);
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+	private static final Pattern FULL_SCAN = Pattern.compile(
+			"(^|; )type=ALL(;|$)|Seq Scan|TABLE ACCESS FULL|Table Scan|Clustered Index Scan|(^|; )(detail=)?SCAN (?!.*USING)", Pattern.CASE_INSENSITIVE);
+	private static final Pattern FILESORT = Pattern.compile(
+			"Using filesort|^\\s*(->\\s*)?(Incremental )?Sort\\b|SORT ORDER BY|TEMP B-TREE FOR ORDER BY", Pattern.CASE_INSENSITIVE);
+	private static final Pattern TEMPORARY = Pattern.compile(
+			"Using temporary|TEMP B-TREE FOR (GROUP BY|DISTINCT)|HashAggregate", Pattern.CASE_INSENSITIVE);
+
+	public enum Flag {
+		/** 全表扫描 */
+		FULL_SCAN,
+		/** 结果需要额外排序 */
+		FILESORT,
+		/** 使用临时表 */
+		TEMPORARY
+	}
+
+	/**
+	 * 执行计划有标记时的通知，在executor的线程中调用
+	 */
+	public interface Listener {
+		public void planFlagged(Entry entry);
+	}
+
+	private final MiniConnectionPool pool;
+	private final Executor executor;
+	private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MS);
+	private volatile long explainIntervalNanos = TimeUnit.MINUTES.toNanos(1) / DEFAULT_EXPLAINS_PER_MINUTE;
+	private volatile long reexplainMillis = DEFAULT_REEXPLAIN_MS;
+	private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+	private volatile String explainPrefix = "EXPLAIN ";
+	private volatile Listener listener;
+
+	private final ConcurrentHashMap<Statement, Sample> inFlight = new ConcurrentHashMap<Statement, Sample>();
+	private final AtomicBoolean explaining = new AtomicBoolean();
+	private final AtomicLong nextExplain = new AtomicLong(System.nanoTime());
+	private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+	//按规范化SQL记录，按访问顺序排列，只在锁内访问
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * @param pool EXPLAIN从这里借用空闲连接，一般是执行查询的连接池
+	 * @param executor 执行EXPLAIN
+	 */
+	public PlanGuard(MiniConnectionPool pool, Executor executor){
+		if(pool == null || executor == null){
+			throw new IllegalArgumentException("pool and executor can not be null");
+		}
+		this.pool = pool;
+		this.executor = executor;
+	}
+
+	/**
+	 * @param thresholdMs 超过这个耗时的查询被记录，默认500毫秒
+	 * @return 本身
+	 */
+	public PlanGuard setThresholdMillis(long thresholdMs) {
+		if(thresholdMs < 0){
+			throw new IllegalArgumentException("invalid threshold: " + thresholdMs);
+		}
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+		return this;
+	}
+
+	/**
+	 * @param explainsPerMinute 每分钟最多执行的EXPLAIN次数，默认10
+	 * @return 本身
+	 */
+	public PlanGuard setMaxExplainsPerMinute(int explainsPerMinute) {
+		if(explainsPerMinute < 1){
+			throw new IllegalArgumentException("invalid explainsPerMinute: " + explainsPerMinute);
+		}
+		this.explainIntervalNanos = TimeUnit.MINUTES.toNanos(1) / explainsPerMinute;
+		return this;
+	}
+
+	/**
+	 * @param reexplainMs 同一个SQL的执行计划过了这个时间再次变慢时重新EXPLAIN，默认10分钟
+	 * @return 本身
+	 */
+	public PlanGuard setReexplainMillis(long reexplainMs) {
+		this.reexplainMillis = reexplainMs;
+		return this;
+	}
+
+	/**
+	 * @param maxEntries 报告中最多记录的SQL数，默认256
+	 * @return 本身
+	 */
+	public PlanGuard setMaxEntries(int maxEntries) {
+		if(maxEntries < 1){
+			throw new IllegalArgumentException("invalid maxEntries: " + maxEntries);
+		}
+		synchronized(entries){
+			this.maxEntries = maxEntries;
+			trim();
+		}
+		return this;
+	}
+
+	/**
+	 * @param explainPrefix 加在查询前面的EXPLAIN语句，默认"EXPLAIN "。如Oracle需要使用其他方式时可以修改
+	 * @return 本身
+	 */
+	public PlanGuard setExplainPrefix(String explainPrefix) {
+		if(explainPrefix == null){
+			throw new IllegalArgumentException("explainPrefix can not be null");
+		}
+		this.explainPrefix = explainPrefix;
+		return this;
+	}
+
+	/**
+	 * @param listener 执行计划有标记时通知，为null时不通知
+	 * @return 本身
+	 */
+	public PlanGuard setListener(Listener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * @return 报告的快照，按最大耗时从大到小排列
+	 */
+	public List<Entry> getReport() {
+		List<Entry> report;
+		synchronized(entries){
+			report = new ArrayList<Entry>(entries.size());
+			for(Entry entry : entries.values()){
+				report.add(entry.copy());
+			}
+		}
+		Collections.sort(report, (a, b) -> Long.compare(b.maxNanos, a.maxNanos));
+		return report;
+	}
+
+	/**
+	 * @return 执行计划有标记的SQL，按最大耗时从大到小排列
+	 */
+	public List<Entry> getFlagged() {
+		List<Entry> report = getReport();
+		for(Iterator<Entry> it = report.iterator(); it.hasNext();){
+			if(it.next().flags.isEmpty()) it.remove();
+		}
+		return report;
+	}
+
+	public void clear() {
+		synchronized(entries){
+			entries.clear();
+		}
+	}
+
+	/**
+	 * 查询开始执行
+	 */
+	void begin(Statement stm, String sql, Object[] params){
+		begin(stm, sql, params, System.nanoTime());
+	}
+
+	void begin(Statement stm, String sql, Object[] params, long now){
+		if(inFlight.size() >= MAX_IN_FLIGHT){
+			sweep(now);
+			//都是正在执行的查询时放弃这次采样，不影响已有的采样
+			if(inFlight.size() >= MAX_IN_FLIGHT) return;
+		}
+		inFlight.put(stm, new Sample(sql, params, now));
+	}
+
+	/**
+	 * 淘汰开始超过STALE_IN_FLIGHT_NANOS的采样，这些语句一般是没有关闭的泄漏。最多每秒扫描一次
+	 */
+	private void sweep(long now){
+		long next = nextSweep.get();
+		if(now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) return;
+
+		for(Iterator<Sample> it = inFlight.values().iterator(); it.hasNext();){
+			if(now - it.next().start > STALE_IN_FLIGHT_NANOS) it.remove();
+		}
+	}
+
+	/**
+	 * 语句关闭，超过阈值时记录，需要时安排EXPLAIN
+	 * @param stm
+	 * @param source 执行查询的执行器，EXPLAIN使用它的参数绑定方式
+	 */
+	void end(Statement stm, SQLExecutor source){
+		Sample sample = inFlight.remove(stm);
+		if(sample == null) return;
+
+		long elapsed = System.nanoTime() - sample.start;
+		if(elapsed < thresholdNanos) return;
+
+		String key = normalize(sample.sql);
+		Entry entry;
+		boolean explain;
+		synchronized(entries){
+			entry = entries.get(key);
+			if(entry == null){
+				entry = new Entry(key);
+				entries.put(key, entry);
+				trim();
+			}
+			entry.count++;
+			entry.totalNanos += elapsed;
+			if(elapsed > entry.maxNanos) entry.maxNanos = elapsed;
+			entry.lastSeen = System.currentTimeMillis();
+			entry.sampleSql = sample.sql;
+			explain = entry.explainedAt == 0 || entry.lastSeen - entry.explainedAt >= reexplainMillis;
+		}
+
+		if(explain && acquireExplain()){
+			final Entry target = entry;
+			final SQLExecutor explainer = source.withoutPlanGuard();
+			try {
+				executor.execute(() -> {
+					try {
+						explain(target, explainer, sample);
+					} finally {
+						explaining.set(false);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				explaining.set(false);
+			}
+		}
+	}
+
+	/**
+	 * 同一时间只有一个EXPLAIN，并且两次之间至少间隔explainInterval
+	 */
+	private boolean acquireExplain(){
+		long now = System.nanoTime();
+		long next = nextExplain.get();
+		if(now - next < 0) return false;
+		if(!explaining.compareAndSet(false, true)) return false;
+		if(!nextExplain.compareAndSet(next, now + explainIntervalNanos)){
+			explaining.set(false);
+			return false;
+		}
+		return true;
+	}
+
+	private void explain(Entry entry, SQLExecutor explainer, Sample sample){
+		//只使用空闲连接，连接池繁忙时放弃，不创建新连接也不等待
+		if(pool.getInactiveConnections() <= 0) return;
+
+		List<String> plan = null;
+		String error = null;
+		try {
+			Connection conn = pool.tryGetConnection();
+			if(conn == null) return;
+			try {
+				plan = explainer.query(conn, explainPrefix + sample.sql, sample.params, PlanGuard::readPlan);
+			} finally {
+				conn.close();
+			}
+		} catch (SQLException | RuntimeException e) {
+			error = e.toString();
+		}
+
+		Entry flagged = null;
+		synchronized(entries){
+			entry.explainedAt = System.currentTimeMillis();
+			entry.explainError = error;
+			if(plan != null){
+				entry.plan = Collections.unmodifiableList(plan);
+				entry.flags = analyze(plan);
+				if(!entry.flags.isEmpty()) flagged = entry.copy();
+			}
+		}
+
+		Listener listener = this.listener;
+		if(listener != null && flagged != null){
+			listener.planFlagged(flagged);
+		}
+	}
+
+	/**
+	 * 只有一列时（如PostgreSQL的QUERY PLAN）每行就是这一列的值，否则每行为"列名=值; 列名=值"
+	 */
+	private static List<String> readPlan(ResultSet result) throws SQLException {
+		ResultSetMetaData meta = result.getMetaData();
+		int columns = meta.getColumnCount();
+		List<String> plan = new ArrayList<String>();
+		StringBuilder row = new StringBuilder();
+		while(result.next()){
+			row.setLength(0);
+			for(int i=1; i<=columns; i++){
+				Object value = result.getObject(i);
+				if(columns == 1){
+					row.append(value);
+				} else if(value != null){
+					if(row.length() > 0) row.append("; ");
+					row.append(meta.getColumnLabel(i)).append('=').append(value);
+				}
+			}
+			plan.add(row.toString());
+		}
+		return plan;
+	}
+
+	static EnumSet<Flag> analyze(List<String> plan){
+		EnumSet<Flag> flags = EnumSet.noneOf(Flag.class);
+		for(String row : plan){
+			if(FULL_SCAN.matcher(row).find()) flags.add(Flag.FULL_SCAN);
+			if(FILESORT.matcher(row).find()) flags.add(Flag.FILESORT);
+			if(TEMPORARY.matcher(row).find()) flags.add(Flag.TEMPORARY);
+		}
+		return flags;
+	}
+
+	/**
+	 * 规范化SQL：字符串和数字字面量替换成?，连续空白合并成一个空格，IN列表合并成(?)
+	 * @param sql
+	 * @return
+	 */
+	static String normalize(String sql){
+		StringBuilder sb = new StringBuilder(sql.length());
+		int length = sql.length();
+		for(int i=0; i<length; i++){
+			char c = sql.charAt(i);
+			if(c == '\''){
+				//跳过字符串，''是转义的引号
+				i++;
+				while(i < length){
+					if(sql.charAt(i) == '\''){
+						if(i + 1 < length && sql.charAt(i + 1) == '\''){
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					i++;
+				}
+				sb.append('?');
+			} else if(Character.isDigit(c) && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))){
+				while(i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')){
+					i++;
+				}
+				sb.append('?');
+			} else if(Character.isWhitespace(c)){
+				if(sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+			} else {
+				sb.append(c);
+			}
+		}
+
+		int end = sb.length();
+		if(end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+		return IN_LIST.matcher(sb).replaceAll("(?)");
+	}
+
+	private static boolean isIdentifierPart(char c){
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+
+	/**
+	 * 在锁内调用
+	 */
+	private void trim(){
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while(entries.size() > maxEntries && it.hasNext()){
+			it.next();
+			it.remove();
+		}
+	}
+
+	private static final class Sample {
+		final String sql;
+		final Object[] params;
+		final long start;
+
+		Sample(String sql, Object[] params, long start){
+			this.sql = sql;
+			this.params = params;
+			this.start = start;
+		}
+	}
+
+	/**
+	 * 报告中一个规范化SQL的记录，getReport返回的是快照
+	 */
+	public static final class Entry {
+		private final String sql;
+		private String sampleSql;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long lastSeen;
+		private long explainedAt;
+		private List<String> plan = Collections.emptyList();
+		private EnumSet<Flag> flags = EnumSet.noneOf(Flag.class);
+		private String explainError;
+
+		private Entry(String sql){
+			this.sql = sql;
+		}
+
+		private Entry copy(){
+			Entry copy = new Entry(sql);
+			copy.sampleSql = sampleSql;
+			copy.count = count;
+			copy.totalNanos = totalNanos;
+			copy.maxNanos = maxNanos;
+			copy.lastSeen = lastSeen;
+			copy.explainedAt = explainedAt;
+			copy.plan = plan;
+			copy.flags = flags.clone();
+			copy.explainError = explainError;
+			return copy;
+		}
+
+		/**
+		 * @return 规范化的SQL
+		 */
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * @return 最近一次慢查询的原始SQL
+		 */
+		public String getSampleSql() {
+			return sampleSql;
+		}
+
+		/**
+		 * @return 超过阈值的次数
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		public double getMaxMillis() {
+			return maxNanos / 1e6;
+		}
+
+		public double getAverageMillis() {
+			return count == 0 ? 0 : totalNanos / 1e6 / count;
+		}
+
+		/**
+		 * @return 最近一次超过阈值的时间
+		 */
+		public long getLastSeen() {
+			return lastSeen;
+		}
+
+		/**
+		 * @return 最近一次EXPLAIN的时间，还没有执行时为0
+		 */
+		public long getExplainedAt() {
+			return explainedAt;
+		}
+
+		/**
+		 * @return EXPLAIN的结果，每行一个字符串，还没有执行时为空列表
+		 */
+		public List<String> getPlan() {
+			return plan;
+		}
+
+		public Set<Flag> getFlags() {
+			return flags;
+		}
+
+		/**
+		 * @return 最近一次EXPLAIN失败的原因，成功时为null
+		 */
+		public String getExplainError() {
+			return explainError;
+		}
+
+		@Override
+		public String toString() {
+			return sql + " (count:" + count + ";maxMs:" + getMaxMillis() + ";flags:" + flags + ")";
+		}
+	}
+}
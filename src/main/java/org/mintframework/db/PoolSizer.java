@@ -0,0 +1,127 @@
+package org.mintframework.db;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池的自适应容量决策。每个采样周期统计借用等待时间、超时次数、等待者数量和平均占用连接数，
+ * 按AIMD调整容量：有等待压力时加法增长，空闲时按Little定律（平均占用数 = 到达率 × 占用时间）估计需要的连接数，
+ * 每个周期最多缩小1/4，且不低于周期内的峰值占用。<br/>
+ * 计数器无锁更新；onActive和decide由MiniConnectionPool在持有池的锁时调用
+ */
+final class PoolSizer {
+	/** 空闲时在平均占用数之上保留的余量 */
+	private static final double HEADROOM = 1.5;
+	/** 每个周期缩小后保留的比例 */
+	private static final double DECREASE = 0.75;
+
+	final int minConnections;
+	final int maxConnections;
+	private final long intervalNanos;
+	private final long targetWaitNanos;
+
+	final AtomicInteger waiters = new AtomicInteger();
+	private final LongAdder borrows = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private volatile long nextDecision;
+
+	//以下字段只在池的锁内访问
+	private long windowStart;
+	private long lastChange;
+	private long busyNanos;
+	private int active;
+	private int peakActive;
+	private double lastConcurrency;
+	private long lastAverageWait;
+
+	PoolSizer(int minConnections, int maxConnections, long intervalNanos, long targetWaitNanos, int active, long now){
+		this.minConnections = minConnections;
+		this.maxConnections = maxConnections;
+		this.intervalNanos = intervalNanos;
+		this.targetWaitNanos = targetWaitNanos;
+		this.windowStart = now;
+		this.lastChange = now;
+		this.active = active;
+		this.peakActive = active;
+		this.nextDecision = now + intervalNanos;
+	}
+
+	void recordBorrow(long waited){
+		borrows.increment();
+		waitNanos.add(waited);
+	}
+
+	void recordTimeout(){
+		timeouts.increment();
+	}
+
+	/**
+	 * @param now
+	 * @return 是否到了下一次决策的时间，无锁检查
+	 */
+	boolean isDue(long now){
+		return now - nextDecision >= 0;
+	}
+
+	/**
+	 * 占用连接数变化时调用，累计占用数对时间的积分
+	 * @param active 变化后的占用数
+	 * @param now
+	 */
+	void onActive(int active, long now){
+		busyNanos += this.active * (now - lastChange);
+		lastChange = now;
+		this.active = active;
+		if(active > peakActive) peakActive = active;
+	}
+
+	/**
+	 * 结束当前采样周期并决定新的容量
+	 * @param size 当前容量
+	 * @param now
+	 * @return 新的容量
+	 */
+	int decide(int size, long now){
+		onActive(active, now);
+		long window = Math.max(1, now - windowStart);
+		double concurrency = (double) busyNanos / window;
+		long count = borrows.sumThenReset();
+		long waited = waitNanos.sumThenReset();
+		long timedOut = timeouts.sumThenReset();
+		long averageWait = count == 0 ? 0 : waited / count;
+		int waiting = waiters.get();
+
+		int target;
+		if(timedOut > 0 || waiting > 0 || averageWait > targetWaitNanos){
+			//加法增长，积压多时一次多加一些，但不超过当前容量的1/4
+			target = size + Math.max(1, Math.min(waiting, size / 4));
+		} else {
+			int needed = Math.max(peakActive, (int) Math.ceil(concurrency * HEADROOM));
+			target = needed < size ? Math.max(needed, (int) (size * DECREASE)) : size;
+		}
+
+		lastConcurrency = concurrency;
+		lastAverageWait = averageWait;
+		windowStart = now;
+		busyNanos = 0;
+		peakActive = active;
+		nextDecision = now + intervalNanos;
+
+		return Math.max(minConnections, Math.min(maxConnections, target));
+	}
+
+	/**
+	 * @return 上一个采样周期的平均占用连接数
+	 */
+	double getLastConcurrency(){
+		return lastConcurrency;
+	}
+
+	/**
+	 * @return 上一个采样周期的平均借用等待时间，纳秒
+	 */
+	long getLastAverageWait(){
+		return lastAverageWait;
+	}
+}
@@ -0,0 +1,13 @@
+package org.mintframework.db;
+
+/**
+ * SQLExecutor中方法的分类，决定未设置的选项使用什么默认值
+ */
+enum QueryFamily {
+	/** 只读取第一行的查询 */
+	SINGLE,
+	/** 读取所有行的查询 */
+	LIST,
+	/** 更新语句 */
+	UPDATE
+}
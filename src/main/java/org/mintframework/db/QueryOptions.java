@@ -0,0 +1,168 @@
+package org.mintframework.db;
+
+import java.sql.ResultSet;
+
+/**
+ * 语句的执行选项：fetchSize、maxRows、查询超时、结果集类型和并发模式，以及流式读取。<br/>
+ * 可以通过SQLExecutor.setQueryOptions设置执行器的默认选项，也可以用SQLExecutor.withOptions为单次调用指定选项，
+ * 单次调用中设置过的项覆盖默认选项。没有设置的项使用各类方法自己的默认值：<br/>
+ * selectBean、selectResultMap、selectScalar等只读取第一行的方法默认fetchSize为1；<br/>
+ * 列表类查询使用驱动的默认值；<br/>
+ * update、batch等更新语句只使用queryTimeout。<br/>
+ * 查询默认使用只进、只读的游标
+ */
+public class QueryOptions {
+	/**
+	 * 驱动不接受Integer.MIN_VALUE时，流式读取使用的fetchSize
+	 */
+	public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+	
+	private Integer fetchSize;
+	private Integer maxRows;
+	private Integer queryTimeout;
+	private Integer resultSetType;
+	private Integer resultSetConcurrency;
+	private Boolean streaming;
+	
+	/**
+	 * @return 流式读取的选项，适合逐行处理的大查询
+	 */
+	public static QueryOptions streaming(){
+		return new QueryOptions().setStreaming(true);
+	}
+	
+	/**
+	 * @param seconds
+	 * @return 只设置了查询超时的选项
+	 */
+	public static QueryOptions timeout(int seconds){
+		return new QueryOptions().setQueryTimeout(seconds);
+	}
+	
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+	
+	/**
+	 * 每次从数据库取回的行数提示
+	 * @param fetchSize
+	 * @return 选项本身
+	 */
+	public QueryOptions setFetchSize(Integer fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+	
+	public Integer getMaxRows() {
+		return maxRows;
+	}
+	
+	/**
+	 * 结果集最多返回的行数，0表示不限制
+	 * @param maxRows
+	 * @return 选项本身
+	 */
+	public QueryOptions setMaxRows(Integer maxRows) {
+		this.maxRows = maxRows;
+		return this;
+	}
+	
+	public Integer getQueryTimeout() {
+		return queryTimeout;
+	}
+	
+	/**
+	 * 语句执行的超时时间，单位秒，0表示不限制。超时后驱动取消语句并抛出SQLException，连接可以归还连接池
+	 * @param queryTimeout
+	 * @return 选项本身
+	 */
+	public QueryOptions setQueryTimeout(Integer queryTimeout) {
+		this.queryTimeout = queryTimeout;
+		return this;
+	}
+	
+	public Integer getResultSetType() {
+		return resultSetType;
+	}
+	
+	/**
+	 * @param resultSetType ResultSet.TYPE_XXX
+	 * @return 选项本身
+	 */
+	public QueryOptions setResultSetType(Integer resultSetType) {
+		this.resultSetType = resultSetType;
+		return this;
+	}
+	
+	public Integer getResultSetConcurrency() {
+		return resultSetConcurrency;
+	}
+	
+	/**
+	 * @param resultSetConcurrency ResultSet.CONCUR_XXX
+	 * @return 选项本身
+	 */
+	public QueryOptions setResultSetConcurrency(Integer resultSetConcurrency) {
+		this.resultSetConcurrency = resultSetConcurrency;
+		return this;
+	}
+	
+	public boolean isStreaming() {
+		return streaming != null && streaming;
+	}
+	
+	/**
+	 * 流式读取：使用只进、只读的游标，并把fetchSize设为Integer.MIN_VALUE（mysql逐行读取的约定）。
+	 * 驱动不接受时改用fetchSize或DEFAULT_STREAMING_FETCH_SIZE。<br/>
+	 * mysql流式读取时，结果集读完之前同一个连接上不能执行其他语句
+	 * @param streaming
+	 * @return 选项本身
+	 */
+	public QueryOptions setStreaming(Boolean streaming) {
+		this.streaming = streaming;
+		return this;
+	}
+	
+	/**
+	 * @return 是否需要用指定的结果集类型和并发模式创建语句
+	 */
+	boolean hasCursorMode(){
+		return (resultSetType != null && resultSetType != ResultSet.TYPE_FORWARD_ONLY) ||
+				(resultSetConcurrency != null && resultSetConcurrency != ResultSet.CONCUR_READ_ONLY);
+	}
+	
+	int cursorType(){
+		return resultSetType == null || isStreaming() ? ResultSet.TYPE_FORWARD_ONLY : resultSetType;
+	}
+	
+	int cursorConcurrency(){
+		return resultSetConcurrency == null || isStreaming() ? ResultSet.CONCUR_READ_ONLY : resultSetConcurrency;
+	}
+	
+	/**
+	 * 合并选项，override中设置过的项优先
+	 * @param base 可以为null
+	 * @param override 可以为null
+	 * @return 新的选项
+	 */
+	static QueryOptions merge(QueryOptions base, QueryOptions override){
+		QueryOptions merged = new QueryOptions();
+		if(base != null){
+			merged.fetchSize = base.fetchSize;
+			merged.maxRows = base.maxRows;
+			merged.queryTimeout = base.queryTimeout;
+			merged.resultSetType = base.resultSetType;
+			merged.resultSetConcurrency = base.resultSetConcurrency;
+			merged.streaming = base.streaming;
+		}
+		if(override != null){
+			if(override.fetchSize != null) merged.fetchSize = override.fetchSize;
+			if(override.maxRows != null) merged.maxRows = override.maxRows;
+			if(override.queryTimeout != null) merged.queryTimeout = override.queryTimeout;
+			if(override.resultSetType != null) merged.resultSetType = override.resultSetType;
+			if(override.resultSetConcurrency != null) merged.resultSetConcurrency = override.resultSetConcurrency;
+			if(override.streaming != null) merged.streaming = override.streaming;
+		}
+		return merged;
+	}
+}
@@ -0,0 +1,19 @@
+package org.mintframework.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 把一个结果集整体转换成一个对象，用于多结果集的执行（MultiQuery、SQLExecutor.call）。
+ * 常用的转换由SQLExecutor的resultMapMapper、beanListMapper、scalarMapper等方法创建
+ * @param <T> 转换结果的类型
+ */
+public interface ResultSetMapper<T> {
+	/**
+	 * 转换结果集，调用时游标在第一行之前，结果集由调用者关闭
+	 * @param result
+	 * @return
+	 * @throws SQLException
+	 */
+	public T map(ResultSet result) throws SQLException;
+}
@@ -0,0 +1,16 @@
+package org.mintframework.db;
+
+import java.sql.SQLException;
+
+/**
+ * 逐行处理查询结果的回调
+ * @param <T> 行的类型
+ */
+public interface RowHandler<T> {
+	/**
+	 * 处理一行数据。调用期间结果集停留在当前行，行中的流对象有效
+	 * @param row
+	 * @throws SQLException
+	 */
+	public void handle(T row) throws SQLException;
+}
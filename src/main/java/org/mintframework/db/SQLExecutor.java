@@ -1,6 +1,14 @@
 package org.mintframework.db;
 
-import java.sql.Array;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -8,10 +16,14 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,7 +40,13 @@ import java.util.regex.Pattern;
  *
  */
 public final class SQLExecutor  {
+	private static final long TRANSFER_CHUNK_SIZE = 1 << 20;
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+	private static final ThreadLocal<byte[]> TRANSFER_BUFFER = ThreadLocal.withInitial(() -> new byte[TRANSFER_BUFFER_SIZE]);
+	
 	private FieldColumnConverter<?> converter;
+	private final ParameterBinder binder;
+	private QueryOptions queryOptions;
 	
 	public FieldColumnConverter<?> getConverter() {
 		return converter;
@@ -36,6 +54,22 @@ public final class SQLExecutor  {
 
 	public void setConverter(FieldColumnConverter<?> converter) {
 		this.converter = converter;
+		this.binder.setConverter(converter);
+	}
+
+	private ColumnConverterRegistry registry;
+	
+	public ColumnConverterRegistry getConverterRegistry() {
+		return registry;
+	}
+
+	/**
+	 * 设置列转换器注册表。注册过的字段类型优先使用注册表中的转换器读取列值和绑定参数
+	 * @param registry
+	 */
+	public void setConverterRegistry(ColumnConverterRegistry registry) {
+		this.registry = registry;
+		this.binder.setRegistry(registry);
 	}
 
 	private Boolean autoUnderlineToCamelhump = false;
@@ -56,12 +90,94 @@ public final class SQLExecutor  {
 		this.autoUnderlineToCamelhump = autoUnderlineToCamelhump;
 	}
 	
+	public QueryOptions getQueryOptions() {
+		return queryOptions;
+	}
+
+	/**
+	 * 设置执行器的默认执行选项，见{@link QueryOptions}
+	 * @param queryOptions
+	 */
+	public void setQueryOptions(QueryOptions queryOptions) {
+		this.queryOptions = queryOptions;
+	}
+	
+	private CircuitBreaker circuitBreaker;
+	
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * 设置熔断器。熔断器没有关闭时，创建语句之前就抛出CircuitBreaker.OpenException，
+	 * 持有已借出连接的调用者也不再等待驱动超时。一般与连接池使用同一个熔断器，见{@link MiniConnectionPool#setCircuitBreaker}
+	 * @param circuitBreaker
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+	
+	private PlanGuard planGuard;
+	
+	public PlanGuard getPlanGuard() {
+		return planGuard;
+	}
+
+	/**
+	 * 设置慢查询的执行计划采样，见{@link PlanGuard}
+	 * @param planGuard 为null时不采样
+	 */
+	public void setPlanGuard(PlanGuard planGuard) {
+		this.planGuard = planGuard;
+	}
+	
 	public SQLExecutor(){
-		
+		this.binder = new ParameterBinder(null);
 	}
 	
 	public SQLExecutor(FieldColumnConverter<?> converter){
-		this.converter = converter;
+		this.binder = new ParameterBinder(null);
+		setConverter(converter);
+	}
+	
+	/**
+	 * 复制执行器的配置，与源执行器共用绑定计划缓存
+	 * @param source
+	 */
+	private SQLExecutor(SQLExecutor source){
+		this.binder = source.binder;
+		this.converter = source.converter;
+		this.registry = source.registry;
+		this.autoUnderlineToCamelhump = source.autoUnderlineToCamelhump;
+		this.queryOptions = source.queryOptions;
+		this.circuitBreaker = source.circuitBreaker;
+		this.planGuard = source.planGuard;
+	}
+	
+	/**
+	 * 返回使用指定执行选项的执行器，用于单次调用，例如：<br/>
+	 * executor.withOptions(QueryOptions.timeout(5)).selectBeanList(...)<br/>
+	 * options中设置过的项覆盖本执行器的默认选项，其余配置与本执行器相同
+	 * @param options
+	 * @return
+	 */
+	public SQLExecutor withOptions(QueryOptions options){
+		SQLExecutor executor = new SQLExecutor(this);
+		executor.queryOptions = QueryOptions.merge(this.queryOptions, options);
+		return executor;
+	}
+	
+	/**
+	 * @return 配置相同但不采样执行计划的执行器，用于执行EXPLAIN本身
+	 */
+	SQLExecutor withoutPlanGuard(){
+		SQLExecutor executor = new SQLExecutor(this);
+		executor.planGuard = null;
+		return executor;
+	}
+	
+	ParameterBinder getBinder() {
+		return binder;
 	}
 	
 	/**
@@ -80,10 +196,12 @@ public final class SQLExecutor  {
 		
 		PreparedStatement pstm = null;
 		try {
-			pstm = conn.prepareStatement(sql);
+			pstm = prepareStatement(conn, sql, QueryFamily.UPDATE);
 			
+			//第一个非null的行生成绑定计划，后续行直接复用
+			BindingPlan plan = binder.plan(sql, params);
 			for(Object[] ps : params){
-				fillStatement(pstm, ps, conn);
+				plan.bind(pstm, ps);
 				pstm.addBatch();
 			}
 			
@@ -117,8 +235,9 @@ public final class SQLExecutor  {
 		try {
 			int index = 0;
 			for(String sql : sqls) {
-				pstm = conn.prepareStatement(sql);
-				fillStatement(pstm, params[index], conn);
+				closeStm(pstm);
+				pstm = prepareStatement(conn, sql, QueryFamily.UPDATE);
+				fillStatement(pstm, sql, params[index]);
 				pstm.execute();
 				index++;
 			}
@@ -140,7 +259,7 @@ public final class SQLExecutor  {
 	public int update(Connection conn, String sql) throws SQLException {
 		Statement stm = null;
 		try {
-			stm = conn.createStatement();
+			stm = createStatement(conn, QueryFamily.UPDATE);
 			return stm.executeUpdate(sql);
 		} catch (SQLException e) {
 			throw e;
@@ -164,8 +283,8 @@ public final class SQLExecutor  {
 		
 		PreparedStatement pstm = null;
 		try {
-			pstm = conn.prepareStatement(sql);
-			fillStatement(pstm, params, conn);
+			pstm = prepareStatement(conn, sql, QueryFamily.UPDATE);
+			fillStatement(pstm, sql, params);
 			return pstm.executeUpdate();
 		} catch (SQLException e) {
 			throw e;
@@ -173,7 +292,97 @@ public final class SQLExecutor  {
 			closeStm(pstm);
 		}
 	}
-	
+
+	/**
+	 * 线程安全。<br/>
+	 * 执行insert语句并返回数据库生成的键（例如自增id），不需要再查询一次
+	 * @param conn
+	 * @param sql
+	 * @param params
+	 * @return 生成的键，一条语句插入多行时每行一个；没有生成键时返回空数组
+	 * @throws SQLException
+	 */
+	public long[] insert(Connection conn, String sql, Object... params) throws SQLException {
+		PreparedStatement pstm = null;
+		try {
+			pstm = prepareInsert(conn, sql);
+			if(params != null && params.length > 0){
+				fillStatement(pstm, sql, params);
+			}
+			pstm.executeUpdate();
+
+			GeneratedKeys keys = new GeneratedKeys(1);
+			keys.read(pstm);
+			return keys.toArray();
+		} catch (SQLException e) {
+			throw e;
+		} finally {
+			closeStm(pstm);
+		}
+	}
+
+	/**
+	 * 线程安全。<br/>
+	 * 批量执行insert语句并返回数据库生成的键，不需要再查询一次
+	 * @param conn
+	 * @param sql
+	 * @param params 必须是二维数组
+	 * @return 生成的键，与参数的行一一对应
+	 * @throws SQLException
+	 */
+	public long[] insertBatch(Connection conn, String sql, Object[][] params) throws SQLException {
+		return insertBatch(conn, sql, params, 0);
+	}
+
+	/**
+	 * 线程安全。<br/>
+	 * 分块批量执行insert语句并返回数据库生成的键。每chunkSize行执行一次executeBatch，
+	 * 各块的键按顺序拼接起来
+	 * @param conn
+	 * @param sql
+	 * @param params 必须是二维数组
+	 * @param chunkSize 每块的行数，小于1时所有行作为一块
+	 * @return 生成的键，与参数的行一一对应
+	 * @throws SQLException
+	 */
+	public long[] insertBatch(Connection conn, String sql, Object[][] params, int chunkSize) throws SQLException {
+		if(params == null || params.length == 0 || (params instanceof Object[][][]) ){
+			throw new SQLException("invalidate params:"+params);
+		}
+
+		if(chunkSize < 1) chunkSize = params.length;
+
+		PreparedStatement pstm = null;
+		try {
+			pstm = prepareInsert(conn, sql);
+
+			BindingPlan plan = binder.plan(sql, params);
+			GeneratedKeys keys = new GeneratedKeys(params.length);
+			int rows = 0;
+			for(Object[] ps : params){
+				plan.bind(pstm, ps);
+				pstm.addBatch();
+
+				if(++rows == chunkSize){
+					pstm.executeBatch();
+					keys.read(pstm);
+					rows = 0;
+				}
+			}
+
+			if(rows > 0){
+				pstm.executeBatch();
+				keys.read(pstm);
+			}
+
+			return keys.toArray();
+		} catch (SQLException e) {
+			throw e;
+		} finally {
+			closeStm(pstm);
+		}
+	}
+
 	/**
 	 * @param connection
 	 * @param beanClass
@@ -188,9 +397,9 @@ public final class SQLExecutor  {
 		ResultSet result = null;
 		
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
-			return BeanConverter.toBean(beanClass, result, columnFieldMap, this.converter);
+			stm = createStatement(connection, QueryFamily.SINGLE);
+			result = executeQuery(stm, sql);
+			return BeanConverter.toBean(beanClass, result, columnFieldMap, converter, registry);
 		} catch(SQLException e) {
 			throw e;
 		} finally {
@@ -215,10 +424,10 @@ public final class SQLExecutor  {
 		PreparedStatement pstm = null;
 		ResultSet result = null;
 		try {
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
-			return BeanConverter.toBean(beanClass, result, columnFieldMap, converter);
+			pstm = prepareStatement(connection, sql, QueryFamily.SINGLE);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
+			return BeanConverter.toBean(beanClass, result, columnFieldMap, converter, registry);
 		} catch (SQLException e) {
 			throw e;
 		} finally {
@@ -241,10 +450,10 @@ public final class SQLExecutor  {
 		PreparedStatement pstm = null;
 		ResultSet result = null;
 		try {
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
-			return BeanConverter.toBeanList(beanClass, result, columnFieldMap, converter);
+			pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
+			return BeanConverter.toBeanList(beanClass, result, columnFieldMap, converter, registry);
 		} catch (SQLException e) {
 			throw e;
 		} finally {
@@ -264,9 +473,9 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
-			return BeanConverter.toBeanList(beanClass, result, columnFieldMap, converter);
+			stm = createStatement(connection, QueryFamily.LIST);
+			result = executeQuery(stm, sql);
+			return BeanConverter.toBeanList(beanClass, result, columnFieldMap, converter, registry);
 		} catch(SQLException e) {
 			throw e;
 		} finally {
@@ -274,6 +483,260 @@ public final class SQLExecutor  {
 		}
 	}
 	
+	/**
+	 * 逐行将查询结果转换成bean并交给handler处理，结果集不会整体加载到内存。<br/>
+	 * bean中InputStream、Reader、ReadableByteChannel类型的字段直接映射到BLOB/CLOB列的流，只在handler处理当前行时有效
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param handler
+	 * @param sql
+	 * @param params
+	 * @return 处理的行数
+	 * @throws SQLException
+	 */
+	public <T> int forEachBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, RowHandler<? super T> handler, String sql, Object... params) throws SQLException{
+		return forEachBean(connection, beanClass, columnFieldMap, handler, true, sql, params);
+	}
+	
+	/**
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param handler
+	 * @param sql
+	 * @return 处理的行数
+	 * @throws SQLException
+	 */
+	public <T> int forEachBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, RowHandler<? super T> handler, String sql) throws SQLException{
+		return forEachBean(connection, beanClass, columnFieldMap, handler, true, sql, (Object[]) null);
+	}
+	
+	/**
+	 * @param streams 是否允许流类型的字段，handler在当前行之后还保留bean时必须为false
+	 * @see #forEachBean(Connection, Class, Map, RowHandler, String, Object...)
+	 */
+	<T> int forEachBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, RowHandler<? super T> handler, boolean streams, String sql, Object[] params) throws SQLException{
+		return forEachBean(connection, beanClass, columnFieldMap, handler, streams, null, sql, params);
+	}
+	
+	/**
+	 * 流式读取时如果没有读完就结束（handler抛出异常），先cancel语句再关闭，
+	 * 否则mysql驱动关闭流式结果集时会把剩下的行全部读完
+	 * @param running 不为null时，执行期间保存正在执行的语句，其他线程可以用它cancel查询
+	 * @see #forEachBean(Connection, Class, Map, RowHandler, boolean, String, Object[])
+	 */
+	<T> int forEachBean(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, RowHandler<? super T> handler, boolean streams, AtomicReference<Statement> running, String sql, Object[] params) throws SQLException{
+		Statement stm = null;
+		ResultSet result = null;
+		boolean finished = false;
+		try {
+			if(params == null || params.length == 0){
+				stm = createStatement(connection, QueryFamily.LIST);
+				if(running != null) running.set(stm);
+				result = executeQuery(stm, sql);
+			} else {
+				PreparedStatement pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+				stm = pstm;
+				if(running != null) running.set(stm);
+				fillStatement(pstm, sql, params);
+				result = executeQuery(pstm, sql, params);
+			}
+			int rows = BeanConverter.forEachBean(beanClass, result, columnFieldMap, converter, registry, handler, streams);
+			finished = true;
+			return rows;
+		} finally {
+			if(running != null) running.set(null);
+			if(!finished && result != null && queryOptions != null && queryOptions.isStreaming()){
+				try {
+					stm.cancel();
+				} catch (SQLException e) {
+					//语句可能已经结束，关闭时仍会释放资源
+				}
+			}
+			closeStm(stm);
+		}
+	}
+	
+	/**
+	 * 创建bean的写入器，按bean的属性生成INSERT、UPDATE和UPSERT语句，并按块批量执行，见{@link BeanWriter}。例如：<br/>
+	 * executor.beanWriter(User.class, "user", null, "id").insert(conn, users)
+	 * @param beanClass
+	 * @param table 表名
+	 * @param columnFieldMap 列名->属性名，补充默认的映射：写入所有可读写的属性，列名为属性名的下划线形式，
+	 * 		出现在这里的属性改用指定的列名。可以为null
+	 * @param keyColumns 主键列，UPDATE语句用它们做条件
+	 * @return
+	 */
+	public <T> BeanWriter<T> beanWriter(Class<T> beanClass, String table, Map<String, String> columnFieldMap, String... keyColumns){
+		return new BeanWriter<T>(this, beanClass, table, columnFieldMap, keyColumns);
+	}
+	
+	/**
+	 * 创建键集分页器，按唯一键翻页，代替越往后越慢的LIMIT offset, n。例如：<br/>
+	 * executor.keysetPager(User.class, null, "id", 100, "select * from user where status=?", 1)<br/>
+	 * 每页执行"select * from user where (status=?) AND id > ? ORDER BY id LIMIT 100"。
+	 * 分页器使用本执行器的配置，见{@link KeysetPager}
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyColumn 分页键所在的列，必须唯一且不为null
+	 * @param pageSize
+	 * @param sql 基础查询，最外层不能有ORDER BY、LIMIT、GROUP BY等子句
+	 * @param params 基础查询的参数
+	 * @return
+	 */
+	public <T> KeysetPager<T> keysetPager(Class<T> beanClass, Map<String, String> columnFieldMap, String keyColumn, int pageSize, String sql, Object... params){
+		return new KeysetPager<T>(this, beanClass, columnFieldMap, keyColumn, pageSize, sql, params);
+	}
+
+	/**
+	 * 创建按键范围分区的并行扫描，每个分区使用连接池中的一个连接，见{@link ParallelScan}。例如：<br/>
+	 * executor.parallelScan(pool, User.class, null, "id", "select * from user").setPartitions(8).run(handler)
+	 * @param pool 提供分区连接的连接池
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyColumn 分区键所在的列，应该有索引
+	 * @param sql 基础查询，最外层不能有ORDER BY、LIMIT、GROUP BY等子句
+	 * @param params 基础查询的参数
+	 * @return
+	 */
+	public <T> ParallelScan<T> parallelScan(MiniConnectionPool pool, Class<T> beanClass, Map<String, String> columnFieldMap, String keyColumn, String sql, Object... params){
+		return new ParallelScan<T>(this, pool, beanClass, columnFieldMap, keyColumn, sql, params);
+	}
+
+	/**
+	 * 创建多语句查询，几条查询一次往返执行，见{@link MultiQuery}。例如：<br/>
+	 * executor.multiQuery().add(executor.scalarMapper(Long.class), "select count(*) from user")
+	 * .add(executor.beanListMapper(Order.class, null), "select * from orders where user_id=?", uid).execute(conn)
+	 * @return
+	 */
+	public MultiQuery multiQuery(){
+		return new MultiQuery(this);
+	}
+	
+	/**
+	 * 调用返回多个结果集的存储过程，依次用mappers转换各结果集。
+	 * 多出的结果集和更新计数被忽略，不支持OUT参数
+	 * @param connection
+	 * @param sql 如"{call dashboard(?, ?)}"
+	 * @param params 过程的IN参数
+	 * @param mappers 各结果集的转换方式
+	 * @return 按顺序排列的转换结果
+	 * @throws SQLException 结果集少于mappers时抛出
+	 */
+	public List<Object> call(Connection connection, String sql, Object[] params, ResultSetMapper<?>... mappers) throws SQLException{
+		CallableStatement cstm = null;
+		try{
+			checkCircuit();
+			cstm = connection.prepareCall(sql);
+			applyOptions(cstm, QueryFamily.LIST, this.queryOptions);
+			if(params != null && params.length > 0){
+				fillStatement(cstm, sql, params);
+			}
+			return readResults(cstm, cstm.execute(), mappers, true);
+		} catch(SQLException e) {
+			throw e;
+		} finally {
+			closeStm(cstm);
+		}
+	}
+	
+	/**
+	 * @return 把第一行转换成ResultMap的mapper，没有数据时结果为null
+	 */
+	public ResultSetMapper<ResultMap> resultMapMapper(){
+		return result -> createMap(result);
+	}
+	
+	/**
+	 * @return 把所有行转换成ResultMap列表的mapper
+	 */
+	public ResultSetMapper<List<ResultMap>> resultMapListMapper(){
+		return result -> createMapList(result);
+	}
+	
+	/**
+	 * @param clazz
+	 * @return 读取第一行第一列的mapper，没有数据时结果为null
+	 */
+	public <T> ResultSetMapper<T> scalarMapper(Class<T> clazz){
+		return result -> createScalar(clazz, result);
+	}
+	
+	/**
+	 * @param clazz
+	 * @return 读取所有行第一列的mapper
+	 */
+	public <T> ResultSetMapper<List<T>> scalarListMapper(Class<T> clazz){
+		return result -> createScalarList(clazz, result);
+	}
+	
+	/**
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @return 把第一行转换成bean的mapper，没有数据时结果为null
+	 */
+	public <T> ResultSetMapper<T> beanMapper(Class<T> beanClass, Map<String, String> columnFieldMap){
+		return result -> BeanConverter.toBean(beanClass, result, columnFieldMap, converter, registry);
+	}
+	
+	/**
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @return 把所有行转换成bean列表的mapper
+	 */
+	public <T> ResultSetMapper<List<T>> beanListMapper(Class<T> beanClass, Map<String, String> columnFieldMap){
+		return result -> BeanConverter.toBeanList(beanClass, result, columnFieldMap, converter, registry);
+	}
+
+	/**
+	 * 把查询结果加载成堆外的列式表，用于常驻内存的大参照表，见{@link ColumnarTable}。
+	 * 查询使用流式读取，结果集不在堆上整体缓存
+	 * @param connection
+	 * @param sql
+	 * @param params
+	 * @return
+	 * @throws SQLException
+	 */
+	public ColumnarTable selectColumnar(Connection connection, String sql, Object... params) throws SQLException{
+		return withOptions(QueryOptions.streaming()).query(connection, sql, params, ColumnarTable::load);
+	}
+
+	/**
+	 * 将查询结果第一行第一列（一般是BLOB列）以流的方式写入target，不把整列读入内存。<br/>
+	 * target是FileChannel时使用FileChannel.transferFrom；其他channel每次读取一块，经过线程复用的缓冲写入
+	 * @param connection
+	 * @param target
+	 * @param sql
+	 * @param params
+	 * @return 写入的字节数，没有数据或列值为null时返回-1
+	 * @throws SQLException
+	 */
+	public long transfer(Connection connection, WritableByteChannel target, String sql, Object... params) throws SQLException{
+		PreparedStatement pstm = null;
+		ResultSet result = null;
+		try{
+			pstm = prepareStatement(connection, sql, QueryFamily.SINGLE);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
+			
+			if(!result.next()) return -1;
+			
+			InputStream in = result.getBinaryStream(1);
+			if(in == null) return -1;
+			
+			try {
+				return transfer(in, target);
+			} catch (IOException e) {
+				throw new SQLException("transfer column failed", e);
+			}
+		} catch(SQLException e) {
+			throw e;
+		} finally {
+			closeStm(pstm);
+		}
+	}
+	
 	/**
 	 * 
 	 * @param sql
@@ -289,9 +752,9 @@ public final class SQLExecutor  {
 		PreparedStatement pstm = null;
 		ResultSet result = null;
 		try{
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
+			pstm = prepareStatement(connection, sql, QueryFamily.SINGLE);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
 			return createMap(result);
 		} catch(SQLException e) {
 			throw e;
@@ -310,8 +773,8 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
+			stm = createStatement(connection, QueryFamily.SINGLE);
+			result = executeQuery(stm, sql);
 			return createMap(result);
 		} catch(SQLException e) {
 			throw e;
@@ -338,9 +801,9 @@ public final class SQLExecutor  {
 		ResultSet result = null;
 		
 		try{
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
+			pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
 			return createMapList(result);
 		} catch(SQLException e) {
 			throw e;
@@ -360,8 +823,8 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
+			stm = createStatement(connection, QueryFamily.LIST);
+			result = executeQuery(stm, sql);
 			return createMapList(result);
 		} catch(SQLException e) {
 			throw e;
@@ -391,9 +854,9 @@ public final class SQLExecutor  {
 		ResultSet result = null;
 		
 		try{
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
+			pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
 			return createMapMap(keyColumn, result);
 		} catch(SQLException e) {
 			throw e;
@@ -414,8 +877,8 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
+			stm = createStatement(connection, QueryFamily.LIST);
+			result = executeQuery(stm, sql);
 			return createMapMap(keyColumn, result);
 		} catch(SQLException e) {
 			throw e;
@@ -426,36 +889,178 @@ public final class SQLExecutor  {
 	}
 	
 	/**
-	 * 将查询结果封装成数值返回。支持基础类型和枚举类型
+	 * 按类型化的键索引查询结果。键列只在第一行前解析一次，按keyType读取，不经过字符串转换
 	 * @param connection
-	 * @param clazz
+	 * @param keyColumn 键所在的列
+	 * @param keyType 键的类型，支持的类型与selectScalar相同
 	 * @param sql
 	 * @param params
-	 * @return
+	 * @return 键->行，键重复时保留最后一行；没有数据返回空map
 	 * @throws SQLException
 	 */
-	public <T> T  selectScalar(Connection connection, Class<T> clazz, String sql, Object... params) throws SQLException{
-		if(params == null || params.length == 0) return selectScalar(connection, clazz, sql);
-		
-		PreparedStatement pstm = null;
-		ResultSet result = null;
-		
-		try{
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
-			return createScalar(clazz, result);
-		} catch(SQLException e) {
-			throw e;
-		} finally {
-			closeStm(pstm);
-		}
-		
+	public <K> Map<K, ResultMap> selectResultMapMap(Connection connection, String keyColumn, Class<K> keyType, String sql, Object... params) throws SQLException{
+		return query(connection, sql, params, result -> createKeyedMap(keyColumn, keyType, result, false));
 	}
 	
 	/**
+	 * 按类型化的键分组查询结果，键列只解析一次
 	 * @param connection
-	 * @param clazz
+	 * @param keyColumn 键所在的列
+	 * @param keyType 键的类型
+	 * @param sql
+	 * @param params
+	 * @return 键->同一键的所有行，按查询顺序排列；没有数据返回空map
+	 * @throws SQLException
+	 */
+	public <K> Map<K, List<ResultMap>> selectResultMapGroups(Connection connection, String keyColumn, Class<K> keyType, String sql, Object... params) throws SQLException{
+		return query(connection, sql, params, result -> createKeyedMap(keyColumn, keyType, result, true));
+	}
+	
+	/**
+	 * 按long类型的id索引查询结果，键用getLong读取，存放在不装箱的LongKeyedMap中
+	 * @param connection
+	 * @param keyColumn 键所在的列，值为null的行被忽略
+	 * @param sql
+	 * @param params
+	 * @return 键->行，键重复时保留最后一行
+	 * @throws SQLException
+	 */
+	public LongKeyedMap<ResultMap> selectResultMapLongMap(Connection connection, String keyColumn, String sql, Object... params) throws SQLException{
+		return query(connection, sql, params, result -> {
+			LongKeyedMap<ResultMap> map = new LongKeyedMap<ResultMap>();
+			if(result.next()){
+				ResultSetMetaData meta = result.getMetaData();
+				int keyIndex = keyIndex(meta, keyColumn);
+				String[] names = columnNames(meta);
+				do {
+					long key = result.getLong(keyIndex);
+					if(result.wasNull()) continue;
+					map.put(key, readMap(result, names));
+				} while(result.next());
+			}
+			return map;
+		});
+	}
+	
+	/**
+	 * 查询bean并用keyExtractor从bean中取键建立索引，如executor.selectBeanMap(conn, User.class, null, User::getName, sql)
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyExtractor
+	 * @param sql
+	 * @param params
+	 * @return 键->bean，键重复时保留最后一个
+	 * @throws SQLException
+	 */
+	public <K, T> Map<K, T> selectBeanMap(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, 
+			Function<? super T, ? extends K> keyExtractor, String sql, Object... params) throws SQLException{
+		Map<K, T> map = new HashMap<K, T>();
+		forEachBean(connection, beanClass, columnFieldMap, bean -> map.put(keyExtractor.apply(bean), bean), false, sql, params);
+		return map;
+	}
+	
+	/**
+	 * 查询bean并按keyExtractor取出的键分组
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyExtractor
+	 * @param sql
+	 * @param params
+	 * @return 键->同一键的所有bean，按查询顺序排列
+	 * @throws SQLException
+	 */
+	public <K, T> Map<K, List<T>> selectBeanGroups(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, 
+			Function<? super T, ? extends K> keyExtractor, String sql, Object... params) throws SQLException{
+		Map<K, List<T>> groups = new HashMap<K, List<T>>();
+		forEachBean(connection, beanClass, columnFieldMap, bean -> {
+			K key = keyExtractor.apply(bean);
+			List<T> group = groups.get(key);
+			if(group == null){
+				group = new ArrayList<T>();
+				groups.put(key, group);
+			}
+			group.add(bean);
+		}, false, sql, params);
+		return groups;
+	}
+	
+	/**
+	 * 查询bean并按long类型的键建立索引，如executor.selectBeanLongMap(conn, User.class, null, User::getId, sql)
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyExtractor
+	 * @param sql
+	 * @param params
+	 * @return 键->bean，键重复时保留最后一个
+	 * @throws SQLException
+	 */
+	public <T> LongKeyedMap<T> selectBeanLongMap(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, 
+			ToLongFunction<? super T> keyExtractor, String sql, Object... params) throws SQLException{
+		LongKeyedMap<T> map = new LongKeyedMap<T>();
+		forEachBean(connection, beanClass, columnFieldMap, bean -> map.put(keyExtractor.applyAsLong(bean), bean), false, sql, params);
+		return map;
+	}
+	
+	/**
+	 * 查询bean并按long类型的键分组，如按外键把子表的行挂到父对象上
+	 * @param connection
+	 * @param beanClass
+	 * @param columnFieldMap
+	 * @param keyExtractor
+	 * @param sql
+	 * @param params
+	 * @return 键->同一键的所有bean，按查询顺序排列
+	 * @throws SQLException
+	 */
+	public <T> LongKeyedMap<List<T>> selectBeanLongGroups(Connection connection, Class<T> beanClass, Map<String, String> columnFieldMap, 
+			ToLongFunction<? super T> keyExtractor, String sql, Object... params) throws SQLException{
+		LongKeyedMap<List<T>> groups = new LongKeyedMap<List<T>>();
+		forEachBean(connection, beanClass, columnFieldMap, bean -> {
+			long key = keyExtractor.applyAsLong(bean);
+			List<T> group = groups.get(key);
+			if(group == null){
+				group = new ArrayList<T>();
+				groups.put(key, group);
+			}
+			group.add(bean);
+		}, false, sql, params);
+		return groups;
+	}
+	
+	/**
+	 * 将查询结果封装成数值返回。支持基础类型和枚举类型
+	 * @param connection
+	 * @param clazz
+	 * @param sql
+	 * @param params
+	 * @return
+	 * @throws SQLException
+	 */
+	public <T> T  selectScalar(Connection connection, Class<T> clazz, String sql, Object... params) throws SQLException{
+		if(params == null || params.length == 0) return selectScalar(connection, clazz, sql);
+		
+		PreparedStatement pstm = null;
+		ResultSet result = null;
+		
+		try{
+			pstm = prepareStatement(connection, sql, QueryFamily.SINGLE);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
+			return createScalar(clazz, result);
+		} catch(SQLException e) {
+			throw e;
+		} finally {
+			closeStm(pstm);
+		}
+		
+	}
+	
+	/**
+	 * @param connection
+	 * @param clazz
 	 * @param sql
 	 * @return
 	 * @throws SQLException
@@ -464,8 +1069,8 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
+			stm = createStatement(connection, QueryFamily.SINGLE);
+			result = executeQuery(stm, sql);
 			return createScalar(clazz, result);
 		} catch(SQLException e) {
 			throw e;
@@ -489,9 +1094,9 @@ public final class SQLExecutor  {
 		ResultSet result = null;
 		
 		try{
-			pstm = connection.prepareStatement(sql);
-			fillStatement(pstm, params, connection);
-			result = pstm.executeQuery();
+			pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+			fillStatement(pstm, sql, params);
+			result = executeQuery(pstm, sql, params);
 			return createScalarList(clazz, result);
 		} catch(SQLException e) {
 			throw e;
@@ -511,8 +1116,8 @@ public final class SQLExecutor  {
 		Statement stm = null;
 		ResultSet result = null;
 		try{
-			stm = connection.createStatement();
-			result = stm.executeQuery(sql);
+			stm = createStatement(connection, QueryFamily.LIST);
+			result = executeQuery(stm, sql);
 			return createScalarList(clazz, result);
 		} catch(SQLException e) {
 			throw e;
@@ -596,45 +1201,15 @@ public final class SQLExecutor  {
 	private Map<String, ResultMap> createMapMap(String keyColumn, ResultSet result) throws SQLException{
 		if(result.next()){
 			ResultSetMetaData meta = result.getMetaData();
-			//是否有被声明的字段
-			for(int i=1,j=meta.getColumnCount(); i<=j; i++){
-				if(meta.getColumnName(i).equals(keyColumn)){
-					break;
-				} else if(i==j){
-					throw new RuntimeException("there is no column named "+keyColumn);
-				}
-			}
+			//键列和列名只解析一次
+			int keyIndex = keyIndex(meta, keyColumn);
+			String[] names = columnNames(meta);
 			
 			Map<String, ResultMap> mapMap = new HashMap<String, ResultMap>();
-			String key;
-			
-			//是否将查询出来的字段名自动有下划线命名，转成驼峰命名
-			if(autoUnderlineToCamelhump){
-		        keyColumn = getCamelhumpString(keyColumn);
-		        List<String> columnMap = autoUnderlineToCamelhump(result.getMetaData());
-				do {
-					ResultMap map = new ResultMap();
-					for(int i=1,j=meta.getColumnCount(); i<=j; i++){
-						key = columnMap.get(i-1);
-						map.put(key, result.getString(i));
-						if(key.equals(keyColumn)){
-							mapMap.put(result.getString(i), map);
-						}
-					}
-				} while(result.next());
-			} else {
-				do {
-					ResultMap map = new ResultMap();
-					for(int i=1,j=meta.getColumnCount(); i<=j; i++){
-						key = meta.getColumnName(i);
-						map.put(key, result.getString(i));
-						if(key.equals(keyColumn)){
-							mapMap.put(result.getString(i), map);
-						}
-					}
-					
-				} while(result.next());
-			}
+			do {
+				ResultMap map = readMap(result, names);
+				mapMap.put(result.getString(keyIndex), map);
+			} while(result.next());
 			
 			return mapMap;
 		}
@@ -642,6 +1217,88 @@ public final class SQLExecutor  {
 		return null;
 	}
 	
+	/**
+	 * @param keyColumn
+	 * @param keyType
+	 * @param result
+	 * @param group 是否把同一键的行放进列表
+	 * @return
+	 * @throws SQLException
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> Map<K, V> createKeyedMap(String keyColumn, Class<K> keyType, ResultSet result, boolean group) throws SQLException{
+		Map<K, Object> mapMap = new HashMap<K, Object>();
+		
+		if(result.next()){
+			ResultSetMetaData meta = result.getMetaData();
+			int keyIndex = keyIndex(meta, keyColumn);
+			String[] names = columnNames(meta);
+			ColumnReader reader = BeanConverter.getColumnReader(keyType, meta, keyIndex, true, converter, registry, false);
+			
+			do {
+				K key = (K) reader.read(result, keyIndex);
+				ResultMap map = readMap(result, names);
+				if(group){
+					List<ResultMap> rows = (List<ResultMap>) mapMap.get(key);
+					if(rows == null){
+						rows = new ArrayList<ResultMap>();
+						mapMap.put(key, rows);
+					}
+					rows.add(map);
+				} else {
+					mapMap.put(key, map);
+				}
+			} while(result.next());
+		}
+		
+		return (Map<K, V>) mapMap;
+	}
+	
+	/**
+	 * @param meta
+	 * @param keyColumn
+	 * @return 键列的序号，从1开始
+	 * @throws SQLException
+	 */
+	private int keyIndex(ResultSetMetaData meta, String keyColumn) throws SQLException{
+		if(keyColumn==null || "".equals(keyColumn)){
+			throw new RuntimeException("keyColumn　can not be empty");
+		}
+		
+		for(int i=1,j=meta.getColumnCount(); i<=j; i++){
+			if(meta.getColumnName(i).equals(keyColumn) || keyColumn.equals(meta.getColumnLabel(i))){
+				return i;
+			}
+		}
+		throw new RuntimeException("there is no column named "+keyColumn);
+	}
+	
+	/**
+	 * @param meta
+	 * @return ResultMap中使用的列名，按配置转成驼峰命名
+	 * @throws SQLException
+	 */
+	private String[] columnNames(ResultSetMetaData meta) throws SQLException{
+		if(autoUnderlineToCamelhump){
+			List<String> columnMap = autoUnderlineToCamelhump(meta);
+			return columnMap.toArray(new String[columnMap.size()]);
+		}
+		
+		String[] names = new String[meta.getColumnCount()];
+		for(int i=0; i<names.length; i++){
+			names[i] = meta.getColumnName(i+1);
+		}
+		return names;
+	}
+	
+	private ResultMap readMap(ResultSet result, String[] names) throws SQLException{
+		ResultMap map = new ResultMap();
+		for(int i=0; i<names.length; i++){
+			map.put(names[i], result.getString(i+1));
+		}
+		return map;
+	}
+	
 	/**
 	 * @param type
 	 * @param result
@@ -651,42 +1308,9 @@ public final class SQLExecutor  {
 	@SuppressWarnings("unchecked")
 	private <T> T createScalar(Class<T> type, ResultSet result) throws SQLException {
 		T t = null;
-		if(result.next()){			
-			if (type.equals(String.class)) {
-				return (T) result.getString(1);
-			
-			} else if (type.equals(Integer.TYPE) || type.equals(Integer.class)) {
-				return (T) Integer.valueOf(result.getInt(1));
-			
-			} else if (type.equals(Boolean.TYPE) || type.equals(Boolean.class)) {
-				return (T) Boolean.valueOf(result.getBoolean(1));
-			
-			} else if (type.equals(Long.TYPE) || type.equals(Long.class)) {
-				return (T) Long.valueOf(result.getLong(1));
-			
-			} else if (type.equals(Double.TYPE) || type.equals(Double.class)) {
-				return (T) Double.valueOf(result.getDouble(1));
-			
-			} else if (type.equals(Float.TYPE) || type.equals(Float.class)) {
-				return (T) Float.valueOf(result.getFloat(1));
-			
-			} else if (type.equals(Short.TYPE) || type.equals(Short.class)) {
-				return (T) Short.valueOf(result.getShort(1));
-				
-			} else if(type.equals(Boolean.class) || type.equals(Boolean.TYPE)){
-				return (T) Boolean.valueOf(result.getBoolean(1));
-			
-			} else if (type.equals(Byte.TYPE) || type.equals(Byte.class)) {
-				return (T) Byte.valueOf(result.getByte(1));
-				
-			} else if(type.isEnum()){
-				return (T) BeanConverter.initEnum(result.getString(1), type);
-				
-			} else if(this.converter != null){
-				return (T) this.converter.ColumnToField(result.getString(1), type, result.getMetaData().getColumnTypeName(1));
-			} else {
-				return (T) result.getObject(1);
-			}
+		if(result.next()){
+			ColumnReader reader = BeanConverter.getColumnReader(type, result.getMetaData(), 1, false, converter, registry, false);
+			return (T) reader.read(result, 1);
 		}
 		return t;
 	}
@@ -703,111 +1327,274 @@ public final class SQLExecutor  {
 		if(result.next()){		
 			List<T> ts = new LinkedList<T>();
 			
-			if (type.equals(String.class)) {
-				do {
-					ts.add((T) result.getString(1));
-				} while(result.next());
-			} else if (type.equals(Integer.TYPE) || type.equals(Integer.class)) {
-				do {
-					ts.add((T) Integer.valueOf(result.getInt(1)));
-				} while(result.next());
-			} else if (type.equals(Boolean.TYPE) || type.equals(Boolean.class)) {
-				do {
-					ts.add((T) Boolean.valueOf(result.getBoolean(1)));
-				} while(result.next());
-			} else if (type.equals(Long.TYPE) || type.equals(Long.class)) {
-				do {
-					ts.add((T) Long.valueOf(result.getLong(1)));
-				} while(result.next());
-			} else if (type.equals(Double.TYPE) || type.equals(Double.class)) {
-				do {
-					ts.add((T) Double.valueOf(result.getDouble(1)));
-				} while(result.next());
-			} else if (type.equals(Float.TYPE) || type.equals(Float.class)) {
-				do {
-					ts.add((T) Float.valueOf(result.getFloat(1)));
-				} while(result.next());
-			} else if (type.equals(Short.TYPE) || type.equals(Short.class)) {
-				do {
-					ts.add((T) Short.valueOf(result.getShort(1)));
-				} while(result.next());
-			} else if(type.equals(Boolean.class) || type.equals(Boolean.TYPE)){
-				do {
-					ts.add((T) Boolean.valueOf(result.getBoolean(1)));
-				} while(result.next());
-			} else if (type.equals(Byte.TYPE) || type.equals(Byte.class)) {
-				do {
-					ts.add((T) Byte.valueOf(result.getByte(1)));
-				} while(result.next());
+			//每个结果集只确定一次读取方式
+			ColumnReader reader = BeanConverter.getColumnReader(type, result.getMetaData(), 1, false, converter, registry, false);
+			do {
+				ts.add((T) reader.read(result, 1));
+			} while(result.next());
 			
-			} else if(this.converter != null){
-				do {
-					ts.add((T) this.converter.ColumnToField(result.getString(1), type, result.getMetaData().getColumnTypeName(1)));
-				} while(result.next());
-			} else {
-				do {
-					ts.add((T) result.getObject(1));
-				} while(result.next());
-			}
 			return ts;
 		}
 		
 		return new LinkedList<T>();
 	}
 
+	/**
+	 * 执行查询并用mapper转换结果集，没有参数时使用普通Statement
+	 * @param connection
+	 * @param sql
+	 * @param params
+	 * @param mapper
+	 * @return
+	 * @throws SQLException
+	 */
+	<R> R query(Connection connection, String sql, Object[] params, ResultSetMapper<R> mapper) throws SQLException{
+		Statement stm = null;
+		try{
+			ResultSet result;
+			if(params == null || params.length == 0){
+				stm = createStatement(connection, QueryFamily.LIST);
+				result = executeQuery(stm, sql);
+			} else {
+				PreparedStatement pstm = prepareStatement(connection, sql, QueryFamily.LIST);
+				stm = pstm;
+				fillStatement(pstm, sql, params);
+				result = executeQuery(pstm, sql, params);
+			}
+			return mapper.map(result);
+		} finally {
+			closeStm(stm);
+		}
+	}
+	
 	/**
 	 * 设置prepareStatement的参数
 	 * @param pstm
+	 * @param sql 用于查找绑定计划
 	 * @param params 查询参数
 	 * @throws SQLException
 	 */
-	private void fillStatement(PreparedStatement pstm, Object[] params, Connection connection) throws SQLException {
-		if(params == null || params.length == 0) return;
+	private void fillStatement(PreparedStatement pstm, String sql, Object[] params) throws SQLException {
+		binder.bind(pstm, sql, params);
+	}
+	
+	/**
+	 * 把in的数据写入target并关闭in。FileChannel使用transferFrom，其他channel使用线程复用的缓冲。
+	 * 驱动只提供InputStream，所以总要经过一次堆内的byte[]
+	 * @param in
+	 * @param target
+	 * @return 写入的字节数
+	 * @throws IOException
+	 */
+	private long transfer(InputStream in, WritableByteChannel target) throws IOException{
+		long total = 0;
 		
-		Object value;
-		for(int i=0, len=params.length; i<len; i++){
-			value = params[i];
-			
-			if(value instanceof String){
-				pstm.setString(i+1, value.toString());
-			} else if(value instanceof Integer) {
-				pstm.setInt(i+1, (int) value);
-				
-			} else if(value instanceof Long) {
-				pstm.setLong(i+1, (long) value);
-				
-			} else if(value instanceof Double) {
-				pstm.setDouble(i+1, (double) value);
-				
-			} else if(value instanceof Boolean){
-				pstm.setBoolean(i+1, (Boolean) value);
-				
-			} else if(value instanceof Float){
-				pstm.setFloat(i+1, (float) value);
-				
-			} else if(value instanceof Short){
-				pstm.setShort(i+1, (short) value);
-				
-			} else if(value instanceof Byte){
-				pstm.setShort(i+1, (short) value);
-				
-			} else if(value instanceof Array){
-				pstm.setArray(i+1, (Array) value);
-				
-			} else if(value instanceof Enum) {
-				pstm.setObject(i+1, ((Enum<?>) value).ordinal());
-				
-			} else if(converter != null){
-				pstm.setObject(i+1, converter.fieldToColumn(value));
-				
+		if(target instanceof FileChannel){
+			try (ReadableByteChannel source = Channels.newChannel(in)) {
+				FileChannel file = (FileChannel) target;
+				long position = file.position();
+				long count;
+				while((count = file.transferFrom(source, position + total, TRANSFER_CHUNK_SIZE)) > 0){
+					total += count;
+				}
+				file.position(position + total);
+				return total;
+			}
+		}
+		
+		try {
+			byte[] bytes = TRANSFER_BUFFER.get();
+			int count;
+			while((count = in.read(bytes)) >= 0){
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, count);
+				while(buffer.hasRemaining()){
+					total += target.write(buffer);
+				}
+			}
+			return total;
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * 创建预处理语句并应用执行选项
+	 * @param conn
+	 * @param sql
+	 * @param family
+	 * @return
+	 * @throws SQLException
+	 */
+	PreparedStatement prepareStatement(Connection conn, String sql, QueryFamily family) throws SQLException{
+		checkCircuit();
+		QueryOptions options = this.queryOptions;
+		PreparedStatement pstm;
+		
+		if(family != QueryFamily.UPDATE && options != null && options.hasCursorMode()){
+			pstm = conn.prepareStatement(sql, options.cursorType(), options.cursorConcurrency());
+		} else {
+			pstm = conn.prepareStatement(sql);
+		}
+		
+		applyOptions(pstm, family, options);
+		return pstm;
+	}
+	
+	/**
+	 * 熔断器打开时快速失败
+	 * @throws CircuitBreaker.OpenException
+	 */
+	private void checkCircuit() throws SQLException{
+		CircuitBreaker breaker = this.circuitBreaker;
+		if(breaker != null){
+			breaker.check();
+		}
+	}
+	
+	/**
+	 * 创建返回生成键的预处理语句并应用执行选项
+	 * @param conn
+	 * @param sql
+	 * @return
+	 * @throws SQLException
+	 */
+	private PreparedStatement prepareInsert(Connection conn, String sql) throws SQLException{
+		checkCircuit();
+		PreparedStatement pstm = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		applyOptions(pstm, QueryFamily.UPDATE, this.queryOptions);
+		return pstm;
+	}
+	
+	/**
+	 * 创建语句并应用执行选项
+	 * @param conn
+	 * @param family
+	 * @return
+	 * @throws SQLException
+	 */
+	Statement createStatement(Connection conn, QueryFamily family) throws SQLException{
+		checkCircuit();
+		QueryOptions options = this.queryOptions;
+		Statement stm;
+		
+		if(family != QueryFamily.UPDATE && options != null && options.hasCursorMode()){
+			stm = conn.createStatement(options.cursorType(), options.cursorConcurrency());
+		} else {
+			stm = conn.createStatement();
+		}
+		
+		applyOptions(stm, family, options);
+		return stm;
+	}
+	
+	private void applyOptions(Statement stm, QueryFamily family, QueryOptions options) throws SQLException{
+		if(options != null && options.getQueryTimeout() != null){
+			stm.setQueryTimeout(options.getQueryTimeout());
+		}
+		
+		if(family == QueryFamily.UPDATE) return;
+		
+		if(options != null && options.getMaxRows() != null){
+			stm.setMaxRows(options.getMaxRows());
+		}
+		
+		if(options != null && options.isStreaming()){
+			try {
+				stm.setFetchSize(Integer.MIN_VALUE);
+			} catch (SQLException e) {
+				//不是mysql，按普通游标分批读取
+				stm.setFetchSize(options.getFetchSize() != null ? options.getFetchSize() : QueryOptions.DEFAULT_STREAMING_FETCH_SIZE);
+			}
+		} else if(options != null && options.getFetchSize() != null){
+			stm.setFetchSize(options.getFetchSize());
+		} else if(family == QueryFamily.SINGLE){
+			stm.setFetchSize(1);
+		}
+	}
+	
+	/**
+	 * 依次读取语句的所有结果。
+	 * mappers中为null的元素表示更新语句，对应的结果是Integer类型的影响行数
+	 * @param stm 已执行的语句
+	 * @param isResult execute的返回值
+	 * @param mappers
+	 * @param call 是否存储过程调用：忽略更新计数和多出的结果集
+	 * @return
+	 * @throws SQLException 结果与mappers对不上时抛出
+	 */
+	List<Object> readResults(Statement stm, boolean isResult, ResultSetMapper<?>[] mappers, boolean call) throws SQLException{
+		List<Object> results = new ArrayList<Object>(mappers.length);
+		int index = 0;
+		
+		while(true){
+			if(isResult){
+				ResultSet result = stm.getResultSet();
+				try {
+					if(index < mappers.length){
+						if(mappers[index] == null){
+							throw new SQLException("statement " + index + " returned a result set, but was added as an update");
+						}
+						results.add(mappers[index++].map(result));
+					} else if(!call){
+						throw new SQLException("more results than the " + mappers.length + " statements");
+					}
+				} finally {
+					result.close();
+				}
 			} else {
-				pstm.setObject(i+1, value);
+				int count = stm.getUpdateCount();
+				if(count == -1) break;
+				
+				if(!call){
+					if(index >= mappers.length){
+						throw new SQLException("more results than the " + mappers.length + " statements");
+					}
+					if(mappers[index] != null){
+						throw new SQLException("statement " + index + " did not return a result set");
+					}
+					results.add(Integer.valueOf(count));
+					index++;
+				}
 			}
+			isResult = stm.getMoreResults();
+		}
+		
+		if(index < mappers.length){
+			throw new SQLException("expected " + mappers.length + " results, but got " + index);
+		}
+		return results;
+	}
+	
+	/**
+	 * 执行查询，设置了PlanGuard时从这里开始计时
+	 * @param pstm
+	 * @param sql
+	 * @param params
+	 * @return
+	 * @throws SQLException
+	 */
+	private ResultSet executeQuery(PreparedStatement pstm, String sql, Object[] params) throws SQLException{
+		PlanGuard guard = this.planGuard;
+		if(guard != null){
+			guard.begin(pstm, sql, params);
 		}
+		return pstm.executeQuery();
+	}
+	
+	private ResultSet executeQuery(Statement stm, String sql) throws SQLException{
+		PlanGuard guard = this.planGuard;
+		if(guard != null){
+			guard.begin(stm, sql, null);
+		}
+		return stm.executeQuery(sql);
 	}
 	
 	private void closeStm(Statement stm) throws SQLException{
 		if(stm == null) return;
+		PlanGuard guard = this.planGuard;
+		if(guard != null){
+			guard.end(stm, this);
+		}
 		stm.close();
 	}
 
@@ -852,4 +1639,36 @@ public final class SQLExecutor  {
 	        }
 	        return builder.toString();
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * 收集语句生成的键，避免装箱
+	 */
+	private static final class GeneratedKeys {
+		private long[] keys;
+		private int size;
+		
+		GeneratedKeys(int capacity){
+			this.keys = new long[Math.max(capacity, 1)];
+		}
+		
+		void read(Statement stm) throws SQLException{
+			ResultSet rs = stm.getGeneratedKeys();
+			if(rs == null) return;
+			
+			try {
+				while(rs.next()){
+					if(size == keys.length){
+						keys = Arrays.copyOf(keys, size * 2);
+					}
+					keys[size++] = rs.getLong(1);
+				}
+			} finally {
+				rs.close();
+			}
+		}
+		
+		long[] toArray(){
+			return size == keys.length ? keys : Arrays.copyOf(keys, size);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package org.mintframework.db;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * @author LW
+ * d
+ */
+class SetterInfo {
+	public final Method 	method;
+	public final Class<?> 	fieldType;
+	public final Boolean 	isSetter;
+	public final Field		field;
+	
+	SetterInfo(Method method, Class<?> type, Field field, Boolean isSetter){
+		this.method = method;
+		this.fieldType = type;
+		this.isSetter = isSetter;
+		this.field = field;
+	}
+}
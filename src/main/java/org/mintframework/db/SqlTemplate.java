@@ -0,0 +1,255 @@
+package org.mintframework.db;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 使用命名参数(:name)的sql模板。<br/>
+ * 模板只解析一次并缓存。绑定参数时，集合和数组类型的参数展开成IN列表，
+ * 展开的个数取不小于元素个数的2的幂(1, 2, 4, 8...)，不足的部分用最后一个元素补齐，
+ * 这样不同长度的IN列表只会生成少量不同的sql，驱动和数据库的预处理语句缓存仍然有效。
+ * 空的集合或数组没有等价的IN列表（IN (NULL)在NOT IN中会让整个条件变成unknown），绑定时抛出IllegalArgumentException，
+ * 调用者需要自己处理没有元素的情况。<br/>
+ * 引号、反引号中的内容和注释中的冒号不会被当成参数，"::"也不是参数。模板中不能再使用"?"参数。线程安全
+ */
+public final class SqlTemplate {
+	private static final int MAX_CACHED_TEMPLATES = 4096;
+	private static final ConcurrentHashMap<String, SqlTemplate> cache = new ConcurrentHashMap<String, SqlTemplate>();
+
+	private final String source;
+	private final String[] fragments;		//参数之间的sql片段，比names多一个
+	private final String[] names;			//按出现顺序排列的参数名，可以重复
+	private final String positionalSql;		//每个参数都是单值时的sql
+
+	private SqlTemplate(String source, List<String> fragments, List<String> names){
+		this.source = source;
+		this.fragments = fragments.toArray(new String[fragments.size()]);
+		this.names = names.toArray(new String[names.size()]);
+
+		StringBuilder builder = new StringBuilder(source.length());
+		for(int i=0; i<this.names.length; i++){
+			builder.append(this.fragments[i]).append('?');
+		}
+		builder.append(this.fragments[this.names.length]);
+		this.positionalSql = builder.toString();
+	}
+
+	/**
+	 * 获取sql对应的模板，第一次使用时解析并缓存
+	 * @param sql
+	 * @return
+	 */
+	public static SqlTemplate compile(String sql){
+		SqlTemplate template = cache.get(sql);
+		if(template != null) return template;
+
+		template = parse(sql);
+		if(cache.size() >= MAX_CACHED_TEMPLATES){
+			cache.clear();
+		}
+		cache.put(sql, template);
+
+		return template;
+	}
+
+	/**
+	 * @return 模板原文
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * @return 按出现顺序排列的参数名
+	 */
+	public String[] getParameterNames() {
+		return names.clone();
+	}
+
+	/**
+	 * 用参数源绑定模板
+	 * @param paramSource Map(参数名->值)或者bean(属性名或下划线形式的属性名)，没有参数时可以为null
+	 * @return
+	 * @throws IllegalArgumentException 缺少参数，或者集合、数组参数为空
+	 */
+	public BoundSql bind(Object paramSource){
+		if(names.length == 0){
+			return new BoundSql(positionalSql, new Object[0]);
+		}
+
+		if(paramSource == null){
+			throw new IllegalArgumentException("sql template need parameters: " + source);
+		}
+
+		Object[] values = new Object[names.length];
+		boolean expand = false;
+		for(int i=0; i<names.length; i++){
+			values[i] = valueOf(paramSource, names[i]);
+			expand = expand || isMultiValue(values[i]);
+		}
+
+		if(!expand){
+			return new BoundSql(positionalSql, values);
+		}
+
+		StringBuilder builder = new StringBuilder(positionalSql.length() + 16 * names.length);
+		List<Object> params = new ArrayList<Object>(names.length * 2);
+		for(int i=0; i<names.length; i++){
+			builder.append(fragments[i]);
+
+			if(isMultiValue(values[i])){
+				expandList(names[i], values[i], builder, params);
+			} else {
+				builder.append('?');
+				params.add(values[i]);
+			}
+		}
+		builder.append(fragments[names.length]);
+
+		return new BoundSql(builder.toString(), params.toArray());
+	}
+
+	/**
+	 * 把集合或数组展开成2的幂个参数
+	 */
+	private void expandList(String name, Object value, StringBuilder builder, List<Object> params){
+		List<Object> items = new ArrayList<Object>();
+		if(value instanceof Collection){
+			items.addAll((Collection<?>) value);
+		} else {
+			for(int i=0, len=Array.getLength(value); i<len; i++){
+				items.add(Array.get(value, i));
+			}
+		}
+
+		if(items.isEmpty()){
+			throw new IllegalArgumentException("parameter " + name + " is an empty collection, it can not be expanded to an IN list: " + source);
+		}
+
+		Object last = items.get(items.size() - 1);
+		int bucket = bucketSize(items.size());
+
+		for(int i=0; i<bucket; i++){
+			builder.append(i == 0 ? "?" : ", ?");
+			params.add(i < items.size() ? items.get(i) : last);
+		}
+	}
+
+	/**
+	 * @param size
+	 * @return 不小于size的2的幂，最小为1
+	 */
+	static int bucketSize(int size){
+		if(size <= 1) return 1;
+		return Integer.highestOneBit(size - 1) << 1;
+	}
+
+	private static boolean isMultiValue(Object value){
+		return value instanceof Collection ||
+				(value != null && value.getClass().isArray() && value.getClass() != byte[].class && value.getClass() != char[].class);
+	}
+
+	private static Object valueOf(Object paramSource, String name){
+		if(paramSource instanceof Map){
+			Map<?, ?> map = (Map<?, ?>) paramSource;
+			Object value = map.get(name);
+			if(value == null && !map.containsKey(name)){
+				throw new IllegalArgumentException("there is no value for parameter :" + name);
+			}
+			return value;
+		}
+
+		return BeanProperties.of(paramSource.getClass()).get(paramSource, name);
+	}
+
+	/**
+	 * 解析模板，拆分出sql片段和参数名
+	 * @param sql
+	 * @return
+	 */
+	private static SqlTemplate parse(String sql){
+		List<String> fragments = new ArrayList<String>();
+		List<String> names = new ArrayList<String>();
+		StringBuilder fragment = new StringBuilder(sql.length());
+
+		int i = 0, len = sql.length();
+		char c;
+		while(i < len){
+			c = sql.charAt(i);
+
+			if(c == '\'' || c == '"' || c == '`'){
+				int end = skipQuoted(sql, i, c);
+				fragment.append(sql, i, end);
+				i = end;
+
+			} else if(c == '-' && i + 1 < len && sql.charAt(i + 1) == '-'){
+				int end = sql.indexOf('\n', i);
+				end = end < 0 ? len : end;
+				fragment.append(sql, i, end);
+				i = end;
+
+			} else if(c == '/' && i + 1 < len && sql.charAt(i + 1) == '*'){
+				int end = sql.indexOf("*/", i + 2);
+				end = end < 0 ? len : end + 2;
+				fragment.append(sql, i, end);
+				i = end;
+
+			} else if(c == ':' && i + 1 < len && sql.charAt(i + 1) == ':'){
+				fragment.append("::");
+				i += 2;
+
+			} else if(c == ':' && i + 1 < len && Character.isJavaIdentifierStart(sql.charAt(i + 1))){
+				int end = i + 1;
+				while(end < len && Character.isJavaIdentifierPart(sql.charAt(end))){
+					end++;
+				}
+
+				fragments.add(fragment.toString());
+				fragment.setLength(0);
+				names.add(sql.substring(i + 1, end));
+				i = end;
+
+			} else if(c == '?'){
+				throw new IllegalArgumentException("positional parameter '?' can not be used in sql template: " + sql);
+
+			} else {
+				fragment.append(c);
+				i++;
+			}
+		}
+		fragments.add(fragment.toString());
+
+		return new SqlTemplate(sql, fragments, names);
+	}
+
+	/**
+	 * @return 引号结束后的位置。两个连续的引号和反斜杠转义都视为引号内的内容
+	 */
+	static int skipQuoted(String sql, int start, char quote){
+		int i = start + 1, len = sql.length();
+		while(i < len){
+			char c = sql.charAt(i);
+			if(c == '\\' && quote != '`'){
+				i += 2;
+			} else if(c == quote){
+				if(i + 1 < len && sql.charAt(i + 1) == quote){
+					i += 2;
+				} else {
+					return i + 1;
+				}
+			} else {
+				i++;
+			}
+		}
+		return len;
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+}
@@ -0,0 +1,339 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.ConnectionPoolDataSource;
+
+/**
+ * 多租户连接池管理器。每个租户（库或schema）有自己的MiniConnectionPool，第一次使用时创建；
+ * 所有租户的容量之和不超过全局预算，所以物理连接总数也不超过预算。<br/>
+ * 租户池的容量从0开始，借用时没有空闲连接就向管理器申请一个容量：预算有剩余时直接分配，
+ * 否则按最近最少使用的顺序，从其他租户回收一个没有借出的容量（同时关闭多出的空闲连接）。
+ * 仍然没有容量时，所有租户的借用者在同一个等待队列上等待任意连接归还。<br/>
+ * 空闲的租户可以用evictIdle定期回收。线程安全
+ */
+public final class TenantPoolManager {
+	/**
+	 * 按租户创建数据源
+	 */
+	public interface DataSourceFactory {
+		public ConnectionPoolDataSource create(String tenant) throws SQLException;
+	}
+
+	private final DataSourceFactory factory;
+	private final int maxTotalConnections;
+	private final int maxPerTenant;
+	private final long timeoutMs;
+	private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<String, Tenant>();
+
+	//分配容量时持有，可以在持有时调用租户池
+	private final ReentrantLock budgetLock = new ReentrantLock();
+	private int allocated;
+	private boolean isDisposed;
+
+	//等待队列，持有时不调用租户池：租户池在自己的锁内通知归还
+	private final ReentrantLock waitLock = new ReentrantLock();
+	private final Condition released = waitLock.newCondition();
+	private long releases;
+
+	/**
+	 * @param factory 租户数据源的工厂
+	 * @param maxTotalConnections 所有租户的连接总数上限
+	 * @param maxPerTenant 每个租户的连接数上限
+	 * @param timeout 借用连接的最长等待时间，秒
+	 */
+	public TenantPoolManager(DataSourceFactory factory, int maxTotalConnections, int maxPerTenant, int timeout){
+		if(factory == null){
+			throw new IllegalArgumentException("factory can not be null");
+		}
+		if(maxTotalConnections < 1 || maxPerTenant < 1 || maxPerTenant > maxTotalConnections){
+			throw new IllegalArgumentException("Invalid maxTotalConnections or maxPerTenant value.");
+		}
+		this.factory = factory;
+		this.maxTotalConnections = maxTotalConnections;
+		this.maxPerTenant = maxPerTenant;
+		this.timeoutMs = timeout * 1000L;
+	}
+
+	/**
+	 * 借用租户的连接
+	 * @param tenant
+	 * @return
+	 * @throws SQLException
+	 * @throws MiniConnectionPool.TimeoutException 超时没有得到连接
+	 */
+	public Connection getConnection(String tenant) throws SQLException {
+		Tenant t = tenant(tenant);
+		MiniConnectionPool pool = t.pool();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+		while(true){
+			long seen = releases();
+			t.lastUsed = System.nanoTime();
+
+			Connection conn = pool.tryGetConnection();
+			if(conn != null) return conn;
+
+			if(grow(t)) continue;
+
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0){
+				throw pool.new TimeoutException("Timeout while waiting for a connection of tenant " + tenant
+						+ "(totalConnections:" + allocated + ";maxTotalConnections:" + maxTotalConnections + ")");
+			}
+			awaitRelease(seen, remaining);
+		}
+	}
+
+	/**
+	 * 回收长时间没有使用的租户的所有未借出容量，关闭它们的空闲连接
+	 * @param idleMs 超过这个时间没有借用的租户被回收
+	 * @return 回收的容量
+	 */
+	public int evictIdle(long idleMs) {
+		long now = System.nanoTime();
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+		int freed = 0;
+
+		budgetLock.lock();
+		try {
+			for(Tenant t : tenants.values()){
+				MiniConnectionPool pool = t.pool;
+				if(pool == null || now - t.lastUsed < idleNanos) continue;
+
+				while(pool.tryShrinkUnused()){
+					allocated--;
+					freed++;
+				}
+			}
+		} finally {
+			budgetLock.unlock();
+		}
+
+		if(freed > 0) signalRelease();
+		return freed;
+	}
+
+	/**
+	 * 销毁租户的连接池，已借出的连接归还时关闭
+	 * @param tenant
+	 * @throws SQLException
+	 */
+	public void removeTenant(String tenant) throws SQLException {
+		Tenant t = tenants.remove(tenant);
+		if(t == null || t.pool == null) return;
+
+		budgetLock.lock();
+		try {
+			allocated -= t.pool.getPoolSize();
+			t.pool.setCapacity(0);
+		} finally {
+			budgetLock.unlock();
+		}
+		t.pool.dispose();
+		signalRelease();
+	}
+
+	/**
+	 * 销毁所有租户的连接池
+	 * @throws SQLException 第一个关闭失败的异常
+	 */
+	public void dispose() throws SQLException {
+		budgetLock.lock();
+		try {
+			isDisposed = true;
+		} finally {
+			budgetLock.unlock();
+		}
+
+		SQLException error = null;
+		for(String tenant : new ArrayList<String>(tenants.keySet())){
+			try {
+				removeTenant(tenant);
+			} catch (SQLException e) {
+				if(error == null) error = e;
+			}
+		}
+		if(error != null) throw error;
+	}
+
+	/**
+	 * @return 已分配给租户的容量，即物理连接数的上限
+	 */
+	public int getTotalConnections() {
+		budgetLock.lock();
+		try {
+			return allocated;
+		} finally {
+			budgetLock.unlock();
+		}
+	}
+
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	/**
+	 * @return 已经创建连接池的租户
+	 */
+	public List<String> getTenants() {
+		List<String> result = new ArrayList<String>();
+		for(Tenant t : tenants.values()){
+			if(t.pool != null) result.add(t.name);
+		}
+		return result;
+	}
+
+	/**
+	 * @param tenant
+	 * @return 租户的连接池，还没有创建时返回null
+	 */
+	public MiniConnectionPool getPool(String tenant) {
+		Tenant t = tenants.get(tenant);
+		return t == null ? null : t.pool;
+	}
+
+	private Tenant tenant(String tenant){
+		if(tenant == null){
+			throw new IllegalArgumentException("tenant can not be null");
+		}
+		Tenant t = tenants.get(tenant);
+		if(t == null){
+			Tenant created = new Tenant(tenant);
+			t = tenants.putIfAbsent(tenant, created);
+			if(t == null) t = created;
+		}
+		return t;
+	}
+
+	/**
+	 * 给租户增加一个容量，预算用完时从最近最少使用的租户回收
+	 * @param t
+	 * @return 是否增加了容量
+	 */
+	private boolean grow(Tenant t){
+		budgetLock.lock();
+		try {
+			if(isDisposed){
+				throw new IllegalStateException("Tenant pool manager has been disposed.");
+			}
+			if(tenants.get(t.name) != t){
+				throw new IllegalStateException("Tenant " + t.name + " has been removed.");
+			}
+
+			MiniConnectionPool pool = t.pool;
+			int size = pool.getPoolSize();
+			if(size >= maxPerTenant) return false;
+
+			if(allocated >= maxTotalConnections){
+				if(!reclaim(t)) return false;
+				allocated--;
+			}
+
+			pool.setCapacity(size + 1);
+			allocated++;
+			return true;
+		} finally {
+			budgetLock.unlock();
+		}
+	}
+
+	/**
+	 * 按最近最少使用的顺序，从其他租户回收一个未借出的容量。
+	 * 检查和缩小由MiniConnectionPool.tryShrinkUnused在池的锁内完成，期间被借走的租户跳过
+	 * @param requester
+	 * @return 是否回收了容量
+	 */
+	private boolean reclaim(Tenant requester){
+		List<Tenant> candidates = new ArrayList<Tenant>();
+		for(Tenant t : tenants.values()){
+			if(t != requester && t.pool != null && t.pool.getPoolSize() > 0){
+				candidates.add(t);
+			}
+		}
+
+		while(!candidates.isEmpty()){
+			int victim = 0;
+			for(int i=1; i<candidates.size(); i++){
+				if(candidates.get(i).lastUsed - candidates.get(victim).lastUsed < 0){
+					victim = i;
+				}
+			}
+			if(candidates.remove(victim).pool.tryShrinkUnused()) return true;
+		}
+		return false;
+	}
+
+	private long releases(){
+		waitLock.lock();
+		try {
+			return releases;
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	private void signalRelease(){
+		waitLock.lock();
+		try {
+			releases++;
+			released.signalAll();
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	/**
+	 * 等待任意租户归还连接或释放容量
+	 * @param seen 开始尝试前的归还计数，期间有归还时立即返回
+	 * @param nanos
+	 */
+	private void awaitRelease(long seen, long nanos){
+		waitLock.lock();
+		try {
+			while(releases == seen && nanos > 0){
+				nanos = released.awaitNanos(nanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for a database connection.", e);
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	private final class Tenant {
+		final String name;
+		volatile MiniConnectionPool pool;
+		volatile long lastUsed = System.nanoTime();
+
+		Tenant(String name){
+			this.name = name;
+		}
+
+		/**
+		 * 第一次使用时创建连接池，容量为0，借用时再从预算申请
+		 */
+		MiniConnectionPool pool() throws SQLException {
+			MiniConnectionPool pool = this.pool;
+			if(pool != null) return pool;
+
+			synchronized(this){
+				if(this.pool == null){
+					MiniConnectionPool created = new MiniConnectionPool(factory.create(name), maxPerTenant, (int) (timeoutMs / 1000));
+					created.setCapacity(0);
+					created.setReleaseListener(TenantPoolManager.this::signalRelease);
+					this.pool = created;
+				}
+				return this.pool;
+			}
+		}
+	}
+}
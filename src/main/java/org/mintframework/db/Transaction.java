@@ -14,6 +14,7 @@ import java.util.List;
 public class Transaction {
 	final Connection conn;
 	final List<TransactionItem> items;
+	private SQLException lastError;
 	
 	private Transaction(Connection conn){
 		this.conn = conn;
@@ -121,8 +122,27 @@ public class Transaction {
 		return this.conn;
 	}
 	
+	/**
+	 * @return execute()失败的原因，成功时为null
+	 */
+	public SQLException getLastError(){
+		return this.lastError;
+	}
+	
 	private SQLExecutor addAllItems() throws SQLException{
 		SQLExecutor runner = new SQLExecutor();
+		executeItems(runner, conn, items);
+		return runner;
+	}
+	
+	/**
+	 * 依次执行事务操作项，一维数组参数执行update，二维数组参数执行batch
+	 * @param runner
+	 * @param conn
+	 * @param items
+	 * @throws SQLException
+	 */
+	static void executeItems(SQLExecutor runner, Connection conn, List<TransactionItem> items) throws SQLException{
 		for(TransactionItem item : items){
 			if((item.params == null || item.params instanceof Object[]) && !(item.params instanceof Object[][])){
 				runner.update(conn, item.sql, (Object[])item.params);
@@ -130,8 +150,6 @@ public class Transaction {
 				runner.batch(conn, item.sql, (Object[][])item.params);
 			}
 		}
-		
-		return runner;
 	}
 	
 	private boolean exe(){
@@ -149,9 +167,11 @@ public class Transaction {
 		try {
 			addAllItems();
 			conn.commit();
+			lastError = null;
 			result = true;
 		} catch (SQLException e) {
 			e.printStackTrace();
+			lastError = e;
 			try {
 				conn.rollback();
 			} catch (SQLException e1) {
@@ -170,7 +190,8 @@ public class Transaction {
 	}
 	
 	/**
-	 * 自动执行已添加的事务，事务失败是自动回滚。执行完毕后自动关闭连接
+	 * 自动执行已添加的事务，事务失败是自动回滚。执行完毕后自动关闭连接。
+	 * 失败的原因见{@link #getLastError()}，死锁等可以重试的失败可以用{@link TransactionRunner}自动重试
 	 * @return 事务执行成功与否
 	 */
 	public boolean execute(){
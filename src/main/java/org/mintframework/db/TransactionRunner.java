@@ -0,0 +1,315 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 自动重试的事务执行器。事务因死锁、序列化冲突或锁等待超时失败时回滚，等待一段时间后
+ * 从连接池重新借用连接，把整个事务从头再执行一遍，最多maxAttempts次。<br/>
+ * 可重试的失败默认由{@link #isRetryable}按SQLState和厂商错误码判断：SQLState 40001（序列化失败/死锁）、
+ * 40P01（PostgreSQL死锁）、没有SQLState的SQLTransactionRollbackException、MySQL 1213（死锁）和1205（锁等待超时）、
+ * Oracle ORA-00060和ORA-08177。40002（完整性约束）、40003（语句完成状态未知）等其他40类状态不重试。<br/>
+ * 两次尝试之间按指数退避加全抖动等待：在0到min(maxDelay, baseDelay * 2^(n-1))之间随机，
+ * 等待期间不持有连接。每次尝试在借来的连接上关闭自动提交，结束后恢复原来的设置再归还。<br/>
+ * 线程安全，可以在多个线程间共用
+ */
+public final class TransactionRunner {
+	private static final int DEFAULT_MAX_ATTEMPTS = 5;
+	private static final long DEFAULT_BASE_DELAY_MS = 10;
+	private static final long DEFAULT_MAX_DELAY_MS = 1000;
+
+	/**
+	 * 事务中的操作，每次重试都会在新的连接上重新执行，不能有事务之外的副作用
+	 * @param <T>
+	 */
+	public interface Work<T> {
+		public T run(Connection conn) throws SQLException;
+	}
+
+	private final MiniConnectionPool pool;
+	private volatile SQLExecutor executor = new SQLExecutor();
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private volatile long baseDelayMs = DEFAULT_BASE_DELAY_MS;
+	private volatile long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+	private volatile Predicate<SQLException> retryable = TransactionRunner::isRetryable;
+
+	private final LongAdder transactions = new LongAdder();
+	private final LongAdder commits = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder recovered = new LongAdder();
+	private final LongAdder exhausted = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+
+	public TransactionRunner(MiniConnectionPool pool){
+		if(pool == null){
+			throw new IllegalArgumentException("pool can not be null");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * @param executor 执行事务操作项的执行器
+	 * @return 执行器本身
+	 */
+	public TransactionRunner setExecutor(SQLExecutor executor) {
+		if(executor == null){
+			throw new IllegalArgumentException("executor can not be null");
+		}
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * @param maxAttempts 最多执行几次，包括第一次，默认5
+	 * @return 执行器本身
+	 */
+	public TransactionRunner setMaxAttempts(int maxAttempts) {
+		if(maxAttempts < 1){
+			throw new IllegalArgumentException("invalid maxAttempts: " + maxAttempts);
+		}
+		this.maxAttempts = maxAttempts;
+		return this;
+	}
+
+	/**
+	 * @param baseDelayMs 第一次重试前最多等待的时间，之后每次翻倍，默认10毫秒
+	 * @param maxDelayMs 每次重试前最多等待的时间，默认1秒
+	 * @return 执行器本身
+	 */
+	public TransactionRunner setBackoff(long baseDelayMs, long maxDelayMs) {
+		if(baseDelayMs < 0 || maxDelayMs < baseDelayMs){
+			throw new IllegalArgumentException("invalid backoff: " + baseDelayMs + ", " + maxDelayMs);
+		}
+		this.baseDelayMs = baseDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		return this;
+	}
+
+	/**
+	 * @param retryable 判断失败是否可以重试，默认为{@link #isRetryable}
+	 * @return 执行器本身
+	 */
+	public TransactionRunner setRetryable(Predicate<SQLException> retryable) {
+		if(retryable == null){
+			throw new IllegalArgumentException("retryable can not be null");
+		}
+		this.retryable = retryable;
+		return this;
+	}
+
+	/**
+	 * 在一个事务中依次执行操作项，可以重试的失败自动重试
+	 * @param items 操作项，参数为一维数组时执行update，二维数组时执行batch
+	 * @throws SQLException 不能重试的失败，或者用完重试次数后最后一次的失败
+	 */
+	public void execute(final List<TransactionItem> items) throws SQLException {
+		execute(new Work<Void>() {
+			public Void run(Connection conn) throws SQLException {
+				Transaction.executeItems(executor, conn, items);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * @see #execute(List)
+	 */
+	public void execute(TransactionItem... items) throws SQLException {
+		execute(Arrays.asList(items));
+	}
+
+	/**
+	 * 在一个事务中执行work并提交，可以重试的失败自动重试
+	 * @param work
+	 * @return work的返回值
+	 * @throws SQLException 不能重试的失败，或者用完重试次数后最后一次的失败
+	 */
+	public <T> T execute(final Work<T> work) throws SQLException {
+		return retry(new Attempt<T>() {
+			public T run() throws SQLException {
+				return runOnce(work);
+			}
+		});
+	}
+
+	/**
+	 * 一次完整的事务尝试，包括借用连接、提交或回滚、归还连接
+	 */
+	interface Attempt<T> {
+		T run() throws SQLException;
+	}
+
+	/**
+	 * 按重试策略执行attempt并记录计数，供TransactionTemplate使用
+	 */
+	<T> T retry(Attempt<T> attempt) throws SQLException {
+		transactions.increment();
+		for(int n = 1; ; n++){
+			try {
+				T result = attempt.run();
+				commits.increment();
+				if(n > 1){
+					recovered.increment();
+				}
+				return result;
+			} catch (SQLException e) {
+				if(!retryable.test(e)){
+					failures.increment();
+					throw e;
+				}
+				if(n >= maxAttempts){
+					exhausted.increment();
+					throw e;
+				}
+
+				retries.increment();
+				try {
+					Thread.sleep(backoff(n));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					failures.increment();
+					throw e;
+				}
+			} catch (RuntimeException e) {
+				failures.increment();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * 借用连接执行一次事务，失败时回滚，结束后恢复自动提交并归还连接
+	 */
+	private <T> T runOnce(Work<T> work) throws SQLException {
+		Connection conn = pool.getConnection();
+		try {
+			boolean autoCommit = conn.getAutoCommit();
+			if(autoCommit){
+				conn.setAutoCommit(false);
+			}
+			try {
+				T result = work.run(conn);
+				conn.commit();
+				return result;
+			} catch (SQLException | RuntimeException e) {
+				rollbackQuietly(conn, e);
+				throw e;
+			} finally {
+				if(autoCommit){
+					conn.setAutoCommit(true);
+				}
+			}
+		} finally {
+			conn.close();
+		}
+	}
+
+	static void rollbackQuietly(Connection conn, Exception cause){
+		try {
+			conn.rollback();
+		} catch (SQLException e) {
+			cause.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * @param attempt 已经失败的次数
+	 * @return 下次重试前等待的毫秒数
+	 */
+	long backoff(int attempt){
+		long ceiling = baseDelayMs << Math.min(attempt - 1, 30);
+		if(ceiling <= 0 || ceiling > maxDelayMs){
+			ceiling = maxDelayMs;
+		}
+		return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	/**
+	 * 判断是否是重新执行事务可能成功的失败：死锁、序列化冲突或锁等待超时。检查异常链和getNextException链
+	 * @param e
+	 * @return
+	 */
+	public static boolean isRetryable(SQLException e) {
+		for(SQLException ex = e; ex != null; ex = ex.getNextException()){
+			for(Throwable t = ex; t != null; t = t.getCause()){
+				if(t instanceof SQLException && isRetryableSingle((SQLException) t)){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isRetryableSingle(SQLException e){
+		String state = e.getSQLState();
+		//40001：序列化失败，SQL Server和MySQL的死锁也使用；40P01：PostgreSQL死锁。
+		//其他40类状态虽然也表示事务已被回滚，但重新执行不会成功（40002）或者结果未知（40003）
+		if("40001".equals(state) || "40P01".equals(state)){
+			return true;
+		}
+		//驱动把所有40类状态都映射为SQLTransactionRollbackException，只有没有给出SQLState时才按类型判断
+		if(e instanceof SQLTransactionRollbackException && (state == null || state.isEmpty())){
+			return true;
+		}
+
+		switch(e.getErrorCode()){
+		case 1213:	//MySQL ER_LOCK_DEADLOCK
+		case 1205:	//MySQL ER_LOCK_WAIT_TIMEOUT，SQL Server的死锁也是1205
+			return true;
+		case 60:	//ORA-00060 deadlock detected
+			return "61000".equals(state);
+		case 8177:	//ORA-08177 can't serialize access
+			return "72000".equals(state);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return 开始执行的事务数
+	 */
+	public long getTransactionCount() {
+		return transactions.sum();
+	}
+
+	/**
+	 * @return 提交成功的事务数
+	 */
+	public long getCommitCount() {
+		return commits.sum();
+	}
+
+	/**
+	 * @return 重试的总次数
+	 */
+	public long getRetryCount() {
+		return retries.sum();
+	}
+
+	/**
+	 * @return 经过重试后提交成功的事务数
+	 */
+	public long getRecoveredCount() {
+		return recovered.sum();
+	}
+
+	/**
+	 * @return 用完重试次数仍然失败的事务数
+	 */
+	public long getExhaustedCount() {
+		return exhausted.sum();
+	}
+
+	/**
+	 * @return 因为不能重试的失败而放弃的事务数
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+}
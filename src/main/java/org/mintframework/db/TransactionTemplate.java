@@ -0,0 +1,299 @@
+package org.mintframework.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 回调式的事务模板，绑定一个MiniConnectionPool，由模板负责借用连接、提交、回滚、恢复自动提交和归还连接：<br/>
+ * template.execute(tx -> executor.update(tx.getConnection(), sql, params));<br/>
+ * 连接在回调第一次调用Context.getConnection()时才借用，回调结束后立即提交并归还，
+ * 不访问数据库的事务不占用连接。<br/>
+ * 传播：当前线程已经在本模板的事务中时，REQUIRED加入这个事务，REQUIRES_NEW挂起它并开始新事务，
+ * MANDATORY要求已经有事务。在其他线程中继续同一个事务时，用executeIn显式传入Context。
+ * 加入的回调失败时整个事务只能回滚，外层回调即使吞掉了异常，提交时也会回滚并抛出SQLState为40000的异常，cause是第一个失败。<br/>
+ * 设置了TransactionRunner时，新开始的事务按它的策略重试，每次重试重新执行整个回调；加入的事务不单独重试。<br/>
+ * 线程安全，可以在多个线程间共用
+ */
+public final class TransactionTemplate {
+	public enum Propagation {
+		/** 加入当前事务，没有时开始新事务 */
+		REQUIRED,
+		/** 总是开始新事务，当前事务在回调期间挂起，需要第二个连接 */
+		REQUIRES_NEW,
+		/** 加入当前事务，没有时抛出IllegalStateException */
+		MANDATORY
+	}
+
+	/**
+	 * 事务中执行的回调
+	 * @param <T>
+	 */
+	public interface Callback<T> {
+		public T doInTransaction(Context tx) throws SQLException;
+	}
+
+	private final MiniConnectionPool pool;
+	private final ThreadLocal<Context> current = new ThreadLocal<Context>();
+	private volatile TransactionRunner retry;
+
+	public TransactionTemplate(MiniConnectionPool pool){
+		if(pool == null){
+			throw new IllegalArgumentException("pool can not be null");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * @param retry 新开始的事务使用它的重试策略和计数，为null时不重试
+	 * @return 模板本身
+	 */
+	public TransactionTemplate setRetry(TransactionRunner retry) {
+		this.retry = retry;
+		return this;
+	}
+
+	/**
+	 * 以REQUIRED方式执行
+	 * @param callback
+	 * @return 回调的返回值
+	 * @throws SQLException
+	 */
+	public <T> T execute(Callback<T> callback) throws SQLException {
+		return execute(Propagation.REQUIRED, callback);
+	}
+
+	/**
+	 * @param propagation
+	 * @param callback
+	 * @return 回调的返回值
+	 * @throws SQLException 回调、提交或回滚抛出的异常
+	 */
+	public <T> T execute(Propagation propagation, final Callback<T> callback) throws SQLException {
+		Context existing = current.get();
+		if(propagation == Propagation.MANDATORY && existing == null){
+			throw new IllegalStateException("No transaction in progress");
+		}
+		if(existing != null && propagation != Propagation.REQUIRES_NEW){
+			return join(existing, callback);
+		}
+
+		TransactionRunner retry = this.retry;
+		if(retry == null){
+			return runNew(callback);
+		}
+		return retry.retry(new TransactionRunner.Attempt<T>() {
+			public T run() throws SQLException {
+				return runNew(callback);
+			}
+		});
+	}
+
+	/**
+	 * 在指定的事务中执行回调，用于把事务交给其他线程继续。回调期间当前线程的事务就是tx。
+	 * 同一个Context不能被多个线程同时使用
+	 * @param tx 还没有结束的事务
+	 * @param callback
+	 * @return 回调的返回值
+	 * @throws SQLException
+	 */
+	public <T> T executeIn(Context tx, Callback<T> callback) throws SQLException {
+		if(tx == null || tx.template != this){
+			throw new IllegalArgumentException("transaction does not belong to this template");
+		}
+		return join(tx, callback);
+	}
+
+	/**
+	 * @return 当前线程所在的本模板的事务，没有时返回null
+	 */
+	public Context currentTransaction() {
+		return current.get();
+	}
+
+	private <T> T join(Context tx, Callback<T> callback) throws SQLException {
+		if(tx.completed){
+			throw new IllegalStateException("Transaction has already completed");
+		}
+
+		Context previous = current.get();
+		current.set(tx);
+		try {
+			return callback.doInTransaction(tx);
+		} catch (SQLException | RuntimeException | Error e) {
+			if(tx.failure == null) tx.failure = e;
+			throw e;
+		} finally {
+			restore(previous);
+		}
+	}
+
+	private <T> T runNew(Callback<T> callback) throws SQLException {
+		Context previous = current.get();
+		Context tx = new Context(this);
+		current.set(tx);
+		T result;
+		try {
+			result = callback.doInTransaction(tx);
+		} catch (SQLException | RuntimeException | Error e) {
+			restore(previous);
+			tx.completeQuietly(e);
+			throw e;
+		}
+
+		restore(previous);
+		tx.complete();
+		return result;
+	}
+
+	private void restore(Context previous){
+		if(previous == null){
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * 一个进行中的事务
+	 */
+	public static final class Context {
+		private final TransactionTemplate template;
+		private Connection conn;
+		private boolean restoreAutoCommit;
+		private boolean rollbackOnly;
+		private Throwable failure;
+		private boolean completed;
+
+		private Context(TransactionTemplate template){
+			this.template = template;
+		}
+
+		/**
+		 * 第一次调用时从连接池借用连接并关闭自动提交，之后返回同一个连接。不要关闭这个连接
+		 * @return
+		 * @throws SQLException
+		 */
+		public Connection getConnection() throws SQLException {
+			if(completed){
+				throw new IllegalStateException("Transaction has already completed");
+			}
+			if(conn == null){
+				Connection borrowed = template.pool.getConnection();
+				try {
+					if(borrowed.getAutoCommit()){
+						borrowed.setAutoCommit(false);
+						restoreAutoCommit = true;
+					}
+				} catch (SQLException e) {
+					borrowed.close();
+					throw e;
+				}
+				conn = borrowed;
+			}
+			return conn;
+		}
+
+		/**
+		 * @return 是否已经借用了连接
+		 */
+		public boolean hasConnection() {
+			return conn != null;
+		}
+
+		/**
+		 * 回调正常结束后回滚而不是提交
+		 */
+		public void setRollbackOnly() {
+			rollbackOnly = true;
+		}
+
+		public boolean isRollbackOnly() {
+			return rollbackOnly || failure != null;
+		}
+
+		public boolean isCompleted() {
+			return completed;
+		}
+
+		/**
+		 * 回调正常结束：提交，或者在标记了回滚时回滚
+		 */
+		void complete() throws SQLException {
+			completed = true;
+			if(conn == null){
+				if(failure != null){
+					throw rolledBack();
+				}
+				return;
+			}
+
+			try {
+				if(failure != null){
+					conn.rollback();
+					throw rolledBack();
+				} else if(rollbackOnly){
+					conn.rollback();
+				} else {
+					conn.commit();
+				}
+			} catch (SQLException | RuntimeException e) {
+				//提交失败时事务状态不确定，回滚后再归还连接
+				if(failure == null){
+					TransactionRunner.rollbackQuietly(conn, e);
+				}
+				SQLException error = release();
+				if(error != null) e.addSuppressed(error);
+				throw e;
+			}
+			SQLException error = release();
+			if(error != null) throw error;
+		}
+
+		/**
+		 * 回调失败：回滚，异常都附加到cause上
+		 */
+		void completeQuietly(Throwable cause) {
+			completed = true;
+			if(conn == null) return;
+
+			try {
+				conn.rollback();
+			} catch (SQLException e) {
+				cause.addSuppressed(e);
+			}
+			SQLException error = release();
+			if(error != null) cause.addSuppressed(error);
+		}
+
+		/**
+		 * 恢复自动提交并归还连接
+		 * @return 第一个失败，没有失败时返回null
+		 */
+		private SQLException release() {
+			Connection conn = this.conn;
+			this.conn = null;
+			SQLException error = null;
+			try {
+				if(restoreAutoCommit){
+					conn.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				error = e;
+			} finally {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					if(error == null) error = e;
+				}
+			}
+			return error;
+		}
+
+		/**
+		 * 40000：事务已回滚。加入的回调的失败作为cause，TransactionRunner据此判断是否重试
+		 */
+		private SQLException rolledBack(){
+			return new SQLException("Transaction rolled back because a joined callback failed", "40000", failure);
+		}
+	}
+}
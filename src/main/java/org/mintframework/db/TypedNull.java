@@ -0,0 +1,50 @@
+package org.mintframework.db;
+
+import java.sql.Types;
+
+/**
+ * 带sql类型的null参数。<br/>
+ * 直接传入null时，绑定器使用同一条sql上次见到的参数类型或者Types.NULL调用setNull；
+ * 部分驱动要求明确的类型时，用TypedNull.of(Types.XXX)代替null
+ */
+public final class TypedNull {
+	public static final TypedNull VARCHAR = new TypedNull(Types.VARCHAR);
+	public static final TypedNull INTEGER = new TypedNull(Types.INTEGER);
+	public static final TypedNull BIGINT = new TypedNull(Types.BIGINT);
+	public static final TypedNull DECIMAL = new TypedNull(Types.DECIMAL);
+	public static final TypedNull DOUBLE = new TypedNull(Types.DOUBLE);
+	public static final TypedNull BOOLEAN = new TypedNull(Types.BOOLEAN);
+	public static final TypedNull DATE = new TypedNull(Types.DATE);
+	public static final TypedNull TIMESTAMP = new TypedNull(Types.TIMESTAMP);
+	public static final TypedNull BLOB = new TypedNull(Types.BLOB);
+	
+	public final int sqlType;
+	
+	private TypedNull(int sqlType){
+		this.sqlType = sqlType;
+	}
+	
+	/**
+	 * @param sqlType java.sql.Types中的常量
+	 * @return
+	 */
+	public static TypedNull of(int sqlType){
+		switch (sqlType) {
+		case Types.VARCHAR: return VARCHAR;
+		case Types.INTEGER: return INTEGER;
+		case Types.BIGINT: return BIGINT;
+		case Types.DECIMAL: return DECIMAL;
+		case Types.DOUBLE: return DOUBLE;
+		case Types.BOOLEAN: return BOOLEAN;
+		case Types.DATE: return DATE;
+		case Types.TIMESTAMP: return TIMESTAMP;
+		case Types.BLOB: return BLOB;
+		default: return new TypedNull(sqlType);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "NULL(" + sqlType + ")";
+	}
+}
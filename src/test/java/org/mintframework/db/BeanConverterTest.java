@@ -0,0 +1,172 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class BeanConverterTest {
+
+	public static class Document {
+		private long id;
+		private InputStream body;
+		private Reader text;
+
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public InputStream getBody() {
+			return body;
+		}
+		public void setBody(InputStream body) {
+			this.body = body;
+		}
+		public Reader getText() {
+			return text;
+		}
+		public void setText(Reader text) {
+			this.text = text;
+		}
+	}
+
+	public static class Event {
+		private long id;
+		private Instant at;
+		private OffsetDateTime offsetAt;
+		private LocalDateTime local;
+		private UUID key;
+
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public Instant getAt() {
+			return at;
+		}
+		public void setAt(Instant at) {
+			this.at = at;
+		}
+		public OffsetDateTime getOffsetAt() {
+			return offsetAt;
+		}
+		public void setOffsetAt(OffsetDateTime offsetAt) {
+			this.offsetAt = offsetAt;
+		}
+		public LocalDateTime getLocal() {
+			return local;
+		}
+		public void setLocal(LocalDateTime local) {
+			this.local = local;
+		}
+		public UUID getKey() {
+			return key;
+		}
+		public void setKey(UUID key) {
+			this.key = key;
+		}
+	}
+
+	private static FakeJdbc documents() {
+		return new FakeJdbc().respond(execution -> FakeJdbc.table("id", Types.BIGINT, "body", Types.BLOB, "text", Types.CLOB)
+				.row(1L, new byte[]{1, 2, 3}, "first")
+				.row(2L, new byte[]{4}, "second"));
+	}
+
+	@Test
+	public void streamFieldsAreReadableWhileTheRowIsHandled() throws Exception {
+		Connection conn = documents().connection();
+		final List<String> seen = new ArrayList<String>();
+
+		int rows = new SQLExecutor().forEachBean(conn, Document.class, null, doc -> {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				int b;
+				while((b = doc.getBody().read()) >= 0) bytes.write(b);
+				StringWriter text = new StringWriter();
+				char[] buffer = new char[16];
+				int n;
+				while((n = doc.getText().read(buffer)) >= 0) text.write(buffer, 0, n);
+				seen.add(doc.getId() + ":" + bytes.size() + ":" + text);
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+		}, "select id, body, text from document");
+
+		assertEquals(2, rows);
+		assertEquals("[1:3:first, 2:1:second]", seen.toString());
+	}
+
+	@Test
+	public void streamFieldsAreRejectedWhenBeansOutliveTheRow() {
+		SQLExecutor executor = new SQLExecutor();
+		Connection conn = documents().connection();
+		String sql = "select id, body, text from document";
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> executor.selectBeanList(conn, Document.class, null, sql));
+		assertTrue(e.getMessage().contains("forEachBean"));
+		assertThrows(IllegalArgumentException.class, () -> executor.selectBean(conn, Document.class, null, sql, 1));
+		assertThrows(IllegalArgumentException.class, () -> executor.selectBeanLongMap(conn, Document.class, null, Document::getId, sql));
+		assertThrows(IllegalArgumentException.class, () -> executor.selectBeanGroups(conn, Document.class, null, Document::getId, sql));
+		assertThrows(IllegalArgumentException.class, () -> executor.selectScalar(conn, InputStream.class, sql));
+		assertThrows(IllegalArgumentException.class, () -> executor.selectScalarList(conn, Reader.class, sql));
+	}
+
+	@Test
+	public void temporalAndUuidFieldsAreReadWhenTheDriverRejectsTypedGetObject() throws SQLException {
+		LocalDateTime time = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+		UUID key = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+		byte[] binaryKey = ByteBuffer.allocate(16).putLong(key.getMostSignificantBits()).putLong(key.getLeastSignificantBits()).array();
+		Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+
+		for(FakeJdbc.TypedGetObject typedGetObject : FakeJdbc.TypedGetObject.values()){
+			//mysql 5.1把DATETIME当作字符串返回，UUID分别以CHAR(36)和BINARY(16)存储
+			FakeJdbc jdbc = new FakeJdbc().respond(execution -> FakeJdbc.table("id", Types.BIGINT, "at", Types.TIMESTAMP,
+					"offset_at", Types.TIMESTAMP, "local", Types.TIMESTAMP, "key", Types.CHAR)
+					.typedGetObject(typedGetObject)
+					.row(1L, Timestamp.valueOf(time), "2026-01-02 03:04:05", Timestamp.valueOf(time), key.toString())
+					.row(2L, Timestamp.valueOf(time), Timestamp.valueOf(time), "2026-01-02 03:04:05", binaryKey)
+					.row(3L, null, null, null, null));
+
+			List<Event> events = new SQLExecutor().selectBeanList(jdbc.connection(), Event.class, null, "select * from event");
+
+			assertEquals(3, events.size());
+			for(Event event : events.subList(0, 2)){
+				assertEquals(typedGetObject.name(), instant, event.getAt());
+				assertEquals(typedGetObject.name(), instant, event.getOffsetAt().toInstant());
+				assertEquals(typedGetObject.name(), time, event.getLocal());
+				assertEquals(typedGetObject.name(), key, event.getKey());
+			}
+			Event empty = events.get(2);
+			assertNull(empty.getAt());
+			assertNull(empty.getOffsetAt());
+			assertNull(empty.getLocal());
+			assertNull(empty.getKey());
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class BulkLoaderTest {
+
+	private static String encode(boolean postgres, int maxRows, Object[]... rows) throws IOException {
+		Iterator<Object[]> iterator = Arrays.asList(rows).iterator();
+		InputStream in = new BulkLoader.TsvRowStream(iterator, rows[0].length, maxRows, postgres);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[3];
+		int n;
+		while((n = in.read(buffer, 0, buffer.length)) > 0){
+			out.write(buffer, 0, n);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void escapesTextAndNull() throws IOException {
+		String tsv = encode(false, 10, new Object[]{"a\tb\nc\\d", null, true, 7});
+		assertEquals("a\\tb\\nc\\\\d\t\\N\t1\t7\n", tsv);
+	}
+
+	@Test
+	public void encodesUtf8() throws IOException {
+		assertEquals("中文😀\n", encode(true, 10, new Object[]{"中文😀"}));
+	}
+
+	@Test
+	public void mysqlWritesRawEscapedBytes() throws IOException {
+		String tsv = encode(false, 10, new Object[]{new byte[]{'A', 0, '\t', '\\'}});
+		assertEquals("A\\0\\t\\\\\n", tsv);
+	}
+
+	@Test
+	public void mysqlEscapesNulInText() throws IOException {
+		assertEquals("a\\0b\n", encode(false, 10, new Object[]{"a\0b"}));
+	}
+
+	@Test
+	public void postgresWritesByteaAsHex() throws IOException {
+		String tsv = encode(true, 10, new Object[]{new byte[]{0, (byte) 0xff, '\n', 0x10}, "x"});
+		assertEquals("\\\\x00ff0a10\tx\n", tsv);
+	}
+
+	@Test
+	public void postgresRejectsNulInText() {
+		assertThrows(IllegalArgumentException.class, () -> encode(true, 10, new Object[]{"a\0b"}));
+	}
+
+	@Test
+	public void stopsAfterMaxRows() throws IOException {
+		Iterator<Object[]> rows = Arrays.asList(new Object[]{1}, new Object[]{2}, new Object[]{3}).iterator();
+		BulkLoader.TsvRowStream in = new BulkLoader.TsvRowStream(rows, 1, 2, false);
+		byte[] buffer = new byte[64];
+		int total = 0, n;
+		while((n = in.read(buffer, total, buffer.length - total)) > 0){
+			total += n;
+		}
+		assertEquals("1\n2\n", new String(buffer, 0, total, StandardCharsets.UTF_8));
+		assertEquals(2, in.getRows());
+		assertTrue(rows.hasNext());
+	}
+
+	@Test
+	public void rejectsRowsOfTheWrongWidth() {
+		assertThrows(IllegalArgumentException.class, () -> encode(false, 10, new Object[]{1, 2}, new Object[]{1}));
+	}
+}
@@ -0,0 +1,171 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ChangeTrackerTest {
+	private final FakeJdbc jdbc = new FakeJdbc();
+	private final Connection conn = jdbc.connection();
+	private final BeanWriter<Account> writer = new SQLExecutor().beanWriter(Account.class, "account", null, "id");
+	private final ChangeTracker<Account> tracker = writer.tracker();
+
+	public static class Account {
+		private long id;
+		private String name;
+		private int balance;
+		private byte[] avatar;
+		private Date updated;
+
+		public Account() {
+		}
+		public Account(long id, String name, int balance) {
+			this.id = id;
+			this.name = name;
+			this.balance = balance;
+			this.avatar = new byte[]{1, 2};
+			this.updated = new Date(1000);
+		}
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public String getName() {
+			return name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+		public int getBalance() {
+			return balance;
+		}
+		public void setBalance(int balance) {
+			this.balance = balance;
+		}
+		public byte[] getAvatar() {
+			return avatar;
+		}
+		public void setAvatar(byte[] avatar) {
+			this.avatar = avatar;
+		}
+		public Date getUpdated() {
+			return updated;
+		}
+		public void setUpdated(Date updated) {
+			this.updated = updated;
+		}
+	}
+
+	@Test
+	public void onlyChangedColumnsAreUpdated() throws SQLException {
+		Account account = tracker.track(new Account(1, "a", 10));
+		assertFalse(tracker.isDirty(account));
+		assertEquals(0, tracker.update(conn, account));
+		assertEquals(0, jdbc.executions.size());
+
+		account.setName("b");
+		assertEquals(Arrays.asList("name"), tracker.getChangedColumns(account));
+		assertEquals(1, tracker.update(conn, account));
+
+		FakeJdbc.Execution execution = jdbc.last();
+		assertEquals("UPDATE account SET name = ? WHERE id = ?", execution.sql);
+		assertArrayEquals(new Object[]{"b", 1L}, execution.params);
+		assertFalse(tracker.isDirty(account));
+	}
+
+	@Test
+	public void changedKeysAreLocatedByTheSnapshot() throws SQLException {
+		Account account = tracker.track(new Account(1, "a", 10));
+
+		account.setId(2);
+		account.setBalance(20);
+		tracker.update(conn, account);
+		assertTrue(jdbc.last().sql.endsWith("WHERE id = ?"));
+		assertEquals(1L, jdbc.last().params[jdbc.last().params.length - 1]);
+		assertTrue(Arrays.asList(jdbc.last().params).contains(2L));
+
+		//快照已经刷新，下次按新的主键更新
+		account.setName("b");
+		tracker.update(conn, account);
+		assertArrayEquals(new Object[]{"b", 2L}, jdbc.last().params);
+	}
+
+	@Test
+	public void mutableValuesAreCopiedIntoTheSnapshot() {
+		Account account = tracker.track(new Account(1, "a", 10));
+
+		account.getAvatar()[0] = 9;
+		assertEquals(Arrays.asList("avatar"), tracker.getChangedColumns(account));
+		account.getAvatar()[0] = 1;
+		assertFalse(tracker.isDirty(account));
+
+		account.getUpdated().setTime(2000);
+		assertEquals(Arrays.asList("updated"), tracker.getChangedColumns(account));
+
+		//内容相同的新数组不算修改
+		account.getUpdated().setTime(1000);
+		account.setAvatar(new byte[]{1, 2});
+		assertFalse(tracker.isDirty(account));
+	}
+
+	@Test
+	public void beansAreGroupedByChangedColumns() throws SQLException {
+		Account a = tracker.track(new Account(1, "a", 10));
+		Account b = tracker.track(new Account(2, "b", 20));
+		Account c = tracker.track(new Account(3, "c", 30));
+		Account untracked = new Account(4, "d", 40);
+
+		a.setName("a2");
+		b.setBalance(21);
+		c.setName("c2");
+		assertEquals(4, tracker.update(conn, Arrays.asList(a, b, c, untracked), 0));
+
+		List<FakeJdbc.Execution> names = jdbc.executions("UPDATE account SET name = ? WHERE");
+		assertEquals(2, names.size());
+		assertArrayEquals(new Object[]{"a2", 1L}, names.get(0).params);
+		assertArrayEquals(new Object[]{"c2", 3L}, names.get(1).params);
+		assertEquals(1, jdbc.executions("UPDATE account SET balance = ? WHERE").size());
+		assertEquals(writer.getUpdateSql(), jdbc.last().sql);
+
+		assertFalse(tracker.isDirty(a));
+		assertFalse(tracker.isTracked(untracked));
+	}
+
+	@Test
+	public void groupsWrittenBeforeAFailureKeepTheirNewSnapshots() {
+		Account a = tracker.track(new Account(1, "a", 10));
+		Account b = tracker.track(new Account(2, "b", 20));
+		Account untracked = new Account(3, "c", 30);
+		a.setName("a2");
+		b.setBalance(21);
+
+		//balance组失败
+		jdbc.respond(execution -> {
+			if(execution.sql.startsWith("UPDATE account SET balance")) throw new SQLException("deadlock", "40001");
+			return 1;
+		});
+		assertThrows(SQLException.class, () -> tracker.update(conn, Arrays.asList(a, b, untracked), 0));
+		assertFalse(tracker.isDirty(a));
+		assertTrue(tracker.isDirty(b));
+
+		//没有跟踪的bean失败时，已跟踪的组已经写入
+		jdbc.respond(execution -> {
+			if(execution.sql.equals(writer.getUpdateSql())) throw new SQLException("lock wait timeout", "40001");
+			return 1;
+		});
+		assertThrows(SQLException.class, () -> tracker.update(conn, Arrays.asList(b, untracked), 0));
+		assertFalse(tracker.isDirty(b));
+	}
+}
@@ -0,0 +1,219 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	private static MiniConnectionPool pool(StubPoolDataSource dataSource, int size, int timeout, CircuitBreaker breaker) {
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, size, timeout);
+		pool.setCircuitBreaker(breaker);
+		return pool;
+	}
+
+	/**
+	 * 借满容量再全部归还，熔断器关闭后容量和内部计数都应该恢复
+	 */
+	private static void borrowFullCapacity(MiniConnectionPool pool, int size) throws SQLException {
+		Connection[] borrowed = new Connection[size];
+		for(int i=0; i<size; i++){
+			borrowed[i] = pool.getConnection();
+		}
+		assertNull(pool.tryGetConnection());
+		assertEquals(size, pool.getActiveConnections());
+		for(Connection conn : borrowed){
+			conn.close();
+		}
+		assertEquals(0, pool.getActiveConnections());
+		assertEquals(size, pool.getInactiveConnections());
+	}
+
+	@Test
+	public void opensAfterThresholdAndFailsFast() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(3).setOpenMillis(60000);
+		MiniConnectionPool pool = pool(dataSource, 2, 0, breaker);
+
+		dataSource.setDown(true);
+		for(int i=0; i<3; i++){
+			SQLException e = assertThrows(SQLException.class, pool::getConnection);
+			assertEquals(SQLNonTransientConnectionException.class, e.getClass());
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		//打开期间不再访问数据库
+		assertThrows(CircuitBreaker.OpenException.class, pool::getConnection);
+		assertThrows(CircuitBreaker.OpenException.class, pool::getConnection);
+		assertEquals(3, dataSource.attempts.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void successfulBorrowClearsConsecutiveFailures() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(2).setOpenMillis(60000);
+		MiniConnectionPool pool = pool(dataSource, 2, 0, breaker);
+
+		dataSource.setDown(true);
+		assertThrows(SQLException.class, pool::getConnection);
+		dataSource.setDown(false);
+		pool.getConnection().close();
+		dataSource.setDown(true);
+		pool.getConnection().close();	//复用空闲连接
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+		pool.setPoolSize(1);
+		Connection held = pool.getConnection();
+		assertThrows(MiniConnectionPool.TimeoutException.class, pool::getConnection);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		held.close();
+	}
+
+	@Test
+	public void driverReportedConnectionErrorCountsAsFailure() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(1).setOpenMillis(60000);
+		MiniConnectionPool pool = pool(dataSource, 2, 0, breaker);
+
+		Connection conn = pool.getConnection();
+		dataSource.connections.get(0).fireError(new SQLNonTransientConnectionException("connection reset", "08006"));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(0, pool.getActiveConnections());
+		assertEquals(1, dataSource.closed.get());
+		assertThrows(CircuitBreaker.OpenException.class, pool::getConnection);
+
+		//已经被丢弃的连接再关闭不影响计数
+		conn.close();
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void waitersAreRejectedWhenTheBreakerOpens() throws Exception {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(1).setOpenMillis(60000);
+		final MiniConnectionPool pool = pool(dataSource, 1, 30, breaker);
+		Connection held = pool.getConnection();
+
+		FutureTask<?>[] waiters = new FutureTask<?>[2];
+		Thread[] threads = new Thread[waiters.length];
+		for(int i=0; i<waiters.length; i++){
+			waiters[i] = new FutureTask<Connection>(pool::getConnection);
+			threads[i] = new Thread(waiters[i]);
+			threads[i].start();
+		}
+		for(Thread thread : threads){
+			awaitParked(thread);
+		}
+
+		breaker.onFailure(new SQLNonTransientConnectionException("database is down", "08001"));
+		for(FutureTask<?> waiter : waiters){
+			try {
+				waiter.get(5, TimeUnit.SECONDS);
+				fail("waiter should be rejected");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof CircuitBreaker.OpenException);
+			}
+		}
+
+		//熔断期间归还的连接直接关闭
+		held.close();
+		assertEquals(1, dataSource.closed.get());
+		assertEquals(0, pool.getInactiveConnections());
+
+		//关闭后唤醒用的额外许可已经收回，容量仍然是1
+		breaker.reset();
+		borrowFullCapacity(pool, 1);
+		borrowFullCapacity(pool, 1);
+	}
+
+	@Test
+	public void halfOpenTrialSuccessClosesTheBreaker() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(1).setOpenMillis(0);
+		MiniConnectionPool pool = pool(dataSource, 3, 0, breaker);
+		Connection held = pool.getConnection();
+
+		dataSource.setDown(true);
+		assertThrows(SQLNonTransientConnectionException.class, pool::getConnection);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		held.close();
+		assertEquals(0, pool.getInactiveConnections());
+
+		//打开期满，下一个借用者作为试探创建新连接
+		dataSource.setDown(false);
+		Connection trial = pool.getConnection();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		trial.close();
+
+		borrowFullCapacity(pool, 3);
+		borrowFullCapacity(pool, 3);
+		assertEquals(3, dataSource.open());
+	}
+
+	@Test
+	public void halfOpenTrialFailureReopensTheBreaker() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(1).setOpenMillis(0);
+		MiniConnectionPool pool = pool(dataSource, 2, 0, breaker);
+
+		dataSource.setDown(true);
+		assertThrows(SQLNonTransientConnectionException.class, pool::getConnection);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		//试探访问了数据库并且失败，重新打开
+		assertThrows(SQLNonTransientConnectionException.class, pool::getConnection);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(2, dataSource.attempts.get());
+
+		breaker.setOpenMillis(60000);
+		assertThrows(CircuitBreaker.OpenException.class, pool::getConnection);
+		assertEquals(2, dataSource.attempts.get());
+
+		//恢复后容量完整
+		dataSource.setDown(false);
+		breaker.setOpenMillis(0);
+		pool.getConnection().close();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		borrowFullCapacity(pool, 2);
+	}
+
+	@Test
+	public void onlyOneTrialAtATime() throws SQLException {
+		CircuitBreaker breaker = new CircuitBreaker().setFailureThreshold(1).setOpenMillis(0);
+		breaker.onFailure(new SQLNonTransientConnectionException("database is down", "08001"));
+
+		assertTrue(breaker.acquire());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertThrows(CircuitBreaker.OpenException.class, breaker::acquire);
+
+		//放弃的试探不改变状态，下一个调用者可以立即试探
+		breaker.abandonTrial();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertTrue(breaker.acquire());
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(false, breaker.acquire());
+	}
+
+	private static void awaitParked(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(thread.getState() != Thread.State.TIMED_WAITING){
+			if(System.nanoTime() > deadline){
+				fail("thread did not start waiting");
+			}
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarSnapshotTest {
+	private static final Timestamp AT = Timestamp.valueOf("2026-01-02 03:04:05");
+
+	private Path dir;
+	private Path file;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("snapshot");
+		file = dir.resolve("table.snapshot");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(dir);
+	}
+
+	private static ColumnarTable load() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc().respond(execution -> FakeJdbc.table("id", Types.BIGINT, "price", Types.DECIMAL,
+				"name", Types.VARCHAR, "at", Types.TIMESTAMP)
+				.decimal(1, 10, 2)
+				.row(1L, new BigDecimal("1.50"), "b", AT)
+				.row(2L, null, "a", null)
+				.row(3L, new BigDecimal("-0.01"), null, AT));
+		return new SQLExecutor().selectColumnar(jdbc.connection(), "select id, price, name, at from item");
+	}
+
+	@Test
+	public void writtenTablesAreReadBack() throws SQLException, IOException {
+		ColumnarSnapshot.write(load(), "v1", file);
+		ColumnarTable table = ColumnarSnapshot.read(file, "v1");
+
+		assertEquals(3, table.getRowCount());
+		assertEquals(Arrays.asList("id", "price", "name", "at"), Arrays.asList(table.getColumnName(0),
+				table.getColumnName(1), table.getColumnName(2), table.getColumnName(3)));
+		assertEquals(ColumnarTable.ColumnType.STRING, table.getColumnType(2));
+		assertEquals(2, table.getColumnScale(1));
+
+		assertEquals(3, table.getLong(2, 0));
+		assertEquals(new BigDecimal("1.50"), table.getBigDecimal(0, 1));
+		assertNull(table.getBigDecimal(1, 1));
+		assertEquals(new BigDecimal("-0.01"), table.getBigDecimal(2, 1));
+		assertEquals("b", table.getString(0, 2));
+		assertEquals("a", table.getString(1, 2));
+		assertTrue(table.isNull(2, 2));
+		assertEquals(AT, table.getTimestamp(0, 3));
+		assertTrue(table.isNull(1, 3));
+		assertEquals(2, table.dictionarySize(2));
+		assertEquals(1, table.index(0).find(2));
+
+		//版本标记不同或文件不存在时不使用文件
+		assertNull(ColumnarSnapshot.read(file, "v2"));
+		assertNull(ColumnarSnapshot.read(dir.resolve("missing"), "v1"));
+	}
+
+	@Test
+	public void headerDescribesTheBody() throws SQLException, IOException {
+		ColumnarSnapshot.write(load(), "v1", file);
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+		assertEquals(ColumnarSnapshot.MAGIC, header.getInt(0));
+		assertEquals(ColumnarSnapshot.FORMAT_VERSION, header.getInt(4));
+		assertEquals(bytes.length - 24, header.getLong(8));
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 24, bytes.length - 24);
+		assertEquals(crc.getValue(), header.getLong(16));
+		//各段按8字节对齐
+		assertEquals(0, bytes.length & 7);
+
+		//其他格式版本的文件不使用
+		header.putInt(4, ColumnarSnapshot.FORMAT_VERSION + 1);
+		Files.write(file, bytes);
+		assertNull(ColumnarSnapshot.read(file, "v1"));
+	}
+
+	@Test
+	public void corruptFilesAreRejected() throws SQLException, IOException {
+		ColumnarSnapshot.write(load(), "v1", file);
+		byte[] bytes = Files.readAllBytes(file);
+
+		byte[] flipped = bytes.clone();
+		flipped[flipped.length - 9] ^= 1;
+		Files.write(file, flipped);
+		IOException e = assertThrows(IOException.class, () -> ColumnarSnapshot.read(file, "v1"));
+		assertTrue(e.getMessage().contains("checksum"));
+
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+		e = assertThrows(IOException.class, () -> ColumnarSnapshot.read(file, "v1"));
+		assertTrue(e.getMessage().contains("truncated"));
+
+		byte[] magic = bytes.clone();
+		magic[0] ^= 1;
+		Files.write(file, magic);
+		e = assertThrows(IOException.class, () -> ColumnarSnapshot.read(file, "v1"));
+		assertTrue(e.getMessage().contains("not a snapshot"));
+	}
+
+	@Test
+	public void openReloadsWhenTheFileIsUnusable() throws SQLException, IOException {
+		final AtomicInteger loads = new AtomicInteger();
+		ColumnarSnapshot.Source source = () -> {
+			loads.incrementAndGet();
+			return load();
+		};
+
+		//第一次打开时没有文件，加载并写入文件
+		assertEquals(3, new ColumnarSnapshot(file, "v1", source).open().getRowCount());
+		assertEquals(1, loads.get());
+
+		//文件可用时直接映射
+		assertEquals("b", new ColumnarSnapshot(file, "v1", source).open().getString(0, 2));
+		assertEquals(1, loads.get());
+
+		//文件损坏时重新加载并覆盖
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length - 9] ^= 1;
+		Files.write(file, bytes);
+		ColumnarSnapshot snapshot = new ColumnarSnapshot(file, "v1", source);
+		assertEquals(3, snapshot.open().getRowCount());
+		assertEquals(2, loads.get());
+		assertEquals(3, ColumnarSnapshot.read(file, "v1").getRowCount());
+
+		//版本标记变化后也重新加载
+		new ColumnarSnapshot(file, "v2", source).open();
+		assertEquals(3, loads.get());
+	}
+}
@@ -0,0 +1,157 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Test;
+
+public class ColumnarTableTest {
+
+	/**
+	 * 按列的(名称, sql类型, 精度, 小数位数)和行数据生成只进的结果集
+	 */
+	private static ResultSet resultSet(final Object[][] columns, final Object[][] rows) {
+		final ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(ColumnarTableTest.class.getClassLoader(),
+				new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+			switch(method.getName()){
+			case "getColumnCount": return columns.length;
+			case "getColumnLabel": return columns[(Integer) args[0] - 1][0];
+			case "getColumnType": return columns[(Integer) args[0] - 1][1];
+			case "getPrecision": return columns[(Integer) args[0] - 1][2];
+			case "getScale": return columns[(Integer) args[0] - 1][3];
+			default: throw new UnsupportedOperationException(method.getName());
+			}
+		});
+
+		final int[] row = {-1};
+		final boolean[] wasNull = {false};
+		return (ResultSet) Proxy.newProxyInstance(ColumnarTableTest.class.getClassLoader(),
+				new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+			switch(method.getName()){
+			case "getMetaData": return meta;
+			case "next": return ++row[0] < rows.length;
+			case "wasNull": return wasNull[0];
+			}
+
+			Object value = rows[row[0]][(Integer) args[0] - 1];
+			wasNull[0] = value == null;
+			switch(method.getName()){
+			case "getLong": return value == null ? 0L : ((Number) value).longValue();
+			case "getDouble": return value == null ? 0d : ((Number) value).doubleValue();
+			case "getBigDecimal": return value == null ? null : new BigDecimal(value.toString());
+			case "getString": return value == null ? null : value.toString();
+			default: throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	@Test
+	public void scaledDecimalsAreStoredExactly() throws SQLException {
+		Object[][] columns = {{"id", Types.BIGINT, 19, 0}, {"price", Types.DECIMAL, 18, 2}};
+		Object[][] rows = {{1L, "0.10"}, {2L, "12345678901234567.89"}, {3L, null}, {4L, "0.3"}};
+		ColumnarTable table = ColumnarTable.load(resultSet(columns, rows));
+
+		assertEquals(ColumnarTable.ColumnType.LONG, table.getColumnType(1));
+		assertEquals(2, table.getColumnScale(1));
+		assertEquals(0, table.getColumnScale(0));
+
+		assertEquals(new BigDecimal("0.10"), table.getBigDecimal(0, 1));
+		assertEquals(new BigDecimal("12345678901234567.89"), table.getBigDecimal(1, 1));
+		assertNull(table.getBigDecimal(2, 1));
+		assertEquals(new BigDecimal("0.30"), table.getBigDecimal(3, 1));
+
+		assertEquals(10, table.getLong(0, 1));
+		assertEquals(0.1, table.getDouble(0, 1), 0);
+		assertEquals("12345678901234567.89", table.getString(1, 1));
+		assertEquals(new BigDecimal("2"), table.getBigDecimal(1, 0));
+	}
+
+	@Test
+	public void decimalsBeyondLongPrecisionAreStrings() {
+		assertEquals(ColumnarTable.ColumnType.LONG, ColumnarTable.Builder.typeOf(Types.NUMERIC, 18, 0));
+		assertEquals(ColumnarTable.ColumnType.LONG, ColumnarTable.Builder.typeOf(Types.DECIMAL, 10, 4));
+		assertEquals(ColumnarTable.ColumnType.STRING, ColumnarTable.Builder.typeOf(Types.DECIMAL, 19, 2));
+		assertEquals(ColumnarTable.ColumnType.STRING, ColumnarTable.Builder.typeOf(Types.NUMERIC, 0, -127));
+		assertEquals(ColumnarTable.ColumnType.DOUBLE, ColumnarTable.Builder.typeOf(Types.DOUBLE, 15, 0));
+	}
+
+	@Test
+	public void valueThatDoesNotFitTheScaleFails() {
+		Object[][] columns = {{"price", Types.DECIMAL, 10, 2}};
+		Object[][] rows = {{"1.005"}};
+		assertThrows(SQLException.class, () -> ColumnarTable.load(resultSet(columns, rows)));
+	}
+
+	@Test
+	public void buffersGrowPastTheInitialCapacity() throws SQLException {
+		Object[][] columns = {{"id", Types.BIGINT, 19, 0}, {"name", Types.VARCHAR, 10, 0}};
+		Object[][] rows = new Object[5000][];
+		for(int i=0; i<rows.length; i++){
+			rows[i] = new Object[]{i % 3 == 0 ? null : (Object) (long) i, "n" + (i % 10)};
+		}
+		ColumnarTable table = ColumnarTable.load(resultSet(columns, rows));
+
+		assertEquals(5000, table.getRowCount());
+		assertEquals(10, table.dictionarySize(1));
+		for(int i=0; i<rows.length; i++){
+			assertEquals(i % 3 == 0, table.isNull(i, 0));
+			if(i % 3 != 0) assertEquals(i, table.getLong(i, 0));
+			assertEquals("n" + (i % 10), table.getString(i, 1));
+		}
+	}
+
+	@Test
+	public void indexRejectsTablesItCanNotAddress() {
+		ByteBuffer values = ByteBuffer.allocateDirect(8);
+		ColumnarTable.Column column = new ColumnarTable.Column(ColumnarTable.ColumnType.LONG, values, null, null, null, 0, 0);
+		ColumnarTable table = new ColumnarTable(new String[]{"id"}, new ColumnarTable.Column[]{column}, ColumnarTable.MAX_INDEXED_ROWS + 1);
+		assertThrows(IllegalStateException.class, () -> table.index(0));
+	}
+
+	@Test
+	public void indexFindsRows() throws SQLException {
+		Object[][] columns = {{"id", Types.BIGINT, 19, 0}};
+		Object[][] rows = new Object[1000][];
+		for(int i=0; i<rows.length; i++){
+			rows[i] = new Object[]{i * 7L};
+		}
+		ColumnarTable.RowIndex index = ColumnarTable.load(resultSet(columns, rows)).index(0);
+		assertEquals(123, index.find(123 * 7L));
+		assertEquals(-1, index.find(5));
+	}
+
+	@Test
+	public void snapshotKeepsTheScale() throws SQLException, IOException {
+		Object[][] columns = {{"price", Types.NUMERIC, 12, 3}, {"name", Types.VARCHAR, 10, 0}};
+		Object[][] rows = {{"1.234", "b"}, {null, "a"}};
+		ColumnarTable table = ColumnarTable.load(resultSet(columns, rows));
+
+		Path dir = Files.createTempDirectory("columnar");
+		Path file = dir.resolve("table.snapshot");
+		try {
+			ColumnarSnapshot.write(table, "v1", file);
+			ColumnarTable mapped = ColumnarSnapshot.read(file, "v1");
+
+			assertEquals(3, mapped.getColumnScale(0));
+			assertEquals(new BigDecimal("1.234"), mapped.getBigDecimal(0, 0));
+			assertTrue(mapped.isNull(1, 0));
+			assertEquals("a", mapped.getString(1, 1));
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(dir);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * 等待者在各通道中排好队之后再逐个释放许可，dispatch在锁内同步分配，结果是确定的
+ */
+public class ConnectionGateTest {
+	private final List<Thread> waiters = new ArrayList<Thread>();
+	private Semaphore semaphore;
+	private int poolSize;
+	private ConnectionGate gate;
+
+	private void gate(int permits, int poolSize) {
+		this.semaphore = new Semaphore(permits, true);
+		this.poolSize = poolSize;
+		this.gate = new ConnectionGate(semaphore, () -> this.poolSize);
+	}
+
+	@After
+	public void stopWaiters() throws InterruptedException {
+		for(Thread thread : waiters){
+			thread.interrupt();
+			thread.join(5000);
+		}
+	}
+
+	/**
+	 * 在通道中启动count个等待者，返回时它们都已经在排队或者分到了许可
+	 */
+	private void enqueue(String name, int count) throws InterruptedException {
+		final ConnectionGate.Lane lane = gate.lane(name);
+		int expected = gate.waiting(name) + gate.inUse(name) + count;
+		for(int i=0; i<count; i++){
+			Thread thread = new Thread(() -> {
+				try {
+					gate.acquire(lane, TimeUnit.SECONDS.toNanos(30));
+				} catch (InterruptedException e) {
+					//测试结束
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+			waiters.add(thread);
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(gate.waiting(name) + gate.inUse(name) < expected){
+			if(System.nanoTime() > deadline) throw new AssertionError("waiters did not queue");
+			Thread.sleep(1);
+		}
+	}
+
+	private void releaseOne() {
+		semaphore.release();
+		gate.dispatch();
+	}
+
+	@Test
+	public void higherPriorityIsServedFirst() throws InterruptedException {
+		gate(0, 4);
+		gate.define("high", 10, 0, 1.0, 1);
+		gate.define("low", 0, 0, 1.0, 1);
+		enqueue("low", 2);
+		enqueue("high", 2);
+
+		releaseOne();
+		assertEquals(1, gate.inUse("high"));
+		releaseOne();
+		assertEquals(2, gate.inUse("high"));
+		assertEquals(0, gate.inUse("low"));
+		releaseOne();
+		assertEquals(1, gate.inUse("low"));
+	}
+
+	@Test
+	public void laneIsCappedAtItsFractionOfThePool() throws InterruptedException {
+		gate(0, 4);
+		gate.define("batch", 0, 0, 0.5, 1);
+		enqueue("batch", 4);
+
+		for(int i=0; i<4; i++){
+			releaseOne();
+		}
+		assertEquals(2, gate.inUse("batch"));
+		assertEquals(2, gate.waiting("batch"));
+		assertEquals(2, semaphore.availablePermits());
+
+		//通道归还后，下一个等待者补上
+		semaphore.release();
+		gate.release(gate.lane("batch"));
+		assertEquals(2, gate.inUse("batch"));
+		assertEquals(1, gate.waiting("batch"));
+	}
+
+	@Test
+	public void reservationIsKeptForItsLane() throws InterruptedException {
+		gate(0, 4);
+		gate.define("web", 10, 2, 1.0, 1);
+		gate.define("batch", 0, 0, 1.0, 1);
+		enqueue("batch", 4);
+
+		for(int i=0; i<4; i++){
+			releaseOne();
+		}
+		assertEquals(2, gate.inUse("batch"));
+		assertEquals(2, semaphore.availablePermits());
+
+		enqueue("web", 3);
+		assertEquals(2, gate.inUse("web"));
+		assertEquals(0, semaphore.availablePermits());
+	}
+
+	@Test
+	public void samePriorityLanesShareByWeight() throws InterruptedException {
+		gate(0, 12);
+		gate.define("a", 0, 0, 1.0, 2);
+		gate.define("b", 0, 0, 1.0, 1);
+		enqueue("a", 8);
+		enqueue("b", 8);
+
+		for(int i=0; i<6; i++){
+			releaseOne();
+		}
+		assertEquals(4, gate.inUse("a"));
+		assertEquals(2, gate.inUse("b"));
+	}
+
+	@Test
+	public void tryAcquireDoesNotJumpTheQueueOrTakeReservations() throws InterruptedException {
+		gate(2, 4);
+		gate.define("web", 10, 2, 1.0, 1);
+		ConnectionGate.Lane defaultLane = gate.lane(null);
+
+		//剩下的2个许可都是web的保留
+		assertFalse(gate.tryAcquire(defaultLane));
+		assertTrue(gate.tryAcquire(gate.lane("web")));
+		assertEquals(1, gate.inUse("web"));
+
+		semaphore.release(2);
+		assertTrue(gate.tryAcquire(defaultLane));
+		assertEquals(1, gate.inUse(ConnectionGate.DEFAULT_LANE));
+	}
+
+	@Test
+	public void tryAcquireRespectsTheCap() {
+		gate(4, 4);
+		gate.define(ConnectionGate.DEFAULT_LANE, 0, 0, 0.25, 1);
+		ConnectionGate.Lane defaultLane = gate.lane(null);
+
+		assertTrue(gate.tryAcquire(defaultLane));
+		assertFalse(gate.tryAcquire(defaultLane));
+		assertEquals(3, semaphore.availablePermits());
+	}
+
+	@Test
+	public void poolTryGetConnectionGoesThroughTheDefaultLane() throws SQLException {
+		MiniConnectionPool pool = new MiniConnectionPool(new StubPoolDataSource(), 4, 0);
+		pool.defineLane("web", 10, 2, 1.0, 1);
+
+		Connection first = pool.tryGetConnection();
+		Connection second = pool.tryGetConnection();
+		assertNotNull(first);
+		assertNotNull(second);
+		//剩下的是web的保留
+		assertNull(pool.tryGetConnection());
+		assertNotNull(pool.getConnection("web"));
+
+		first.close();
+		assertTrue(pool.getLaneStatus().contains("default(inUse:1;waiting:0)"));
+		second.close();
+		assertTrue(pool.getLaneStatus().contains("default(inUse:0;waiting:0)"));
+	}
+}
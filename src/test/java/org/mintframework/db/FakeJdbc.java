@@ -0,0 +1,565 @@
+package org.mintframework.db;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的jdbc连接，不访问数据库。记录每次执行的语句、参数和语句选项，
+ * 执行的结果由Responder按语句给出：Table表示结果集，Integer表示影响行数，List表示execute依次返回的多个结果
+ */
+final class FakeJdbc {
+	/**
+	 * 给出一次执行的结果
+	 */
+	interface Responder {
+		Object respond(Execution execution) throws SQLException;
+	}
+
+	/**
+	 * getObject(index, Class)的行为
+	 */
+	enum TypedGetObject {
+		/** 值是目标类型的实例时返回，否则抛出S1009 */
+		SUPPORTED,
+		/** 像mysql-connector-java 5.1一样，对不认识的类型抛出普通SQLException(S1009) */
+		REJECTED,
+		/** 抛出SQLFeatureNotSupportedException */
+		NOT_IMPLEMENTED
+	}
+
+	/**
+	 * 一次执行：executeQuery、executeUpdate、execute，或者批量中的一行
+	 */
+	static final class Execution {
+		final String sql;
+		final Object[] params;
+		/** 每个参数使用的setXxx方法名 */
+		final String[] setters;
+		/** setNull或setObject指定的sql类型，没有时为null */
+		final Integer[] sqlTypes;
+		final String kind;
+		final StatementState statement;
+
+		Execution(String sql, StatementState statement, String kind, Map<Integer, Object[]> bound){
+			this.sql = sql;
+			this.statement = statement;
+			this.kind = kind;
+			int size = bound.isEmpty() ? 0 : Collections.max(bound.keySet());
+			params = new Object[size];
+			setters = new String[size];
+			sqlTypes = new Integer[size];
+			for(Map.Entry<Integer, Object[]> entry : bound.entrySet()){
+				Object[] value = entry.getValue();
+				params[entry.getKey() - 1] = value[1];
+				setters[entry.getKey() - 1] = (String) value[0];
+				sqlTypes[entry.getKey() - 1] = (Integer) value[2];
+			}
+		}
+
+		@Override
+		public String toString() {
+			return kind + " " + sql + " " + Arrays.toString(params);
+		}
+	}
+
+	/**
+	 * 语句的选项和状态
+	 */
+	static final class StatementState {
+		final String sql;
+		final boolean returnKeys;
+		final boolean call;
+		final int resultSetType;
+		final int resultSetConcurrency;
+		Integer fetchSize;
+		Integer maxRows;
+		Integer queryTimeout;
+		volatile boolean cancelled;
+		volatile boolean closed;
+
+		private final Map<Integer, Object[]> bound = new TreeMap<Integer, Object[]>();
+		private final List<Map<Integer, Object[]>> batch = new ArrayList<Map<Integer, Object[]>>();
+		private final List<String> sqlBatch = new ArrayList<String>();
+		private final List<Long> keys = new ArrayList<Long>();
+		private List<Object> results = Collections.emptyList();
+		private int current;
+		private ResultSet open;
+
+		StatementState(String sql, boolean returnKeys, boolean call, int resultSetType, int resultSetConcurrency){
+			this.sql = sql;
+			this.returnKeys = returnKeys;
+			this.call = call;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+	}
+
+	/**
+	 * 结果集的内容
+	 */
+	static final class Table {
+		final String[] labels;
+		final int[] types;
+		final int[] precisions;
+		final int[] scales;
+		final List<Object[]> rows = new ArrayList<Object[]>();
+		TypedGetObject typedGetObject = TypedGetObject.SUPPORTED;
+		/** next()被调用的次数，包括返回false的那次 */
+		final AtomicLong nexts = new AtomicLong();
+
+		Table(String[] labels, int[] types){
+			this.labels = labels;
+			this.types = types;
+			this.precisions = new int[labels.length];
+			this.scales = new int[labels.length];
+		}
+
+		Table row(Object... values) {
+			if(values.length != labels.length){
+				throw new IllegalArgumentException("expected " + labels.length + " values");
+			}
+			rows.add(values);
+			return this;
+		}
+
+		Table typedGetObject(TypedGetObject typedGetObject) {
+			this.typedGetObject = typedGetObject;
+			return this;
+		}
+
+		Table decimal(int column, int precision, int scale) {
+			precisions[column] = precision;
+			scales[column] = scale;
+			return this;
+		}
+	}
+
+	/**
+	 * @param columns 交替的列名和java.sql.Types
+	 * @return 没有行的结果集内容
+	 */
+	static Table table(Object... columns) {
+		String[] labels = new String[columns.length / 2];
+		int[] types = new int[labels.length];
+		for(int i=0; i<labels.length; i++){
+			labels[i] = (String) columns[i * 2];
+			types[i] = (Integer) columns[i * 2 + 1];
+		}
+		return new Table(labels, types);
+	}
+
+	final List<Execution> executions = new CopyOnWriteArrayList<Execution>();
+	final List<StatementState> statements = new CopyOnWriteArrayList<StatementState>();
+	/** 语句的cancel和close事件，按发生顺序 */
+	final List<String> events = new CopyOnWriteArrayList<String>();
+	private final AtomicLong nextKey = new AtomicLong(1);
+	private volatile Responder responder = execution -> execution.kind.equals("query") ? table() : 1;
+	private volatile String productName = "MySQL";
+	private volatile boolean rejectStreamingFetchSize;
+
+	FakeJdbc respond(Responder responder) {
+		this.responder = responder;
+		return this;
+	}
+
+	Responder responder() {
+		return responder;
+	}
+
+	FakeJdbc productName(String productName) {
+		this.productName = productName;
+		return this;
+	}
+
+	/**
+	 * 像mysql以外的驱动一样拒绝setFetchSize(Integer.MIN_VALUE)
+	 */
+	FakeJdbc rejectStreamingFetchSize() {
+		this.rejectStreamingFetchSize = true;
+		return this;
+	}
+
+	/**
+	 * @param prefix
+	 * @return 以prefix开头的执行，按执行顺序
+	 */
+	List<Execution> executions(String prefix) {
+		List<Execution> found = new ArrayList<Execution>();
+		for(Execution execution : executions){
+			if(execution.sql.startsWith(prefix)) found.add(execution);
+		}
+		return found;
+	}
+
+	Execution last() {
+		return executions.get(executions.size() - 1);
+	}
+
+	Connection connection() {
+		final boolean[] state = {true, false};	//autoCommit, closed
+		final Connection[] self = new Connection[1];
+		self[0] = proxy(Connection.class, (proxy, method, args) -> {
+			switch(method.getName()){
+			case "createStatement":
+				return statement(self[0], new StatementState(null, false, false,
+						args == null ? ResultSet.TYPE_FORWARD_ONLY : (Integer) args[0],
+						args == null ? ResultSet.CONCUR_READ_ONLY : (Integer) args[1]));
+			case "prepareStatement":
+				boolean keys = args.length == 2 && (args[1] instanceof String[] || args[1] instanceof int[]
+						|| Integer.valueOf(Statement.RETURN_GENERATED_KEYS).equals(args[1]));
+				boolean cursor = args.length >= 3;
+				return statement(self[0], new StatementState((String) args[0], keys, false,
+						cursor ? (Integer) args[1] : ResultSet.TYPE_FORWARD_ONLY,
+						cursor ? (Integer) args[2] : ResultSet.CONCUR_READ_ONLY));
+			case "prepareCall":
+				return statement(self[0], new StatementState((String) args[0], false, true,
+						ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+			case "getAutoCommit": return state[0];
+			case "setAutoCommit": state[0] = (Boolean) args[0]; return null;
+			case "commit":
+			case "rollback":
+				events.add(method.getName());
+				return null;
+			case "close": state[1] = true; return null;
+			case "isClosed": return state[1];
+			case "isValid": return !state[1];
+			case "getMetaData":
+				return proxy(DatabaseMetaData.class, (p, m, a) -> {
+					if(m.getName().equals("getDatabaseProductName")) return productName;
+					throw new UnsupportedOperationException(m.getName());
+				});
+			case "getWarnings": return null;
+			case "clearWarnings": return null;
+			default: return common(proxy, method.getName(), args, "FakeConnection");
+			}
+		});
+		return self[0];
+	}
+
+	private Statement statement(final Connection conn, final StatementState st) {
+		statements.add(st);
+		final Statement[] self = new Statement[1];
+		self[0] = proxy(CallableStatement.class, (proxy, method, args) -> {
+			String name = method.getName();
+			if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer){
+				Integer sqlType = null;
+				Object value = args[1];
+				if(name.equals("setNull")){
+					sqlType = (Integer) args[1];
+					value = null;
+				} else if(name.equals("setObject") && args.length >= 3){
+					sqlType = args[2] instanceof Integer ? (Integer) args[2] : null;
+				}
+				st.bound.put((Integer) args[0], new Object[]{name, value, sqlType});
+				return null;
+			}
+
+			switch(name){
+			case "setFetchSize":
+				if(rejectStreamingFetchSize && (Integer) args[0] < 0){
+					throw new SQLException("Illegal value for setFetchSize(): " + args[0], "S1009");
+				}
+				st.fetchSize = (Integer) args[0];
+				return null;
+			case "setMaxRows": st.maxRows = (Integer) args[0]; return null;
+			case "setQueryTimeout": st.queryTimeout = (Integer) args[0]; return null;
+			case "getFetchSize": return st.fetchSize == null ? 0 : st.fetchSize;
+			case "getMaxRows": return st.maxRows == null ? 0 : st.maxRows;
+			case "getQueryTimeout": return st.queryTimeout == null ? 0 : st.queryTimeout;
+			case "clearParameters": st.bound.clear(); return null;
+			case "addBatch":
+				if(args != null && args.length == 1){
+					st.sqlBatch.add((String) args[0]);
+				} else {
+					st.batch.add(new TreeMap<Integer, Object[]>(st.bound));
+				}
+				return null;
+			case "clearBatch": st.batch.clear(); st.sqlBatch.clear(); return null;
+			case "executeQuery": {
+				Object result = execute(st, sql(st, args), "query", st.bound);
+				if(!(result instanceof Table)){
+					throw new SQLException("statement did not return a result set");
+				}
+				st.results = Collections.singletonList(result);
+				st.current = 0;
+				return resultSet(self[0], (Table) result, st);
+			}
+			case "executeUpdate":
+			case "executeLargeUpdate": {
+				Object result = execute(st, sql(st, args), "update", st.bound);
+				int count = result instanceof Integer ? (Integer) result : 0;
+				generateKeys(st, count);
+				return name.equals("executeUpdate") ? (Object) count : (Object) Long.valueOf(count);
+			}
+			case "executeBatch": {
+				st.keys.clear();
+				int size = st.sqlBatch.isEmpty() ? st.batch.size() : st.sqlBatch.size();
+				int[] counts = new int[size];
+				for(int i=0; i<size; i++){
+					Object result = st.sqlBatch.isEmpty()
+							? execute(st, st.sql, "batch", st.batch.get(i))
+							: execute(st, st.sqlBatch.get(i), "batch", Collections.<Integer, Object[]>emptyMap());
+					counts[i] = result instanceof Integer ? (Integer) result : 0;
+					if(st.returnKeys){
+						for(int k=0; k<counts[i]; k++) st.keys.add(nextKey.getAndIncrement());
+					}
+				}
+				st.batch.clear();
+				st.sqlBatch.clear();
+				return counts;
+			}
+			case "execute": {
+				Object result = execute(st, sql(st, args), "execute", st.bound);
+				List<Object> results = new ArrayList<Object>();
+				if(result instanceof List){
+					results.addAll((List<?>) result);
+				} else {
+					results.add(result);
+				}
+				st.results = results;
+				st.current = 0;
+				return !results.isEmpty() && results.get(0) instanceof Table;
+			}
+			case "getResultSet": {
+				Object result = st.current < st.results.size() ? st.results.get(st.current) : null;
+				if(!(result instanceof Table)) return null;
+				if(st.open == null) st.open = resultSet(self[0], (Table) result, st);
+				return st.open;
+			}
+			case "getUpdateCount": {
+				Object result = st.current < st.results.size() ? st.results.get(st.current) : null;
+				return result instanceof Integer ? (Integer) result : -1;
+			}
+			case "getMoreResults":
+				if(st.open != null) st.open.close();
+				st.open = null;
+				st.current++;
+				return st.current < st.results.size() && st.results.get(st.current) instanceof Table;
+			case "getGeneratedKeys": {
+				Table keys = table("GENERATED_KEY", Types.BIGINT);
+				for(Long key : st.keys) keys.row(key);
+				return resultSet(self[0], keys);
+			}
+			case "cancel":
+				st.cancelled = true;
+				events.add("cancel " + st.sql);
+				return null;
+			case "close":
+				if(!st.closed){
+					st.closed = true;
+					events.add("close " + st.sql);
+				}
+				return null;
+			case "isClosed": return st.closed;
+			case "getConnection": return conn;
+			case "getWarnings": return null;
+			case "clearWarnings": return null;
+			default: return common(proxy, name, args, "FakeStatement " + st.sql);
+			}
+		});
+		return self[0];
+	}
+
+	private static String sql(StatementState st, Object[] args) {
+		return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : st.sql;
+	}
+
+	private Object execute(StatementState st, String sql, String kind, Map<Integer, Object[]> bound) throws SQLException {
+		if(st.closed){
+			throw new SQLException("statement is closed");
+		}
+		Execution execution = new Execution(sql, st, kind, bound);
+		executions.add(execution);
+		return responder.respond(execution);
+	}
+
+	private void generateKeys(StatementState st, int count) {
+		st.keys.clear();
+		if(!st.returnKeys) return;
+		for(int i=0; i<count; i++) st.keys.add(nextKey.getAndIncrement());
+	}
+
+	/**
+	 * @return 按table生成的只进结果集
+	 */
+	static ResultSet resultSet(final Statement statement, final Table table) {
+		return resultSet(statement, table, null);
+	}
+
+	/**
+	 * @param st 不为null时，语句被cancel后next()像mysql一样抛出70100
+	 */
+	private static ResultSet resultSet(final Statement statement, final Table table, final StatementState st) {
+		final ResultSetMetaData meta = proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+			switch(method.getName()){
+			case "getColumnCount": return table.labels.length;
+			case "getColumnLabel":
+			case "getColumnName": return table.labels[(Integer) args[0] - 1];
+			case "getColumnType": return table.types[(Integer) args[0] - 1];
+			case "getColumnTypeName": return JDBCType.valueOf(table.types[(Integer) args[0] - 1]).getName();
+			case "getPrecision": return table.precisions[(Integer) args[0] - 1];
+			case "getScale": return table.scales[(Integer) args[0] - 1];
+			case "isNullable": return ResultSetMetaData.columnNullableUnknown;
+			default: return common(proxy, method.getName(), args, "FakeResultSetMetaData");
+			}
+		});
+
+		final int[] row = {-1};
+		final boolean[] flags = {false, false};	//wasNull, closed
+		return proxy(ResultSet.class, (proxy, method, args) -> {
+			String name = method.getName();
+			switch(name){
+			case "getMetaData": return meta;
+			case "next":
+				if(flags[1]) throw new SQLException("result set is closed");
+				if(st != null && st.cancelled) throw new SQLException("Query execution was interrupted", "70100");
+				table.nexts.incrementAndGet();
+				if(row[0] < table.rows.size()) row[0]++;
+				return row[0] < table.rows.size();
+			case "wasNull": return flags[0];
+			case "close": flags[1] = true; return null;
+			case "isClosed": return flags[1];
+			case "getStatement": return statement;
+			case "getType": return ResultSet.TYPE_FORWARD_ONLY;
+			case "getConcurrency": return ResultSet.CONCUR_READ_ONLY;
+			case "getRow": return row[0] + 1;
+			case "findColumn": return column(table, args[0]);
+			case "getWarnings": return null;
+			case "setFetchSize": return null;
+			}
+			if(!name.startsWith("get") || args == null || args.length == 0){
+				return common(proxy, name, args, "FakeResultSet");
+			}
+			if(flags[1]) throw new SQLException("result set is closed");
+			if(row[0] < 0 || row[0] >= table.rows.size()) throw new SQLException("no current row");
+
+			Object value = table.rows.get(row[0])[column(table, args[0]) - 1];
+			flags[0] = value == null;
+			if(name.equals("getObject") && args.length == 2 && args[1] instanceof Class){
+				return typed(table, value, (Class<?>) args[1]);
+			}
+			return convert(name, value);
+		});
+	}
+
+	private static int column(Table table, Object key) throws SQLException {
+		if(key instanceof Integer) return (Integer) key;
+		for(int i=0; i<table.labels.length; i++){
+			if(table.labels[i].equalsIgnoreCase((String) key)) return i + 1;
+		}
+		throw new SQLException("no column " + key);
+	}
+
+	private static Object typed(Table table, Object value, Class<?> type) throws SQLException {
+		switch(table.typedGetObject){
+		case NOT_IMPLEMENTED:
+			throw new SQLFeatureNotSupportedException("getObject(int, Class)");
+		case REJECTED:
+			if(type != String.class && type != Integer.class && type != Long.class && type != BigDecimal.class
+					&& type != Timestamp.class && type != java.sql.Date.class && type != Time.class && type != byte[].class){
+				throw new SQLException("Conversion not supported for type " + type.getName(), "S1009");
+			}
+			break;
+		default:
+		}
+		if(value == null || type.isInstance(value)) return value;
+		throw new SQLException("Conversion not supported for type " + type.getName(), "S1009");
+	}
+
+	private static Object convert(String getter, Object value) throws SQLException {
+		switch(getter){
+		case "getObject": return value;
+		case "getString":
+			if(value == null) return null;
+			return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : value.toString();
+		case "getInt": return (int) number(value);
+		case "getLong": return (long) number(value);
+		case "getShort": return (short) number(value);
+		case "getByte": return (byte) number(value);
+		case "getDouble": return value == null ? 0d : decimal(value).doubleValue();
+		case "getFloat": return value == null ? 0f : decimal(value).floatValue();
+		case "getBoolean":
+			if(value instanceof Boolean) return value;
+			if(value instanceof String) return "1".equals(value) || "true".equalsIgnoreCase((String) value);
+			return number(value) != 0;
+		case "getBigDecimal": return value == null ? null : decimal(value);
+		case "getBytes":
+			if(value == null || value instanceof byte[]) return value;
+			return value.toString().getBytes(StandardCharsets.UTF_8);
+		case "getTimestamp":
+			if(value == null || value instanceof Timestamp) return value;
+			if(value instanceof LocalDateTime) return Timestamp.valueOf((LocalDateTime) value);
+			if(value instanceof java.util.Date) return new Timestamp(((java.util.Date) value).getTime());
+			return Timestamp.valueOf(value.toString());
+		case "getDate":
+			if(value == null || value instanceof java.sql.Date) return value;
+			if(value instanceof LocalDate) return java.sql.Date.valueOf((LocalDate) value);
+			if(value instanceof java.util.Date) return new java.sql.Date(((java.util.Date) value).getTime());
+			return java.sql.Date.valueOf(value.toString());
+		case "getTime":
+			if(value == null || value instanceof Time) return value;
+			if(value instanceof LocalTime) return Time.valueOf((LocalTime) value);
+			return Time.valueOf(value.toString());
+		case "getBinaryStream":
+			return value == null ? null : new ByteArrayInputStream((byte[]) convert("getBytes", value));
+		case "getCharacterStream":
+			return value == null ? null : new StringReader(value.toString());
+		default:
+			throw new UnsupportedOperationException(getter);
+		}
+	}
+
+	private static long number(Object value) {
+		if(value == null) return 0;
+		if(value instanceof Number) return ((Number) value).longValue();
+		if(value instanceof Boolean) return (Boolean) value ? 1 : 0;
+		return new BigDecimal(value.toString()).longValueExact();
+	}
+
+	private static BigDecimal decimal(Object value) {
+		return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+	}
+
+	private static Object common(Object proxy, String name, Object[] args, String description) throws SQLException {
+		switch(name){
+		case "unwrap": throw new SQLException("not a wrapper");
+		case "isWrapperFor": return false;
+		case "hashCode": return System.identityHashCode(proxy);
+		case "equals": return proxy == args[0];
+		case "toString": return description;
+		default: throw new UnsupportedOperationException(name);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(FakeJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+}
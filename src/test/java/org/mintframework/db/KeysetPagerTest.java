@@ -0,0 +1,139 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class KeysetPagerTest {
+
+	public static class Item {
+		private long id;
+		private String name;
+
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public String getName() {
+			return name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * 模拟有ids行的表，按sql中的键条件、排序和LIMIT返回
+	 */
+	private static FakeJdbc items(int rows) {
+		return new FakeJdbc().respond(execution -> {
+			String sql = execution.sql;
+			int limit = Integer.parseInt(sql.substring(sql.lastIndexOf("LIMIT ") + 6).trim());
+			boolean descending = sql.contains(" DESC ");
+			Long after = sql.contains("id > ?") || sql.contains("id < ?") ? (Long) execution.params[execution.params.length - 1] : null;
+
+			FakeJdbc.Table table = FakeJdbc.table("id", Types.BIGINT, "name", Types.VARCHAR);
+			for(int i=0; i<rows && table.rows.size() < limit; i++){
+				long id = descending ? rows - i : i + 1;
+				if(after == null || (descending ? id < after : id > after)){
+					table.row(id, "item" + id);
+				}
+			}
+			return table;
+		});
+	}
+
+	private static List<Long> ids(List<Item> page) {
+		List<Long> ids = new ArrayList<Long>();
+		for(Item item : page) ids.add(item.getId());
+		return ids;
+	}
+
+	@Test
+	public void pagesSeekPastTheLastKey() throws SQLException {
+		FakeJdbc jdbc = items(5);
+		KeysetPager<Item> pager = new SQLExecutor().keysetPager(Item.class, null, "id", 2, "select * from item where status = ?", 1);
+
+		assertEquals("[1, 2]", ids(pager.next(jdbc.connection())).toString());
+		assertEquals("[3, 4]", ids(pager.next(jdbc.connection())).toString());
+		assertTrue(pager.hasNext());
+		assertEquals("[5]", ids(pager.next(jdbc.connection())).toString());
+		assertFalse(pager.hasNext());
+		assertTrue(pager.next(jdbc.connection()).isEmpty());
+		assertEquals(5L, pager.getLastKey());
+
+		List<FakeJdbc.Execution> executions = jdbc.executions;
+		assertEquals(3, executions.size());
+		assertEquals("select * from item where status = ? ORDER BY id LIMIT 2", executions.get(0).sql);
+		assertEquals("select * from item WHERE (status = ?) AND id > ? ORDER BY id LIMIT 2", executions.get(1).sql);
+		assertEquals(2L, executions.get(1).params[1]);
+	}
+
+	@Test
+	public void fullLastPageNeedsOneMoreEmptyRead() throws SQLException {
+		FakeJdbc jdbc = items(4);
+		KeysetPager<Item> pager = new SQLExecutor().keysetPager(Item.class, null, "id", 2, "select * from item");
+
+		pager.next(jdbc.connection());
+		pager.next(jdbc.connection());
+		assertTrue(pager.hasNext());
+		assertTrue(pager.next(jdbc.connection()).isEmpty());
+		assertFalse(pager.hasNext());
+	}
+
+	@Test
+	public void descendingPagesResumeFromAGivenKey() throws SQLException {
+		FakeJdbc jdbc = items(5);
+		KeysetPager<Item> pager = new SQLExecutor().keysetPager(Item.class, null, "id", 2, "select * from item")
+				.setDescending(true).setLastKey(4L);
+
+		assertEquals("[3, 2]", ids(pager.next(jdbc.connection())).toString());
+		assertTrue(jdbc.last().sql.endsWith("id < ? ORDER BY id DESC LIMIT 2"));
+		assertThrows(IllegalStateException.class, () -> pager.setDescending(false));
+	}
+
+	@Test
+	public void prefetchedPagesComeFromPooledConnections() throws Exception {
+		FakeJdbc jdbc = items(5);
+		StubPoolDataSource dataSource = new StubPoolDataSource().backedBy(jdbc);
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, 2, 0);
+		ExecutorService prefetch = Executors.newSingleThreadExecutor();
+		try {
+			KeysetPager<Item> pager = new SQLExecutor().keysetPager(Item.class, null, "id", 2, "select * from item")
+					.setPool(pool).setPrefetchExecutor(prefetch);
+
+			List<Long> all = new ArrayList<Long>();
+			while(pager.hasNext()){
+				all.addAll(ids(pager.next()));
+			}
+			assertEquals("[1, 2, 3, 4, 5]", all.toString());
+			assertEquals(3, jdbc.executions.size());
+			assertEquals(0, pool.getActiveConnections());
+		} finally {
+			prefetch.shutdownNow();
+			pool.dispose();
+		}
+	}
+
+	@Test
+	public void invalidPagersAreRejected() {
+		SQLExecutor executor = new SQLExecutor();
+
+		assertThrows(IllegalArgumentException.class, () -> executor.keysetPager(Item.class, null, "missing", 2, "select * from item"));
+		assertThrows(IllegalArgumentException.class, () -> executor.keysetPager(Item.class, null, "id", 0, "select * from item"));
+		assertThrows(IllegalArgumentException.class, () -> executor.keysetPager(Item.class, null, "id", 2, "select * from item order by name"));
+		assertThrows(IllegalStateException.class, () -> executor.keysetPager(Item.class, null, "id", 2, "select * from item").next());
+	}
+}
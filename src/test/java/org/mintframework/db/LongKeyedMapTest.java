@@ -0,0 +1,185 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongKeyedMapTest {
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+
+	public static class Line {
+		private long id;
+		private long orderId;
+
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public long getOrderId() {
+			return orderId;
+		}
+		public void setOrderId(long orderId) {
+			this.orderId = orderId;
+		}
+	}
+
+	/**
+	 * @return count个在容量为capacity的表中散列到同一个位置home的键
+	 */
+	private static long[] colliding(int capacity, int home, int count) {
+		int shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		long[] keys = new long[count];
+		int n = 0;
+		for(long key = 1; n < count; key++){
+			if((int) ((key * PHI) >>> shift) == home) keys[n++] = key;
+		}
+		return keys;
+	}
+
+	@Test
+	public void collisionChainsWrapAroundTheTable() {
+		//expectedSize为4时容量为8，最后一个位置的探测链绕回开头
+		LongKeyedMap<String> map = new LongKeyedMap<String>(4);
+		long[] keys = colliding(8, 7, 4);
+		for(long key : keys){
+			assertNull(map.put(key, "v" + key));
+		}
+		for(long key : keys){
+			assertEquals("v" + key, map.get(key));
+		}
+
+		//删除链头后其余元素前移，仍然可以找到
+		assertEquals("v" + keys[0], map.remove(keys[0]));
+		assertNull(map.get(keys[0]));
+		for(int i=1; i<keys.length; i++){
+			assertEquals("v" + keys[i], map.get(keys[i]));
+		}
+
+		//删除链中间的元素后重新插入
+		assertEquals("v" + keys[2], map.remove(keys[2]));
+		assertNull(map.remove(keys[2]));
+		assertEquals(2, map.size());
+		assertNull(map.put(keys[2], "again"));
+		assertNull(map.put(keys[0], "first"));
+		assertEquals("again", map.get(keys[2]));
+		assertEquals("first", map.get(keys[0]));
+		assertEquals("v" + keys[3], map.put(keys[3], "replaced"));
+		assertEquals(4, map.size());
+	}
+
+	@Test
+	public void behavesLikeAHashMapUnderRandomOperations() {
+		Random random = new Random(42);
+		LongKeyedMap<Long> map = new LongKeyedMap<Long>(0);
+		Map<Long, Long> expected = new HashMap<Long, Long>();
+
+		for(int i=0; i<200000; i++){
+			//键的范围很小，频繁出现碰撞、删除和重新插入
+			long key = random.nextInt(512) - 256;
+			switch(random.nextInt(3)){
+			case 0:
+				assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+				break;
+			case 1:
+				assertEquals(expected.remove(key), map.remove(key));
+				break;
+			default:
+				assertEquals(expected.get(key), map.get(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+
+		for(long key=-256; key<256; key++){
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+
+	@Test
+	public void resizesKeepEveryEntry() {
+		LongKeyedMap<Long> map = new LongKeyedMap<Long>();
+		long[] special = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE};
+		for(long key : special){
+			map.put(key, key);
+		}
+		for(long key=1; key<=100000; key++){
+			map.put(key * 1000003, key);
+		}
+
+		assertEquals(100000 + special.length, map.size());
+		for(long key=1; key<=100000; key++){
+			assertEquals(Long.valueOf(key), map.get(key * 1000003));
+		}
+		for(long key : special){
+			assertTrue(map.containsKey(key));
+		}
+		assertFalse(map.containsKey(7));
+		assertEquals(Long.valueOf(-5), map.getOrDefault(7, -5L));
+
+		long[] keys = map.keys();
+		List<Long> values = map.values();
+		assertEquals(map.size(), keys.length);
+		for(int i=0; i<keys.length; i++){
+			assertEquals(map.get(keys[i]), values.get(i));
+		}
+		final int[] visited = {0};
+		map.forEach((key, value) -> {
+			assertEquals(map.get(key), value);
+			visited[0]++;
+		});
+		assertEquals(map.size(), visited[0]);
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(1000003));
+		assertEquals("{}", map.toString());
+	}
+
+	@Test
+	public void invalidArgumentsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new LongKeyedMap<String>(-1));
+		assertThrows(IllegalArgumentException.class, () -> new LongKeyedMap<String>(Integer.MAX_VALUE));
+		assertThrows(IllegalArgumentException.class, () -> new LongKeyedMap<String>().put(1, null));
+	}
+
+	@Test
+	public void queryResultsAreIndexedAndGroupedByLongKeys() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc().respond(execution -> FakeJdbc.table("id", Types.BIGINT, "order_id", Types.BIGINT)
+				.row(1L, 10L).row(2L, 10L).row(3L, 20L).row(4L, null).row(5L, 10L));
+		Connection conn = jdbc.connection();
+		SQLExecutor executor = new SQLExecutor();
+		String sql = "select id, order_id from order_line";
+
+		LongKeyedMap<ResultMap> byOrder = executor.selectResultMapLongMap(conn, "order_id", sql);
+		assertEquals(2, byOrder.size());
+		assertEquals(Long.valueOf(5), byOrder.get(10).getLong("id"));
+
+		LongKeyedMap<Line> byId = executor.selectBeanLongMap(conn, Line.class, null, Line::getId, sql);
+		assertEquals(5, byId.size());
+		assertEquals(20L, byId.get(3).getOrderId());
+
+		LongKeyedMap<List<Line>> groups = executor.selectBeanLongGroups(conn, Line.class, null, Line::getOrderId, sql);
+		assertEquals(3, groups.size());
+		List<Long> ids = new ArrayList<Long>();
+		for(Line line : groups.get(10)) ids.add(line.getId());
+		assertEquals(Arrays.asList(1L, 2L, 5L), ids);
+		//null的order_id读成0
+		assertEquals(1, groups.get(0).size());
+		assertEquals(3L, groups.get(20).get(0).getId());
+	}
+}
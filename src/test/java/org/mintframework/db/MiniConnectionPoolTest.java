@@ -0,0 +1,87 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+public class MiniConnectionPoolTest {
+
+	@Test
+	public void shrinkWhileBorrowedClosesConnectionsAsTheyReturn() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, 4, 0);
+
+		Connection[] borrowed = new Connection[4];
+		for(int i=0; i<borrowed.length; i++){
+			borrowed[i] = pool.getConnection();
+		}
+		pool.setPoolSize(2);
+		assertEquals(2, pool.getPoolSize());
+		assertEquals(4, pool.getActiveConnections());
+
+		//归还的连接超出容量，直接关闭
+		borrowed[0].close();
+		borrowed[1].close();
+		assertEquals(2, dataSource.closed.get());
+		assertEquals(0, pool.getInactiveConnections());
+		assertThrows(MiniConnectionPool.TimeoutException.class, pool::getConnection);
+
+		//回到容量以内后，归还的连接放回池中复用
+		borrowed[2].close();
+		assertEquals(2, dataSource.closed.get());
+		assertEquals(1, pool.getInactiveConnections());
+
+		Connection again = pool.getConnection();
+		assertEquals(4, dataSource.created.get());
+		assertThrows(MiniConnectionPool.TimeoutException.class, pool::getConnection);
+
+		again.close();
+		borrowed[3].close();
+		assertEquals(0, pool.getActiveConnections());
+		assertEquals(2, pool.getInactiveConnections());
+		assertEquals(2, dataSource.open());
+	}
+
+	@Test
+	public void growWhileBorrowedAdmitsNewBorrowers() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, 4, 0);
+		pool.setPoolSize(1);
+
+		Connection first = pool.getConnection();
+		assertThrows(MiniConnectionPool.TimeoutException.class, pool::getConnection);
+
+		pool.setPoolSize(3);
+		Connection second = pool.getConnection();
+		Connection third = pool.getConnection();
+		assertThrows(MiniConnectionPool.TimeoutException.class, pool::getConnection);
+		assertEquals(3, pool.getActiveConnections());
+
+		first.close();
+		second.close();
+		third.close();
+		assertEquals(3, pool.getInactiveConnections());
+	}
+
+	@Test
+	public void shrinkClosesIdleConnectionsImmediately() throws SQLException {
+		StubPoolDataSource dataSource = new StubPoolDataSource();
+		MiniConnectionPool pool = new MiniConnectionPool(dataSource, 4, 0);
+		Connection[] borrowed = new Connection[4];
+		for(int i=0; i<borrowed.length; i++){
+			borrowed[i] = pool.getConnection();
+		}
+		for(Connection conn : borrowed){
+			conn.close();
+		}
+		assertEquals(4, pool.getInactiveConnections());
+
+		pool.setPoolSize(1);
+		assertEquals(1, pool.getInactiveConnections());
+		assertEquals(1, dataSource.open());
+	}
+}
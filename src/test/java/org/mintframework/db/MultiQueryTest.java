@@ -0,0 +1,106 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MultiQueryTest {
+	private final SQLExecutor executor = new SQLExecutor();
+
+	private static FakeJdbc.Table count(long value) {
+		return FakeJdbc.table("count", Types.BIGINT).row(value);
+	}
+
+	private static FakeJdbc.Table names(String... names) {
+		FakeJdbc.Table table = FakeJdbc.table("name", Types.VARCHAR);
+		for(String name : names) table.row(name);
+		return table;
+	}
+
+	@Test
+	public void statementsRunInOneRoundTripAndMapInOrder() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc().respond(execution -> Arrays.asList(count(3), 2, names("a", "b")));
+		Connection conn = jdbc.connection();
+
+		MultiQuery query = executor.multiQuery()
+				.add(executor.scalarMapper(Long.class), "select count(*) from user where status = ?;", 1)
+				.addUpdate("update user set seen = 1 where id in (?, ?) ;", 7L, 8L)
+				.add(executor.scalarListMapper(String.class), "select name from user where status = ?", 2);
+		List<Object> results = query.execute(conn);
+
+		assertEquals(Arrays.<Object>asList(3L, 2, Arrays.asList("a", "b")), results);
+		assertEquals(3, query.size());
+		assertEquals(1, jdbc.executions.size());
+		FakeJdbc.Execution execution = jdbc.last();
+		assertEquals("execute", execution.kind);
+		assertEquals("select count(*) from user where status = ?;\n"
+				+ "update user set seen = 1 where id in (?, ?);\n"
+				+ "select name from user where status = ?", execution.sql);
+		assertArrayEquals(new Object[]{1, 7L, 8L, 2}, execution.params);
+		assertTrue(execution.statement.closed);
+	}
+
+	@Test
+	public void statementsWithoutParametersUseAPlainStatement() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc().respond(execution -> Arrays.asList(count(1), count(2)));
+
+		List<Object> results = executor.multiQuery()
+				.add(executor.scalarMapper(Long.class), "select count(*) from a")
+				.add(executor.scalarMapper(Long.class), "select count(*) from b")
+				.execute(jdbc.connection());
+
+		assertEquals(Arrays.<Object>asList(1L, 2L), results);
+		assertNull(jdbc.last().statement.sql);
+	}
+
+	@Test
+	public void resultsThatDoNotMatchTheStatementsAreRejected() {
+		FakeJdbc fewer = new FakeJdbc().respond(execution -> Arrays.asList(count(1)));
+		assertThrows(SQLException.class, () -> executor.multiQuery()
+				.add(executor.scalarMapper(Long.class), "select count(*) from a")
+				.add(executor.scalarMapper(Long.class), "select count(*) from b")
+				.execute(fewer.connection()));
+
+		FakeJdbc swapped = new FakeJdbc().respond(execution -> Arrays.asList(1, count(1)));
+		assertThrows(SQLException.class, () -> executor.multiQuery()
+				.add(executor.scalarMapper(Long.class), "select count(*) from a")
+				.addUpdate("delete from b")
+				.execute(swapped.connection()));
+
+		FakeJdbc more = new FakeJdbc().respond(execution -> Arrays.asList(count(1), count(2)));
+		assertThrows(SQLException.class, () -> executor.multiQuery()
+				.add(executor.scalarMapper(Long.class), "select count(*) from a")
+				.execute(more.connection()));
+
+		assertThrows(IllegalArgumentException.class, () -> executor.multiQuery().add(null, "select 1"));
+		assertThrows(IllegalArgumentException.class, () -> executor.multiQuery().addUpdate(" ; "));
+	}
+
+	@Test
+	public void procedureCallsSkipUpdateCountsAndExtraResults() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc().respond(execution -> Arrays.asList(1, count(5), 3, names("x"), names("ignored")));
+
+		List<Object> results = executor.call(jdbc.connection(), "{call dashboard(?, ?)}", new Object[]{1, "day"},
+				executor.scalarMapper(Long.class), executor.scalarListMapper(String.class));
+
+		assertEquals(Arrays.<Object>asList(5L, Arrays.asList("x")), results);
+		FakeJdbc.Execution execution = jdbc.last();
+		assertTrue(execution.statement.call);
+		assertArrayEquals(new Object[]{1, "day"}, execution.params);
+		assertTrue(execution.statement.closed);
+
+		FakeJdbc single = new FakeJdbc().respond(e -> Arrays.asList(1, count(5)));
+		assertThrows(SQLException.class, () -> executor.call(single.connection(), "{call dashboard()}", null,
+				executor.scalarMapper(Long.class), executor.scalarMapper(Long.class)));
+	}
+}
@@ -0,0 +1,135 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class NamedSQLExecutorTest {
+	private static final String INSERT = "insert into account(name) values(:name)";
+
+	private final FakeJdbc jdbc = new FakeJdbc();
+	private final Connection conn = jdbc.connection();
+	private final NamedSQLExecutor executor = new NamedSQLExecutor();
+
+	public static class Account {
+		private String name;
+		private long id;
+		private Integer intId;
+		private short shortId;
+		private String textId;
+
+		public Account() {
+		}
+		public Account(String name) {
+			this.name = name;
+		}
+		public String getName() {
+			return name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+		public Integer getIntId() {
+			return intId;
+		}
+		public void setIntId(Integer intId) {
+			this.intId = intId;
+		}
+		public short getShortId() {
+			return shortId;
+		}
+		public void setShortId(short shortId) {
+			this.shortId = shortId;
+		}
+		public String getTextId() {
+			return textId;
+		}
+		public void setTextId(String textId) {
+			this.textId = textId;
+		}
+	}
+
+	@Test
+	public void namedParametersAreBoundInOrder() throws SQLException {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("name", "a");
+		params.put("ids", Arrays.asList(1L, 2L, 3L));
+		executor.update(conn, "update account set name = :name where id in (:ids) or name = :name", params);
+
+		FakeJdbc.Execution execution = jdbc.last();
+		assertEquals("update account set name = ? where id in (?, ?, ?, ?) or name = ?", execution.sql);
+		assertArrayEquals(new Object[]{"a", 1L, 2L, 3L, 3L, "a"}, execution.params);
+	}
+
+	@Test
+	public void insertWritesTheGeneratedKeyBack() throws SQLException {
+		Account account = new Account("a");
+		assertEquals(1L, executor.insert(conn, INSERT, account, "id"));
+		assertEquals(1L, account.getId());
+
+		executor.insert(conn, INSERT, account, "intId");
+		assertEquals(Integer.valueOf(2), account.getIntId());
+		executor.insert(conn, INSERT, account, "shortId");
+		assertEquals(3, account.getShortId());
+		executor.insert(conn, INSERT, account, "textId");
+		assertEquals("4", account.getTextId());
+
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("name", "b");
+		assertEquals(5L, executor.insert(conn, INSERT, map, "id"));
+		assertEquals(5L, map.get("id"));
+
+		assertThrows(IllegalArgumentException.class, () -> executor.insert(conn, INSERT, account, "missing"));
+	}
+
+	@Test
+	public void keysOutOfThePropertyRangeAreRejected() throws SQLException {
+		//第一次insert生成40000个键，消耗掉short能表示的范围
+		jdbc.respond(execution -> jdbc.executions.size() == 1 ? 40000 : 1);
+		executor.insert(conn, "insert into account(name) select :name from seq", new Account("a"), null);
+
+		Account account = new Account("b");
+		assertThrows(ArithmeticException.class, () -> executor.insert(conn, INSERT, account, "shortId"));
+		assertEquals(0, account.getShortId());
+		executor.insert(conn, INSERT, account, "intId");
+		assertEquals(Integer.valueOf(40002), account.getIntId());
+	}
+
+	@Test
+	public void insertBatchWritesKeysInOrder() throws SQLException {
+		List<Account> accounts = Arrays.asList(new Account("a"), new Account("b"), new Account("c"));
+		long[] keys = executor.insertBatch(conn, INSERT, accounts, "id", 2);
+
+		assertArrayEquals(new long[]{1, 2, 3}, keys);
+		assertEquals(1L, accounts.get(0).getId());
+		assertEquals(3L, accounts.get(2).getId());
+	}
+
+	@Test
+	public void batchRowsMustExpandToTheSameSql() throws SQLException {
+		String sql = "delete from account where id in (:ids)";
+		Map<String, Object> one = new HashMap<String, Object>();
+		one.put("ids", Arrays.asList(1L));
+		Map<String, Object> three = new HashMap<String, Object>();
+		three.put("ids", Arrays.asList(1L, 2L, 3L));
+
+		assertThrows(SQLException.class, () -> executor.batch(conn, sql, Arrays.asList(one, three)));
+		assertThrows(SQLException.class, () -> executor.batch(conn, sql, Arrays.<Object>asList()));
+		assertEquals(0, jdbc.executions.size());
+	}
+}
@@ -0,0 +1,181 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelScanTest {
+	private final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+	private final List<MiniConnectionPool> pools = new ArrayList<MiniConnectionPool>();
+
+	public static class Row {
+		private long id;
+
+		public long getId() {
+			return id;
+		}
+		public void setId(long id) {
+			this.id = id;
+		}
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		forkJoinPool.shutdownNow();
+		for(MiniConnectionPool pool : pools){
+			pool.dispose();
+		}
+	}
+
+	private static FakeJdbc.Table ids(long from, long to) {
+		FakeJdbc.Table table = FakeJdbc.table("id", Types.BIGINT);
+		for(long id=from; id<to; id++) table.row(id);
+		return table;
+	}
+
+	/**
+	 * 分界点为10和20的三个分区，分别返回tables中的表
+	 */
+	private ParallelScan<Row> scan(FakeJdbc jdbc, FakeJdbc.Table... tables) {
+		jdbc.respond(execution -> {
+			if(execution.sql.endsWith("id >= ? AND id < ?")) return tables[1];
+			if(execution.sql.endsWith("id < ?")) return tables[0];
+			return tables[2];
+		});
+		MiniConnectionPool pool = new MiniConnectionPool(new StubPoolDataSource().backedBy(jdbc), 3, 1);
+		pools.add(pool);
+		return new SQLExecutor().parallelScan(pool, Row.class, null, "id", "select id from item")
+				.setBoundaries(10L, 20L).setForkJoinPool(forkJoinPool);
+	}
+
+	@Test
+	public void rangesArePartitionedAndDeliveredInKeyOrder() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc();
+		final List<Long> seen = new ArrayList<Long>();
+		long rows = scan(jdbc, ids(0, 10), ids(10, 20), ids(20, 30)).setChunkSize(3).setOrdered(true)
+				.run(row -> seen.add(row.getId()));
+
+		assertEquals(30, rows);
+		assertEquals(30, seen.size());
+		for(int i=0; i<seen.size(); i++){
+			assertEquals(Long.valueOf(i), seen.get(i));
+		}
+		assertEquals(3, jdbc.executions.size());
+		for(FakeJdbc.Execution execution : jdbc.executions){
+			assertEquals(Integer.valueOf(Integer.MIN_VALUE), execution.statement.fetchSize);
+		}
+	}
+
+	@Test
+	public void integerKeysAreSplitEvenly() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc();
+		jdbc.respond(execution -> ids(0, 1));
+		MiniConnectionPool pool = new MiniConnectionPool(new StubPoolDataSource().backedBy(jdbc), 4, 1);
+		pools.add(pool);
+
+		new SQLExecutor().parallelScan(pool, Row.class, null, "id", "select id from item where status = ?", 1)
+				.setRange(1, 100).setPartitions(4).setForkJoinPool(forkJoinPool).run(row -> {});
+
+		List<Object> lowers = new ArrayList<Object>();
+		for(FakeJdbc.Execution execution : jdbc.executions){
+			assertEquals(1, execution.params[0]);
+			if(execution.sql.contains("id >= ?")) lowers.add(execution.params[1]);
+		}
+		Collections.sort(lowers, (a, b) -> Long.compare((Long) a, (Long) b));
+		assertEquals("[26, 51, 76]", lowers.toString());
+		assertEquals(4, jdbc.executions.size());
+	}
+
+	@Test
+	public void failuresCancelStreamingQueriesBeforeClosingThem() {
+		FakeJdbc jdbc = new FakeJdbc();
+		FakeJdbc.Table large = ids(10, 100010);
+		final SQLException stop = new SQLException("stop");
+		ParallelScan<Row> scan = scan(jdbc, ids(0, 10), large, ids(100010, 100020)).setChunkSize(5);
+
+		SQLException e = assertThrows(SQLException.class, () -> scan.run(row -> {
+			if(row.getId() == 3){
+				//等大分区开始读取后再失败
+				long deadline = System.currentTimeMillis() + 5000;
+				while(large.nexts.get() == 0 && System.currentTimeMillis() < deadline){
+					Thread.yield();
+				}
+				throw stop;
+			}
+		}));
+
+		assertSame(stop, e);
+		//大分区没有读完
+		assertTrue(large.nexts.get() < 100000);
+		for(FakeJdbc.Execution execution : jdbc.executions){
+			String sql = execution.sql;
+			int cancel = jdbc.events.indexOf("cancel " + sql);
+			int close = jdbc.events.indexOf("close " + sql);
+			assertTrue(close >= 0);
+			//被cancel的语句都是先cancel再关闭，已经读完的分区不需要cancel
+			assertTrue(sql, !execution.statement.cancelled || cancel < close);
+		}
+		assertTrue(jdbc.events.contains("cancel " + jdbc.executions("select id from item WHERE id >= ? AND").get(0).sql));
+	}
+
+	@Test
+	public void orderedScansBoundThePendingChunks() throws SQLException {
+		FakeJdbc jdbc = new FakeJdbc();
+		FakeJdbc.Table first = ids(0, 10), second = ids(10, 20), third = ids(20, 30);
+		final long[] readAhead = new long[2];
+		final List<Long> seen = new ArrayList<Long>();
+		ParallelScan<Row> scan = scan(jdbc, first, second, third).setChunkSize(1).setMaxPendingChunks(2).setOrdered(true);
+		//第一个分区的查询最慢，后面的分区先读到数据
+		FakeJdbc.Responder responder = jdbc.responder();
+		jdbc.respond(execution -> {
+			if(execution.sql.endsWith("WHERE id < ?")){
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return responder.respond(execution);
+		});
+
+		scan.run(row -> {
+			if(seen.isEmpty()){
+				readAhead[0] = second.nexts.get();
+				readAhead[1] = third.nexts.get();
+			}
+			seen.add(row.getId());
+		});
+
+		assertEquals(30, seen.size());
+		for(int i=0; i<seen.size(); i++){
+			assertEquals(Long.valueOf(i), seen.get(i));
+		}
+		//缓存2块，再读到1行后暂停
+		assertEquals(3, readAhead[0]);
+		assertEquals(3, readAhead[1]);
+	}
+
+	@Test
+	public void invalidSettingsAreRejected() {
+		MiniConnectionPool pool = new MiniConnectionPool(new StubPoolDataSource(), 1, 1);
+		pools.add(pool);
+		ParallelScan<Row> scan = new SQLExecutor().parallelScan(pool, Row.class, null, "id", "select id from item");
+
+		assertThrows(IllegalArgumentException.class, () -> scan.setPartitions(0));
+		assertThrows(IllegalArgumentException.class, () -> scan.setChunkSize(0));
+		assertThrows(IllegalArgumentException.class, () -> scan.setMaxPendingChunks(0));
+		assertThrows(IllegalArgumentException.class, () -> scan.setRange(2, 1));
+		assertThrows(IllegalArgumentException.class, () -> new SQLExecutor().parallelScan(null, Row.class, null, "id", "select id from item"));
+	}
+}
@@ -0,0 +1,131 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ParameterBinderTest {
+	private static final String SQL = "update account set balance = ?, note = ? where id = ?";
+
+	private final FakeJdbc jdbc = new FakeJdbc();
+	private final Connection conn = jdbc.connection();
+
+	/**
+	 * 保存的值加上引号，用来确认参数经过了转换器
+	 */
+	private static final FieldColumnConverter<Object> QUOTING = new FieldColumnConverter<Object>() {
+		public Object fieldToColumn(Object fieldValue) {
+			return "'" + fieldValue + "'";
+		}
+
+		public Object ColumnToField(String columnValue, Class<?> fieldType, String columnType) {
+			return columnValue;
+		}
+	};
+
+	@Test
+	public void plansAreCachedPerSqlAndParameterTypes() {
+		ParameterBinder binder = new ParameterBinder(null);
+		BindingPlan plan = binder.plan(SQL, new Object[]{BigDecimal.ONE, "a", 1L});
+
+		assertSame(plan, binder.plan(SQL, new Object[]{BigDecimal.TEN, "b", 2L}));
+		assertNotSame(plan, binder.plan(SQL, new Object[]{BigDecimal.ONE, null, 1L}));
+		assertNotSame(plan, binder.plan(SQL, new Object[]{BigDecimal.ONE, "a", 1}));
+		assertNotSame(plan, binder.plan("select 1", new Object[]{BigDecimal.ONE, "a", 1L}));
+
+		//转换器变化后重新生成计划
+		binder.setConverter(QUOTING);
+		assertNotSame(plan, binder.plan(SQL, new Object[]{BigDecimal.ONE, "a", 1L}));
+	}
+
+	@Test
+	public void bindsStandardTypesWithTheirSetters() throws SQLException {
+		new SQLExecutor().update(conn, SQL, new BigDecimal("1.50"), "note", 7L);
+
+		FakeJdbc.Execution execution = jdbc.last();
+		assertArrayEquals(new String[]{"setBigDecimal", "setString", "setLong"}, execution.setters);
+		assertArrayEquals(new Object[]{new BigDecimal("1.50"), "note", 7L}, execution.params);
+	}
+
+	@Test
+	public void bareNullUsesTheTypeLastSeenForTheSql() throws SQLException {
+		SQLExecutor executor = new SQLExecutor();
+
+		//还没有见过这条sql时只能使用Types.NULL
+		executor.update(conn, SQL, null, "note", 1L);
+		assertEquals("setNull", jdbc.last().setters[0]);
+		assertEquals(Integer.valueOf(Types.NULL), jdbc.last().sqlTypes[0]);
+
+		executor.update(conn, SQL, BigDecimal.ONE, null, 1L);
+		assertEquals(Integer.valueOf(Types.VARCHAR), jdbc.last().sqlTypes[1]);
+
+		//已经缓存的全null计划也使用之后见到的类型
+		executor.update(conn, SQL, null, "note", 1L);
+		assertEquals(Integer.valueOf(Types.DECIMAL), jdbc.last().sqlTypes[0]);
+		executor.update(conn, SQL, null, null, null);
+		assertArrayEquals(new Integer[]{Types.DECIMAL, Types.VARCHAR, Types.BIGINT}, jdbc.last().sqlTypes);
+	}
+
+	@Test
+	public void typedNullBindsItsSqlType() throws SQLException {
+		new SQLExecutor().update(conn, SQL, TypedNull.DECIMAL, TypedNull.of(Types.NVARCHAR), 1L);
+
+		FakeJdbc.Execution execution = jdbc.last();
+		assertEquals("setNull", execution.setters[0]);
+		assertEquals(Integer.valueOf(Types.DECIMAL), execution.sqlTypes[0]);
+		assertEquals(Integer.valueOf(Types.NVARCHAR), execution.sqlTypes[1]);
+		assertNull(execution.params[1]);
+		assertSame(TypedNull.VARCHAR, TypedNull.of(Types.VARCHAR));
+	}
+
+	@Test
+	public void batchNullsUseTheSampleRowTypesAndNullRowsAreSkipped() throws SQLException {
+		Object[][] rows = {
+				null,
+				{BigDecimal.ONE, "first", 1L},
+				{null, null, 2L},
+				{BigDecimal.TEN, "third", 3L}};
+		new SQLExecutor().batch(conn, SQL, rows);
+
+		List<FakeJdbc.Execution> executions = jdbc.executions("update");
+		assertEquals(4, executions.size());
+		//null行不绑定参数
+		assertEquals(0, executions.get(0).params.length);
+		assertArrayEquals(new Integer[]{Types.DECIMAL, Types.VARCHAR, null}, executions.get(2).sqlTypes);
+		assertEquals("setLong", executions.get(2).setters[2]);
+		assertEquals("third", executions.get(3).params[1]);
+	}
+
+	@Test
+	public void converterSeesOnlyTypesWithoutDirectBinding() throws SQLException {
+		SQLExecutor executor = new SQLExecutor(QUOTING);
+		executor.update(conn, SQL, new BigDecimal("2.5"), "note", 1L);
+
+		FakeJdbc.Execution execution = jdbc.last();
+		assertArrayEquals(new String[]{"setObject", "setString", "setLong"}, execution.setters);
+		assertEquals("'2.5'", execution.params[0]);
+		assertEquals("note", execution.params[1]);
+	}
+
+	@Test
+	public void valuesOfAnotherTypeFallBackToResolvingByValue() throws SQLException {
+		ParameterBinder binder = new ParameterBinder(null);
+		BindingPlan plan = binder.plan(SQL, new Object[]{BigDecimal.ONE, "a", 1L});
+
+		java.sql.PreparedStatement pstm = conn.prepareStatement(SQL);
+		plan.bind(pstm, new Object[]{1.5d, 2, 3L, "extra"});
+		pstm.executeUpdate();
+
+		assertArrayEquals(new String[]{"setDouble", "setInt", "setLong", "setString"}, jdbc.last().setters);
+	}
+}
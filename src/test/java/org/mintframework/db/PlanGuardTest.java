@@ -0,0 +1,123 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PlanGuardTest {
+
+	private static EnumSet<PlanGuard.Flag> analyze(String... plan) {
+		return PlanGuard.analyze(Arrays.asList(plan));
+	}
+
+	@Test
+	public void literalsAndInListsAreNormalized() {
+		assertEquals("select * from t where a = ? and b = ? and c in (?)",
+				PlanGuard.normalize("select * from t where a = 'x''y' and b = 12.5 and c in (1, 2, 3)"));
+		assertEquals(PlanGuard.normalize("select * from t where name in ('a','b') and id > 10"),
+				PlanGuard.normalize("select  *\n from t where name in ( 'c' ) and id > 2000 \n"));
+		assertEquals("select * from t where id in (?) and x = (?)", PlanGuard.normalize("select * from t where id in ( ?, ? ,?) and x = (1)"));
+		//标识符中的数字不是字面量
+		assertEquals("select col1, t2.x_3 from t2 limit ?", PlanGuard.normalize("select col1, t2.x_3 from t2 limit 10"));
+		//没有结束的字符串到结尾为止
+		assertEquals("select ?", PlanGuard.normalize("select 'abc"));
+	}
+
+	@Test
+	public void mysqlPlansAreFlagged() {
+		assertEquals(EnumSet.allOf(PlanGuard.Flag.class),
+				analyze("id=1; select_type=SIMPLE; table=t; type=ALL; rows=1000; Extra=Using where; Using temporary; Using filesort"));
+		assertEquals(EnumSet.noneOf(PlanGuard.Flag.class),
+				analyze("id=1; select_type=SIMPLE; table=t; type=ref; key=idx_a; rows=3; Extra=Using index condition"));
+		assertEquals(EnumSet.noneOf(PlanGuard.Flag.class), analyze("id=1; select_type=SIMPLE; table=t; type=index; Extra=Using index"));
+		//EXPLAIN FORMAT=TREE
+		assertEquals(EnumSet.of(PlanGuard.Flag.FULL_SCAN, PlanGuard.Flag.FILESORT),
+				analyze("-> Sort: t.b  (cost=10.25 rows=100)\n    -> Table scan on t  (cost=10.25 rows=100)"));
+	}
+
+	@Test
+	public void postgresqlPlansAreFlagged() {
+		assertEquals(EnumSet.of(PlanGuard.Flag.FULL_SCAN, PlanGuard.Flag.FILESORT), analyze(
+				"Sort  (cost=69.83..72.33 rows=1000 width=36)",
+				"  Sort Key: b",
+				"  ->  Seq Scan on t  (cost=0.00..20.00 rows=1000 width=36)"));
+		assertEquals(EnumSet.of(PlanGuard.Flag.TEMPORARY), analyze(
+				"HashAggregate  (cost=8.30..8.32 rows=2 width=12)",
+				"  Group Key: a",
+				"  ->  Index Scan using t_pkey on t  (cost=0.28..8.29 rows=1 width=4)"));
+		assertEquals(EnumSet.noneOf(PlanGuard.Flag.class), analyze("Index Only Scan using t_a_idx on t  (cost=0.28..4.30 rows=1 width=4)"));
+	}
+
+	@Test
+	public void sqlitePlansAreFlagged() {
+		//EXPLAIN QUERY PLAN有id、parent、notused、detail四列
+		assertEquals(EnumSet.allOf(PlanGuard.Flag.class), analyze(
+				"id=3; parent=0; notused=0; detail=SCAN t",
+				"id=12; parent=0; notused=0; detail=USE TEMP B-TREE FOR GROUP BY",
+				"id=20; parent=0; notused=0; detail=USE TEMP B-TREE FOR ORDER BY"));
+		assertEquals(EnumSet.noneOf(PlanGuard.Flag.class), analyze(
+				"id=3; parent=0; notused=0; detail=SEARCH t USING INDEX t_a (a=?)",
+				"id=5; parent=0; notused=0; detail=SCAN t USING COVERING INDEX t_b"));
+		assertEquals(EnumSet.of(PlanGuard.Flag.FULL_SCAN), analyze("SCAN TABLE t"));
+	}
+
+	@Test
+	public void onlyStaleInFlightSamplesAreEvicted() throws SQLException {
+		Connection conn = new FakeJdbc().connection();
+		PlanGuard guard = new PlanGuard(new MiniConnectionPool(new StubPoolDataSource(), 1, 0), task -> {}).setThresholdMillis(0);
+		SQLExecutor source = new SQLExecutor();
+		long now = System.nanoTime();
+
+		//一半是泄漏的语句，一半还在执行
+		Statement[] statements = new Statement[PlanGuard.MAX_IN_FLIGHT];
+		for(int i=0; i<statements.length; i++){
+			statements[i] = conn.createStatement();
+			long start = i % 2 == 0 ? now - PlanGuard.STALE_IN_FLIGHT_NANOS - 1 : now;
+			guard.begin(statements[i], i % 2 == 0 ? "select leaked" : "select running", null, start);
+		}
+		Statement next = conn.createStatement();
+		guard.begin(next, "select next", null, now);
+
+		guard.end(statements[0], source);
+		guard.end(statements[1], source);
+		guard.end(next, source);
+		assertEquals(Arrays.asList("select next", "select running"), sqls(guard));
+	}
+
+	@Test
+	public void newSamplesAreSkippedWhenAllInFlightSamplesAreRunning() throws SQLException {
+		Connection conn = new FakeJdbc().connection();
+		PlanGuard guard = new PlanGuard(new MiniConnectionPool(new StubPoolDataSource(), 1, 0), task -> {}).setThresholdMillis(0);
+		SQLExecutor source = new SQLExecutor();
+		long now = System.nanoTime();
+
+		Statement first = conn.createStatement();
+		guard.begin(first, "select running", null, now);
+		for(int i=1; i<PlanGuard.MAX_IN_FLIGHT; i++){
+			guard.begin(conn.createStatement(), "select running", null, now);
+		}
+		Statement next = conn.createStatement();
+		guard.begin(next, "select next", null, now);
+
+		guard.end(next, source);
+		guard.end(first, source);
+		assertEquals(Arrays.asList("select running"), sqls(guard));
+		assertEquals(1, guard.getReport().get(0).getCount());
+	}
+
+	private static List<String> sqls(PlanGuard guard) {
+		List<String> sqls = new ArrayList<String>();
+		for(PlanGuard.Entry entry : guard.getReport()) sqls.add(entry.getSql());
+		Collections.sort(sqls);
+		return sqls;
+	}
+}
@@ -0,0 +1,87 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PoolSizerTest {
+	private static final long INTERVAL = 1000000000L;
+	private static final long TARGET_WAIT = 1000000L;
+
+	private static PoolSizer sizer() {
+		return new PoolSizer(2, 20, INTERVAL, TARGET_WAIT, 0, 0);
+	}
+
+	@Test
+	public void growsByWaitersBoundedByAQuarter() {
+		PoolSizer sizer = sizer();
+		sizer.waiters.set(3);
+		assertEquals(10, sizer.decide(8, INTERVAL));
+
+		sizer.waiters.set(100);
+		assertEquals(12, sizer.decide(10, 2 * INTERVAL));
+	}
+
+	@Test
+	public void growsByOneWhenTheAverageWaitIsTooLong() {
+		PoolSizer sizer = sizer();
+		sizer.recordBorrow(5 * TARGET_WAIT);
+		sizer.recordBorrow(0);
+		assertEquals(9, sizer.decide(8, INTERVAL));
+
+		//计数每个周期清零，下一个空闲的周期开始缩小
+		assertEquals(6, sizer.decide(8, 2 * INTERVAL));
+	}
+
+	@Test
+	public void growsAfterTimeouts() {
+		PoolSizer sizer = sizer();
+		sizer.recordTimeout();
+		assertEquals(5, sizer.decide(4, INTERVAL));
+	}
+
+	@Test
+	public void growthIsCappedAtMaxConnections() {
+		PoolSizer sizer = sizer();
+		sizer.waiters.set(10);
+		assertEquals(20, sizer.decide(19, INTERVAL));
+	}
+
+	@Test
+	public void idlePoolShrinksByAtMostAQuarterPerWindow() {
+		PoolSizer sizer = sizer();
+		assertEquals(15, sizer.decide(20, INTERVAL));
+		assertEquals(11, sizer.decide(15, 2 * INTERVAL));
+		assertEquals(8, sizer.decide(11, 3 * INTERVAL));
+	}
+
+	@Test
+	public void shrinkIsBoundedByThePeak() {
+		PoolSizer sizer = sizer();
+		//短暂占用12个连接，平均占用接近0
+		sizer.onActive(12, INTERVAL / 2);
+		sizer.onActive(0, INTERVAL / 2 + 1000);
+		assertEquals(12, sizer.decide(14, INTERVAL));
+
+		//峰值只在一个周期内有效
+		assertEquals(10, sizer.decide(14, 2 * INTERVAL));
+	}
+
+	@Test
+	public void shrinksTowardsLittlesLawWithHeadroom() {
+		PoolSizer sizer = sizer();
+		sizer.onActive(4, 0);
+		//整个周期占用4个连接：需要ceil(4 * 1.5) = 6个
+		assertEquals(6, sizer.decide(7, INTERVAL));
+		assertEquals(4.0, sizer.getLastConcurrency(), 1e-9);
+
+		assertEquals(6, sizer.decide(6, 2 * INTERVAL));
+	}
+
+	@Test
+	public void neverShrinksBelowMinConnections() {
+		PoolSizer sizer = sizer();
+		assertEquals(2, sizer.decide(2, INTERVAL));
+		assertEquals(2, sizer.decide(3, 2 * INTERVAL));
+	}
+}
@@ -0,0 +1,131 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Test;
+
+public class SQLExecutorTest {
+	private final FakeJdbc jdbc = new FakeJdbc().respond(execution -> execution.kind.equals("query")
+			? FakeJdbc.table("id", Types.BIGINT).row(1L).row(2L) : 1);
+	private final Connection conn = jdbc.connection();
+
+	private FakeJdbc.StatementState lastStatement() {
+		return jdbc.statements.get(jdbc.statements.size() - 1);
+	}
+
+	@Test
+	public void singleRowQueriesFetchOneRowByDefault() throws SQLException {
+		SQLExecutor executor = new SQLExecutor();
+
+		executor.selectScalar(conn, Long.class, "select id from t where id = ?", 1L);
+		assertEquals(Integer.valueOf(1), lastStatement().fetchSize);
+
+		executor.selectScalarList(conn, Long.class, "select id from t where id > ?", 0L);
+		assertNull(lastStatement().fetchSize);
+		assertEquals(ResultSet.TYPE_FORWARD_ONLY, lastStatement().resultSetType);
+		assertEquals(ResultSet.CONCUR_READ_ONLY, lastStatement().resultSetConcurrency);
+	}
+
+	@Test
+	public void perCallOptionsOverrideOnlyTheItemsTheySet() throws SQLException {
+		SQLExecutor executor = new SQLExecutor();
+		executor.setQueryOptions(new QueryOptions().setFetchSize(50).setQueryTimeout(30).setMaxRows(1000));
+
+		executor.withOptions(QueryOptions.timeout(5)).selectScalarList(conn, Long.class, "select id from t where id > ?", 0L);
+		FakeJdbc.StatementState st = lastStatement();
+		assertEquals(Integer.valueOf(5), st.queryTimeout);
+		assertEquals(Integer.valueOf(50), st.fetchSize);
+		assertEquals(Integer.valueOf(1000), st.maxRows);
+
+		//单次调用的选项不影响原执行器
+		executor.selectScalarList(conn, Long.class, "select id from t where id > ?", 0L);
+		assertEquals(Integer.valueOf(30), lastStatement().queryTimeout);
+
+		//设置过的fetchSize也用于只读取第一行的查询
+		executor.selectScalar(conn, Long.class, "select id from t where id = ?", 1L);
+		assertEquals(Integer.valueOf(50), lastStatement().fetchSize);
+	}
+
+	@Test
+	public void updatesUseOnlyTheQueryTimeout() throws SQLException {
+		SQLExecutor executor = new SQLExecutor();
+		executor.setQueryOptions(new QueryOptions().setFetchSize(50).setQueryTimeout(30).setMaxRows(1000)
+				.setResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE));
+
+		executor.update(conn, "update t set a = ? where id = ?", 1, 2L);
+		FakeJdbc.StatementState st = lastStatement();
+		assertEquals(Integer.valueOf(30), st.queryTimeout);
+		assertNull(st.fetchSize);
+		assertNull(st.maxRows);
+		assertEquals(ResultSet.TYPE_FORWARD_ONLY, st.resultSetType);
+	}
+
+	@Test
+	public void cursorModesAreAppliedToQueries() throws SQLException {
+		SQLExecutor executor = new SQLExecutor().withOptions(new QueryOptions()
+				.setResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE).setResultSetConcurrency(ResultSet.CONCUR_UPDATABLE));
+
+		executor.selectScalarList(conn, Long.class, "select id from t where id > ?", 0L);
+		assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, lastStatement().resultSetType);
+		assertEquals(ResultSet.CONCUR_UPDATABLE, lastStatement().resultSetConcurrency);
+
+		//流式读取总是使用只进、只读的游标
+		executor.withOptions(QueryOptions.streaming()).selectScalarList(conn, Long.class, "select id from t");
+		assertEquals(ResultSet.TYPE_FORWARD_ONLY, lastStatement().resultSetType);
+		assertEquals(ResultSet.CONCUR_READ_ONLY, lastStatement().resultSetConcurrency);
+	}
+
+	@Test
+	public void streamingFallsBackWhenTheDriverRejectsMinValue() throws SQLException {
+		SQLExecutor streaming = new SQLExecutor().withOptions(QueryOptions.streaming());
+
+		streaming.selectScalarList(conn, Long.class, "select id from t");
+		assertEquals(Integer.valueOf(Integer.MIN_VALUE), lastStatement().fetchSize);
+
+		FakeJdbc postgres = new FakeJdbc().productName("PostgreSQL").rejectStreamingFetchSize();
+		streaming.selectScalarList(postgres.connection(), Long.class, "select id from t");
+		assertEquals(Integer.valueOf(QueryOptions.DEFAULT_STREAMING_FETCH_SIZE), postgres.statements.get(0).fetchSize);
+
+		streaming.withOptions(new QueryOptions().setFetchSize(200)).selectScalarList(postgres.connection(), Long.class, "select id from t");
+		assertEquals(Integer.valueOf(200), postgres.statements.get(1).fetchSize);
+	}
+
+	@Test
+	public void insertReturnsTheGeneratedKeys() throws SQLException {
+		SQLExecutor executor = new SQLExecutor();
+
+		assertArrayEquals(new long[]{1}, executor.insert(conn, "insert into t(a) values(?)", 1));
+		assertTrue(lastStatement().returnKeys);
+		assertArrayEquals(new long[]{2}, executor.insert(conn, "insert into t(a) values(?)", 2));
+
+		//一条语句插入多行时每行一个键
+		jdbc.respond(execution -> 3);
+		assertArrayEquals(new long[]{3, 4, 5}, executor.insert(conn, "insert into t(a) values(1), (2), (3)"));
+
+		jdbc.respond(execution -> 0);
+		assertArrayEquals(new long[0], executor.insert(conn, "insert ignore into t(a) values(1)"));
+	}
+
+	@Test
+	public void insertBatchConcatenatesTheKeysOfEachChunk() throws SQLException {
+		Object[][] rows = {{"a"}, {"b"}, {"c"}, {"d"}, {"e"}};
+		long[] keys = new SQLExecutor().insertBatch(conn, "insert into t(name) values(?)", rows, 2);
+
+		assertArrayEquals(new long[]{1, 2, 3, 4, 5}, keys);
+		assertEquals(5, jdbc.executions("insert").size());
+		assertEquals(1, jdbc.statements.size());
+		assertTrue(lastStatement().closed);
+
+		assertArrayEquals(new long[]{6, 7}, new SQLExecutor().insertBatch(conn, "insert into t(name) values(?)", new Object[][]{{"f"}, {"g"}}));
+		assertThrows(SQLException.class, () -> new SQLExecutor().insertBatch(conn, "insert into t(name) values(?)", new Object[0][]));
+	}
+}
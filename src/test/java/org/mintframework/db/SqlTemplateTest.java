@@ -0,0 +1,99 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SqlTemplateTest {
+
+	private static Map<String, Object> params(Object... nameValues) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		for(int i=0; i<nameValues.length; i+=2){
+			params.put((String) nameValues[i], nameValues[i + 1]);
+		}
+		return params;
+	}
+
+	@Test
+	public void templatesAreParsedOnceAndCached() {
+		String sql = "select * from account where id = :id";
+		assertSame(SqlTemplate.compile(sql), SqlTemplate.compile(sql));
+		assertSame(SqlTemplate.compile(sql), SqlTemplate.compile(new String(sql)));
+	}
+
+	@Test
+	public void quotesCommentsAndCastsAreNotParameters() {
+		SqlTemplate template = SqlTemplate.compile("select ':a', \"b:c\", `d:e`, x::text, 'it''s :f' -- :g\n"
+				+ "from t /* :h */ where id = :id and name = :name and id <> :id");
+
+		assertArrayEquals(new String[]{"id", "name", "id"}, template.getParameterNames());
+		BoundSql bound = template.bind(params("id", 7L, "name", "n"));
+		assertEquals("select ':a', \"b:c\", `d:e`, x::text, 'it''s :f' -- :g\n"
+				+ "from t /* :h */ where id = ? and name = ? and id <> ?", bound.getSql());
+		assertArrayEquals(new Object[]{7L, "n", 7L}, bound.getParams());
+	}
+
+	@Test
+	public void collectionsExpandToPowerOfTwoInLists() {
+		SqlTemplate template = SqlTemplate.compile("select * from t where id in (:ids) and status = :status");
+
+		BoundSql one = template.bind(params("ids", Collections.singletonList(1), "status", 0));
+		assertEquals("select * from t where id in (?) and status = ?", one.getSql());
+
+		//3个元素展开成4个参数，用最后一个元素补齐
+		BoundSql three = template.bind(params("ids", Arrays.asList(1, 2, 3), "status", 0));
+		assertEquals("select * from t where id in (?, ?, ?, ?) and status = ?", three.getSql());
+		assertArrayEquals(new Object[]{1, 2, 3, 3, 0}, three.getParams());
+
+		BoundSql array = template.bind(params("ids", new long[]{1, 2, 3, 4}, "status", 0));
+		assertEquals(three.getSql(), array.getSql());
+		assertArrayEquals(new Object[]{1L, 2L, 3L, 4L, 0}, array.getParams());
+
+		assertEquals(1, SqlTemplate.bucketSize(0));
+		assertEquals(1, SqlTemplate.bucketSize(1));
+		assertEquals(2, SqlTemplate.bucketSize(2));
+		assertEquals(8, SqlTemplate.bucketSize(5));
+		assertEquals(8, SqlTemplate.bucketSize(8));
+		assertEquals(16, SqlTemplate.bucketSize(9));
+	}
+
+	@Test
+	public void byteArraysAreSingleValues() {
+		byte[] data = {1, 2, 3};
+		BoundSql bound = SqlTemplate.compile("update t set data = :data").bind(params("data", data));
+
+		assertEquals("update t set data = ?", bound.getSql());
+		assertSame(data, bound.getParams()[0]);
+	}
+
+	@Test
+	public void emptyCollectionsAreRejected() {
+		SqlTemplate template = SqlTemplate.compile("select * from t where id not in (:ids)");
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> template.bind(params("ids", Collections.emptyList())));
+		assertTrue(e.getMessage().contains("ids"));
+		assertThrows(IllegalArgumentException.class, () -> template.bind(params("ids", new int[0])));
+	}
+
+	@Test
+	public void missingParametersAndPositionalMarkersAreRejected() {
+		SqlTemplate template = SqlTemplate.compile("select * from t where id = :id");
+
+		assertThrows(IllegalArgumentException.class, () -> template.bind(params("other", 1)));
+		assertThrows(IllegalArgumentException.class, () -> template.bind(null));
+		//值为null的参数是存在的
+		assertArrayEquals(new Object[]{null}, template.bind(params("id", null)).getParams());
+		assertThrows(IllegalArgumentException.class, () -> SqlTemplate.compile("select * from t where id = ? and a = :a"));
+		assertEquals(0, SqlTemplate.compile("select '?'").bind(null).getParams().length);
+	}
+}
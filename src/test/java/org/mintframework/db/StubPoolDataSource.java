@@ -0,0 +1,216 @@
+package org.mintframework.db;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+/**
+ * 测试用的池化数据源，不访问数据库。可以模拟数据库不可用，并统计物理连接的创建和关闭。
+ * 设置了FakeJdbc时，语句交给FakeJdbc的连接执行
+ */
+class StubPoolDataSource implements ConnectionPoolDataSource {
+	final AtomicInteger created = new AtomicInteger();
+	final AtomicInteger closed = new AtomicInteger();
+	final AtomicInteger attempts = new AtomicInteger();
+	final List<StubPooledConnection> connections = new CopyOnWriteArrayList<StubPooledConnection>();
+	private final AtomicInteger gauge;
+	private final AtomicInteger peak;
+	private volatile boolean down;
+	private volatile FakeJdbc jdbc;
+
+	StubPoolDataSource() {
+		this(new AtomicInteger(), new AtomicInteger());
+	}
+
+	/**
+	 * @param gauge 打开的物理连接数，可以在多个数据源间共用
+	 * @param peak gauge的最大值
+	 */
+	StubPoolDataSource(AtomicInteger gauge, AtomicInteger peak) {
+		this.gauge = gauge;
+		this.peak = peak;
+	}
+
+	/**
+	 * @param down 为true时创建连接抛出08001
+	 */
+	void setDown(boolean down) {
+		this.down = down;
+	}
+
+	/**
+	 * @param jdbc 之后创建的物理连接上的语句由它执行
+	 * @return 数据源本身
+	 */
+	StubPoolDataSource backedBy(FakeJdbc jdbc) {
+		this.jdbc = jdbc;
+		return this;
+	}
+
+	int open() {
+		return created.get() - closed.get();
+	}
+
+	@Override
+	public PooledConnection getPooledConnection() throws SQLException {
+		attempts.incrementAndGet();
+		if(down){
+			throw new SQLNonTransientConnectionException("database is down", "08001");
+		}
+		StubPooledConnection pconn = new StubPooledConnection();
+		connections.add(pconn);
+		created.incrementAndGet();
+		int open = gauge.incrementAndGet();
+		peak.accumulateAndGet(open, Math::max);
+		return pconn;
+	}
+
+	@Override
+	public PooledConnection getPooledConnection(String user, String password) throws SQLException {
+		return getPooledConnection();
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return 0;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	/**
+	 * 物理连接。getConnection返回的逻辑连接close时通知连接池归还
+	 */
+	final class StubPooledConnection implements PooledConnection {
+		private final List<ConnectionEventListener> listeners = new ArrayList<ConnectionEventListener>();
+		final AtomicInteger commits = new AtomicInteger();
+		final AtomicInteger rollbacks = new AtomicInteger();
+		volatile boolean autoCommit = true;
+		volatile boolean physicallyClosed;
+		private final Connection delegate = jdbc == null ? null : jdbc.connection();
+
+		@Override
+		public Connection getConnection() {
+			final boolean[] logicalClosed = {false};
+			return (Connection) Proxy.newProxyInstance(StubPoolDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+					(proxy, method, args) -> {
+				switch(method.getName()){
+				case "close":
+					if(!logicalClosed[0]){
+						logicalClosed[0] = true;
+						fire(null);
+					}
+					return null;
+				case "isClosed": return logicalClosed[0];
+				case "isValid": return !down;
+				case "getAutoCommit": return autoCommit;
+				case "setAutoCommit": autoCommit = (Boolean) args[0]; return null;
+				case "commit": commits.incrementAndGet(); return null;
+				case "rollback": rollbacks.incrementAndGet(); return null;
+				case "unwrap": throw new SQLException("not a wrapper");
+				case "isWrapperFor": return false;
+				case "hashCode": return System.identityHashCode(proxy);
+				case "equals": return proxy == args[0];
+				case "toString": return "StubConnection";
+				}
+				if(delegate != null){
+					try {
+						return method.invoke(delegate, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+				if(method.getName().equals("createStatement")) return statement();
+				throw new UnsupportedOperationException(method.getName());
+			});
+		}
+
+		/**
+		 * 驱动报告致命错误
+		 * @param e
+		 */
+		void fireError(SQLException e) {
+			fire(e);
+		}
+
+		private void fire(SQLException e) {
+			ConnectionEvent event = new ConnectionEvent(this, e);
+			for(ConnectionEventListener listener : new ArrayList<ConnectionEventListener>(listeners)){
+				if(e == null){
+					listener.connectionClosed(event);
+				} else {
+					listener.connectionErrorOccurred(event);
+				}
+			}
+		}
+
+		private Statement statement() {
+			return (Statement) Proxy.newProxyInstance(StubPoolDataSource.class.getClassLoader(), new Class<?>[]{Statement.class},
+					(proxy, method, args) -> {
+				switch(method.getName()){
+				case "close": return null;
+				case "executeUpdate": return 1;
+				default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		}
+
+		@Override
+		public void close() {
+			if(!physicallyClosed){
+				physicallyClosed = true;
+				closed.incrementAndGet();
+				gauge.decrementAndGet();
+			}
+		}
+
+		@Override
+		public synchronized void addConnectionEventListener(ConnectionEventListener listener) {
+			listeners.add(listener);
+		}
+
+		@Override
+		public synchronized void removeConnectionEventListener(ConnectionEventListener listener) {
+			listeners.remove(listener);
+		}
+
+		@Override
+		public void addStatementEventListener(StatementEventListener listener) {
+		}
+
+		@Override
+		public void removeStatementEventListener(StatementEventListener listener) {
+		}
+	}
+}
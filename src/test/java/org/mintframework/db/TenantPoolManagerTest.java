@@ -0,0 +1,122 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TenantPoolManagerTest {
+	private final AtomicInteger open = new AtomicInteger();
+	private final AtomicInteger peak = new AtomicInteger();
+
+	private TenantPoolManager manager(int total, int perTenant, int timeout) {
+		return new TenantPoolManager(tenant -> new StubPoolDataSource(open, peak), total, perTenant, timeout);
+	}
+
+	@Test
+	public void reclaimsUnusedCapacityFromTheLeastRecentlyUsedTenant() throws Exception {
+		TenantPoolManager manager = manager(2, 2, 0);
+		Connection a = manager.getConnection("a");
+		a.close();
+		Connection b = manager.getConnection("b");
+		assertEquals(2, manager.getTotalConnections());
+
+		//预算用完，从a回收没有借出的容量，关闭它的空闲连接
+		Connection b2 = manager.getConnection("b");
+		assertEquals(0, manager.getPool("a").getPoolSize());
+		assertEquals(2, manager.getPool("b").getPoolSize());
+		assertEquals(2, open.get());
+
+		//没有可以回收的容量时超时
+		assertThrows(MiniConnectionPool.TimeoutException.class, () -> manager.getConnection("a"));
+		b.close();
+		b2.close();
+		manager.dispose();
+	}
+
+	@Test
+	public void tryShrinkUnusedRefusesBorrowedCapacity() throws Exception {
+		MiniConnectionPool pool = new MiniConnectionPool(new StubPoolDataSource(open, peak), 2, 0);
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		assertEquals(false, pool.tryShrinkUnused());
+		assertEquals(2, pool.getPoolSize());
+
+		first.close();
+		assertTrue(pool.tryShrinkUnused());
+		assertEquals(1, pool.getPoolSize());
+		assertEquals(1, open.get());
+		assertNull(pool.tryGetConnection());
+
+		second.close();
+		assertTrue(pool.tryShrinkUnused());
+		assertEquals(0, pool.getPoolSize());
+		assertEquals(0, open.get());
+	}
+
+	@Test
+	public void concurrentTenantsNeverExceedTheBudget() throws Exception {
+		final int budget = 4;
+		final TenantPoolManager manager = manager(budget, budget, 10);
+		final String[] tenants = {"a", "b", "c"};
+		final int threads = 12;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger borrowed = new AtomicInteger();
+		final AtomicInteger maxBorrowed = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(int i=0; i<threads; i++){
+				final String tenant = tenants[i % tenants.length];
+				futures.add(executor.submit(() -> {
+					start.await();
+					for(int n=0; n<300; n++){
+						Connection conn = manager.getConnection(tenant);
+						try {
+							maxBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+							if(ThreadLocalRandom.current().nextInt(4) == 0) Thread.yield();
+						} finally {
+							borrowed.decrementAndGet();
+							conn.close();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for(Future<?> future : futures){
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertTrue("physical connections peaked at " + peak.get(), peak.get() <= budget);
+		assertTrue(maxBorrowed.get() <= budget);
+		assertTrue(manager.getTotalConnections() <= budget);
+
+		int capacity = 0;
+		for(String tenant : tenants){
+			MiniConnectionPool pool = manager.getPool(tenant);
+			assertEquals(0, pool.getActiveConnections());
+			capacity += pool.getPoolSize();
+		}
+		assertEquals(manager.getTotalConnections(), capacity);
+		manager.dispose();
+		assertEquals(0, open.get());
+	}
+}
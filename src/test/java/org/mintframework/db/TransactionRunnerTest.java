@@ -0,0 +1,194 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TransactionRunnerTest {
+	private final StubPoolDataSource dataSource = new StubPoolDataSource();
+	private final MiniConnectionPool pool = new MiniConnectionPool(dataSource, 1, 0);
+
+	private static SQLException error(String state, int code) {
+		return new SQLException("failure", state, code);
+	}
+
+	@Test
+	public void retryableStates() {
+		assertTrue(TransactionRunner.isRetryable(error("40001", 0)));
+		assertTrue(TransactionRunner.isRetryable(error("40P01", 0)));
+		assertTrue(TransactionRunner.isRetryable(new SQLTransactionRollbackException("deadlock", "40001")));
+		assertTrue(TransactionRunner.isRetryable(new SQLTransactionRollbackException("deadlock")));
+
+		//其他40类状态不重试，即使驱动映射成了SQLTransactionRollbackException
+		assertFalse(TransactionRunner.isRetryable(error("40002", 0)));
+		assertFalse(TransactionRunner.isRetryable(error("40003", 0)));
+		assertFalse(TransactionRunner.isRetryable(new SQLTransactionRollbackException("constraint", "40002")));
+		assertFalse(TransactionRunner.isRetryable(new SQLIntegrityConstraintViolationException("duplicate", "23505")));
+		assertFalse(TransactionRunner.isRetryable(error("08006", 0)));
+		assertFalse(TransactionRunner.isRetryable(error(null, 0)));
+	}
+
+	@Test
+	public void retryableVendorCodes() {
+		assertTrue(TransactionRunner.isRetryable(error("40001", 1213)));
+		assertTrue(TransactionRunner.isRetryable(error("HY000", 1205)));
+		assertTrue(TransactionRunner.isRetryable(error("61000", 60)));
+		assertTrue(TransactionRunner.isRetryable(error("72000", 8177)));
+
+		//Oracle的错误码需要对应的SQLState
+		assertFalse(TransactionRunner.isRetryable(error("42000", 60)));
+		assertFalse(TransactionRunner.isRetryable(error("HY000", 8177)));
+		assertFalse(TransactionRunner.isRetryable(error("HY000", 1062)));
+	}
+
+	@Test
+	public void retryableAnywhereInTheChains() {
+		SQLException wrapped = new SQLException("batch failed", "HY000", new SQLException("deadlock", "40P01"));
+		assertTrue(TransactionRunner.isRetryable(wrapped));
+
+		SQLException head = error("HY000", 0);
+		head.setNextException(error("22001", 0));
+		assertFalse(TransactionRunner.isRetryable(head));
+		head.setNextException(error("40001", 0));
+		assertTrue(TransactionRunner.isRetryable(head));
+
+		SQLException nested = error("HY000", 0);
+		nested.setNextException(new SQLException("next", "HY000", new SQLException("lock wait", "HY000", 1205)));
+		assertTrue(TransactionRunner.isRetryable(nested));
+	}
+
+	@Test
+	public void recoversAfterRetryableFailures() throws SQLException {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0);
+		AtomicInteger calls = new AtomicInteger();
+
+		String result = runner.execute(conn -> {
+			assertFalse(conn.getAutoCommit());
+			if(calls.incrementAndGet() <= 2){
+				throw error("40001", 0);
+			}
+			return "done";
+		});
+
+		assertEquals("done", result);
+		assertEquals(3, calls.get());
+		assertEquals(1, runner.getTransactionCount());
+		assertEquals(1, runner.getCommitCount());
+		assertEquals(2, runner.getRetryCount());
+		assertEquals(1, runner.getRecoveredCount());
+		assertEquals(0, runner.getExhaustedCount());
+		assertEquals(0, runner.getFailureCount());
+
+		StubPoolDataSource.StubPooledConnection pconn = dataSource.connections.get(0);
+		assertEquals(2, pconn.rollbacks.get());
+		assertEquals(1, pconn.commits.get());
+		assertTrue(pconn.autoCommit);
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void givesUpAfterMaxAttempts() {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0).setMaxAttempts(3);
+		AtomicInteger calls = new AtomicInteger();
+		SQLException deadlock = error("40P01", 0);
+
+		SQLException e = assertThrows(SQLException.class, () -> runner.execute(conn -> {
+			calls.incrementAndGet();
+			throw deadlock;
+		}));
+
+		assertSame(deadlock, e);
+		assertEquals(3, calls.get());
+		assertEquals(2, runner.getRetryCount());
+		assertEquals(1, runner.getExhaustedCount());
+		assertEquals(0, runner.getCommitCount());
+		assertEquals(0, runner.getFailureCount());
+		assertEquals(3, dataSource.connections.get(0).rollbacks.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void doesNotRetryOtherFailures() {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0);
+		AtomicInteger calls = new AtomicInteger();
+
+		assertThrows(SQLException.class, () -> runner.execute(conn -> {
+			calls.incrementAndGet();
+			throw error("40002", 0);
+		}));
+		assertThrows(IllegalStateException.class, () -> runner.execute(conn -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException();
+		}));
+
+		assertEquals(2, calls.get());
+		assertEquals(2, runner.getTransactionCount());
+		assertEquals(2, runner.getFailureCount());
+		assertEquals(0, runner.getRetryCount());
+		assertEquals(2, dataSource.connections.get(0).rollbacks.get());
+	}
+
+	@Test
+	public void customRetryablePredicate() throws SQLException {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0)
+				.setRetryable(e -> "57014".equals(e.getSQLState()));
+		AtomicInteger calls = new AtomicInteger();
+
+		runner.execute(conn -> {
+			if(calls.incrementAndGet() == 1){
+				throw error("57014", 0);
+			}
+			return null;
+		});
+		assertEquals(2, calls.get());
+		assertThrows(SQLException.class, () -> runner.execute(conn -> {
+			throw error("40001", 0);
+		}));
+		assertEquals(1, runner.getFailureCount());
+	}
+
+	@Test
+	public void backoffStaysWithinTheExponentialCeiling() {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(10, 100);
+		for(int i=0; i<1000; i++){
+			long first = runner.backoff(1);
+			long third = runner.backoff(3);
+			long late = runner.backoff(40);
+			assertTrue(first >= 0 && first <= 10);
+			assertTrue(third >= 0 && third <= 40);
+			assertTrue(late >= 0 && late <= 100);
+		}
+
+		runner.setBackoff(0, 0);
+		assertEquals(0, runner.backoff(1));
+		assertEquals(0, runner.backoff(64));
+	}
+
+	@Test
+	public void backoffIsJittered() {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(1000, 1000);
+		long first = runner.backoff(1);
+		for(int i=0; i<100; i++){
+			if(runner.backoff(1) != first) return;
+		}
+		throw new AssertionError("backoff is not randomized");
+	}
+
+	@Test
+	public void rejectsInvalidSettings() {
+		TransactionRunner runner = new TransactionRunner(pool);
+		assertThrows(IllegalArgumentException.class, () -> runner.setMaxAttempts(0));
+		assertThrows(IllegalArgumentException.class, () -> runner.setBackoff(-1, 10));
+		assertThrows(IllegalArgumentException.class, () -> runner.setBackoff(10, 5));
+		assertThrows(IllegalArgumentException.class, () -> new TransactionRunner(null));
+	}
+}
@@ -0,0 +1,273 @@
+package org.mintframework.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TransactionTemplateTest {
+	private final StubPoolDataSource dataSource = new StubPoolDataSource();
+	private final MiniConnectionPool pool = new MiniConnectionPool(dataSource, 2, 0);
+	private final TransactionTemplate template = new TransactionTemplate(pool);
+
+	private StubPoolDataSource.StubPooledConnection physical(int i) {
+		return dataSource.connections.get(i);
+	}
+
+	@Test
+	public void borrowsNoConnectionUntilAsked() throws SQLException {
+		String result = template.execute(tx -> {
+			assertFalse(tx.hasConnection());
+			return "cached";
+		});
+		assertEquals("cached", result);
+		assertEquals(0, dataSource.attempts.get());
+		assertNull(template.currentTransaction());
+	}
+
+	@Test
+	public void commitsAndRestoresAutoCommit() throws SQLException {
+		template.execute(tx -> {
+			Connection conn = tx.getConnection();
+			assertSame(conn, tx.getConnection());
+			assertFalse(conn.getAutoCommit());
+			assertEquals(1, pool.getActiveConnections());
+			return conn.createStatement().executeUpdate("update t set a = 1");
+		});
+
+		assertEquals(1, physical(0).commits.get());
+		assertEquals(0, physical(0).rollbacks.get());
+		assertTrue(physical(0).autoCommit);
+		assertEquals(0, pool.getActiveConnections());
+		assertEquals(1, pool.getInactiveConnections());
+	}
+
+	@Test
+	public void rollsBackWhenTheCallbackFails() {
+		SQLException failure = new SQLException("duplicate key", "23505");
+		SQLException e = assertThrows(SQLException.class, () -> template.execute(tx -> {
+			tx.getConnection();
+			throw failure;
+		}));
+
+		assertSame(failure, e);
+		assertEquals(0, physical(0).commits.get());
+		assertEquals(1, physical(0).rollbacks.get());
+		assertTrue(physical(0).autoCommit);
+		assertEquals(0, pool.getActiveConnections());
+
+		assertThrows(IllegalStateException.class, () -> template.execute(tx -> {
+			tx.getConnection();
+			throw new IllegalStateException();
+		}));
+		assertEquals(2, physical(0).rollbacks.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void requiredJoinsTheCurrentTransaction() throws SQLException {
+		template.execute(outer -> {
+			Connection conn = outer.getConnection();
+			template.execute(inner -> {
+				assertSame(outer, inner);
+				assertSame(conn, inner.getConnection());
+				return null;
+			});
+			assertSame(outer, template.currentTransaction());
+			return null;
+		});
+
+		assertEquals(1, dataSource.created.get());
+		assertEquals(1, physical(0).commits.get());
+		assertNull(template.currentTransaction());
+	}
+
+	@Test
+	public void requiresNewSuspendsTheCurrentTransaction() throws SQLException {
+		template.execute(outer -> {
+			Connection conn = outer.getConnection();
+			template.execute(TransactionTemplate.Propagation.REQUIRES_NEW, inner -> {
+				assertNotSame(outer, inner);
+				assertSame(inner, template.currentTransaction());
+				assertNotSame(conn, inner.getConnection());
+				assertEquals(2, pool.getActiveConnections());
+				return null;
+			});
+			//内层事务已经提交并归还连接，外层还没有结束
+			assertEquals(1, physical(1).commits.get());
+			assertEquals(0, physical(0).commits.get());
+			assertEquals(1, pool.getActiveConnections());
+			assertSame(outer, template.currentTransaction());
+			return null;
+		});
+
+		assertEquals(1, physical(0).commits.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void mandatoryRequiresATransaction() throws SQLException {
+		assertThrows(IllegalStateException.class,
+				() -> template.execute(TransactionTemplate.Propagation.MANDATORY, tx -> null));
+		assertEquals(0, dataSource.attempts.get());
+
+		template.execute(outer -> template.execute(TransactionTemplate.Propagation.MANDATORY, inner -> {
+			assertSame(outer, inner);
+			return null;
+		}));
+	}
+
+	@Test
+	public void swallowedJoinedFailureRollsBackTheWholeTransaction() {
+		SQLException failure = new SQLException("check failed", "23514");
+		SQLException e = assertThrows(SQLException.class, () -> template.execute(outer -> {
+			outer.getConnection();
+			try {
+				template.execute(inner -> {
+					throw failure;
+				});
+			} catch (SQLException ignored) {
+				assertTrue(outer.isRollbackOnly());
+			}
+			return null;
+		}));
+
+		assertTrue(e.getMessage().contains("rolled back"));
+		assertEquals("40000", e.getSQLState());
+		assertSame(failure, e.getCause());
+		assertEquals(0, physical(0).commits.get());
+		assertEquals(1, physical(0).rollbacks.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void swallowedRetryableJoinedFailureRetriesTheTransaction() throws SQLException {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0);
+		template.setRetry(runner);
+		AtomicInteger calls = new AtomicInteger();
+
+		Integer result = template.execute(outer -> {
+			outer.getConnection();
+			int call = calls.incrementAndGet();
+			try {
+				template.execute(inner -> {
+					if(call == 1) throw new SQLException("deadlock detected", "40P01");
+					return null;
+				});
+			} catch (SQLException ignored) {
+			}
+			return call;
+		});
+
+		assertEquals(Integer.valueOf(2), result);
+		assertEquals(1, runner.getRetryCount());
+		assertEquals(1, physical(0).rollbacks.get());
+		assertEquals(1, physical(0).commits.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+
+	@Test
+	public void swallowedJoinedFailureWithoutConnectionStillFails() {
+		assertThrows(SQLException.class, () -> template.execute(outer -> {
+			try {
+				template.execute(inner -> {
+					throw new IllegalArgumentException();
+				});
+			} catch (IllegalArgumentException ignored) {
+			}
+			return null;
+		}));
+		assertEquals(0, dataSource.attempts.get());
+	}
+
+	@Test
+	public void rollbackOnlyRollsBackWithoutError() throws SQLException {
+		Integer result = template.execute(tx -> {
+			tx.getConnection();
+			tx.setRollbackOnly();
+			return 1;
+		});
+
+		assertEquals(Integer.valueOf(1), result);
+		assertEquals(0, physical(0).commits.get());
+		assertEquals(1, physical(0).rollbacks.get());
+		assertTrue(physical(0).autoCommit);
+	}
+
+	@Test
+	public void completedTransactionCanNotBeUsed() throws SQLException {
+		TransactionTemplate.Context[] saved = new TransactionTemplate.Context[1];
+		template.execute(tx -> {
+			saved[0] = tx;
+			return null;
+		});
+
+		assertTrue(saved[0].isCompleted());
+		assertThrows(IllegalStateException.class, saved[0]::getConnection);
+		assertThrows(IllegalStateException.class, () -> template.executeIn(saved[0], tx -> null));
+		assertThrows(IllegalArgumentException.class,
+				() -> new TransactionTemplate(pool).executeIn(saved[0], tx -> null));
+	}
+
+	@Test
+	public void executeInContinuesTheTransactionOnAnotherThread() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			template.execute(tx -> {
+				Connection conn = tx.getConnection();
+				Callable<Connection> task = () -> template.executeIn(tx, joined -> {
+					assertSame(tx, template.currentTransaction());
+					return joined.getConnection();
+				});
+				try {
+					assertSame(conn, executor.submit(task).get(5, TimeUnit.SECONDS));
+					assertNull(executor.submit(template::currentTransaction).get(5, TimeUnit.SECONDS));
+				} catch (Exception e) {
+					throw new SQLException(e);
+				}
+				return null;
+			});
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, dataSource.created.get());
+		assertEquals(1, physical(0).commits.get());
+	}
+
+	@Test
+	public void retriesTheWholeCallback() throws SQLException {
+		TransactionRunner runner = new TransactionRunner(pool).setBackoff(0, 0);
+		template.setRetry(runner);
+		AtomicInteger calls = new AtomicInteger();
+
+		template.execute(tx -> {
+			tx.getConnection();
+			if(calls.incrementAndGet() == 1){
+				throw new SQLException("deadlock detected", "40P01");
+			}
+			//加入的事务不单独重试
+			return template.execute(inner -> inner.getConnection().getAutoCommit());
+		});
+
+		assertEquals(2, calls.get());
+		assertEquals(1, runner.getTransactionCount());
+		assertEquals(1, runner.getRetryCount());
+		assertEquals(1, runner.getRecoveredCount());
+		assertEquals(1, physical(0).rollbacks.get());
+		assertEquals(1, physical(0).commits.get());
+		assertEquals(0, pool.getActiveConnections());
+	}
+}